@@ -0,0 +1,99 @@
+package yesman.epicfight.benchmark;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import yesman.epicfight.api.animation.Joint;
+import yesman.epicfight.api.animation.JointTransform;
+import yesman.epicfight.api.animation.Pose;
+import yesman.epicfight.api.animation.TransformSheet;
+import yesman.epicfight.api.model.Armature;
+import yesman.epicfight.api.utils.math.OpenMatrix4f;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AnimationBenchmark {
+	@Param({"8", "64"})
+	private int keyframeCount;
+	
+	private TransformSheet sheet;
+	private JointTransform interpolated;
+	private Armature armature;
+	private Pose pose1;
+	private Pose pose2;
+	private OpenMatrix4f[] jointMatrices;
+	private Joint lastJoint;
+	private float time;
+	private int segmentHint;
+	
+	@Setup
+	public void setup() {
+		Random random = new Random(42L);
+		this.sheet = BenchmarkFixtures.randomSheet(random, this.keyframeCount, 2.0F);
+		this.interpolated = JointTransform.empty();
+		this.armature = BenchmarkFixtures.bipedArmature();
+		this.pose1 = BenchmarkFixtures.randomPose(random, this.armature.getJointNames());
+		this.pose2 = BenchmarkFixtures.randomPose(random, this.armature.getJointNames());
+		this.lastJoint = this.armature.searchJointById(this.armature.getJointNumber() - 1);
+	}
+	
+	/** Advances like a playing animation, one tick per call **/
+	private float nextTime() {
+		this.time += 0.05F;
+		
+		if (this.time > 2.0F) {
+			this.time = 0.0F;
+		}
+		
+		return this.time;
+	}
+	
+	@Benchmark
+	public JointTransform sheetInterpolatedTransform() {
+		return this.sheet.getInterpolatedTransform(this.nextTime());
+	}
+	
+	@Benchmark
+	public JointTransform sheetInterpolatedTransformWithHint() {
+		this.segmentHint = this.sheet.getInterpolatedTransform(this.nextTime(), this.segmentHint, this.interpolated);
+		return this.interpolated;
+	}
+	
+	@Benchmark
+	public Pose poseInterpolate() {
+		return Pose.interpolatePose(this.pose1, this.pose2, 0.37F);
+	}
+	
+	@Benchmark
+	public OpenMatrix4f[] armaturePoseAsTransformMatrix() {
+		return this.armature.getPoseAsTransformMatrix(this.pose1);
+	}
+	
+	@Benchmark
+	public OpenMatrix4f[] armaturePoseAsTransformMatrixReused() {
+		this.jointMatrices = this.armature.getPoseAsTransformMatrix(this.pose1, this.jointMatrices);
+		return this.jointMatrices;
+	}
+	
+	/** Repeated queries on an unchanged pose, served by the binded transform cache after the first call **/
+	@Benchmark
+	public OpenMatrix4f armatureBindedTransform() {
+		return this.armature.getBindedTransformFor(this.pose1, this.lastJoint);
+	}
+}
\ No newline at end of file
@@ -0,0 +1,148 @@
+package yesman.epicfight.benchmark;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Map;
+import java.util.Random;
+
+import com.mojang.blaze3d.vertex.VertexConsumer;
+import com.mojang.math.Quaternion;
+import com.mojang.math.Vector3f;
+
+import net.minecraft.resources.ResourceLocation;
+import yesman.epicfight.api.animation.JointTransform;
+import yesman.epicfight.api.animation.Keyframe;
+import yesman.epicfight.api.animation.Pose;
+import yesman.epicfight.api.animation.TransformSheet;
+import yesman.epicfight.api.client.model.AnimatedMesh;
+import yesman.epicfight.api.client.model.ModelPart;
+import yesman.epicfight.api.client.model.VertexIndicator.AnimatedVertexIndicator;
+import yesman.epicfight.api.model.JsonModelLoader;
+import yesman.epicfight.api.utils.math.OpenMatrix4f;
+import yesman.epicfight.api.utils.math.Vec3f;
+import yesman.epicfight.client.mesh.HumanoidMesh;
+import yesman.epicfight.model.armature.HumanoidArmature;
+
+/** Headless fixtures: the biped armature and mesh are read from the bundled assets, everything else is generated from a fixed seed **/
+public class BenchmarkFixtures {
+	public static final ResourceLocation BIPED = new ResourceLocation("epicfight", "animmodels/entity/biped.json");
+	
+	public static JsonModelLoader bundledModel(ResourceLocation rl) {
+		try (InputStream inputstream = BenchmarkFixtures.class.getResourceAsStream("/assets/" + rl.getNamespace() + "/" + rl.getPath())) {
+			if (inputstream == null) {
+				throw new IllegalStateException("Missing bundled asset " + rl);
+			}
+			
+			return new JsonModelLoader(null, rl, inputstream.readAllBytes());
+		} catch (IOException e) {
+			throw new IllegalStateException("Can't read " + rl, e);
+		}
+	}
+	
+	public static HumanoidArmature bipedArmature() {
+		return bundledModel(BIPED).loadArmature(HumanoidArmature::new);
+	}
+	
+	public static HumanoidMesh bipedMesh() {
+		return bundledModel(BIPED).loadAnimatedMesh(UnverifiedHumanoidMesh::new);
+	}
+	
+	public static JointTransform randomTransform(Random random) {
+		Vec3f translation = new Vec3f(random.nextFloat() - 0.5F, random.nextFloat() - 0.5F, random.nextFloat() - 0.5F);
+		Vector3f axis = new Vector3f(random.nextFloat() + 0.1F, random.nextFloat(), random.nextFloat());
+		axis.normalize();
+		Quaternion rotation = axis.rotationDegrees(random.nextFloat() * 360.0F);
+		Vec3f scale = new Vec3f(1.0F, 1.0F, 1.0F);
+		
+		return new JointTransform(translation, rotation, scale);
+	}
+	
+	public static TransformSheet randomSheet(Random random, int keyframeCount, float totalTime) {
+		Keyframe[] keyframes = new Keyframe[keyframeCount];
+		
+		for (int i = 0; i < keyframeCount; i++) {
+			keyframes[i] = new Keyframe(totalTime * i / (keyframeCount - 1), randomTransform(random));
+		}
+		
+		return new TransformSheet(keyframes);
+	}
+	
+	public static Pose randomPose(Random random, String[] jointNames) {
+		Pose pose = new Pose();
+		
+		for (String name : jointNames) {
+			pose.putJointData(name, randomTransform(random));
+		}
+		
+		return pose;
+	}
+	
+	public static OpenMatrix4f randomMatrix(Random random) {
+		return randomTransform(random).toMatrix();
+	}
+	
+	/** The skinning verification option lives in the client config which can't be loaded outside of FML **/
+	public static class UnverifiedHumanoidMesh extends HumanoidMesh {
+		public UnverifiedHumanoidMesh(Map<String, float[]> arrayMap, AnimatedMesh parent, RenderProperties properties, Map<String, ModelPart<AnimatedVertexIndicator>> parts) {
+			super(arrayMap, parent, properties, parts);
+		}
+		
+		@Override
+		protected boolean shouldVerifySkinning() {
+			return false;
+		}
+	}
+	
+	/** Consumes the vertices without storing them so only the skinning is measured **/
+	public static class NullVertexConsumer implements VertexConsumer {
+		public float checksum;
+		
+		@Override
+		public VertexConsumer vertex(double x, double y, double z) {
+			this.checksum += (float)x;
+			return this;
+		}
+		
+		@Override
+		public void vertex(float x, float y, float z, float r, float g, float b, float a, float u, float v, int overlay, int light, float nx, float ny, float nz) {
+			this.checksum += x + y + z + nx;
+		}
+		
+		@Override
+		public VertexConsumer color(int r, int g, int b, int a) {
+			return this;
+		}
+		
+		@Override
+		public VertexConsumer uv(float u, float v) {
+			return this;
+		}
+		
+		@Override
+		public VertexConsumer overlayCoords(int u, int v) {
+			return this;
+		}
+		
+		@Override
+		public VertexConsumer uv2(int u, int v) {
+			return this;
+		}
+		
+		@Override
+		public VertexConsumer normal(float x, float y, float z) {
+			return this;
+		}
+		
+		@Override
+		public void endVertex() {
+		}
+		
+		@Override
+		public void defaultColor(int r, int g, int b, int a) {
+		}
+		
+		@Override
+		public void unsetDefaultColor() {
+		}
+	}
+}
\ No newline at end of file
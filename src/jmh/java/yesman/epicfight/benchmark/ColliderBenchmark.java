@@ -0,0 +1,52 @@
+package yesman.epicfight.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import yesman.epicfight.api.collider.OBBCollider;
+import yesman.epicfight.api.utils.math.OpenMatrix4f;
+import yesman.epicfight.api.utils.math.Vec3f;
+
+/** OBB against OBB separating axis tests, testing against an entity needs a level so it isn't covered here **/
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ColliderBenchmark {
+	private OBBCollider weapon;
+	private OBBCollider overlapping;
+	private OBBCollider separated;
+	
+	@Setup
+	public void setup() {
+		this.weapon = new OBBCollider(0.4D, 0.4D, 1.2D, 0.0D, 1.0D, -1.0D);
+		this.overlapping = new OBBCollider(0.3D, 0.9D, 0.3D, 0.0D, 0.9D, -1.2D);
+		this.separated = new OBBCollider(0.3D, 0.9D, 0.3D, 5.0D, 0.9D, 5.0D);
+		OpenMatrix4f transform = new OpenMatrix4f().rotateDeg(30.0F, Vec3f.Y_AXIS).translate(new Vec3f(0.1F, 0.0F, 0.2F));
+		this.weapon.transform(transform);
+		this.overlapping.transform(new OpenMatrix4f());
+		this.separated.transform(new OpenMatrix4f());
+	}
+	
+	@Benchmark
+	public boolean satOverlapping() {
+		return this.weapon.isCollide(this.overlapping);
+	}
+	
+	@Benchmark
+	public boolean satSeparated() {
+		return this.weapon.isCollide(this.separated);
+	}
+}
\ No newline at end of file
@@ -0,0 +1,69 @@
+package yesman.epicfight.benchmark;
+
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import yesman.epicfight.api.animation.JointTransform;
+import yesman.epicfight.api.animation.types.LinkAnimation;
+import yesman.epicfight.model.armature.HumanoidArmature;
+
+/** Cost of one transition: filling the link from two poses and sampling it for the given number of frames **/
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LinkAnimationBenchmark {
+	private static final float LINK_TIME = 0.15F;
+	
+	@Param({"1", "8"})
+	private int frames;
+	
+	private LinkAnimation linkAnimation;
+	private Map<String, JointTransform> from;
+	private Map<String, JointTransform> to;
+	
+	@Setup
+	public void setup() {
+		Random random = new Random(42L);
+		HumanoidArmature armature = BenchmarkFixtures.bipedArmature();
+		this.linkAnimation = new LinkAnimation();
+		this.from = BenchmarkFixtures.randomPose(random, armature.getJointNames()).getJointTransformData();
+		this.to = BenchmarkFixtures.randomPose(random, armature.getJointNames()).getJointTransformData();
+	}
+	
+	@Benchmark
+	public void keyframeSheetTransition(Blackhole blackhole) {
+		this.linkAnimation.resetLink(null, LINK_TIME);
+		this.linkAnimation.setKeyframeLink(this.from, this.to, false);
+		this.sample(blackhole);
+	}
+	
+	@Benchmark
+	public void poseSnapshotTransition(Blackhole blackhole) {
+		this.linkAnimation.resetLink(null, LINK_TIME);
+		this.linkAnimation.setSnapshotLink(this.from, this.to, false);
+		this.sample(blackhole);
+	}
+	
+	private void sample(Blackhole blackhole) {
+		for (int i = 1; i <= this.frames; i++) {
+			blackhole.consume(this.linkAnimation.getLinkPose(LINK_TIME * i / (this.frames + 1)));
+		}
+	}
+}
\ No newline at end of file
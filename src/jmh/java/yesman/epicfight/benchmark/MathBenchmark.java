@@ -0,0 +1,64 @@
+package yesman.epicfight.benchmark;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import yesman.epicfight.api.animation.JointTransform;
+import yesman.epicfight.api.utils.math.OpenMatrix4f;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MathBenchmark {
+	private OpenMatrix4f left;
+	private OpenMatrix4f right;
+	private OpenMatrix4f dest;
+	private JointTransform prev;
+	private JointTransform next;
+	private JointTransform interpolated;
+	
+	@Setup
+	public void setup() {
+		Random random = new Random(42L);
+		this.left = BenchmarkFixtures.randomMatrix(random);
+		this.right = BenchmarkFixtures.randomMatrix(random);
+		this.dest = new OpenMatrix4f();
+		this.prev = BenchmarkFixtures.randomTransform(random);
+		this.next = BenchmarkFixtures.randomTransform(random);
+		this.interpolated = JointTransform.empty();
+	}
+	
+	@Benchmark
+	public OpenMatrix4f matrixMul() {
+		return OpenMatrix4f.mul(this.left, this.right, this.dest);
+	}
+	
+	@Benchmark
+	public OpenMatrix4f matrixInvert() {
+		return OpenMatrix4f.invert(this.left, this.dest);
+	}
+	
+	@Benchmark
+	public JointTransform jointTransformInterpolate() {
+		return JointTransform.interpolate(this.prev, this.next, 0.37F);
+	}
+	
+	@Benchmark
+	public JointTransform jointTransformInterpolateInto() {
+		return JointTransform.interpolate(this.prev, this.next, 0.37F, this.interpolated);
+	}
+}
\ No newline at end of file
@@ -0,0 +1,163 @@
+package yesman.epicfight.benchmark;
+
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+
+import net.minecraft.world.phys.Vec3;
+import yesman.epicfight.api.utils.ShockwaveResolver;
+import yesman.epicfight.api.utils.ShockwaveResolver.BlockRay;
+import yesman.epicfight.api.utils.ShockwaveResolver.ColumnHash;
+import yesman.epicfight.api.utils.math.Vec2i;
+
+/**
+ * Block ordering and entity matching of a circle slam over a synthetic world: entities are random points around the center on a flat
+ * floor. A level can't be created headless so block states aren't read, the legacy path is the per ray list sort and entity scan.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ShockwaveBenchmark {
+	@Param({"2", "6"})
+	private int radius;
+	
+	@Param({"16", "256"})
+	private int entityCount;
+	
+	private Vec3 center;
+	private Vec3[] entities;
+	
+	@Setup
+	public void setup() {
+		Random random = new Random(2048L);
+		this.center = new Vec3(0.5D, 64.0D, 0.5D);
+		this.entities = new Vec3[this.entityCount];
+		
+		for (int i = 0; i < this.entityCount; i++) {
+			this.entities[i] = new Vec3((random.nextDouble() - 0.5D) * this.radius * 3.0D, 64.0D + random.nextInt(2), (random.nextDouble() - 0.5D) * this.radius * 3.0D);
+		}
+		
+		if (!this.legacy().equals(this.resolver())) {
+			throw new IllegalStateException("Shockwave resolver doesn't match the legacy result");
+		}
+	}
+	
+	@Benchmark
+	public List<Object> legacy() {
+		List<Object> result = Lists.newArrayList();
+		List<Vec3> hits = Lists.newArrayList();
+		
+		this.forEachRay((direction, edgeX, edgeZ) -> {
+			List<Vec2i> blocks = rasterize(this.center, direction, this.radius, edgeX, edgeZ);
+			
+			blocks.sort((v1, v2) -> {
+				double v1DistSqr = Math.pow(v1.x - this.center.x, 2) + Math.pow(v1.y - this.center.z, 2);
+				double v2DistSqr = Math.pow(v2.x - this.center.x, 2) + Math.pow(v2.y - this.center.z, 2);
+				
+				return Double.compare(v1DistSqr, v2DistSqr);
+			});
+			
+			for (Vec2i block : blocks) {
+				result.add(block.x * 31 + block.y);
+				
+				for (Vec3 entity : this.entities) {
+					if (block.x == (int)Math.floor(entity.x) && block.y == (int)Math.floor(entity.z) && 64.0D <= entity.y && entity.y <= 65.0D && !hits.contains(entity)) {
+						hits.add(entity);
+						result.add(entity);
+					}
+				}
+			}
+		});
+		
+		return result;
+	}
+	
+	@Benchmark
+	public List<Object> resolver() {
+		List<Object> result = Lists.newArrayList();
+		Set<Vec3> hits = Sets.newHashSet();
+		ColumnHash<Vec3> columns = new ColumnHash<Vec3>();
+		BlockRay ray = new BlockRay();
+		
+		for (Vec3 entity : this.entities) {
+			columns.put((int)Math.floor(entity.x), (int)Math.floor(entity.z), entity);
+		}
+		
+		this.forEachRay((direction, edgeX, edgeZ) -> {
+			ray.rasterize(this.center, direction, this.radius, edgeX, edgeZ);
+			ray.sort(this.center);
+			
+			for (int i = 0; i < ray.size(); i++) {
+				result.add(ray.getX(i) * 31 + ray.getZ(i));
+				List<Vec3> column = columns.get(ray.getX(i), ray.getZ(i));
+				
+				if (column != null) {
+					for (Vec3 entity : column) {
+						if (64.0D <= entity.y && entity.y <= 65.0D && hits.add(entity)) {
+							result.add(entity);
+						}
+					}
+				}
+			}
+		});
+		
+		return result;
+	}
+	
+	/** Same rays as LevelUtil#circleSlamFracture **/
+	private void forEachRay(RayConsumer consumer) {
+		int xFrom = (int)Math.floor(this.center.x - this.radius);
+		int xTo = (int)Math.ceil(this.center.x + this.radius);
+		int zFrom = (int)Math.floor(this.center.z - this.radius);
+		int zTo = (int)Math.ceil(this.center.z + this.radius);
+		
+		for (int i = zFrom; i <= zTo; i++) {
+			for (int j = xFrom; j <= xTo; j += (i == zFrom || i == zTo) ? 1 : xTo - xFrom) {
+				consumer.accept(new Vec3(j - this.center.x + 0.1D, 0.0D, i - this.center.z), j, i);
+			}
+		}
+	}
+	
+	private static List<Vec2i> rasterize(Vec3 center, Vec3 direction, double length, int edgeX, int edgeZ) {
+		Vec3 edgeOfShockwave = center.add(direction.normalize().scale((float)length));
+		int xFrom = (int)Math.min(Math.floor(center.x), edgeX);
+		int xTo = (int)Math.max(Math.floor(center.x), edgeX);
+		int zFrom = (int)Math.min(Math.floor(center.z), edgeZ);
+		int zTo = (int)Math.max(Math.floor(center.z), edgeZ);
+		List<Vec2i> blocks = Lists.newArrayList();
+		
+		for (int k = zFrom; k <= zTo; k++) {
+			for (int l = xFrom; l <= xTo; l++) {
+				if (ShockwaveResolver.isBlockOverlapLine(l, k, center, edgeOfShockwave)) {
+					blocks.add(new Vec2i(l, k));
+				}
+			}
+		}
+		
+		return blocks;
+	}
+	
+	@FunctionalInterface
+	private interface RayConsumer {
+		void accept(Vec3 direction, int edgeX, int edgeZ);
+	}
+}
\ No newline at end of file
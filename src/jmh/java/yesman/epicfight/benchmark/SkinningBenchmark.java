@@ -0,0 +1,52 @@
+package yesman.epicfight.benchmark;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.mojang.blaze3d.vertex.PoseStack;
+
+import net.minecraft.client.renderer.texture.OverlayTexture;
+import yesman.epicfight.api.model.Armature;
+import yesman.epicfight.api.utils.math.OpenMatrix4f;
+import yesman.epicfight.client.mesh.HumanoidMesh;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SkinningBenchmark {
+	private HumanoidMesh mesh;
+	private Armature armature;
+	private OpenMatrix4f[] poses;
+	private PoseStack poseStack;
+	private BenchmarkFixtures.NullVertexConsumer vertexConsumer;
+	
+	@Setup
+	public void setup() {
+		Random random = new Random(42L);
+		this.mesh = BenchmarkFixtures.bipedMesh();
+		this.armature = BenchmarkFixtures.bipedArmature();
+		this.poses = this.armature.getPoseAsTransformMatrix(BenchmarkFixtures.randomPose(random, this.armature.getJointNames()));
+		this.poseStack = new PoseStack();
+		this.vertexConsumer = new BenchmarkFixtures.NullVertexConsumer();
+	}
+	
+	@Benchmark
+	public float drawBipedWithPose() {
+		this.mesh.drawModelWithPose(this.poseStack, this.vertexConsumer, 0xF000F0, 1.0F, 1.0F, 1.0F, 1.0F, OverlayTexture.NO_OVERLAY, this.armature, this.poses);
+		return this.vertexConsumer.checksum;
+	}
+}
\ No newline at end of file
@@ -0,0 +1,73 @@
+package yesman.epicfight.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.PooledByteBufAllocator;
+import net.minecraft.network.FriendlyByteBuf;
+import yesman.epicfight.network.server.SPSpawnData;
+
+/**
+ * Encodes and decodes spawn payloads through pooled buffers the way the network pipeline does. Every packet buffer has to be
+ * freed once the decoded message is released, a leaked reference fails the benchmark.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SpawnDataBenchmark {
+	private static final int SPAWNS = 64;
+	
+	@Param({"8", "256"})
+	private int payloadSize;
+	
+	private SPSpawnData[] messages;
+	
+	@Setup
+	public void setup() {
+		this.messages = new SPSpawnData[SPAWNS];
+		
+		for (int i = 0; i < SPAWNS; i++) {
+			this.messages[i] = new SPSpawnData(i);
+			
+			for (int j = 0; j < this.payloadSize; j++) {
+				this.messages[i].getBuffer().writeByte(i + j);
+			}
+		}
+	}
+	
+	@Benchmark
+	public void spawnPayloadRoundTrip(Blackhole blackhole) {
+		for (SPSpawnData message : this.messages) {
+			ByteBuf packet = PooledByteBufAllocator.DEFAULT.directBuffer();
+			SPSpawnData.toBytes(message, new FriendlyByteBuf(packet));
+			SPSpawnData decoded = SPSpawnData.fromBytes(new FriendlyByteBuf(packet));
+			packet.release();
+			
+			while (decoded.getBuffer().isReadable()) {
+				blackhole.consume(decoded.getBuffer().readByte());
+			}
+			
+			decoded.release();
+			
+			if (packet.refCnt() != 0) {
+				throw new IllegalStateException("Spawn payload leaked a packet buffer, refCnt " + packet.refCnt());
+			}
+		}
+	}
+}
\ No newline at end of file
@@ -0,0 +1,109 @@
+package yesman.epicfight.api.animation;
+
+import java.util.Map;
+
+import com.google.common.collect.Maps;
+import com.mojang.math.Quaternion;
+
+import yesman.epicfight.api.animation.property.AnimationProperty.ActionAnimationProperty;
+import yesman.epicfight.api.animation.types.ActionAnimation;
+import yesman.epicfight.api.animation.types.StaticAnimation;
+import yesman.epicfight.api.utils.math.Vec3f;
+
+/** Keyframe data of a single animation file, decoupled from the animation instance that owns it **/
+public class AnimationClip {
+	private final Map<String, TransformSheet> jointSheets = Maps.newLinkedHashMap();
+	private TransformSheet coord;
+	private float totalTime = -1.0F;
+	
+	public void addSheet(String jointName, TransformSheet sheet) {
+		this.jointSheets.put(jointName, sheet);
+	}
+	
+	public void setCoord(TransformSheet coord) {
+		this.coord = coord;
+	}
+	
+	public void setTotalTime(float totalTime) {
+		this.totalTime = totalTime;
+	}
+	
+	public Map<String, TransformSheet> getJointSheets() {
+		return this.jointSheets;
+	}
+	
+	public TransformSheet getCoord() {
+		return this.coord;
+	}
+	
+	public float getTotalTime() {
+		return this.totalTime;
+	}
+	
+	public void applyTo(StaticAnimation animation) {
+		this.jointSheets.forEach(animation::addSheet);
+		
+		if (this.coord != null && animation instanceof ActionAnimation actionAnimation) {
+			actionAnimation.addProperty(ActionAnimationProperty.COORD, this.coord);
+		}
+		
+		if (this.totalTime >= 0.0F) {
+			animation.setTotalTime(this.totalTime);
+		}
+	}
+	
+	/** Bitwise comparison of every keyframe, used to check that a cached clip reproduces the parsed one **/
+	public boolean isIdentical(AnimationClip other) {
+		if (other == null || Float.floatToIntBits(this.totalTime) != Float.floatToIntBits(other.totalTime) || !isIdentical(this.coord, other.coord)) {
+			return false;
+		}
+		
+		if (!this.jointSheets.keySet().equals(other.jointSheets.keySet())) {
+			return false;
+		}
+		
+		for (Map.Entry<String, TransformSheet> entry : this.jointSheets.entrySet()) {
+			if (!isIdentical(entry.getValue(), other.jointSheets.get(entry.getKey()))) {
+				return false;
+			}
+		}
+		
+		return true;
+	}
+	
+	public static boolean isIdentical(TransformSheet sheet1, TransformSheet sheet2) {
+		if (sheet1 == null || sheet2 == null) {
+			return sheet1 == sheet2;
+		}
+		
+		Keyframe[] keyframes1 = sheet1.getKeyframes();
+		Keyframe[] keyframes2 = sheet2.getKeyframes();
+		
+		if (keyframes1.length != keyframes2.length) {
+			return false;
+		}
+		
+		for (int i = 0; i < keyframes1.length; i++) {
+			JointTransform jt1 = keyframes1[i].transform();
+			JointTransform jt2 = keyframes2[i].transform();
+			
+			if (!sameBits(keyframes1[i].time(), keyframes2[i].time()) || !isIdentical(jt1.translation(), jt2.translation()) || !isIdentical(jt1.rotation(), jt2.rotation()) || !isIdentical(jt1.scale(), jt2.scale())) {
+				return false;
+			}
+		}
+		
+		return true;
+	}
+	
+	private static boolean isIdentical(Vec3f v1, Vec3f v2) {
+		return sameBits(v1.x, v2.x) && sameBits(v1.y, v2.y) && sameBits(v1.z, v2.z);
+	}
+	
+	private static boolean isIdentical(Quaternion q1, Quaternion q2) {
+		return sameBits(q1.i(), q2.i()) && sameBits(q1.j(), q2.j()) && sameBits(q1.k(), q2.k()) && sameBits(q1.r(), q2.r());
+	}
+	
+	private static boolean sameBits(float f1, float f2) {
+		return Float.floatToIntBits(f1) == Float.floatToIntBits(f2);
+	}
+}
\ No newline at end of file
@@ -1,8 +1,15 @@
 package yesman.epicfight.api.animation;
 
 import java.io.IOException;
+import java.util.Collection;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.TimeUnit;
 
+import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 
 import net.minecraft.resources.ResourceLocation;
@@ -10,14 +17,20 @@ import net.minecraft.server.packs.resources.ResourceManager;
 import net.minecraft.server.packs.resources.SimplePreparableReloadListener;
 import net.minecraft.util.profiling.ProfilerFiller;
 import net.minecraftforge.fml.ModLoader;
+import net.minecraftforge.fml.loading.FMLEnvironment;
+import net.minecraftforge.fml.loading.FMLPaths;
 import yesman.epicfight.api.animation.types.StaticAnimation;
 import yesman.epicfight.api.client.animation.AnimationDataReader;
 import yesman.epicfight.api.forgeevent.AnimationRegistryEvent;
+import yesman.epicfight.api.model.BinaryAnimationCache;
+import yesman.epicfight.config.ConfigManager;
 import yesman.epicfight.main.EpicFightMod;
 
 public class AnimationManager extends SimplePreparableReloadListener<Map<Integer, Map<Integer, StaticAnimation>>> {
 	private final Map<Integer, Map<Integer, StaticAnimation>> animationById = Maps.newHashMap();
 	private final Map<ResourceLocation, StaticAnimation> animationByName = Maps.newHashMap();
+	private final BinaryAnimationCache binaryCache = new BinaryAnimationCache(FMLPaths.GAMEDIR.get().resolve("epicfight_cache").resolve("animations"));
+	private final LazyAnimationLoader lazyLoader = new LazyAnimationLoader();
 	private String modid;
 	private int namespaceHash;
 	private int counter = 0;
@@ -45,6 +58,7 @@ public class AnimationManager extends SimplePreparableReloadListener<Map<Integer
 	}
 	
 	public void registerAnimations() {
+		long start = System.nanoTime();
 		this.animationById.clear();
 		this.animationByName.clear();
 		
@@ -58,29 +72,36 @@ public class AnimationManager extends SimplePreparableReloadListener<Map<Integer
 			this.counter = 0;
 			entry.getValue().run();
 		});
+		
+		EpicFightMod.LOGGER.info("Registered " + this.animationByName.size() + " animations in " + toMillis(System.nanoTime() - start) + "ms");
 	}
 	
 	public void loadAnimationsOnServer() {
 		this.registerAnimations();
+		this.binaryCache.resetStatistics();
+		this.lazyLoader.clear();
+		this.lazyLoader.setBudget(ConfigManager.LAZY_ANIMATION_BUDGET.get() * 1024L);
+		this.loadAnimations(this.animationById.values(), null);
+		this.logCacheStatistics();
 		
-		this.animationById.values().forEach((map) -> {
-			map.values().forEach((animation) -> {
-				animation.loadAnimation(null);
-				this.setAnimationProperties(null, animation);
-			});
-		});
+		if (this.getLazyLoader() != null) {
+			EpicFightMod.LOGGER.info("Left the keyframes of " + this.lazyLoader.getLazyAnimations() + " animations on disk until they're played");
+		}
 	}
 	
 	@Override
 	protected Map<Integer, Map<Integer, StaticAnimation>> prepare(ResourceManager resourceManager, ProfilerFiller profilerIn) {
 		if (EpicFightMod.isPhysicalClient()) {
 			this.registerAnimations();
+			long start = System.nanoTime();
 			
 			this.animationById.values().forEach((map) -> {
 				map.values().forEach((animation) -> {
 					this.setAnimationProperties(resourceManager, animation);
 				});
 			});
+			
+			EpicFightMod.LOGGER.info("Read animation data files in " + toMillis(System.nanoTime() - start) + "ms");
 		}
 		
 		return this.animationById;
@@ -88,11 +109,82 @@ public class AnimationManager extends SimplePreparableReloadListener<Map<Integer
 	
 	@Override
 	protected void apply(Map<Integer, Map<Integer, StaticAnimation>> objectIn, ResourceManager resourceManager, ProfilerFiller profilerIn) {
-		objectIn.values().forEach((map) -> {
+		this.binaryCache.resetStatistics();
+		this.loadAnimations(objectIn.values(), resourceManager);
+		this.logCacheStatistics();
+	}
+	
+	/**
+	 * Loads the keyframes of every registered animation. Ids and names are assigned while registering so the maps are the same as serial loading,
+	 * each parallel task only writes into its own animation. Animations that aren't {@link StaticAnimation#isParallelLoadable()} are loaded after, in registration order.
+	 */
+	private void loadAnimations(Collection<Map<Integer, StaticAnimation>> animations, ResourceManager resourceManager) {
+		List<StaticAnimation> parallelAnimations = Lists.newArrayList();
+		List<StaticAnimation> serialAnimations = Lists.newArrayList();
+		boolean parallel = ConfigManager.PARALLEL_ANIMATION_LOADING.get();
+		
+		animations.forEach((map) -> {
 			map.values().forEach((animation) -> {
-				animation.loadAnimation(resourceManager);
+				if (parallel && animation.isParallelLoadable()) {
+					parallelAnimations.add(animation);
+				} else {
+					serialAnimations.add(animation);
+				}
 			});
 		});
+		
+		long start = System.nanoTime();
+		int threads = 0;
+		
+		if (!parallelAnimations.isEmpty()) {
+			threads = ConfigManager.ANIMATION_LOADING_THREADS.get() > 0 ? ConfigManager.ANIMATION_LOADING_THREADS.get() : Runtime.getRuntime().availableProcessors();
+			ForkJoinPool pool = createLoadingPool(threads);
+			List<ForkJoinTask<?>> tasks = Lists.newArrayListWithCapacity(parallelAnimations.size());
+			
+			for (StaticAnimation animation : parallelAnimations) {
+				tasks.add(ForkJoinTask.adapt(() -> animation.loadAnimation(resourceManager)));
+			}
+			
+			try {
+				pool.invoke(ForkJoinTask.adapt(() -> ForkJoinTask.invokeAll(tasks)));
+			} finally {
+				pool.shutdown();
+			}
+		}
+		
+		long parallelEnd = System.nanoTime();
+		
+		for (StaticAnimation animation : serialAnimations) {
+			animation.loadAnimation(resourceManager);
+		}
+		
+		long end = System.nanoTime();
+		EpicFightMod.LOGGER.info("Loaded " + (parallelAnimations.size() + serialAnimations.size()) + " animations in " + toMillis(end - start) + "ms ("
+								+ parallelAnimations.size() + " in parallel on " + threads + " threads in " + toMillis(parallelEnd - start) + "ms, "
+								+ serialAnimations.size() + " serially in " + toMillis(end - parallelEnd) + "ms)");
+	}
+	
+	/** Workers inherit the context class loader of the caller so mod resources resolve the same as on the loading thread **/
+	private static ForkJoinPool createLoadingPool(int threads) {
+		ClassLoader classLoader = Thread.currentThread().getContextClassLoader();
+		
+		return new ForkJoinPool(threads, (pool) -> {
+			ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+			thread.setName("EpicFight-AnimationLoader-" + thread.getPoolIndex());
+			thread.setContextClassLoader(classLoader);
+			
+			return thread;
+		}, null, false);
+	}
+	
+	private static long toMillis(long nanos) {
+		return TimeUnit.NANOSECONDS.toMillis(nanos);
+	}
+	
+	private void logCacheStatistics() {
+		if (this.getBinaryCache() != null) {
+			EpicFightMod.LOGGER.info("Loaded " + this.binaryCache.getCacheHits() + " animations from binary cache, rebuilt " + this.binaryCache.getCacheMisses() + " from json");
+		}
 	}
 	
 	private void setAnimationProperties(ResourceManager resourceManager, StaticAnimation animation) {
@@ -117,6 +209,16 @@ public class AnimationManager extends SimplePreparableReloadListener<Map<Integer
 		}
 	}
 	
+	/** Returns null unless lazy loading is enabled by config on a dedicated server **/
+	public LazyAnimationLoader getLazyLoader() {
+		return FMLEnvironment.dist.isDedicatedServer() && ConfigManager.LAZY_ANIMATION_LOADING.get() ? this.lazyLoader : null;
+	}
+	
+	/** Returns null if the binary cache is disabled by config **/
+	public BinaryAnimationCache getBinaryCache() {
+		return ConfigManager.ANIMATION_BINARY_CACHE.get() ? this.binaryCache : null;
+	}
+	
 	public String getModid() {
 		return this.modid;
 	}
@@ -14,6 +14,7 @@ public class AnimationPlayer {
 	private boolean doNotResetNext;
 	private boolean reversed;
 	private DynamicAnimation play;
+	private final KeyframeCursor keyframeCursor = new KeyframeCursor();
 	
 	public AnimationPlayer() {
 		this.setPlayAnimation(Animations.DUMMY_ANIMATION);
@@ -70,12 +71,21 @@ public class AnimationPlayer {
 		}
 		
 		this.play = animation;
+		this.keyframeCursor.reset();
 	}
 	
 	public Pose getCurrentPose(LivingEntityPatch<?> entitypatch, float partialTicks) {
 		return this.play.getPoseByTime(entitypatch, this.prevElapsedTime + (this.elapsedTime - this.prevElapsedTime) * partialTicks, partialTicks);
 	}
 	
+	public void getCurrentPose(LivingEntityPatch<?> entitypatch, float partialTicks, PackedPose dest) {
+		this.play.getPackedPoseByTime(entitypatch, this.prevElapsedTime + (this.elapsedTime - this.prevElapsedTime) * partialTicks, partialTicks, dest, this.keyframeCursor);
+	}
+	
+	public KeyframeCursor getKeyframeCursor() {
+		return this.keyframeCursor;
+	}
+	
 	public float getElapsedTime() {
 		return this.elapsedTime;
 	}
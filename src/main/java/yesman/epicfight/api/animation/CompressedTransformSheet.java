@@ -0,0 +1,504 @@
+package yesman.epicfight.api.animation;
+
+import java.util.Arrays;
+import java.util.function.Consumer;
+
+import com.mojang.math.Quaternion;
+
+import net.minecraft.util.Mth;
+import yesman.epicfight.api.utils.math.MathUtils;
+import yesman.epicfight.api.utils.math.Vec3f;
+
+/**
+ * Sheet of quantized keyframes. Rotations are packed in smallest-three form (2 bit index, 3 * 20 bit components) into a long,
+ * translations are stored as 16 bit fractions of the track bounds and constant translation or scale tracks are stored once.
+ * Keyframes that the interpolation of their kept neighbors reproduces within the tolerances are removed.
+ *
+ * The sampling methods decode only the two keyframes around the time. {@link #getKeyframes()} decodes a new array on each call and
+ * is meant for cold paths (reports, copies), edits of that array don't reach the sheet. The modifying methods decode the keyframes
+ * into the raw sheet once, the sheet then behaves as a plain {@link TransformSheet}.
+ */
+public class CompressedTransformSheet extends TransformSheet {
+	private static final int ROTATION_BITS = 20;
+	private static final long ROTATION_MASK = (1L << ROTATION_BITS) - 1L;
+	private static final float ROTATION_RANGE = (float)(1.0D / Math.sqrt(2.0D));
+	private static final int TRANSLATION_STEPS = 0xFFFF;
+	private static final int STRIDE = 10;
+	private static final ThreadLocal<float[]> SCRATCH = ThreadLocal.withInitial(() -> new float[STRIDE * 3]);
+	
+	private final float[] times;
+	private final long[] rotations;
+	/** Minimum and extent of each axis, the translation itself when the track is constant **/
+	private final float[] translationBounds;
+	/** Null when the translation is constant **/
+	private final short[] translations;
+	/** Null for the identity scale, 3 floats when the scale is constant, 3 per keyframe otherwise **/
+	private final float[] scales;
+	private final int rawKeyframes;
+	private final long rawBytes;
+	private float maxAngleError;
+	private float maxPositionError;
+	/** Set once the sheet was modified, the keyframes are then held by the raw sheet **/
+	private boolean decompressed;
+	
+	private CompressedTransformSheet(TransformSheet raw, float[] components, int[] kept, float positionTolerance) {
+		int count = kept.length;
+		this.times = new float[count];
+		this.rotations = new long[count];
+		this.translationBounds = new float[6];
+		this.rawKeyframes = raw.getKeyframes().length;
+		this.rawBytes = raw.getEstimatedBytes();
+		
+		Keyframe[] keyframes = raw.getKeyframes();
+		float[] min = {Float.MAX_VALUE, Float.MAX_VALUE, Float.MAX_VALUE};
+		float[] max = {-Float.MAX_VALUE, -Float.MAX_VALUE, -Float.MAX_VALUE};
+		boolean identityScale = true;
+		boolean constantScale = true;
+		
+		for (int i = 0; i < count; i++) {
+			int c = kept[i] * STRIDE;
+			this.times[i] = keyframes[kept[i]].time();
+			this.rotations[i] = packRotation(components[c + 3], components[c + 4], components[c + 5], components[c + 6]);
+			
+			for (int axis = 0; axis < 3; axis++) {
+				min[axis] = Math.min(min[axis], components[c + axis]);
+				max[axis] = Math.max(max[axis], components[c + axis]);
+				identityScale &= Math.abs(components[c + 7 + axis] - 1.0F) <= positionTolerance;
+				constantScale &= Math.abs(components[c + 7 + axis] - components[kept[0] * STRIDE + 7 + axis]) <= positionTolerance;
+			}
+		}
+		
+		boolean constantTranslation = Math.max(max[0] - min[0], Math.max(max[1] - min[1], max[2] - min[2])) <= positionTolerance;
+		
+		for (int axis = 0; axis < 3; axis++) {
+			this.translationBounds[axis] = constantTranslation ? (min[axis] + max[axis]) * 0.5F : min[axis];
+			this.translationBounds[axis + 3] = max[axis] - min[axis];
+		}
+		
+		if (constantTranslation) {
+			this.translations = null;
+		} else {
+			this.translations = new short[count * 3];
+			
+			for (int i = 0; i < count; i++) {
+				for (int axis = 0; axis < 3; axis++) {
+					float extent = this.translationBounds[axis + 3];
+					float fraction = extent > 0.0F ? (components[kept[i] * STRIDE + axis] - min[axis]) / extent : 0.0F;
+					this.translations[i * 3 + axis] = (short)Math.round(Mth.clamp(fraction, 0.0F, 1.0F) * TRANSLATION_STEPS);
+				}
+			}
+		}
+		
+		if (identityScale) {
+			this.scales = null;
+		} else if (constantScale) {
+			this.scales = Arrays.copyOfRange(components, kept[0] * STRIDE + 7, kept[0] * STRIDE + 10);
+		} else {
+			this.scales = new float[count * 3];
+			
+			for (int i = 0; i < count; i++) {
+				System.arraycopy(components, kept[i] * STRIDE + 7, this.scales, i * 3, 3);
+			}
+		}
+	}
+	
+	/**
+	 * Returns the compressed sheet, or the sheet itself when it can't be compressed (less than two keyframes, transform entries).
+	 * The angle tolerance is in degrees.
+	 */
+	public static TransformSheet compress(TransformSheet sheet, float positionTolerance, float angleTolerance) {
+		Keyframe[] keyframes = sheet.getKeyframes();
+		
+		if (sheet instanceof CompressedTransformSheet || keyframes.length < 2) {
+			return sheet;
+		}
+		
+		float[] components = new float[keyframes.length * STRIDE];
+		
+		for (int i = 0; i < keyframes.length; i++) {
+			JointTransform transform = keyframes[i].transform();
+			
+			if (transform.hasEntries()) {
+				return sheet;
+			}
+			
+			writeComponents(transform, components, i * STRIDE);
+		}
+		
+		float minDot = (float)Math.cos(Math.toRadians(angleTolerance) * 0.5D);
+		int[] kept = reduce(keyframes, components, positionTolerance, minDot);
+		CompressedTransformSheet compressed = new CompressedTransformSheet(sheet, components, kept, positionTolerance);
+		float[] errors = measureError(sheet, compressed);
+		compressed.maxAngleError = errors[0];
+		compressed.maxPositionError = errors[1];
+		
+		return compressed;
+	}
+	
+	/** Greedy pass keeping a keyframe only when the segment from the last kept keyframe to the next one doesn't reproduce the skipped ones **/
+	private static int[] reduce(Keyframe[] keyframes, float[] components, float positionTolerance, float minDot) {
+		int[] kept = new int[keyframes.length];
+		float[] interpolated = new float[STRIDE];
+		int count = 0;
+		int anchor = 0;
+		kept[count++] = 0;
+		
+		for (int i = 1; i < keyframes.length - 1; i++) {
+			if (!fits(keyframes, components, anchor, i + 1, positionTolerance, minDot, interpolated)) {
+				kept[count++] = i;
+				anchor = i;
+			}
+		}
+		
+		kept[count++] = keyframes.length - 1;
+		
+		return Arrays.copyOf(kept, count);
+	}
+	
+	private static boolean fits(Keyframe[] keyframes, float[] components, int from, int to, float positionTolerance, float minDot, float[] interpolated) {
+		float start = keyframes[from].time();
+		float end = keyframes[to].time();
+		
+		if (!(end > start)) {
+			return false;
+		}
+		
+		for (int i = from + 1; i < to; i++) {
+			interpolate(components, from * STRIDE, components, to * STRIDE, (keyframes[i].time() - start) / (end - start), interpolated, 0);
+			
+			if (getPositionError(interpolated, 0, components, i * STRIDE) > positionTolerance || getRotationDot(interpolated, 0, components, i * STRIDE) < minDot) {
+				return false;
+			}
+		}
+		
+		return true;
+	}
+	
+	/** Max angle error in degrees and max translation or scale error of the sheet against the raw one, sampled at the raw keyframes and between them **/
+	public static float[] measureError(TransformSheet raw, TransformSheet sheet) {
+		Keyframe[] keyframes = raw.getKeyframes();
+		JointTransform expected = JointTransform.empty();
+		JointTransform actual = JointTransform.empty();
+		float[] expectedComponents = new float[STRIDE];
+		float[] actualComponents = new float[STRIDE];
+		float minDot = 1.0F;
+		float maxPositionError = 0.0F;
+		
+		for (int i = 0; i < keyframes.length * 2 - 1; i++) {
+			float time = (i & 1) == 0 ? keyframes[i >> 1].time() : (keyframes[i >> 1].time() + keyframes[(i >> 1) + 1].time()) * 0.5F;
+			writeComponents(raw.getInterpolatedTransform(time, expected), expectedComponents, 0);
+			writeComponents(sheet.getInterpolatedTransform(time, actual), actualComponents, 0);
+			minDot = Math.min(minDot, getRotationDot(expectedComponents, 0, actualComponents, 0));
+			maxPositionError = Math.max(maxPositionError, getPositionError(expectedComponents, 0, actualComponents, 0));
+		}
+		
+		return new float[] {(float)Math.toDegrees(2.0D * Math.acos(Mth.clamp(minDot, 0.0F, 1.0F))), maxPositionError};
+	}
+	
+	public int getRawKeyframeCount() {
+		return this.rawKeyframes;
+	}
+	
+	public long getRawEstimatedBytes() {
+		return this.rawBytes;
+	}
+	
+	public float getMaxAngleError() {
+		return this.maxAngleError;
+	}
+	
+	public float getMaxPositionError() {
+		return this.maxPositionError;
+	}
+	
+	@Override
+	public long getEstimatedBytes() {
+		if (this.decompressed) {
+			return super.getEstimatedBytes();
+		}
+		
+		long bytes = 64L + 16L * 4L + this.times.length * 4L + this.rotations.length * 8L + this.translationBounds.length * 4L;
+		bytes += this.translations == null ? 0L : 16L + this.translations.length * 2L;
+		bytes += this.scales == null ? 0L : 16L + this.scales.length * 4L;
+		
+		return bytes;
+	}
+	
+	@Override
+	public JointTransform getStartTransform() {
+		return this.decompressed ? super.getStartTransform() : this.decodeKeyframe(0).transform();
+	}
+	
+	@Override
+	public Keyframe[] getKeyframes() {
+		return this.decompressed ? super.getKeyframes() : this.decodeKeyframes();
+	}
+	
+	@Override
+	public TransformSheet copyAll() {
+		return this.decompressed ? super.copyAll() : this.copy(0, this.times.length);
+	}
+	
+	@Override
+	public TransformSheet copy(int start, int end) {
+		if (this.decompressed) {
+			return super.copy(start, end);
+		}
+		
+		Keyframe[] keyframes = new Keyframe[end - start];
+		
+		for (int i = 0; i < keyframes.length; i++) {
+			keyframes[i] = this.decodeKeyframe(i + start);
+		}
+		
+		return new TransformSheet(keyframes);
+	}
+	
+	@Override
+	public TransformSheet readFrom(TransformSheet opponent) {
+		this.decompress();
+		return super.readFrom(opponent);
+	}
+	
+	@Override
+	public void transform(Consumer<JointTransform> transformFunc) {
+		this.decompress();
+		super.transform(transformFunc);
+	}
+	
+	@Override
+	public void transform(Consumer<JointTransform> transformFunc, int start, int end) {
+		this.decompress();
+		super.transform(transformFunc, start, end);
+	}
+	
+	@Override
+	public void correctAnimationByNewPosition(Vec3f startpos, Vec3f startToEnd, Vec3f modifiedStart, Vec3f modifiedStartToEnd) {
+		this.decompress();
+		super.correctAnimationByNewPosition(startpos, startToEnd, modifiedStart, modifiedStartToEnd);
+	}
+	
+	@Override
+	public Vec3f getInterpolatedTranslation(float currentTime) {
+		JointTransform transform = this.getInterpolatedTransform(currentTime);
+		return transform.translation();
+	}
+	
+	@Override
+	public Quaternion getInterpolatedRotation(float currentTime) {
+		JointTransform transform = this.getInterpolatedTransform(currentTime);
+		return transform.rotation();
+	}
+	
+	@Override
+	public JointTransform getInterpolatedTransform(float currentTime, JointTransform dest) {
+		if (this.decompressed) {
+			return super.getInterpolatedTransform(currentTime, dest);
+		}
+		
+		this.interpolateSegment(currentTime, this.getNextKeyframe(currentTime), dest);
+		return dest;
+	}
+	
+	@Override
+	public int getInterpolatedTransform(float currentTime, int segmentHint, JointTransform dest) {
+		if (this.decompressed) {
+			return super.getInterpolatedTransform(currentTime, segmentHint, dest);
+		}
+		
+		int next = this.getNextKeyframe(currentTime, segmentHint);
+		this.interpolateSegment(currentTime, next, dest);
+		return next;
+	}
+	
+	@Override
+	public String toString() {
+		if (this.decompressed) {
+			return super.toString();
+		}
+		
+		return "total " + this.times.length + " frames (compressed from " + this.rawKeyframes + ")";
+	}
+	
+	/** Modifications apply to the decoded keyframes, the sampling methods read them instead of the packed arrays from then on **/
+	private void decompress() {
+		if (!this.decompressed) {
+			this.setKeyframes(this.decodeKeyframes());
+			this.decompressed = true;
+		}
+	}
+	
+	private void interpolateSegment(float currentTime, int next, JointTransform dest) {
+		float[] scratch = SCRATCH.get();
+		float progression = Mth.clamp((currentTime - this.times[next - 1]) / (this.times[next] - this.times[next - 1]), 0.0F, 1.0F);
+		this.decode(next - 1, scratch, 0);
+		this.decode(next, scratch, STRIDE);
+		interpolate(scratch, 0, scratch, STRIDE, progression, scratch, STRIDE * 2);
+		
+		int r = STRIDE * 2;
+		dest.set(scratch[r], scratch[r + 1], scratch[r + 2], scratch[r + 3], scratch[r + 4], scratch[r + 5], scratch[r + 6], scratch[r + 7], scratch[r + 8], scratch[r + 9]);
+	}
+	
+	private Keyframe[] decodeKeyframes() {
+		Keyframe[] keyframes = new Keyframe[this.times.length];
+		
+		for (int i = 0; i < keyframes.length; i++) {
+			keyframes[i] = this.decodeKeyframe(i);
+		}
+		
+		return keyframes;
+	}
+	
+	private Keyframe decodeKeyframe(int index) {
+		float[] components = new float[STRIDE];
+		this.decode(index, components, 0);
+		
+		return new Keyframe(this.times[index], JointTransform.empty().set(components[0], components[1], components[2], components[3], components[4], components[5], components[6], components[7], components[8], components[9]));
+	}
+	
+	private void decode(int index, float[] dest, int offset) {
+		for (int axis = 0; axis < 3; axis++) {
+			if (this.translations == null) {
+				dest[offset + axis] = this.translationBounds[axis];
+			} else {
+				dest[offset + axis] = this.translationBounds[axis] + (this.translations[index * 3 + axis] & 0xFFFF) / (float)TRANSLATION_STEPS * this.translationBounds[axis + 3];
+			}
+			
+			if (this.scales == null) {
+				dest[offset + 7 + axis] = 1.0F;
+			} else {
+				dest[offset + 7 + axis] = this.scales.length == 3 ? this.scales[axis] : this.scales[index * 3 + axis];
+			}
+		}
+		
+		unpackRotation(this.rotations[index], dest, offset + 3);
+	}
+	
+	/** Same search as the raw sheet, index of the first keyframe after the first one whose time is not less than the given time **/
+	private int getNextKeyframe(float currentTime) {
+		int low = 1;
+		int high = this.times.length - 1;
+		
+		while (low < high) {
+			int mid = (low + high) >>> 1;
+			
+			if (currentTime <= this.times[mid]) {
+				high = mid;
+			} else {
+				low = mid + 1;
+			}
+		}
+		
+		return low;
+	}
+	
+	private int getNextKeyframe(float currentTime, int segmentHint) {
+		int last = this.times.length - 1;
+		
+		for (int next = segmentHint; next <= segmentHint + 1; next++) {
+			if (next >= 1 && next <= last && (next == last || currentTime <= this.times[next]) && (next == 1 || !(currentTime <= this.times[next - 1]))) {
+				return next;
+			}
+		}
+		
+		return this.getNextKeyframe(currentTime);
+	}
+	
+	private static long packRotation(float i, float j, float k, float r) {
+		float[] q = {i, j, k, r};
+		float length = (float)Math.sqrt(i * i + j * j + k * k + r * r);
+		int largest = 0;
+		
+		for (int c = 0; c < 4; c++) {
+			q[c] = length > 0.0F ? q[c] / length : (c == 3 ? 1.0F : 0.0F);
+			
+			if (Math.abs(q[c]) > Math.abs(q[largest])) {
+				largest = c;
+			}
+		}
+		
+		float sign = q[largest] < 0.0F ? -1.0F : 1.0F;
+		long packed = (long)largest << (ROTATION_BITS * 3);
+		int shift = ROTATION_BITS * 2;
+		
+		for (int c = 0; c < 4; c++) {
+			if (c != largest) {
+				float fraction = Mth.clamp((q[c] * sign / ROTATION_RANGE) * 0.5F + 0.5F, 0.0F, 1.0F);
+				packed |= ((long)Math.round(fraction * ROTATION_MASK) & ROTATION_MASK) << shift;
+				shift -= ROTATION_BITS;
+			}
+		}
+		
+		return packed;
+	}
+	
+	private static void unpackRotation(long packed, float[] dest, int offset) {
+		int largest = (int)(packed >>> (ROTATION_BITS * 3)) & 3;
+		int shift = ROTATION_BITS * 2;
+		float sum = 0.0F;
+		
+		for (int c = 0; c < 4; c++) {
+			if (c != largest) {
+				float value = (((packed >>> shift) & ROTATION_MASK) / (float)ROTATION_MASK - 0.5F) * 2.0F * ROTATION_RANGE;
+				dest[offset + c] = value;
+				sum += value * value;
+				shift -= ROTATION_BITS;
+			}
+		}
+		
+		dest[offset + largest] = (float)Math.sqrt(Math.max(0.0F, 1.0F - sum));
+	}
+	
+	private static void writeComponents(JointTransform transform, float[] dest, int offset) {
+		dest[offset] = transform.translation().x;
+		dest[offset + 1] = transform.translation().y;
+		dest[offset + 2] = transform.translation().z;
+		dest[offset + 3] = transform.rotation().i();
+		dest[offset + 4] = transform.rotation().j();
+		dest[offset + 5] = transform.rotation().k();
+		dest[offset + 6] = transform.rotation().r();
+		dest[offset + 7] = transform.scale().x;
+		dest[offset + 8] = transform.scale().y;
+		dest[offset + 9] = transform.scale().z;
+	}
+	
+	/** Component wise variant of {@link JointTransform#interpolate(JointTransform, JointTransform, float, JointTransform)} **/
+	private static void interpolate(float[] from, int fromOffset, float[] to, int toOffset, float progression, float[] dest, int destOffset) {
+		progression = Mth.clamp(progression, 0.0F, 1.0F);
+		
+		for (int axis = 0; axis < 3; axis++) {
+			dest[destOffset + axis] = from[fromOffset + axis] + (to[toOffset + axis] - from[fromOffset + axis]) * progression;
+			dest[destOffset + 7 + axis] = from[fromOffset + 7 + axis] + (to[toOffset + 7 + axis] - from[fromOffset + 7 + axis]) * progression;
+		}
+		
+		MathUtils.lerpQuaternion(from, fromOffset + 3, to, toOffset + 3, progression, dest, destOffset + 3);
+	}
+	
+	private static float getPositionError(float[] a, int aOffset, float[] b, int bOffset) {
+		float dx = a[aOffset] - b[bOffset];
+		float dy = a[aOffset + 1] - b[bOffset + 1];
+		float dz = a[aOffset + 2] - b[bOffset + 2];
+		float error = (float)Math.sqrt(dx * dx + dy * dy + dz * dz);
+		
+		for (int axis = 7; axis < 10; axis++) {
+			error = Math.max(error, Math.abs(a[aOffset + axis] - b[bOffset + axis]));
+		}
+		
+		return error;
+	}
+	
+	/** Absolute dot product of the normalized rotations, 1 when they're equal **/
+	private static float getRotationDot(float[] a, int aOffset, float[] b, int bOffset) {
+		float dot = 0.0F;
+		float lengthA = 0.0F;
+		float lengthB = 0.0F;
+		
+		for (int c = 3; c < 7; c++) {
+			dot += a[aOffset + c] * b[bOffset + c];
+			lengthA += a[aOffset + c] * a[aOffset + c];
+			lengthB += b[bOffset + c] * b[bOffset + c];
+		}
+		
+		return lengthA > 0.0F && lengthB > 0.0F ? Math.abs(dot) / (float)Math.sqrt(lengthA * lengthB) : 1.0F;
+	}
+}
\ No newline at end of file
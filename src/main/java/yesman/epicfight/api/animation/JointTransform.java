@@ -1,8 +1,7 @@
 package yesman.epicfight.api.animation;
 
-import java.util.Map;
+import java.util.Arrays;
 
-import com.google.common.collect.Maps;
 import com.mojang.math.Quaternion;
 
 import net.minecraft.util.Mth;
@@ -12,11 +11,15 @@ import yesman.epicfight.api.utils.math.OpenMatrix4f;
 import yesman.epicfight.api.utils.math.Vec3f;
 
 public class JointTransform {
-	public static final String ANIMATION_TRANSFROM = "animation_transform";
-	public static final String JOINT_LOCAL_TRANSFORM = "joint_local_transform";
-	public static final String PARENT = "parent";
-	public static final String RESULT1 = "front_result";
-	public static final String RESULT2 = "overwrite_rotation";
+	/** Slots of the pose modifiers, declared in binding order. The animation transform itself is bound between JOINT_LOCAL_TRANSFORM and RESULT1 **/
+	public enum EntrySlot {
+		PARENT, JOINT_LOCAL_TRANSFORM, RESULT1, RESULT2;
+		
+		private static final EntrySlot[] VALUES = values();
+	}
+	
+	/** Scratch matrices of the in place composition: entry matrix, composed term, rotation **/
+	private static final ThreadLocal<OpenMatrix4f[]> SCRATCH = ThreadLocal.withInitial(() -> new OpenMatrix4f[] {new OpenMatrix4f(), new OpenMatrix4f(), new OpenMatrix4f()});
 	
 	public static class TransformEntry {
 		public final MatrixOperation multiplyFunction;
@@ -28,7 +31,10 @@ public class JointTransform {
 		}
 	}
 	
-	private Map<String, TransformEntry> entries = Maps.newHashMap();
+	private final TransformEntry[] entries = new TransformEntry[EntrySlot.VALUES.length];
+	private int entryCount;
+	/** Last pose this transform was put in, it is told about the modifications so the matrices solved from it are recomputed **/
+	private Pose owner;
 	private Vec3f translation;
 	private Vec3f scale;
 	private Quaternion rotation;
@@ -51,10 +57,57 @@ public class JointTransform {
 		return this.scale;
 	}
 	
+	public boolean hasEntries() {
+		return this.entryCount > 0;
+	}
+	
+	public TransformEntry getEntry(EntrySlot slot) {
+		return this.entries[slot.ordinal()];
+	}
+	
+	void setOwner(Pose owner) {
+		this.owner = owner;
+	}
+	
+	private void onModified() {
+		if (this.owner != null) {
+			this.owner.onTransformModified();
+		}
+	}
+	
+	private void putEntry(EntrySlot slot, TransformEntry entry) {
+		this.onModified();
+		
+		if (this.entries[slot.ordinal()] == null) {
+			this.entryCount++;
+		}
+		
+		this.entries[slot.ordinal()] = entry;
+	}
+	
+	private void clearEntries() {
+		if (this.entryCount > 0) {
+			this.onModified();
+			Arrays.fill(this.entries, null);
+			this.entryCount = 0;
+		}
+	}
+	
 	public JointTransform copy() {
 		return JointTransform.empty().copyFrom(this);
 	}
 	
+	/** Sets the components and removes the entries **/
+	public JointTransform set(float tx, float ty, float tz, float qi, float qj, float qk, float qr, float sx, float sy, float sz) {
+		this.translation.set(tx, ty, tz);
+		MathUtils.setQuaternion(this.rotation, qi, qj, qk, qr);
+		this.scale.set(sx, sy, sz);
+		this.clearEntries();
+		this.onModified();
+		
+		return this;
+	}
+	
 	public JointTransform copyFrom(JointTransform jt) {
 		Vec3f newV = jt.translation();
 		Quaternion newQ = jt.rotation();
@@ -62,53 +115,98 @@ public class JointTransform {
 		this.translation.set(newV);
 		this.rotation.set(newQ.i(), newQ.j(), newQ.k(), newQ.r());
 		this.scale.set(newS);
+		this.onModified();
 		
-		for (Map.Entry<String, TransformEntry> entry : jt.entries.entrySet()) {
-			this.entries.put(entry.getKey(), entry.getValue());
+		for (EntrySlot slot : EntrySlot.VALUES) {
+			if (jt.entries[slot.ordinal()] != null) {
+				this.putEntry(slot, jt.entries[slot.ordinal()]);
+			}
 		}
 		
 		return this;
 	}
 	
 	public void jointLocal(JointTransform transform, MatrixOperation multiplyFunction) {
-		this.entries.put(JOINT_LOCAL_TRANSFORM, new TransformEntry(multiplyFunction, transform));
+		this.putEntry(EntrySlot.JOINT_LOCAL_TRANSFORM, new TransformEntry(multiplyFunction, transform));
 	}
 	
 	public void parent(JointTransform transform, MatrixOperation multiplyFunction) {
-		this.entries.put(PARENT, new TransformEntry(multiplyFunction, transform));
+		this.putEntry(EntrySlot.PARENT, new TransformEntry(multiplyFunction, transform));
 	}
 	
 	public void frontResult(JointTransform transform, MatrixOperation multiplyFunction) {
-		this.entries.put(RESULT1, new TransformEntry(multiplyFunction, transform));
+		this.putEntry(EntrySlot.RESULT1, new TransformEntry(multiplyFunction, transform));
 	}
 	
 	public void overwriteRotation(JointTransform transform) {
-		this.entries.put(RESULT2, new TransformEntry(OpenMatrix4f::mul, transform));
+		this.putEntry(EntrySlot.RESULT2, new TransformEntry(OpenMatrix4f::mul, transform));
 	}
 	
 	public OpenMatrix4f getAnimationBindedMatrix(Joint joint, OpenMatrix4f parentTransform) {
-		OpenMatrix4f.AnimationTransformEntry animationTransformEntry = new OpenMatrix4f.AnimationTransformEntry();
+		return this.getAnimationBindedMatrix(joint, parentTransform, new OpenMatrix4f());
+	}
+	
+	/**
+	 * Composes parent * jointLocal * (animation * pose) followed by the result entries into dest, which must not be parentTransform.
+	 * Modifier entries are folded into the term of their slot with their own operation.
+	 */
+	public OpenMatrix4f getAnimationBindedMatrix(Joint joint, OpenMatrix4f parentTransform, OpenMatrix4f dest) {
+		return this.getAnimationBindedMatrix(joint, parentTransform, joint.getPoseTransform(), dest);
+	}
+	
+	/** Same composition with the given matrix in place of the pose transform of the joint **/
+	public OpenMatrix4f getAnimationBindedMatrix(Joint joint, OpenMatrix4f parentTransform, OpenMatrix4f poseTransform, OpenMatrix4f dest) {
+		OpenMatrix4f[] scratch = SCRATCH.get();
+		OpenMatrix4f entryMatrix = scratch[0];
+		OpenMatrix4f term = scratch[1];
+		OpenMatrix4f rotation = scratch[2];
+		TransformEntry parent = this.entries[EntrySlot.PARENT.ordinal()];
+		TransformEntry jointLocal = this.entries[EntrySlot.JOINT_LOCAL_TRANSFORM.ordinal()];
+		TransformEntry frontResult = this.entries[EntrySlot.RESULT1.ordinal()];
+		TransformEntry overwriteRotation = this.entries[EntrySlot.RESULT2.ordinal()];
 		
-		for (Map.Entry<String, TransformEntry> entry : this.entries.entrySet()) {
-			animationTransformEntry.put(entry.getKey(), entry.getValue().transform.toMatrix(), entry.getValue().multiplyFunction);
+		if (parent != null) {
+			parent.multiplyFunction.mul(parent.transform.toMatrix(entryMatrix, rotation), parentTransform, dest);
+		} else {
+			dest.load(parentTransform);
 		}
 		
-		animationTransformEntry.put(ANIMATION_TRANSFROM, this.toMatrix(), OpenMatrix4f::mul);
-		animationTransformEntry.put(JOINT_LOCAL_TRANSFORM, joint.getLocalTrasnform());
-		animationTransformEntry.put(PARENT, parentTransform);
-		animationTransformEntry.put(ANIMATION_TRANSFROM, joint.getPoseTransform());
-				
-		return animationTransformEntry.getResult();
+		if (jointLocal != null) {
+			jointLocal.multiplyFunction.mul(jointLocal.transform.toMatrix(entryMatrix, rotation), joint.getLocalTrasnform(), term);
+			OpenMatrix4f.mul(dest, term, dest);
+		} else {
+			OpenMatrix4f.mul(dest, joint.getLocalTrasnform(), dest);
+		}
+		
+		OpenMatrix4f.mul(this.toMatrix(entryMatrix, rotation), poseTransform, term);
+		OpenMatrix4f.mul(dest, term, dest);
+		
+		if (frontResult != null) {
+			frontResult.multiplyFunction.mul(dest, frontResult.transform.toMatrix(entryMatrix, rotation), dest);
+		}
+		
+		if (overwriteRotation != null) {
+			overwriteRotation.multiplyFunction.mul(dest, overwriteRotation.transform.toMatrix(entryMatrix, rotation), dest);
+		}
+		
+		return dest;
 	}
 	
 	public OpenMatrix4f toMatrix() {
-		OpenMatrix4f matrix = new OpenMatrix4f().translate(this.translation).mulBack(OpenMatrix4f.fromQuaternion(this.rotation)).scale(this.scale);
-		return matrix;
+		return this.toMatrix(new OpenMatrix4f(), new OpenMatrix4f());
+	}
+	
+	/** Writes translation * rotation * scale into dest, rotationScratch receives the rotation matrix **/
+	public OpenMatrix4f toMatrix(OpenMatrix4f dest, OpenMatrix4f rotationScratch) {
+		OpenMatrix4f.setIdentity(dest);
+		OpenMatrix4f.translate(this.translation, dest, dest);
+		OpenMatrix4f.mul(dest, OpenMatrix4f.fromQuaternion(this.rotation, rotationScratch), dest);
+		return OpenMatrix4f.scale(this.scale, dest, dest);
 	}
 	
 	@Override
 	public String toString() {
-		return String.format("translation:%s, rotation:%s, %d entries ", this.translation, this.rotation, this.entries.size());
+		return String.format("translation:%s, rotation:%s, %d entries ", this.translation, this.rotation, this.entryCount);
 	}
 	
 	private static JointTransform interpolateSimple(JointTransform prev, JointTransform next, float progression) {
@@ -118,25 +216,41 @@ public class JointTransform {
 	}
 	
 	public static JointTransform interpolate(JointTransform prev, JointTransform next, float progression) {
+		return interpolate(prev, next, progression, JointTransform.empty());
+	}
+	
+	/** Writes the interpolated transform into dest, which must not be prev or next **/
+	public static JointTransform interpolate(JointTransform prev, JointTransform next, float progression, JointTransform dest) {
+		dest.clearEntries();
+		dest.onModified();
+		
 		if (prev == null || next == null) {
-			return JointTransform.empty();
+			dest.translation.set(0.0F, 0.0F, 0.0F);
+			MathUtils.setQuaternion(dest.rotation, 0.0F, 0.0F, 0.0F, 1.0F);
+			dest.scale.set(1.0F, 1.0F, 1.0F);
+			return dest;
 		}
 		
 		progression = Mth.clamp(progression, 0.0F, 1.0F);
-		JointTransform interpolated = interpolateSimple(prev, next, progression);
+		MathUtils.lerpVector(prev.translation, next.translation, progression, dest.translation);
+		MathUtils.lerpQuaternion(prev.rotation, next.rotation, progression, dest.rotation);
+		MathUtils.lerpVector(prev.scale, next.scale, progression, dest.scale);
 		
-		for (Map.Entry<String, TransformEntry> entry : prev.entries.entrySet()) {
-			JointTransform transform = next.entries.containsKey(entry.getKey()) ? next.entries.get(entry.getKey()).transform : JointTransform.empty();
-			interpolated.entries.put(entry.getKey(), new TransformEntry(entry.getValue().multiplyFunction, interpolateSimple(entry.getValue().transform, transform, progression)));
-		}
-		
-		for (Map.Entry<String, TransformEntry> entry : next.entries.entrySet()) {
-			if (!interpolated.entries.containsKey(entry.getKey())) {
-				interpolated.entries.put(entry.getKey(), new TransformEntry(entry.getValue().multiplyFunction, interpolateSimple(JointTransform.empty(), entry.getValue().transform, progression)));
+		if (prev.entryCount > 0 || next.entryCount > 0) {
+			for (EntrySlot slot : EntrySlot.VALUES) {
+				TransformEntry prevEntry = prev.entries[slot.ordinal()];
+				TransformEntry nextEntry = next.entries[slot.ordinal()];
+				
+				if (prevEntry != null) {
+					JointTransform transform = nextEntry != null ? nextEntry.transform : JointTransform.empty();
+					dest.putEntry(slot, new TransformEntry(prevEntry.multiplyFunction, interpolateSimple(prevEntry.transform, transform, progression)));
+				} else if (nextEntry != null) {
+					dest.putEntry(slot, new TransformEntry(nextEntry.multiplyFunction, interpolateSimple(JointTransform.empty(), nextEntry.transform, progression)));
+				}
 			}
 		}
 		
-		return interpolated;
+		return dest;
 	}
 	
 	public static JointTransform fromMatrixNoScale(OpenMatrix4f matrix) {
@@ -0,0 +1,40 @@
+package yesman.epicfight.api.animation;
+
+import java.util.Arrays;
+
+/**
+ * Remembers the last keyframe segment sampled per slot so that a player advancing time monotonically
+ * finds the next keyframe in constant time. Stale hints are only a performance loss, the sheet falls back to binary search.
+ */
+public class KeyframeCursor {
+	public static final int ELAPSED_COORD = 0;
+	public static final int PREV_ELAPSED_COORD = 1;
+	private static final int RESERVED_SLOTS = 2;
+	
+	private final JointTransform scratchTransform = JointTransform.empty();
+	private int[] segments = new int[RESERVED_SLOTS];
+	
+	public static int jointSlot(int jointId) {
+		return RESERVED_SLOTS + jointId;
+	}
+	
+	public void ensureJointCapacity(int jointCount) {
+		if (this.segments.length < RESERVED_SLOTS + jointCount) {
+			this.segments = Arrays.copyOf(this.segments, RESERVED_SLOTS + jointCount);
+		}
+	}
+	
+	public JointTransform interpolateTransform(TransformSheet sheet, int slot, float time, JointTransform dest) {
+		this.segments[slot] = sheet.getInterpolatedTransform(time, this.segments[slot], dest);
+		return dest;
+	}
+	
+	/** Shared scratch transform, the content is only valid until the next sampling **/
+	public JointTransform getScratchTransform() {
+		return this.scratchTransform;
+	}
+	
+	public void reset() {
+		Arrays.fill(this.segments, 0);
+	}
+}
\ No newline at end of file
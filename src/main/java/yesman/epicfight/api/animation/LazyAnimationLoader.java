@@ -0,0 +1,220 @@
+package yesman.epicfight.api.animation;
+
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.google.common.collect.Maps;
+
+import net.minecraft.Util;
+import net.minecraft.resources.ResourceLocation;
+import yesman.epicfight.api.animation.types.StaticAnimation;
+import yesman.epicfight.api.model.BinaryAnimationCache;
+import yesman.epicfight.api.model.JsonModelLoader;
+import yesman.epicfight.main.EpicFightMod;
+
+/**
+ * Keeps the joint sheets of static animations on disk until they're sampled. Only the total time, the coord and the root sheet are read while loading,
+ * the sheets are materialized on the first access and the least recently used ones are evicted when the resident keyframes exceed the budget.
+ * Asking for the coord of an animation doesn't materialize it, the sheets are preloaded on a background thread instead.
+ *
+ * Each handle is materialized under its own lock, so reading one animation from the disk doesn't block the access to the others.
+ * Evictions only happen at the end of the server tick, sheets handed out during a tick stay resident until it ends.
+ *
+ * Used on dedicated servers only, the resources are read from the mod jars.
+ */
+public class LazyAnimationLoader {
+	private final Map<StaticAnimation, Handle> handles = Maps.newConcurrentMap();
+	private final AtomicInteger materializations = new AtomicInteger();
+	private final AtomicInteger evictions = new AtomicInteger();
+	private final AtomicLong clock = new AtomicLong();
+	private final AtomicLong residentBytes = new AtomicLong();
+	private final AtomicInteger residentCount = new AtomicInteger();
+	private long budgetBytes;
+	
+	/** Loads the metadata of the animation and registers it for materialization, returns false if the file can't be read **/
+	public boolean loadMetadata(StaticAnimation animation, ResourceLocation rl, BinaryAnimationCache binaryCache, boolean verify) {
+		AnimationClip clip = this.readClip(animation, rl, binaryCache, verify, true);
+		
+		if (clip == null) {
+			return false;
+		}
+		
+		AnimationClip metadata = new AnimationClip();
+		metadata.setCoord(clip.getCoord());
+		metadata.setTotalTime(clip.getTotalTime());
+		metadata.applyTo(animation);
+		
+		Handle handle = new Handle(this, animation, rl, clip.getJointSheets().get("Root"));
+		this.handles.put(animation, handle);
+		animation.setLazyHandle(handle);
+		
+		return true;
+	}
+	
+	public void setBudget(long budgetBytes) {
+		this.budgetBytes = budgetBytes;
+	}
+	
+	public void clear() {
+		synchronized (this) {
+			this.handles.values().forEach((handle) -> handle.animation.setLazyHandle(null));
+			this.handles.clear();
+			this.residentBytes.set(0L);
+			this.residentCount.set(0);
+		}
+		
+		this.materializations.set(0);
+		this.evictions.set(0);
+	}
+	
+	public int getLazyAnimations() {
+		return this.handles.size();
+	}
+	
+	public int getMaterializations() {
+		return this.materializations.get();
+	}
+	
+	public int getEvictions() {
+		return this.evictions.get();
+	}
+	
+	public int getResidentCount() {
+		return this.residentCount.get();
+	}
+	
+	public long getResidentBytes() {
+		return this.residentBytes.get();
+	}
+	
+	public String getStatistics() {
+		return this.getLazyAnimations() + " lazy animations, " + this.getResidentCount() + " resident (" + (this.getResidentBytes() >> 10) + " KB), "
+				+ this.getMaterializations() + " materialized, " + this.getEvictions() + " evicted";
+	}
+	
+	private void materialize(Handle handle) {
+		long estimatedBytes = 0L;
+		
+		synchronized (handle) {
+			if (handle.resident || this.handles.get(handle.animation) != handle) {
+				return;
+			}
+			
+			AnimationClip clip = this.readClip(handle.animation, handle.location, EpicFightMod.getInstance().animationManager.getBinaryCache(), false, false);
+			
+			if (clip == null) {
+				EpicFightMod.LOGGER.warn("Failed to materialize animation " + handle.location);
+				clip = new AnimationClip();
+			}
+			
+			handle.animation.setJointSheets(Maps.newHashMap(clip.getJointSheets()));
+			handle.animation.compressSheets();
+			handle.resident = true;
+			
+			for (TransformSheet sheet : handle.animation.getTransfroms().values()) {
+				estimatedBytes += sheet.getEstimatedBytes();
+			}
+			
+			handle.estimatedBytes = estimatedBytes;
+		}
+		
+		this.residentBytes.addAndGet(estimatedBytes);
+		this.residentCount.incrementAndGet();
+		this.materializations.incrementAndGet();
+	}
+	
+	/**
+	 * Evicts the least recently accessed animations until the resident keyframes fit the budget, keeping at least one of them.
+	 * Must be called on the server thread at the end of the tick, no pose of the tick is being built from the evicted sheets then.
+	 */
+	public synchronized void evictColdAnimations() {
+		while (this.budgetBytes > 0L && this.residentBytes.get() > this.budgetBytes && this.residentCount.get() > 1) {
+			Handle coldest = null;
+			
+			for (Handle handle : this.handles.values()) {
+				if (handle.resident && (coldest == null || handle.lastAccess < coldest.lastAccess)) {
+					coldest = handle;
+				}
+			}
+			
+			if (coldest == null) {
+				return;
+			}
+			
+			synchronized (coldest) {
+				if (!coldest.resident) {
+					continue;
+				}
+				
+				coldest.resident = false;
+				coldest.animation.setJointSheets(Maps.newHashMap());
+			}
+			
+			this.residentBytes.addAndGet(-coldest.estimatedBytes);
+			this.residentCount.decrementAndGet();
+			this.evictions.incrementAndGet();
+		}
+	}
+	
+	private AnimationClip readClip(StaticAnimation animation, ResourceLocation rl, BinaryAnimationCache binaryCache, boolean verify, boolean metadataOnly) {
+		if (binaryCache != null) {
+			return binaryCache.loadClip(null, rl, animation, false, verify, metadataOnly);
+		}
+		
+		try {
+			return new JsonModelLoader(null, rl, JsonModelLoader.readResourceBytes(null, rl)).loadStaticAnimationClip(animation);
+		} catch (Exception e) {
+			return null;
+		}
+	}
+	
+	public static class Handle {
+		private final LazyAnimationLoader loader;
+		private final StaticAnimation animation;
+		private final ResourceLocation location;
+		private final TransformSheet rootSheet;
+		private final AtomicBoolean preloading = new AtomicBoolean();
+		private volatile boolean resident;
+		private volatile long lastAccess;
+		private long estimatedBytes;
+		
+		private Handle(LazyAnimationLoader loader, StaticAnimation animation, ResourceLocation location, TransformSheet rootSheet) {
+			this.loader = loader;
+			this.animation = animation;
+			this.location = location;
+			this.rootSheet = rootSheet;
+		}
+		
+		/** Called before the joint sheets are read, materializes them on the first access or after an eviction **/
+		public void access() {
+			this.lastAccess = this.loader.clock.incrementAndGet();
+			
+			if (!this.resident) {
+				this.loader.materialize(this);
+			}
+		}
+		
+		/** Materializes the sheets on a background thread, the coord of an animation is read right before it gets sampled **/
+		public void preload() {
+			this.lastAccess = this.loader.clock.incrementAndGet();
+			
+			if (!this.resident && this.preloading.compareAndSet(false, true)) {
+				Util.backgroundExecutor().execute(() -> {
+					this.loader.materialize(this);
+					this.preloading.set(false);
+				});
+			}
+		}
+		
+		/** The root sheet kept from the metadata, readable while the other sheets are on disk **/
+		public TransformSheet getRootSheet() {
+			return this.rootSheet;
+		}
+		
+		public boolean isResident() {
+			return this.resident;
+		}
+	}
+}
\ No newline at end of file
@@ -0,0 +1,220 @@
+package yesman.epicfight.api.animation;
+
+import java.util.Arrays;
+import java.util.Map;
+
+import net.minecraft.util.Mth;
+import yesman.epicfight.api.model.Armature;
+import yesman.epicfight.api.utils.math.MathUtils;
+
+/**
+ * Pose indexed by joint id. Transforms are stored in flat float arrays and joint presence in a bitmask,
+ * joints carrying {@link JointTransform} entries (pose modifiers) are kept as references to stay lossless.
+ */
+public class PackedPose {
+	private static final float[] IDENTITY_ROTATION = {0.0F, 0.0F, 0.0F, 1.0F};
+	
+	private final int jointCount;
+	private final float[] translations;
+	private final float[] rotations;
+	private final float[] scales;
+	private final long[] presence;
+	private final JointTransform[] extendedTransforms;
+	
+	public PackedPose(int jointCount) {
+		this.jointCount = jointCount;
+		this.translations = new float[jointCount * 3];
+		this.rotations = new float[jointCount * 4];
+		this.scales = new float[jointCount * 3];
+		this.presence = new long[(jointCount + 63) >> 6];
+		this.extendedTransforms = new JointTransform[jointCount];
+	}
+	
+	public int getJointCount() {
+		return this.jointCount;
+	}
+	
+	public boolean hasJoint(int jointId) {
+		return (this.presence[jointId >> 6] & (1L << jointId)) != 0L;
+	}
+	
+	public boolean isEmpty() {
+		for (long bits : this.presence) {
+			if (bits != 0L) {
+				return false;
+			}
+		}
+		
+		return true;
+	}
+	
+	public void clear() {
+		Arrays.fill(this.presence, 0L);
+		Arrays.fill(this.extendedTransforms, null);
+	}
+	
+	public void removeJoint(int jointId) {
+		this.presence[jointId >> 6] &= ~(1L << jointId);
+		this.extendedTransforms[jointId] = null;
+	}
+	
+	public void putJointData(int jointId, JointTransform transform) {
+		this.putJointData(jointId, transform.translation().x, transform.translation().y, transform.translation().z,
+							transform.rotation().i(), transform.rotation().j(), transform.rotation().k(), transform.rotation().r(),
+							transform.scale().x, transform.scale().y, transform.scale().z);
+		
+		if (transform.hasEntries()) {
+			this.extendedTransforms[jointId] = transform;
+		}
+	}
+	
+	public void putJointData(int jointId, float tx, float ty, float tz, float qi, float qj, float qk, float qr, float sx, float sy, float sz) {
+		int t = jointId * 3;
+		int r = jointId * 4;
+		this.translations[t] = tx;
+		this.translations[t + 1] = ty;
+		this.translations[t + 2] = tz;
+		this.rotations[r] = qi;
+		this.rotations[r + 1] = qj;
+		this.rotations[r + 2] = qk;
+		this.rotations[r + 3] = qr;
+		this.scales[t] = sx;
+		this.scales[t + 1] = sy;
+		this.scales[t + 2] = sz;
+		this.extendedTransforms[jointId] = null;
+		this.presence[jointId >> 6] |= 1L << jointId;
+	}
+	
+	/** Writes the transform of the joint into dest, identity if the joint is absent. Transform entries are not copied. **/
+	public JointTransform readJointTransform(int jointId, JointTransform dest) {
+		if (!this.hasJoint(jointId)) {
+			dest.translation().set(0.0F, 0.0F, 0.0F);
+			MathUtils.setQuaternion(dest.rotation(), 0.0F, 0.0F, 0.0F, 1.0F);
+			dest.scale().set(1.0F, 1.0F, 1.0F);
+			return dest;
+		}
+		
+		int t = jointId * 3;
+		int r = jointId * 4;
+		dest.translation().set(this.translations[t], this.translations[t + 1], this.translations[t + 2]);
+		MathUtils.setQuaternion(dest.rotation(), this.rotations[r], this.rotations[r + 1], this.rotations[r + 2], this.rotations[r + 3]);
+		dest.scale().set(this.scales[t], this.scales[t + 1], this.scales[t + 2]);
+		
+		return dest;
+	}
+	
+	public JointTransform getOrDefaultTransform(int jointId) {
+		if (this.hasJoint(jointId) && this.extendedTransforms[jointId] != null) {
+			return this.extendedTransforms[jointId];
+		}
+		
+		return this.readJointTransform(jointId, JointTransform.empty());
+	}
+	
+	public float[] getTranslations() {
+		return this.translations;
+	}
+	
+	public float[] getRotations() {
+		return this.rotations;
+	}
+	
+	public float[] getScales() {
+		return this.scales;
+	}
+	
+	public PackedPose copyFrom(PackedPose pose) {
+		if (pose.jointCount != this.jointCount) {
+			throw new IllegalArgumentException("Joint count mismatch: " + pose.jointCount + " to " + this.jointCount);
+		}
+		
+		System.arraycopy(pose.translations, 0, this.translations, 0, this.translations.length);
+		System.arraycopy(pose.rotations, 0, this.rotations, 0, this.rotations.length);
+		System.arraycopy(pose.scales, 0, this.scales, 0, this.scales.length);
+		System.arraycopy(pose.presence, 0, this.presence, 0, this.presence.length);
+		System.arraycopy(pose.extendedTransforms, 0, this.extendedTransforms, 0, this.extendedTransforms.length);
+		
+		return this;
+	}
+	
+	public static PackedPose fromPose(Pose pose, Armature armature, PackedPose dest) {
+		if (dest == null) {
+			dest = new PackedPose(armature.getJointNumber());
+		}
+		
+		dest.clear();
+		
+		for (Map.Entry<String, JointTransform> entry : pose.getJointTransformData().entrySet()) {
+			Joint joint = armature.searchJointByName(entry.getKey());
+			
+			if (joint != null && joint.getId() >= 0 && joint.getId() < dest.jointCount) {
+				dest.putJointData(joint.getId(), entry.getValue());
+			}
+		}
+		
+		return dest;
+	}
+	
+	public Pose toPose(Armature armature) {
+		Pose pose = new Pose();
+		
+		for (int i = 0; i < this.jointCount; i++) {
+			if (this.hasJoint(i)) {
+				pose.putJointData(armature.searchJointById(i).getName(), this.extendedTransforms[i] != null ? this.extendedTransforms[i] : this.readJointTransform(i, JointTransform.empty()));
+			}
+		}
+		
+		return pose;
+	}
+	
+	/** Same result as {@link Pose#interpolatePose(Pose, Pose, float)}, absent joints are interpolated from the identity transform **/
+	public static PackedPose interpolatePose(PackedPose pose1, PackedPose pose2, float progression, PackedPose dest) {
+		if (dest == null) {
+			dest = new PackedPose(pose1.jointCount);
+		}
+		
+		float clampedProgression = Mth.clamp(progression, 0.0F, 1.0F);
+		
+		for (int word = 0; word < dest.presence.length; word++) {
+			long presence1 = pose1.presence[word];
+			long presence2 = pose2.presence[word];
+			long merged = presence1 | presence2;
+			
+			while (merged != 0L) {
+				long bit = Long.lowestOneBit(merged);
+				int jointId = (word << 6) + Long.numberOfTrailingZeros(merged);
+				merged &= merged - 1L;
+				
+				if (pose1.extendedTransforms[jointId] != null || pose2.extendedTransforms[jointId] != null) {
+					dest.putJointData(jointId, JointTransform.interpolate(pose1.getOrDefaultTransform(jointId), pose2.getOrDefaultTransform(jointId), progression));
+				} else {
+					dest.extendedTransforms[jointId] = null;
+					interpolateJoint(pose1, (presence1 & bit) != 0L, pose2, (presence2 & bit) != 0L, jointId, clampedProgression, dest);
+				}
+			}
+			
+			dest.presence[word] = presence1 | presence2;
+		}
+		
+		return dest;
+	}
+	
+	private static void interpolateJoint(PackedPose pose1, boolean has1, PackedPose pose2, boolean has2, int jointId, float progression, PackedPose dest) {
+		int t = jointId * 3;
+		int r = jointId * 4;
+		
+		for (int i = 0; i < 3; i++) {
+			float from = has1 ? pose1.translations[t + i] : 0.0F;
+			float to = has2 ? pose2.translations[t + i] : 0.0F;
+			dest.translations[t + i] = from + (to - from) * progression;
+			
+			float fromScale = has1 ? pose1.scales[t + i] : 1.0F;
+			float toScale = has2 ? pose2.scales[t + i] : 1.0F;
+			dest.scales[t + i] = fromScale + (toScale - fromScale) * progression;
+		}
+		
+		float[] from = has1 ? pose1.rotations : IDENTITY_ROTATION;
+		float[] to = has2 ? pose2.rotations : IDENTITY_ROTATION;
+		MathUtils.lerpQuaternion(from, has1 ? r : 0, to, has2 ? r : 0, progression, dest.rotations, r);
+	}
+}
\ No newline at end of file
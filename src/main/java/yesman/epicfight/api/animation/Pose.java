@@ -1,17 +1,18 @@
 package yesman.epicfight.api.animation;
 
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
 import com.google.common.base.Predicate;
-import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
 
 import yesman.epicfight.api.client.animation.property.JointMask;
 
 public class Pose {
-	private final Map<String, JointTransform> jointTransformData = Maps.newHashMap();
+	private final Map<String, JointTransform> jointTransformData = new JointMap();
+	private int modCount;
 	
 	public void putJointData(String name, JointTransform transform) {
 		this.jointTransformData.put(name, transform);
@@ -21,6 +22,24 @@ public class Pose {
 		this.jointTransformData.putAll(pose.jointTransformData);
 	}
 	
+	/**
+	 * Incremented when joints are put or removed and when a transform of this pose is set, interpolated into or gets entries.
+	 * A transform shared by several poses only reports to the last pose it was put in.
+	 * Writes into the vectors of a transform aren't seen, callers writing into them must call {@link #markChanged()} after.
+	 */
+	public int getModCount() {
+		return this.modCount;
+	}
+	
+	/** Invalidates the matrices solved from this pose, for writes made directly into the translation, rotation or scale of its transforms **/
+	public void markChanged() {
+		this.modCount++;
+	}
+	
+	void onTransformModified() {
+		this.modCount++;
+	}
+	
 	public Map<String, JointTransform> getJointTransformData() {
 		return this.jointTransformData;
 	}
@@ -31,6 +50,7 @@ public class Pose {
 	
 	public void removeJointIf(Predicate<? super Map.Entry<String, JointTransform>> predicate) {
 		this.jointTransformData.entrySet().removeIf(predicate);
+		this.modCount++;
 	}
 	
 	public void removeJointIf(List<JointMask> jointsToRemove) {
@@ -66,4 +86,39 @@ public class Pose {
 		
 		return str;
 	}
+	
+	/** Counts the changes made through the map of {@link #getJointTransformData()} and makes this pose the owner of the transforms put in it **/
+	@SuppressWarnings("serial")
+	private class JointMap extends HashMap<String, JointTransform> {
+		@Override
+		public JointTransform put(String name, JointTransform transform) {
+			transform.setOwner(Pose.this);
+			Pose.this.modCount++;
+			
+			return super.put(name, transform);
+		}
+		
+		@Override
+		public void putAll(Map<? extends String, ? extends JointTransform> map) {
+			for (JointTransform transform : map.values()) {
+				transform.setOwner(Pose.this);
+			}
+			
+			Pose.this.modCount++;
+			super.putAll(map);
+		}
+		
+		@Override
+		public JointTransform remove(Object name) {
+			Pose.this.modCount++;
+			
+			return super.remove(name);
+		}
+		
+		@Override
+		public void clear() {
+			Pose.this.modCount++;
+			super.clear();
+		}
+	}
 }
\ No newline at end of file
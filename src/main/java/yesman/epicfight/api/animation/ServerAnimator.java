@@ -1,13 +1,23 @@
 package yesman.epicfight.api.animation;
 
+import net.minecraft.world.entity.LivingEntity;
+import net.minecraft.world.entity.player.Player;
 import yesman.epicfight.api.animation.types.DynamicAnimation;
 import yesman.epicfight.api.animation.types.EntityState;
 import yesman.epicfight.api.animation.types.LinkAnimation;
 import yesman.epicfight.api.animation.types.StaticAnimation;
+import yesman.epicfight.api.model.Armature;
+import yesman.epicfight.config.ConfigManager;
 import yesman.epicfight.gameasset.Animations;
 import yesman.epicfight.world.capabilities.entitypatch.LivingEntityPatch;
 
+/**
+ * Entities far from every player don't evaluate their pose each tick: the elapsed time, animation events, colliders and coord
+ * keep running as usual while the armature pose is only marked stale and evaluated when it's read, or every few ticks in the reduced tier.
+ */
 public class ServerAnimator extends Animator {
+	private static final int LOD_CHECK_INTERVAL = 20;
+	
 	public static Animator getAnimator(LivingEntityPatch<?> entitypatch) {
 		return new ServerAnimator(entitypatch);
 	}
@@ -15,6 +25,12 @@ public class ServerAnimator extends Animator {
 	public final AnimationPlayer animationPlayer;
 	protected DynamicAnimation nextPlaying;
 	private LinkAnimation linkAnimation;
+	private PackedPose packedPose;
+	private final Runnable poseRefresher = this::refreshPose;
+	/** Ticks between two pose evaluations, 0 evaluates the pose only when it is read **/
+	private int poseInterval = 1;
+	private int ticksSincePose;
+	private int lodCheckTimer;
 	public boolean pause = false;
 	
 	public ServerAnimator(LivingEntityPatch<?> entitypatch) {
@@ -57,8 +73,69 @@ public class ServerAnimator extends Animator {
 	
 	@Override
 	public void poseTick() {
-		Pose currentPose = this.animationPlayer.getCurrentPose(this.entitypatch, 1.0F);
-		this.entitypatch.getArmature().setPose(currentPose);
+		Armature armature = this.entitypatch.getArmature();
+		armature.setPendingPoseUpdate(null);
+		this.setPoseAt(armature, 1.0F);
+	}
+	
+	/** Evaluates both the previous and the current pose after pose ticks were skipped **/
+	private void refreshPose() {
+		Armature armature = this.entitypatch.getArmature();
+		armature.setPendingPoseUpdate(null);
+		this.setPoseAt(armature, 0.0F);
+		this.setPoseAt(armature, 1.0F);
+	}
+	
+	private void setPoseAt(Armature armature, float partialTicks) {
+		if (this.packedPose == null || this.packedPose.getJointCount() != armature.getJointNumber()) {
+			this.packedPose = new PackedPose(armature.getJointNumber());
+		}
+		
+		this.animationPlayer.getCurrentPose(this.entitypatch, partialTicks, this.packedPose);
+		armature.setPose(this.packedPose);
+	}
+	
+	private void updatePoseLevelOfDetail() {
+		if (--this.lodCheckTimer > 0) {
+			return;
+		}
+		
+		this.lodCheckTimer = LOD_CHECK_INTERVAL;
+		LivingEntity entity = this.entitypatch.getOriginal();
+		
+		if (!ConfigManager.SERVER_ANIMATION_LOD.get() || entity instanceof Player) {
+			this.poseInterval = 1;
+			return;
+		}
+		
+		double fullDistance = ConfigManager.ANIMATION_LOD_FULL_DISTANCE.get();
+		double reducedDistance = Math.max(fullDistance, ConfigManager.ANIMATION_LOD_REDUCED_DISTANCE.get());
+		Player nearestPlayer = entity.level.getNearestPlayer(entity, reducedDistance);
+		
+		if (nearestPlayer == null) {
+			this.poseInterval = 0;
+		} else if (nearestPlayer.distanceToSqr(entity) <= fullDistance * fullDistance) {
+			this.poseInterval = 1;
+		} else {
+			this.poseInterval = ConfigManager.ANIMATION_LOD_REDUCED_INTERVAL.get();
+		}
+	}
+	
+	private void tickPose() {
+		this.updatePoseLevelOfDetail();
+		Armature armature = this.entitypatch.getArmature();
+		
+		if (this.poseInterval == 1 || (this.poseInterval > 1 && ++this.ticksSincePose >= this.poseInterval)) {
+			this.ticksSincePose = 0;
+			
+			if (armature.hasPendingPoseUpdate()) {
+				this.refreshPose();
+			} else {
+				this.poseTick();
+			}
+		} else {
+			armature.setPendingPoseUpdate(this.poseRefresher);
+		}
 	}
 	
 	@Override
@@ -69,7 +146,7 @@ public class ServerAnimator extends Animator {
 		}
 		
 		this.animationPlayer.tick(this.entitypatch);
-		this.poseTick();
+		this.tickPose();
 		this.entitypatch.updateEntityState();
 		this.animationPlayer.getAnimation().tick(this.entitypatch);
 		
@@ -13,6 +13,9 @@ import yesman.epicfight.api.utils.math.Vec3f;
 import yesman.epicfight.world.capabilities.entitypatch.LivingEntityPatch;
 
 public class TransformSheet {
+	/** Rough heap size of a raw keyframe: the keyframe, the joint transform and its map, two vectors and a quaternion **/
+	public static final long RAW_KEYFRAME_BYTES = 136L;
+	
 	private Keyframe[] keyframes;
 	
 	public TransformSheet(List<Keyframe> keyframeList) {
@@ -35,6 +38,15 @@ public class TransformSheet {
 		return this.keyframes;
 	}
 	
+	/** Replaces the keyframes of compressed sheets decoded before they're modified **/
+	void setKeyframes(Keyframe[] keyframes) {
+		this.keyframes = keyframes;
+	}
+	
+	public long getEstimatedBytes() {
+		return 32L + this.keyframes.length * RAW_KEYFRAME_BYTES;
+	}
+	
 	public TransformSheet copyAll() {
 		return this.copy(0, this.keyframes.length);
 	}
@@ -52,8 +64,10 @@ public class TransformSheet {
 	}
 	
 	public TransformSheet readFrom(TransformSheet opponent) {
-		if (opponent.keyframes.length != this.keyframes.length) {
-			this.keyframes = new Keyframe[opponent.keyframes.length];
+		Keyframe[] opponentKeyframes = opponent.getKeyframes();
+		
+		if (opponentKeyframes.length != this.keyframes.length) {
+			this.keyframes = new Keyframe[opponentKeyframes.length];
 			
 			for (int i = 0; i < this.keyframes.length; i++) {
 				this.keyframes[i] = new Keyframe(0.0F, JointTransform.empty());
@@ -61,7 +75,7 @@ public class TransformSheet {
 		}
 		
 		for (int i = 0; i < this.keyframes.length; i++) {
-			this.keyframes[i].copyFrom(opponent.keyframes[i]);
+			this.keyframes[i].copyFrom(opponentKeyframes[i]);
 		}
 		
 		return this;
@@ -80,21 +94,34 @@ public class TransformSheet {
 	}
 	
 	public Vec3f getInterpolatedTranslation(float currentTime) {
-		InterpolationInfo interpolInfo = this.getInterpolationInfo(currentTime);
-		Vec3f vec3f = MathUtils.lerpVector(this.keyframes[interpolInfo.prev].transform().translation(), this.keyframes[interpolInfo.next].transform().translation(), interpolInfo.zero2One);
+		int next = this.getNextKeyframe(currentTime);
+		Vec3f vec3f = MathUtils.lerpVector(this.keyframes[next - 1].transform().translation(), this.keyframes[next].transform().translation(), this.getProgression(currentTime, next));
 		return vec3f;
 	}
 	
 	public Quaternion getInterpolatedRotation(float currentTime) {
-		InterpolationInfo interpolInfo = this.getInterpolationInfo(currentTime);
-		Quaternion quat = MathUtils.lerpQuaternion(this.keyframes[interpolInfo.prev].transform().rotation(), this.keyframes[interpolInfo.next].transform().rotation(), interpolInfo.zero2One);
+		int next = this.getNextKeyframe(currentTime);
+		Quaternion quat = MathUtils.lerpQuaternion(this.keyframes[next - 1].transform().rotation(), this.keyframes[next].transform().rotation(), this.getProgression(currentTime, next));
 		return quat;
 	}
 	
 	public JointTransform getInterpolatedTransform(float currentTime) {
-		InterpolationInfo interpolInfo = this.getInterpolationInfo(currentTime);
-		JointTransform trasnform = JointTransform.interpolate(this.keyframes[interpolInfo.prev].transform(), this.keyframes[interpolInfo.next].transform(), interpolInfo.zero2One);
-		return trasnform;
+		return this.getInterpolatedTransform(currentTime, JointTransform.empty());
+	}
+	
+	public JointTransform getInterpolatedTransform(float currentTime, JointTransform dest) {
+		int next = this.getNextKeyframe(currentTime);
+		return JointTransform.interpolate(this.keyframes[next - 1].transform(), this.keyframes[next].transform(), this.getProgression(currentTime, next), dest);
+	}
+	
+	/**
+	 * Interpolates into dest starting the keyframe search from the hint, a segment returned by a previous call.
+	 * Returns the segment to pass as the next hint, so time moving forward costs O(1) amortized.
+	 */
+	public int getInterpolatedTransform(float currentTime, int segmentHint, JointTransform dest) {
+		int next = this.getNextKeyframe(currentTime, segmentHint);
+		JointTransform.interpolate(this.keyframes[next - 1].transform(), this.keyframes[next].transform(), this.getProgression(currentTime, next), dest);
+		return next;
 	}
 	
 	public void correctAnimationByNewPosition(Vec3f startpos, Vec3f startToEnd, Vec3f modifiedStart, Vec3f modifiedStartToEnd) {
@@ -185,42 +212,56 @@ public class TransformSheet {
 		return newTransformSheet;
 	}
 	
-	private InterpolationInfo getInterpolationInfo(float currentTime) {
-		int prev = 0, next = 1;
+	/** Index of the first keyframe after the first one whose time is not less than the given time, the last keyframe if none **/
+	private int getNextKeyframe(float currentTime) {
+		if (this.keyframes.length < 2) {
+			return 1;
+		}
 		
-		for (int i = 1; i < this.keyframes.length; i++) {
-			if (currentTime <= this.keyframes[i].time()) {
-				break;
-			}
+		int low = 1;
+		int high = this.keyframes.length - 1;
+		
+		while (low < high) {
+			int mid = (low + high) >>> 1;
 			
-			if (this.keyframes.length > next + 1) {
-				prev++;
-				next++;
+			if (currentTime <= this.keyframes[mid].time()) {
+				high = mid;
 			} else {
-				//EpicFightMod.LOGGER.error("time exceeded keyframe length. current : " + currentTime + " max : " + this.keyframes[this.keyframes.length - 1].time());
-				//(new IllegalArgumentException()).printStackTrace();
+				low = mid + 1;
 			}
 		}
 		
-		float progression = (currentTime - this.keyframes[prev].time()) / (this.keyframes[next].time() - this.keyframes[prev].time());
-		
-		return new InterpolationInfo(prev, next, progression);
+		return low;
 	}
 	
-	@Override
-	public String toString() {
-		return "total " + this.keyframes.length + " frames";
+	private int getNextKeyframe(float currentTime, int segmentHint) {
+		if (this.isNextKeyframe(currentTime, segmentHint)) {
+			return segmentHint;
+		}
+		
+		if (this.isNextKeyframe(currentTime, segmentHint + 1)) {
+			return segmentHint + 1;
+		}
+		
+		return this.getNextKeyframe(currentTime);
 	}
 	
-	private static class InterpolationInfo {
-		private int prev;
-		private int next;
-		private float zero2One;
+	private boolean isNextKeyframe(float currentTime, int next) {
+		int last = this.keyframes.length - 1;
 		
-		private InterpolationInfo(int prev, int next, float zero2One) {
-			this.prev = prev;
-			this.next = next;
-			this.zero2One = zero2One;
+		if (next < 1 || next > last) {
+			return false;
 		}
+		
+		return (next == last || currentTime <= this.keyframes[next].time()) && (next == 1 || !(currentTime <= this.keyframes[next - 1].time()));
+	}
+	
+	private float getProgression(float currentTime, int next) {
+		return (currentTime - this.keyframes[next - 1].time()) / (this.keyframes[next].time() - this.keyframes[next - 1].time());
+	}
+	
+	@Override
+	public String toString() {
+		return "total " + this.keyframes.length + " frames";
 	}
 }
\ No newline at end of file
@@ -15,6 +15,7 @@ import net.minecraft.world.phys.Vec3;
 import yesman.epicfight.api.animation.AnimationPlayer;
 import yesman.epicfight.api.animation.JointTransform;
 import yesman.epicfight.api.animation.Keyframe;
+import yesman.epicfight.api.animation.KeyframeCursor;
 import yesman.epicfight.api.animation.TransformSheet;
 import yesman.epicfight.api.animation.property.AnimationProperty.ActionAnimationProperty;
 import yesman.epicfight.api.animation.property.AnimationProperty.AttackAnimationProperty;
@@ -39,10 +40,10 @@ public class MoveCoordFunctions {
 	public static final MoveCoordGetter DIFF_FROM_PREV_COORD = (animation, entitypatch, coord) -> {
 		LivingEntity livingentity = entitypatch.getOriginal();
 		AnimationPlayer player = entitypatch.getAnimator().getPlayerFor(animation);
-		JointTransform jt = coord.getInterpolatedTransform(player.getElapsedTime());
-		JointTransform prevJt = coord.getInterpolatedTransform(player.getPrevElapsedTime());
-		Vec4f currentpos = new Vec4f(jt.translation());
-		Vec4f prevpos = new Vec4f(prevJt.translation());
+		KeyframeCursor cursor = player.getKeyframeCursor();
+		JointTransform scratch = cursor.getScratchTransform();
+		Vec4f currentpos = new Vec4f(cursor.interpolateTransform(coord, KeyframeCursor.ELAPSED_COORD, player.getElapsedTime(), scratch).translation());
+		Vec4f prevpos = new Vec4f(cursor.interpolateTransform(coord, KeyframeCursor.PREV_ELAPSED_COORD, player.getPrevElapsedTime(), scratch).translation());
 		OpenMatrix4f rotationTransform = entitypatch.getModelMatrix(1.0F).removeTranslation();
 		OpenMatrix4f localTransform = entitypatch.getArmature().searchJointByName("Root").getLocalTrasnform().removeTranslation();
 		rotationTransform.mulBack(localTransform);
@@ -70,10 +71,10 @@ public class MoveCoordFunctions {
 	public static final MoveCoordGetter WORLD_COORD = (animation, entitypatch, coord) -> {
 		LivingEntity livingentity = entitypatch.getOriginal();
 		AnimationPlayer player = entitypatch.getAnimator().getPlayerFor(animation);
-		JointTransform jt = coord.getInterpolatedTransform(player.getElapsedTime());
+		JointTransform jt = player.getKeyframeCursor().interpolateTransform(coord, KeyframeCursor.ELAPSED_COORD, player.getElapsedTime(), JointTransform.empty());
 		Vec3 entityPos = livingentity.position();
 		
-		return jt.translation().copy().sub(Vec3f.fromDoubleVector(entityPos));
+		return jt.translation().sub(Vec3f.fromDoubleVector(entityPos));
 	};
 	
 	public static final MoveCoordGetter ATTACHED = (animation, entitypatch, coord) -> {
@@ -1,7 +1,5 @@
 package yesman.epicfight.api.animation.types;
 
-import java.util.Map;
-
 import net.minecraft.world.entity.LivingEntity;
 import net.minecraft.world.entity.MoverType;
 import net.minecraft.world.phys.Vec3;
@@ -10,7 +8,6 @@ import net.minecraftforge.api.distmarker.OnlyIn;
 import net.minecraftforge.common.ForgeMod;
 import yesman.epicfight.api.animation.AnimationPlayer;
 import yesman.epicfight.api.animation.JointTransform;
-import yesman.epicfight.api.animation.Keyframe;
 import yesman.epicfight.api.animation.Pose;
 import yesman.epicfight.api.animation.TransformSheet;
 import yesman.epicfight.api.animation.property.AnimationProperty.ActionAnimationProperty;
@@ -147,11 +144,7 @@ public class ActionAnimation extends MainFrameAnimation {
 			dest.startsAt = nextStart;
 		}
 		
-		dest.getTransfroms().clear();
-		dest.setTotalTime(totalTime);
-		dest.setNextAnimation(this);
-		
-		Map<String, JointTransform> data1 = pose1.getJointTransformData();
+		dest.resetLink(this, totalTime);
 		Pose pose = this.getPoseByTime(entitypatch, nextStart, 1.0F);
 		
 		if (entitypatch.shouldMoveOnCurrentSide(this) && this.getProperty(ActionAnimationProperty.MOVE_ON_LINK).orElse(true)) {
@@ -165,18 +158,11 @@ public class ActionAnimation extends MainFrameAnimation {
 				Vec3f nextCoord = coordTransform.getKeyframes()[0].transform().translation();
 				jt.translation().add(0.0F, 0.0F, nextCoord.z);
 			}
-		}
-		
-		Map<String, JointTransform> data2 = pose.getJointTransformData();
-		
-		for (String jointName : data2.keySet()) {
-			Keyframe[] keyframes = new Keyframe[2];
-			keyframes[0] = new Keyframe(0, data1.getOrDefault(jointName, JointTransform.empty()));
-			keyframes[1] = new Keyframe(totalTime, data2.get(jointName));
 			
-			TransformSheet sheet = new TransformSheet(keyframes);
-			dest.addSheet(jointName, sheet);
+			pose.markChanged();
 		}
+		
+		dest.setLinkPoses(pose1.getJointTransformData(), pose.getJointTransformData(), true);
 	}
 	
 	protected Vec3 getCoordVector(LivingEntityPatch<?> entitypatch, DynamicAnimation animation) {
@@ -100,6 +100,16 @@ public class BasicAttackAnimation extends AttackAnimation {
 		}
 	}
 	
+	@Override
+	public EntityState getState(LivingEntityPatch<?> entitypatch, float time) {
+		// The state map is left untouched with stiff combo attacks
+		if (this.isStateLookupDeclaredBy(BasicAttackAnimation.class, StaticAnimation.class) && entitypatch.getOriginal().level.getGameRules().getRule(EpicFightGamerules.STIFF_COMBO_ATTACKS).get()) {
+			return this.getSpectrumState(entitypatch, time);
+		}
+		
+		return EntityState.of(this.getStatesMap(entitypatch, time));
+	}
+	
 	@Override
 	public TypeFlexibleHashMap<StateFactor<?>> getStatesMap(LivingEntityPatch<?> entitypatch, float time) {
 		TypeFlexibleHashMap<StateFactor<?>> stateMap = super.getStatesMap(entitypatch, time);
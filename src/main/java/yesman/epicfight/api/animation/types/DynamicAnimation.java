@@ -11,14 +11,18 @@ import net.minecraft.resources.ResourceLocation;
 import net.minecraftforge.api.distmarker.Dist;
 import net.minecraftforge.api.distmarker.OnlyIn;
 import yesman.epicfight.api.animation.AnimationPlayer;
+import yesman.epicfight.api.animation.Joint;
 import yesman.epicfight.api.animation.JointTransform;
-import yesman.epicfight.api.animation.Keyframe;
+import yesman.epicfight.api.animation.KeyframeCursor;
+import yesman.epicfight.api.animation.PackedPose;
 import yesman.epicfight.api.animation.Pose;
 import yesman.epicfight.api.animation.TransformSheet;
 import yesman.epicfight.api.animation.property.AnimationProperty;
+import yesman.epicfight.api.animation.property.AnimationProperty.StaticAnimationProperty;
 import yesman.epicfight.api.animation.types.EntityState.StateFactor;
 import yesman.epicfight.api.client.animation.Layer;
 import yesman.epicfight.api.client.animation.property.JointMask.BindModifier;
+import yesman.epicfight.api.model.Armature;
 import yesman.epicfight.api.utils.TypeFlexibleHashMap;
 import yesman.epicfight.config.ConfigurationIngame;
 import yesman.epicfight.gameasset.Animations;
@@ -26,10 +30,27 @@ import yesman.epicfight.main.EpicFightMod;
 import yesman.epicfight.world.capabilities.entitypatch.LivingEntityPatch;
 
 public abstract class DynamicAnimation {
+	/** True if the class samples its pose straight from the joint sheets, which allows the packed pose path to skip the string keyed pose **/
+	private static final ClassValue<Boolean> SAMPLES_RAW_POSE = new ClassValue<> () {
+		@Override
+		protected Boolean computeValue(Class<?> type) {
+			try {
+				Class<?> poseByTime = type.getMethod("getPoseByTime", LivingEntityPatch.class, float.class, float.class).getDeclaringClass();
+				Class<?> modifyPose = type.getMethod("modifyPose", DynamicAnimation.class, Pose.class, LivingEntityPatch.class, float.class, float.class).getDeclaringClass();
+				
+				return poseByTime == DynamicAnimation.class && (modifyPose == DynamicAnimation.class || modifyPose == StaticAnimation.class);
+			} catch (NoSuchMethodException e) {
+				return false;
+			}
+		}
+	};
+	
 	protected Map<String, TransformSheet> jointTransforms = Maps.newHashMap();
 	protected final boolean isRepeat;
 	protected final float convertTime;
 	protected float totalTime = 0.0F;
+	private volatile JointSheetIndex jointSheetIndex;
+	private int sheetVersion;
 	
 	public DynamicAnimation() {
 		this(ConfigurationIngame.GENERAL_ANIMATION_CONVERT_TIME, false);
@@ -42,13 +63,20 @@ public abstract class DynamicAnimation {
 	
 	public void addSheet(String jointName, TransformSheet sheet) {
 		this.jointTransforms.put(jointName, sheet);
+		this.sheetVersion++;
+	}
+	
+	/** Replaces the joint sheets as a whole, readers holding the previous map keep a consistent view **/
+	public void setJointSheets(Map<String, TransformSheet> jointTransforms) {
+		this.jointTransforms = jointTransforms;
+		this.sheetVersion++;
 	}
 	
 	public final Pose getRawPose(float time) {
 		Pose pose = new Pose();
 		
-		for (String jointName : this.jointTransforms.keySet()) {
-			pose.putJointData(jointName, this.jointTransforms.get(jointName).getInterpolatedTransform(time));
+		for (Map.Entry<String, TransformSheet> entry : this.getTransfroms().entrySet()) {
+			pose.putJointData(entry.getKey(), entry.getValue().getInterpolatedTransform(time));
 		}
 		
 		return pose;
@@ -57,8 +85,8 @@ public abstract class DynamicAnimation {
 	public Pose getPoseByTime(LivingEntityPatch<?> entitypatch, float time, float partialTicks) {
 		Pose pose = new Pose();
 		
-		for (String jointName : this.jointTransforms.keySet()) {
-			pose.putJointData(jointName, this.jointTransforms.get(jointName).getInterpolatedTransform(time));
+		for (Map.Entry<String, TransformSheet> entry : this.getTransfroms().entrySet()) {
+			pose.putJointData(entry.getKey(), entry.getValue().getInterpolatedTransform(time));
 		}
 		
 		this.modifyPose(this, pose, entitypatch, time, partialTicks);
@@ -66,6 +94,69 @@ public abstract class DynamicAnimation {
 		return pose;
 	}
 	
+	/** Int indexed variant of {@link #getPoseByTime(LivingEntityPatch, float, float)} **/
+	public void getPackedPoseByTime(LivingEntityPatch<?> entitypatch, float time, float partialTicks, PackedPose dest) {
+		this.getPackedPoseByTime(entitypatch, time, partialTicks, dest, null);
+	}
+	
+	public void getPackedPoseByTime(LivingEntityPatch<?> entitypatch, float time, float partialTicks, PackedPose dest, KeyframeCursor cursor) {
+		if (SAMPLES_RAW_POSE.get(this.getClass()) && this.getProperty(StaticAnimationProperty.POSE_MODIFIER).isEmpty()) {
+			this.getRawPackedPose(entitypatch.getArmature(), time, dest, cursor);
+		} else {
+			PackedPose.fromPose(this.getPoseByTime(entitypatch, time, partialTicks), entitypatch.getArmature(), dest);
+		}
+	}
+	
+	public final void getRawPackedPose(Armature armature, float time, PackedPose dest) {
+		this.getRawPackedPose(armature, time, dest, null);
+	}
+	
+	/** Samples every joint sheet, the cursor (nullable) keeps the keyframe segments of the previous sampling as search hints **/
+	public final void getRawPackedPose(Armature armature, float time, PackedPose dest, KeyframeCursor cursor) {
+		TransformSheet[] sheets = this.getSheetsByJointId(armature);
+		JointTransform scratch = cursor == null ? JointTransform.empty() : cursor.getScratchTransform();
+		dest.clear();
+		
+		if (cursor != null) {
+			cursor.ensureJointCapacity(sheets.length);
+		}
+		
+		for (int i = 0; i < sheets.length; i++) {
+			if (sheets[i] != null) {
+				if (cursor == null) {
+					sheets[i].getInterpolatedTransform(time, scratch);
+				} else {
+					cursor.interpolateTransform(sheets[i], KeyframeCursor.jointSlot(i), time, scratch);
+				}
+				
+				dest.putJointData(i, scratch.hasEntries() ? scratch.copy() : scratch);
+			}
+		}
+	}
+	
+	/** Joint sheets resolved to joint ids, rebuilt only when the sheets or the joint layout change **/
+	protected TransformSheet[] getSheetsByJointId(Armature armature) {
+		JointSheetIndex index = this.jointSheetIndex;
+		Map<String, TransformSheet> jointTransforms = this.getTransfroms();
+		
+		if (index == null || index.jointNames != armature.getJointNames() || index.source != jointTransforms || index.version != this.sheetVersion) {
+			TransformSheet[] sheets = new TransformSheet[armature.getJointNumber()];
+			
+			for (Map.Entry<String, TransformSheet> entry : jointTransforms.entrySet()) {
+				Joint joint = armature.searchJointByName(entry.getKey());
+				
+				if (joint != null && joint.getId() >= 0 && joint.getId() < sheets.length) {
+					sheets[joint.getId()] = entry.getValue();
+				}
+			}
+			
+			index = new JointSheetIndex(armature.getJointNames(), jointTransforms, this.sheetVersion, sheets);
+			this.jointSheetIndex = index;
+		}
+		
+		return index.sheets;
+	}
+	
 	/** Modify the pose both this and link animation. **/
 	public void modifyPose(DynamicAnimation animation, Pose pose, LivingEntityPatch<?> entitypatch, float time, float partialTicks) {
 	}
@@ -83,22 +174,8 @@ public abstract class DynamicAnimation {
 			dest.startsAt = nextStart;
 		}
 		
-		dest.getTransfroms().clear();
-		dest.setTotalTime(totalTime);
-		dest.setNextAnimation(this);
-		
-		Map<String, JointTransform> data1 = pose1.getJointTransformData();
-		Map<String, JointTransform> data2 = this.getPoseByTime(entitypatch, nextStart, 1.0F).getJointTransformData();
-		
-		for (String jointName : data1.keySet()) {
-			if (data1.containsKey(jointName) && data2.containsKey(jointName)) {
-				Keyframe[] keyframes = new Keyframe[2];
-				keyframes[0] = new Keyframe(0.0F, data1.get(jointName));
-				keyframes[1] = new Keyframe(totalTime, data2.get(jointName));
-				TransformSheet sheet = new TransformSheet(keyframes);
-				dest.addSheet(jointName, sheet);
-			}
-		}
+		dest.resetLink(this, totalTime);
+		dest.setLinkPoses(pose1.getJointTransformData(), this.getPoseByTime(entitypatch, nextStart, 1.0F).getJointTransformData(), false);
 	}
 	
 	public void putOnPlayer(AnimationPlayer player) {
@@ -112,7 +189,7 @@ public abstract class DynamicAnimation {
 	
 	@OnlyIn(Dist.CLIENT)
 	public boolean isJointEnabled(LivingEntityPatch<?> entitypatch, Layer.Priority layer, String joint) {
-		return this.jointTransforms.containsKey(joint);
+		return this.getTransfroms().containsKey(joint);
 	}
 	
 	@OnlyIn(Dist.CLIENT)
@@ -141,7 +218,7 @@ public abstract class DynamicAnimation {
 	}
 	
 	public TransformSheet getCoord() {
-		return this.jointTransforms.get("Root");
+		return this.getTransfroms().get("Root");
 	}
 	
 	public DynamicAnimation getRealAnimation() {
@@ -212,6 +289,20 @@ public abstract class DynamicAnimation {
 		return this;
 	}
 	
+	private static class JointSheetIndex {
+		private final String[] jointNames;
+		private final Map<String, TransformSheet> source;
+		private final int version;
+		private final TransformSheet[] sheets;
+		
+		private JointSheetIndex(String[] jointNames, Map<String, TransformSheet> source, int version, TransformSheet[] sheets) {
+			this.jointNames = jointNames;
+			this.source = source;
+			this.version = version;
+			this.sheets = sheets;
+		}
+	}
+	
 	@OnlyIn(Dist.CLIENT)
 	public void renderDebugging(PoseStack poseStack, MultiBufferSource buffer, LivingEntityPatch<?> entitypatch, float playTime, float partialTicks) {
 		
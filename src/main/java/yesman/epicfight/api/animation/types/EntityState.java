@@ -1,19 +1,54 @@
 package yesman.epicfight.api.animation.types;
 
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Objects;
 import java.util.function.Function;
 
+import com.google.common.collect.Maps;
+
 import net.minecraft.world.damagesource.DamageSource;
 import yesman.epicfight.api.utils.AttackResult;
 import yesman.epicfight.api.utils.TypeFlexibleHashMap;
 
+/**
+ * Boolean factors are packed in a bitmask and integer factors in an int array, both indexed by the slot the factor got when it was created.
+ * Other factors are kept in an object array. A factor that is not set reads its default value.
+ *
+ * Common states are interned, the interned instances are never handed out. Callers get states sharing their arrays,
+ * which are copied before the first {@link #setState}.
+ */
 public class EntityState {
+	private static final int BOOLEAN = 0;
+	private static final int INTEGER = 1;
+	private static final int OBJECT = 2;
+	
 	public static class StateFactor<T> implements TypeFlexibleHashMap.TypeKey<T> {
+		private static int booleanSlots;
+		private static int integerSlots;
+		private static int objectSlots;
+		
 		private String name;
 		private T defaultValue;
+		private final int kind;
+		private final int slot;
 		
 		public StateFactor(String name, T defaultValue) {
 			this.name = name;
 			this.defaultValue = defaultValue;
+			
+			synchronized (StateFactor.class) {
+				if (defaultValue instanceof Boolean && booleanSlots < 64) {
+					this.kind = BOOLEAN;
+					this.slot = booleanSlots++;
+				} else if (defaultValue instanceof Integer && integerSlots < 64) {
+					this.kind = INTEGER;
+					this.slot = integerSlots++;
+				} else {
+					this.kind = OBJECT;
+					this.slot = objectSlots++;
+				}
+			}
 		}
 		
 		public String toString() {
@@ -25,6 +60,10 @@ public class EntityState {
 		}
 	}
 	
+	/** Canonical states of {@link #of(Map)}, bounded since object factors can take any value **/
+	private static final Map<EntityState, EntityState> INTERNED_STATES = Maps.newConcurrentMap();
+	private static final int MAX_INTERNED_STATES = 1024;
+	
 	public static final EntityState DEFAULT_STATE = new EntityState(new TypeFlexibleHashMap<>(true));
 	
 	public static final StateFactor<Boolean> TURNING_LOCKED = new StateFactor<>("turningLocked", false);
@@ -40,30 +79,156 @@ public class EntityState {
 	public static final StateFactor<Integer> PHASE_LEVEL = new StateFactor<>("phaseLevel", 0);
 	public static final StateFactor<Function<DamageSource, AttackResult.ResultType>> ATTACK_RESULT = new StateFactor<>("attackResultModifier", (damagesource) -> AttackResult.ResultType.SUCCESS);
 	
-	TypeFlexibleHashMap<StateFactor<?>> stateMap;
+	private final boolean immutable;
+	private long booleanMask;
+	private long booleanValues;
+	private long integerMask;
+	private int[] integerValues = new int[0];
+	private Object[] objectValues = new Object[0];
+	/** Set while the arrays are borrowed from an interned state, they're copied before the first write **/
+	private boolean sharedArrays;
 	
 	public EntityState(TypeFlexibleHashMap<StateFactor<?>> states) {
-		this.stateMap = states;
+		this(states.isImmutable());
+		this.putAll(states);
+	}
+	
+	private EntityState(boolean immutable) {
+		this.immutable = immutable;
+	}
+	
+	/** State of the factors in the map, states with the same values share their arrays **/
+	public static EntityState of(Map<StateFactor<?>, ?> states) {
+		EntityState state = new EntityState(false);
+		state.putAll(states);
+		
+		return intern(state);
+	}
+	
+	private static EntityState intern(EntityState state) {
+		EntityState interned = INTERNED_STATES.get(state);
+		
+		if (interned == null && INTERNED_STATES.size() < MAX_INTERNED_STATES) {
+			EntityState canonical = state.shareArrays(true);
+			interned = INTERNED_STATES.putIfAbsent(canonical, canonical);
+			
+			if (interned == null) {
+				state.sharedArrays = true;
+				return state;
+			}
+		}
+		
+		return interned == null ? state : interned.copy();
+	}
+	
+	private void putAll(Map<StateFactor<?>, ?> states) {
+		for (Map.Entry<StateFactor<?>, ?> entry : states.entrySet()) {
+			this.put(entry.getKey(), entry.getValue());
+		}
+	}
+	
+	private void put(StateFactor<?> stateFactor, Object val) {
+		if (this.sharedArrays) {
+			this.integerValues = this.integerValues.clone();
+			this.objectValues = this.objectValues.clone();
+			this.sharedArrays = false;
+		}
+		
+		if (stateFactor.kind == BOOLEAN) {
+			long bit = 1L << stateFactor.slot;
+			this.booleanMask |= bit;
+			this.booleanValues = (Boolean)val ? this.booleanValues | bit : this.booleanValues & ~bit;
+		} else if (stateFactor.kind == INTEGER) {
+			if (this.integerValues.length <= stateFactor.slot) {
+				this.integerValues = Arrays.copyOf(this.integerValues, stateFactor.slot + 1);
+			}
+			
+			this.integerMask |= 1L << stateFactor.slot;
+			this.integerValues[stateFactor.slot] = (Integer)val;
+		} else {
+			if (this.objectValues.length <= stateFactor.slot) {
+				this.objectValues = Arrays.copyOf(this.objectValues, stateFactor.slot + 1);
+			}
+			
+			this.objectValues[stateFactor.slot] = val;
+		}
 	}
 	
 	public <T> void setState(StateFactor<T> stateFactor, T val) {
-		this.stateMap.put(stateFactor, (Object)val);
+		if (this.immutable) {
+			throw new UnsupportedOperationException();
+		}
+		
+		this.put(stateFactor, (Object)val);
+	}
+	
+	/** Mutable state with the same factors, it shares the arrays of this state until one of its factors is set **/
+	public EntityState copy() {
+		return this.shareArrays(false);
 	}
 	
+	private EntityState shareArrays(boolean immutable) {
+		EntityState state = new EntityState(immutable);
+		state.booleanMask = this.booleanMask;
+		state.booleanValues = this.booleanValues;
+		state.integerMask = this.integerMask;
+		state.integerValues = this.integerValues;
+		state.objectValues = this.objectValues;
+		state.sharedArrays = true;
+		
+		return state;
+	}
+	
+	@SuppressWarnings("unchecked")
 	public <T> T getState(StateFactor<T> stateFactor) {
-		return this.stateMap.getOrDefault(stateFactor);
+		if (stateFactor.kind == BOOLEAN) {
+			return (T)Boolean.valueOf(this.getBoolean((StateFactor<Boolean>)stateFactor));
+		} else if (stateFactor.kind == INTEGER) {
+			return (T)Integer.valueOf(this.getInteger((StateFactor<Integer>)stateFactor));
+		} else {
+			Object val = stateFactor.slot < this.objectValues.length ? this.objectValues[stateFactor.slot] : null;
+			return val == null ? stateFactor.defaultValue() : (T)val;
+		}
+	}
+	
+	private boolean getBoolean(StateFactor<Boolean> stateFactor) {
+		long bit = 1L << stateFactor.slot;
+		return (this.booleanMask & bit) != 0L ? (this.booleanValues & bit) != 0L : stateFactor.defaultValue();
+	}
+	
+	private int getInteger(StateFactor<Integer> stateFactor) {
+		return (this.integerMask & (1L << stateFactor.slot)) != 0L ? this.integerValues[stateFactor.slot] : stateFactor.defaultValue();
+	}
+	
+	/** Merges the factors set in other states into a mutable state without going through a map, the state is handed out as it is so a builder is used once **/
+	public static class Builder {
+		private final EntityState state = new EntityState(false);
+		
+		public Builder putAll(Map<StateFactor<?>, ?> states) {
+			this.state.putAll(states);
+			return this;
+		}
+		
+		public <T> Builder put(StateFactor<T> stateFactor, T val) {
+			this.state.put(stateFactor, val);
+			return this;
+		}
+		
+		public EntityState build() {
+			return this.state;
+		}
 	}
 	
 	public boolean turningLocked() {
-		return this.getState(EntityState.TURNING_LOCKED);
+		return this.getBoolean(EntityState.TURNING_LOCKED);
 	}
 	
 	public boolean movementLocked() {
-		return this.getState(EntityState.MOVEMENT_LOCKED);
+		return this.getBoolean(EntityState.MOVEMENT_LOCKED);
 	}
 	
 	public boolean attacking() {
-		return this.getState(EntityState.ATTACKING);
+		return this.getBoolean(EntityState.ATTACKING);
 	}
 	
 	public AttackResult.ResultType attackResult(DamageSource damagesource) {
@@ -71,35 +236,35 @@ public class EntityState {
 	}
 	
 	public boolean canBasicAttack() {
-		return this.getState(EntityState.CAN_BASIC_ATTACK);
+		return this.getBoolean(EntityState.CAN_BASIC_ATTACK);
 	}
 	
 	public boolean canUseSkill() {
-		return this.getState(EntityState.CAN_SKILL_EXECUTION);
+		return this.getBoolean(EntityState.CAN_SKILL_EXECUTION);
 	}
 	
 	public boolean inaction() {
-		return this.getState(EntityState.INACTION);
+		return this.getBoolean(EntityState.INACTION);
 	}
 	
 	public boolean updateLivingMotion() {
-		return this.getState(EntityState.UPDATE_LIVING_MOTION);
+		return this.getBoolean(EntityState.UPDATE_LIVING_MOTION);
 	}
 	
 	public boolean hurt() {
-		return this.getState(EntityState.HURT_LEVEL) > 0;
+		return this.getInteger(EntityState.HURT_LEVEL) > 0;
 	}
 	
 	public int hurtLevel() {
-		return this.getState(EntityState.HURT_LEVEL);
+		return this.getInteger(EntityState.HURT_LEVEL);
 	}
 	
 	public boolean knockDown() {
-		return this.getState(EntityState.KNOCKDOWN);
+		return this.getBoolean(EntityState.KNOCKDOWN);
 	}
 	
 	public boolean lockonRotate() {
-		return this.getState(EntityState.LOCKON_ROTATE);
+		return this.getBoolean(EntityState.LOCKON_ROTATE);
 	}
 	
 	/**
@@ -109,6 +274,56 @@ public class EntityState {
 	 * @return level
 	 */
 	public int getLevel() {
-		return this.getState(EntityState.PHASE_LEVEL);
+		return this.getInteger(EntityState.PHASE_LEVEL);
+	}
+	
+	/** Equal when the same factors are set to the same values **/
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj) {
+			return true;
+		}
+		
+		if (!(obj instanceof EntityState other) || this.booleanMask != other.booleanMask || this.integerMask != other.integerMask
+				|| (this.booleanValues & this.booleanMask) != (other.booleanValues & other.booleanMask)) {
+			return false;
+		}
+		
+		for (long bits = this.integerMask; bits != 0L; bits &= bits - 1L) {
+			int slot = Long.numberOfTrailingZeros(bits);
+			
+			if (this.integerValues[slot] != other.integerValues[slot]) {
+				return false;
+			}
+		}
+		
+		for (int i = 0; i < Math.max(this.objectValues.length, other.objectValues.length); i++) {
+			Object val1 = i < this.objectValues.length ? this.objectValues[i] : null;
+			Object val2 = i < other.objectValues.length ? other.objectValues[i] : null;
+			
+			if (!Objects.equals(val1, val2)) {
+				return false;
+			}
+		}
+		
+		return true;
+	}
+	
+	@Override
+	public int hashCode() {
+		int hash = Long.hashCode(this.booleanMask) * 31 + Long.hashCode(this.booleanValues & this.booleanMask);
+		hash = hash * 31 + Long.hashCode(this.integerMask);
+		
+		for (long bits = this.integerMask; bits != 0L; bits &= bits - 1L) {
+			hash = hash * 31 + this.integerValues[Long.numberOfTrailingZeros(bits)];
+		}
+		
+		for (int i = 0; i < this.objectValues.length; i++) {
+			if (this.objectValues[i] != null) {
+				hash = hash * 31 + (i ^ this.objectValues[i].hashCode());
+			}
+		}
+		
+		return hash;
 	}
 }
\ No newline at end of file
@@ -1,5 +1,6 @@
 package yesman.epicfight.api.animation.types;
 
+import java.util.Arrays;
 import java.util.Map;
 
 import yesman.epicfight.api.animation.JointTransform;
@@ -10,11 +11,18 @@ import yesman.epicfight.api.animation.types.EntityState.StateFactor;
 import yesman.epicfight.api.client.animation.Layer;
 import yesman.epicfight.api.client.animation.property.JointMask.BindModifier;
 import yesman.epicfight.api.utils.TypeFlexibleHashMap;
+import yesman.epicfight.config.ConfigManager;
 import yesman.epicfight.world.capabilities.entitypatch.LivingEntityPatch;
 
 public class LinkAnimation extends DynamicAnimation {
 	protected DynamicAnimation nextAnimation;
 	protected float startsAt;
+	/** Source and destination transforms of a snapshot link, blended directly. The arrays are kept between transitions **/
+	private boolean poseSnapshot;
+	private int snapshotSize;
+	private String[] snapshotJoints = new String[0];
+	private JointTransform[] snapshotFrom = new JointTransform[0];
+	private JointTransform[] snapshotTo = new JointTransform[0];
 	
 	@Override
 	public void tick(LivingEntityPatch<?> entitypatch) {
@@ -51,6 +59,13 @@ public class LinkAnimation extends DynamicAnimation {
 	
 	@Override
 	public Pose getPoseByTime(LivingEntityPatch<?> entitypatch, float time, float partialTicks) {
+		if (this.poseSnapshot) {
+			Pose pose = this.getLinkPose(time);
+			this.modifyPose(this, pose, entitypatch, time, partialTicks);
+			
+			return pose;
+		}
+		
 		Pose nextStartingPose = this.nextAnimation.getPoseByTime(entitypatch, this.startsAt, 1.0F);
 		
 		for (Map.Entry<String, JointTransform> entry : nextStartingPose.getJointTransformData().entrySet()) {
@@ -59,6 +74,7 @@ public class LinkAnimation extends DynamicAnimation {
 				JointTransform jt = keyframe[keyframe.length - 1].transform();
 				JointTransform newJt = nextStartingPose.getJointTransformData().get(entry.getKey());
 				newJt.translation().set(jt.translation());
+				nextStartingPose.markChanged();
 				jt.copyFrom(newJt);
 			}
 		}
@@ -79,6 +95,94 @@ public class LinkAnimation extends DynamicAnimation {
 	public void setNextAnimation(DynamicAnimation animation) {
 		this.nextAnimation = animation;
 	}
+	
+	/** Clears the previous transition, called before the link is filled for a new one **/
+	public void resetLink(DynamicAnimation nextAnimation, float totalTime) {
+		this.getTransfroms().clear();
+		this.setTotalTime(totalTime);
+		this.setNextAnimation(nextAnimation);
+		this.poseSnapshot = false;
+		Arrays.fill(this.snapshotFrom, 0, this.snapshotSize, null);
+		Arrays.fill(this.snapshotTo, 0, this.snapshotSize, null);
+		this.snapshotSize = 0;
+	}
+	
+	/**
+	 * Links the joints of the destination pose, joints missing in the source pose start from the identity if sourceOptional is set
+	 * and are skipped otherwise. Snapshots the two poses when {@link ConfigManager#LINK_POSE_SNAPSHOT} is enabled.
+	 */
+	public void setLinkPoses(Map<String, JointTransform> from, Map<String, JointTransform> to, boolean sourceOptional) {
+		if (ConfigManager.LINK_POSE_SNAPSHOT.get()) {
+			this.setSnapshotLink(from, to, sourceOptional);
+		} else {
+			this.setKeyframeLink(from, to, sourceOptional);
+		}
+	}
+	
+	/** A two keyframe sheet per joint, the destination keyframe is refreshed from the next animation on every pose **/
+	public void setKeyframeLink(Map<String, JointTransform> from, Map<String, JointTransform> to, boolean sourceOptional) {
+		for (Map.Entry<String, JointTransform> entry : to.entrySet()) {
+			JointTransform source = from.get(entry.getKey());
+			
+			if (source != null || sourceOptional) {
+				this.addLinkSheet(entry.getKey(), source == null ? JointTransform.empty() : source, entry.getValue());
+			}
+		}
+	}
+	
+	/** Keeps references of both poses and blends them in {@link #getLinkPose(float)}, the root keeps its sheet for the coord **/
+	public void setSnapshotLink(Map<String, JointTransform> from, Map<String, JointTransform> to, boolean sourceOptional) {
+		this.poseSnapshot = true;
+		
+		if (this.snapshotJoints.length < to.size()) {
+			this.snapshotJoints = new String[to.size()];
+			this.snapshotFrom = new JointTransform[to.size()];
+			this.snapshotTo = new JointTransform[to.size()];
+		}
+		
+		for (Map.Entry<String, JointTransform> entry : to.entrySet()) {
+			JointTransform source = from.get(entry.getKey());
+			
+			if (source != null || sourceOptional) {
+				source = source == null ? JointTransform.empty() : source;
+				this.snapshotJoints[this.snapshotSize] = entry.getKey();
+				this.snapshotFrom[this.snapshotSize] = source;
+				this.snapshotTo[this.snapshotSize] = entry.getValue();
+				this.snapshotSize++;
+				
+				if ("Root".equals(entry.getKey())) {
+					this.addLinkSheet(entry.getKey(), source, entry.getValue());
+				}
+			}
+		}
+	}
+	
+	private void addLinkSheet(String jointName, JointTransform from, JointTransform to) {
+		Keyframe[] keyframes = new Keyframe[2];
+		keyframes[0] = new Keyframe(0.0F, from);
+		keyframes[1] = new Keyframe(this.totalTime, to);
+		this.addSheet(jointName, new TransformSheet(keyframes));
+	}
+	
+	public boolean isPoseSnapshot() {
+		return this.poseSnapshot;
+	}
+	
+	/** Pose of the link without modifiers, same interpolation as the two keyframe sheets **/
+	public Pose getLinkPose(float time) {
+		if (!this.poseSnapshot) {
+			return this.getRawPose(time);
+		}
+		
+		Pose pose = new Pose();
+		float progression = time / this.totalTime;
+		
+		for (int i = 0; i < this.snapshotSize; i++) {
+			pose.putJointData(this.snapshotJoints[i], JointTransform.interpolate(this.snapshotFrom[i], this.snapshotTo[i], progression));
+		}
+		
+		return pose;
+	}
 
 	public DynamicAnimation getNextAnimation() {
 		return this.nextAnimation;
@@ -110,12 +214,13 @@ public class LinkAnimation extends DynamicAnimation {
 	}
 	
 	public void copyTo(LinkAnimation linkAnimation) {
-		linkAnimation.setNextAnimation(this.nextAnimation);
-		linkAnimation.totalTime = this.totalTime;
-		
-		Map<String, TransformSheet> trnasforms = linkAnimation.getTransfroms();
-		trnasforms.clear();
-		trnasforms.putAll(this.getTransfroms());
+		linkAnimation.resetLink(this.nextAnimation, this.totalTime);
+		linkAnimation.getTransfroms().putAll(this.getTransfroms());
+		linkAnimation.poseSnapshot = this.poseSnapshot;
+		linkAnimation.snapshotSize = this.snapshotSize;
+		linkAnimation.snapshotJoints = Arrays.copyOf(this.snapshotJoints, this.snapshotJoints.length);
+		linkAnimation.snapshotFrom = Arrays.copyOf(this.snapshotFrom, this.snapshotFrom.length);
+		linkAnimation.snapshotTo = Arrays.copyOf(this.snapshotTo, this.snapshotTo.length);
 	}
 	
 	@Override
@@ -37,6 +37,11 @@ public class MirrorAnimation extends StaticAnimation {
 		load(resourceManager, this.mirror);
 	}
 	
+	@Override
+	public boolean isParallelLoadable() {
+		return false;
+	}
+	
 	@Override
 	public boolean isMetaAnimation() {
 		return true;
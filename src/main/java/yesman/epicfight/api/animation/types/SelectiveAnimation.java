@@ -72,6 +72,11 @@ public class SelectiveAnimation extends StaticAnimation {
 		}
 	}
 	
+	@Override
+	public boolean isParallelLoadable() {
+		return false;
+	}
+	
 	@OnlyIn(Dist.CLIENT)
 	@Override
 	public Layer.Priority getPriority() {
@@ -1,9 +1,11 @@
 package yesman.epicfight.api.animation.types;
 
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.function.Function;
 
+import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
 
@@ -11,17 +13,89 @@ import yesman.epicfight.api.animation.types.EntityState.StateFactor;
 import yesman.epicfight.api.utils.TypeFlexibleHashMap;
 import yesman.epicfight.world.capabilities.entitypatch.LivingEntityPatch;
 
+/**
+ * Time pairs are compiled into sorted time boundaries when the animation is loaded. Every interval between two boundaries
+ * holds the pairs covering it in declaration order (later pairs override earlier ones) and, when none of them depends on the entity,
+ * a precomputed state snapshot so the lookup is a binary search.
+ */
 public class StateSpectrum {
-	private final Set<StatesInTime> timePairs = Sets.newHashSet();
+	private static final TimeInterval EMPTY_INTERVAL = new TimeInterval(new StatesInTime[0]);
+	
+	private final Set<StatesInTime> timePairs = Sets.newLinkedHashSet();
+	private float[] boundaries = new float[0];
+	private TimeInterval[] intervals = { EMPTY_INTERVAL };
 	
 	void readFrom(StateSpectrum.Blueprint blueprint) {
 		this.timePairs.clear();
 		this.timePairs.addAll(blueprint.timePairs);
+		this.compile();
+	}
+	
+	private void compile() {
+		Set<Float> timeSet = Sets.newTreeSet();
+		List<StatesInTime> variablePairs = Lists.newArrayList();
+		
+		for (StatesInTime state : this.timePairs) {
+			if (state instanceof VariableStatesInTime) {
+				variablePairs.add(state);
+			} else {
+				timeSet.add(state.getStart());
+				timeSet.add(state.getEnd());
+			}
+		}
+		
+		this.boundaries = new float[timeSet.size()];
+		int idx = 0;
+		
+		for (float time : timeSet) {
+			this.boundaries[idx++] = time;
+		}
+		
+		this.intervals = new TimeInterval[this.boundaries.length + 1];
+		
+		for (int i = 0; i < this.intervals.length; i++) {
+			List<StatesInTime> activePairs = Lists.newArrayList();
+			
+			for (StatesInTime state : this.timePairs) {
+				// Fixed pairs are constant between two boundaries, so checking the lower boundary is enough
+				if (state instanceof VariableStatesInTime || (i > 0 && state.isIn(null, this.boundaries[i - 1]))) {
+					activePairs.add(state);
+				}
+			}
+			
+			this.intervals[i] = activePairs.isEmpty() ? EMPTY_INTERVAL : new TimeInterval(activePairs.toArray(new StatesInTime[0]));
+		}
+	}
+	
+	/** Index of the interval containing the time, which is the number of boundaries less than or equal to the time **/
+	private TimeInterval getInterval(float time) {
+		int low = 0;
+		int high = this.boundaries.length;
+		
+		while (low < high) {
+			int mid = (low + high) >>> 1;
+			
+			if (this.boundaries[mid] <= time) {
+				low = mid + 1;
+			} else {
+				high = mid;
+			}
+		}
+		
+		return this.intervals[low];
 	}
 	
 	@SuppressWarnings("unchecked")
 	public <T> T getSingleState(StateFactor<T> stateFactor, LivingEntityPatch<?> entitypatch, float time) {
-		for (StatesInTime state : this.timePairs) {
+		TimeInterval interval = this.getInterval(time);
+		
+		if (interval.snapshot != null) {
+			return (T)interval.snapshot.get(stateFactor);
+		}
+		
+		for (int i = interval.activePairs.length - 1; i >= 0; i--) {
+			StatesInTime state = interval.activePairs[i];
+			
 			if (state.isIn(entitypatch, time)) {
 				for (Map.Entry<StateFactor<?>, ?> timeEntry : state.getStates(entitypatch)) {
 					if (timeEntry.getKey() == stateFactor) {
@@ -34,18 +108,71 @@ public class StateSpectrum {
 		return null;
 	}
 	
+	/** Returns a new map that can be modified by the caller **/
 	public TypeFlexibleHashMap<StateFactor<?>> getStateMap(LivingEntityPatch<?> entitypatch, float time) {
+		TimeInterval interval = this.getInterval(time);
 		TypeFlexibleHashMap<StateFactor<?>> stateMap = new TypeFlexibleHashMap<>(true);
 		
-		for (StatesInTime state : this.timePairs) {
-			if (state.isIn(entitypatch, time)) {
+		if (interval.snapshot != null) {
+			stateMap.putAll(interval.snapshot);
+		} else {
+			interval.evaluate(entitypatch, time, stateMap);
+		}
+		
+		return stateMap;
+	}
+	
+	/**
+	 * Returns a state that can be modified by the caller. The state of intervals without entity dependent pairs shares
+	 * the arrays of the snapshot until it is modified
+	 */
+	public EntityState getState(LivingEntityPatch<?> entitypatch, float time) {
+		TimeInterval interval = this.getInterval(time);
+		
+		if (interval.snapshotState != null) {
+			return interval.snapshotState.copy();
+		}
+		
+		TypeFlexibleHashMap<StateFactor<?>> stateMap = new TypeFlexibleHashMap<>(false);
+		interval.evaluate(entitypatch, time, stateMap);
+		
+		return new EntityState.Builder().putAll(stateMap).build();
+	}
+	
+	private static class TimeInterval {
+		final StatesInTime[] activePairs;
+		final TypeFlexibleHashMap<StateFactor<?>> snapshot;
+		final EntityState snapshotState;
+		
+		TimeInterval(StatesInTime[] activePairs) {
+			this.activePairs = activePairs;
+			boolean dynamic = false;
+			
+			for (StatesInTime state : activePairs) {
+				dynamic |= !(state instanceof SimpleStatesInTime);
+			}
+			
+			if (dynamic) {
+				this.snapshot = null;
+				this.snapshotState = null;
+			} else {
+				this.snapshot = new TypeFlexibleHashMap<>(true);
+				this.evaluate(null, 0.0F, this.snapshot);
+				this.snapshotState = EntityState.of(this.snapshot);
+			}
+		}
+		
+		void evaluate(LivingEntityPatch<?> entitypatch, float time, TypeFlexibleHashMap<StateFactor<?>> dest) {
+			for (StatesInTime state : this.activePairs) {
+				if (state instanceof VariableStatesInTime && !state.isIn(entitypatch, time)) {
+					continue;
+				}
+				
 				for (Map.Entry<StateFactor<?>, ?> timeEntry : state.getStates(entitypatch)) {
-					stateMap.put(timeEntry.getKey(), timeEntry.getValue());
+					dest.put(timeEntry.getKey(), timeEntry.getValue());
 				}
 			}
 		}
-		
-		return stateMap;
 	}
 	
 	abstract static class StatesInTime {
@@ -56,6 +183,14 @@ public class StateSpectrum {
 		public abstract boolean hasState(StateFactor<?> state);
 		
 		public abstract boolean isIn(LivingEntityPatch<?> entitypatch, float time);
+		
+		public float getStart() {
+			return Float.NaN;
+		}
+		
+		public float getEnd() {
+			return Float.NaN;
+		}
 	}
 	
 	static class SimpleStatesInTime extends StatesInTime {
@@ -68,6 +203,16 @@ public class StateSpectrum {
 			this.end = end;
 		}
 		
+		@Override
+		public float getStart() {
+			return this.start;
+		}
+		
+		@Override
+		public float getEnd() {
+			return this.end;
+		}
+		
 		@Override
 		public boolean isIn(LivingEntityPatch<?> entitypatch, float time) {
 			return this.start <= time && this.end > time;
@@ -118,6 +263,16 @@ public class StateSpectrum {
 			return this.conditionalStates.get(this.condition.apply(entitypatch)).entrySet();
 		}
 		
+		@Override
+		public float getStart() {
+			return this.start;
+		}
+		
+		@Override
+		public float getEnd() {
+			return this.end;
+		}
+		
 		@Override
 		public boolean isIn(LivingEntityPatch<?> entitypatch, float time) {
 			return this.start <= time && this.end > time;
@@ -180,7 +335,7 @@ public class StateSpectrum {
 	
 	public static class Blueprint {
 		StatesInTime currentState;
-		Set<StatesInTime> timePairs = Sets.newHashSet();
+		Set<StatesInTime> timePairs = Sets.newLinkedHashSet();
 		
 		public Blueprint newTimePair(float start, float end) {
 			this.currentState = new SimpleStatesInTime(start, end);
@@ -3,6 +3,7 @@ package yesman.epicfight.api.animation.types;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.function.Function;
 
 import com.google.common.collect.Maps;
@@ -14,6 +15,8 @@ import net.minecraftforge.api.distmarker.Dist;
 import net.minecraftforge.api.distmarker.OnlyIn;
 import yesman.epicfight.api.animation.AnimationManager;
 import yesman.epicfight.api.animation.AnimationPlayer;
+import yesman.epicfight.api.animation.CompressedTransformSheet;
+import yesman.epicfight.api.animation.LazyAnimationLoader;
 import yesman.epicfight.api.animation.Pose;
 import yesman.epicfight.api.animation.TransformSheet;
 import yesman.epicfight.api.animation.property.AnimationEvent;
@@ -23,6 +26,8 @@ import yesman.epicfight.api.animation.property.AnimationProperty;
 import yesman.epicfight.api.animation.property.AnimationProperty.ActionAnimationProperty;
 import yesman.epicfight.api.animation.property.AnimationProperty.StaticAnimationProperty;
 import yesman.epicfight.api.animation.types.EntityState.StateFactor;
+import yesman.epicfight.api.animation.types.procedural.EnderDragonDeathAnimation;
+import yesman.epicfight.api.animation.types.procedural.ProceduralAnimation;
 import yesman.epicfight.api.client.animation.Layer;
 import yesman.epicfight.api.client.animation.Layer.LayerType;
 import yesman.epicfight.api.client.animation.property.ClientAnimationProperties;
@@ -32,13 +37,46 @@ import yesman.epicfight.api.client.animation.property.TrailInfo;
 import yesman.epicfight.api.client.model.ItemSkin;
 import yesman.epicfight.api.client.model.ItemSkins;
 import yesman.epicfight.api.model.Armature;
+import yesman.epicfight.api.model.BinaryAnimationCache;
 import yesman.epicfight.api.model.JsonModelLoader;
 import yesman.epicfight.api.utils.TypeFlexibleHashMap;
+import yesman.epicfight.config.ConfigManager;
 import yesman.epicfight.config.ConfigurationIngame;
 import yesman.epicfight.main.EpicFightMod;
 import yesman.epicfight.world.capabilities.entitypatch.LivingEntityPatch;
 
 public class StaticAnimation extends DynamicAnimation {
+	/** Classes declaring getStatesMap and getState(StateFactor), the compiled states are only returned directly while no subclass customizes them **/
+	private static final ClassValue<Class<?>[]> STATE_LOOKUP_OWNERS = new ClassValue<> () {
+		@Override
+		protected Class<?>[] computeValue(Class<?> type) {
+			try {
+				Class<?> statesMap = type.getMethod("getStatesMap", LivingEntityPatch.class, float.class).getDeclaringClass();
+				Class<?> singleState = type.getMethod("getState", StateFactor.class, LivingEntityPatch.class, float.class).getDeclaringClass();
+				
+				return new Class<?>[] { statesMap, singleState };
+			} catch (NoSuchMethodException e) {
+				return new Class<?>[] { type, type };
+			}
+		}
+	};
+	
+	/** Classes whose loadAnimation and onLoaded were checked to only write into their own animation **/
+	private static final Set<Class<?>> PARALLEL_SAFE_LOADERS = Set.of(StaticAnimation.class, BasicAttackAnimation.class, AimAnimation.class, OffAnimation.class, EnderDragonDeathAnimation.class);
+	/** Subclasses written for serial loading may touch shared state while loading, they're only loaded in parallel if no other class overrides the loading methods **/
+	private static final ClassValue<Boolean> PARALLEL_LOADABLE = new ClassValue<> () {
+		@Override
+		protected Boolean computeValue(Class<?> type) {
+			for (Class<?> clazz = type; clazz != null && clazz != StaticAnimation.class; clazz = clazz.getSuperclass()) {
+				if (!PARALLEL_SAFE_LOADERS.contains(clazz) && (declares(clazz, "loadAnimation", ResourceManager.class) || declares(clazz, "onLoaded"))) {
+					return false;
+				}
+			}
+			
+			return true;
+		}
+	};
+	
 	protected final Map<AnimationProperty<?>, Object> properties = Maps.newHashMap();
 	protected final StateSpectrum.Blueprint stateSpectrumBlueprint = new StateSpectrum.Blueprint();
 	protected final ResourceLocation resourceLocation;
@@ -48,6 +86,10 @@ public class StaticAnimation extends DynamicAnimation {
 	protected final int animationId;
 	
 	private final StateSpectrum stateSpectrum = new StateSpectrum();
+	/** Animation owning the joint sheets, the source animation when the keyframes are borrowed by id **/
+	private StaticAnimation sheetOwner = this;
+	/** Non null while the joint sheets are managed by the lazy loader **/
+	private volatile LazyAnimationLoader.Handle lazyHandle;
 	
 	public StaticAnimation() {
 		super(0.0F, false);
@@ -108,17 +150,43 @@ public class StaticAnimation extends DynamicAnimation {
 	}
 	
 	public static void load(ResourceManager resourceManager, ResourceLocation rl, StaticAnimation animation) {
-		(new JsonModelLoader(resourceManager, rl)).loadStaticAnimation(animation);
+		BinaryAnimationCache binaryCache = EpicFightMod.getInstance().animationManager.getBinaryCache();
+		
+		if (binaryCache != null) {
+			binaryCache.load(resourceManager, rl, animation, false, ConfigManager.VERIFY_ANIMATION_CACHE.get());
+		} else {
+			(new JsonModelLoader(resourceManager, rl)).loadStaticAnimation(animation);
+		}
 	}
 	
 	public static void load(ResourceManager resourceManager, StaticAnimation animation) {
 		ResourceLocation path = new ResourceLocation(animation.resourceLocation.getNamespace(), animation.resourceLocation.getPath() + ".json");
-		(new JsonModelLoader(resourceManager, path)).loadStaticAnimation(animation);
+		load(resourceManager, path, animation);
+	}
+	
+	/** Leaves the joint sheets on disk when lazy loading is enabled, returns false if the animation has to be loaded fully **/
+	public static boolean loadLazily(ResourceManager resourceManager, StaticAnimation animation) {
+		AnimationManager animationManager = EpicFightMod.getInstance().animationManager;
+		LazyAnimationLoader lazyLoader = animationManager.getLazyLoader();
+		
+		if (resourceManager != null || lazyLoader == null) {
+			return false;
+		}
+		
+		ResourceLocation path = new ResourceLocation(animation.resourceLocation.getNamespace(), animation.resourceLocation.getPath() + ".json");
+		
+		return lazyLoader.loadMetadata(animation, path, animationManager.getBinaryCache(), ConfigManager.VERIFY_ANIMATION_CACHE.get());
 	}
 	
 	public static void loadBothSide(ResourceManager resourceManager, StaticAnimation animation) {
 		ResourceLocation path = new ResourceLocation(animation.resourceLocation.getNamespace(), animation.resourceLocation.getPath() + ".json");
-		(new JsonModelLoader(resourceManager, path)).loadStaticAnimationBothSide(animation);
+		BinaryAnimationCache binaryCache = EpicFightMod.getInstance().animationManager.getBinaryCache();
+		
+		if (binaryCache != null) {
+			binaryCache.load(resourceManager, path, animation, true, ConfigManager.VERIFY_ANIMATION_CACHE.get());
+		} else {
+			(new JsonModelLoader(resourceManager, path)).loadStaticAnimationBothSide(animation);
+		}
 	}
 	
 	public void loadAnimation(ResourceManager resourceManager) {
@@ -129,13 +197,81 @@ public class StaticAnimation extends DynamicAnimation {
 			load(resourceManager, path, this);
 			
 			this.jointTransforms = animation.jointTransforms;
+			this.sheetOwner = animation;
 		} catch (NumberFormatException e) {
-			load(resourceManager, this);
+			if (!loadLazily(resourceManager, this)) {
+				load(resourceManager, this);
+				this.compressSheets();
+			}
 		}
 		
 		this.onLoaded();
 	}
 	
+	/** Replaces the joint sheets by {@link CompressedTransformSheet}s when keyframe compression is enabled **/
+	public void compressSheets() {
+		if (!this.canCompressSheets() || !ConfigManager.COMPRESS_ANIMATION_KEYFRAMES.get()) {
+			return;
+		}
+		
+		float positionTolerance = ConfigManager.KEYFRAME_POSITION_TOLERANCE.get().floatValue();
+		float angleTolerance = ConfigManager.KEYFRAME_ANGLE_TOLERANCE.get().floatValue();
+		Map<String, TransformSheet> compressed = Maps.newHashMap();
+		
+		for (Map.Entry<String, TransformSheet> entry : this.jointTransforms.entrySet()) {
+			compressed.put(entry.getKey(), CompressedTransformSheet.compress(entry.getValue(), positionTolerance, angleTolerance));
+		}
+		
+		this.setJointSheets(compressed);
+	}
+	
+	/** Procedural animations solve their IK from the exact keyframes, they keep the sheets as loaded **/
+	protected boolean canCompressSheets() {
+		return !(this instanceof ProceduralAnimation);
+	}
+	
+	public void setLazyHandle(LazyAnimationLoader.Handle lazyHandle) {
+		this.lazyHandle = lazyHandle;
+	}
+	
+	/** Whether the joint sheets can be read without materializing them from the disk **/
+	public boolean isResident() {
+		LazyAnimationLoader.Handle lazyHandle = this.sheetOwner.lazyHandle;
+		return lazyHandle == null || lazyHandle.isResident();
+	}
+	
+	@Override
+	public Map<String, TransformSheet> getTransfroms() {
+		if (this.sheetOwner != this) {
+			return this.sheetOwner.getTransfroms();
+		}
+		
+		LazyAnimationLoader.Handle lazyHandle = this.lazyHandle;
+		
+		if (lazyHandle != null) {
+			lazyHandle.access();
+		}
+		
+		return this.jointTransforms;
+	}
+	
+	private static boolean declares(Class<?> clazz, String name, Class<?>... parameterTypes) {
+		try {
+			clazz.getDeclaredMethod(name, parameterTypes);
+			return true;
+		} catch (NoSuchMethodException e) {
+			return false;
+		}
+	}
+	
+	/**
+	 * Animations changing state shared with other animations while loading return false, they're loaded serially after the parallel tasks.
+	 * Classes overriding {@link #loadAnimation} or {@link #onLoaded} outside Epic Fight are serial unless they override this to opt in.
+	 */
+	public boolean isParallelLoadable() {
+		return PARALLEL_LOADABLE.get(this.getClass());
+	}
+	
 	protected void onLoaded() {
 		this.stateSpectrum.readFrom(this.stateSpectrumBlueprint);
 	}
@@ -224,7 +360,21 @@ public class StaticAnimation extends DynamicAnimation {
 	
 	@Override
 	public EntityState getState(LivingEntityPatch<?> entitypatch, float time) {
-		return new EntityState(this.getStatesMap(entitypatch, time));
+		if (this.isStateLookupDeclaredBy(StaticAnimation.class, StaticAnimation.class)) {
+			return this.getSpectrumState(entitypatch, time);
+		}
+		
+		return EntityState.of(this.getStatesMap(entitypatch, time));
+	}
+	
+	protected final boolean isStateLookupDeclaredBy(Class<?> statesMapOwner, Class<?> singleStateOwner) {
+		Class<?>[] owners = STATE_LOOKUP_OWNERS.get(this.getClass());
+		return owners[0] == statesMapOwner && owners[1] == singleStateOwner;
+	}
+	
+	/** States of the spectrum without the modifications of {@link #getStatesMap} overrides **/
+	protected final EntityState getSpectrumState(LivingEntityPatch<?> entitypatch, float time) {
+		return this.stateSpectrum.getState(entitypatch, time);
 	}
 	
 	@Override
@@ -332,9 +482,26 @@ public class StaticAnimation extends DynamicAnimation {
 		return 1.0F;
 	}
 	
+	/** Lazy animations answer from their metadata and preload the other sheets instead of reading them on the calling thread **/
 	@Override
 	public TransformSheet getCoord() {
-		return this.getProperty(ActionAnimationProperty.COORD).orElse(super.getCoord());
+		LazyAnimationLoader.Handle lazyHandle = this.sheetOwner.lazyHandle;
+		
+		if (lazyHandle != null) {
+			lazyHandle.preload();
+		}
+		
+		Optional<TransformSheet> coord = this.getProperty(ActionAnimationProperty.COORD);
+		
+		if (coord.isPresent()) {
+			return coord.get();
+		}
+		
+		if (lazyHandle != null && !lazyHandle.isResident()) {
+			return lazyHandle.getRootSheet();
+		}
+		
+		return super.getCoord();
 	}
 	
 	@Override
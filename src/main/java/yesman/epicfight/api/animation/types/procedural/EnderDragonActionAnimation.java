@@ -44,6 +44,11 @@ public class EnderDragonActionAnimation extends ActionAnimation implements Proce
 		this.onLoaded();
 	}
 	
+	@Override
+	public boolean isParallelLoadable() {
+		return false;
+	}
+	
 	@Override
 	public Pose getPoseByTime(LivingEntityPatch<?> entitypatch, float time, float partialTicks) {
 		Pose pose = super.getPoseByTime(entitypatch, time, partialTicks);
@@ -50,6 +50,11 @@ public class EnderDragonAttackAnimation extends AttackAnimation implements Proce
 		this.onLoaded();
 	}
 	
+	@Override
+	public boolean isParallelLoadable() {
+		return false;
+	}
+	
 	@Override
 	public Pose getPoseByTime(LivingEntityPatch<?> entitypatch, float time, float partialTicks) {
 		Pose pose = super.getPoseByTime(entitypatch, time, partialTicks);
@@ -42,6 +42,11 @@ public class EnderDragonDynamicActionAnimation extends ActionAnimation implement
 		this.onLoaded();
 	}
 	
+	@Override
+	public boolean isParallelLoadable() {
+		return false;
+	}
+	
 	@Override
 	public Pose getPoseByTime(LivingEntityPatch<?> entitypatch, float time, float partialTicks) {
 		Pose pose = super.getPoseByTime(entitypatch, time, partialTicks);
@@ -43,6 +43,11 @@ public class EnderDraonWalkAnimation extends StaticAnimation implements Procedur
 		this.onLoaded();
 	}
 	
+	@Override
+	public boolean isParallelLoadable() {
+		return false;
+	}
+	
 	@Override
 	public Pose getPoseByTime(LivingEntityPatch<?> entitypatch, float time, float partialTicks) {
 		Pose pose = super.getPoseByTime(entitypatch, time, partialTicks);
@@ -27,6 +27,7 @@ public class JointMask {
 		JointTransform lowestTransform = baseLayerPose.getOrDefaultTransform(joint.getName());
 		JointTransform currentTransform = currentPose.getOrDefaultTransform(joint.getName());
 		result.getJointTransformData().getOrDefault(joint.getName(), JointTransform.empty()).translation().y = lowestTransform.translation().y;
+		result.markChanged();
 		
 		OpenMatrix4f lowestMatrix = lowestTransform.toMatrix();
 		OpenMatrix4f currentMatrix = currentTransform.toMatrix();
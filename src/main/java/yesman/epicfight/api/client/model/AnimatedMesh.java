@@ -1,5 +1,8 @@
 package yesman.epicfight.api.client.model;
 
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
 import java.util.List;
 import java.util.Map;
 
@@ -16,17 +19,24 @@ import com.mojang.math.Vector4f;
 
 import net.minecraftforge.api.distmarker.Dist;
 import net.minecraftforge.api.distmarker.OnlyIn;
+import yesman.epicfight.api.client.model.CpuSkinningEngine.PackedPart;
+import yesman.epicfight.api.client.model.Meshes.MeshContructor;
 import yesman.epicfight.api.client.model.VertexIndicator.AnimatedVertexIndicator;
 import yesman.epicfight.api.model.Armature;
 import yesman.epicfight.api.utils.math.OpenMatrix4f;
 import yesman.epicfight.api.utils.math.Vec3f;
 import yesman.epicfight.api.utils.math.Vec4f;
+import yesman.epicfight.config.ConfigManager;
 import yesman.epicfight.main.EpicFightMod;
 
 @OnlyIn(Dist.CLIENT)
 public class AnimatedMesh extends Mesh<AnimatedVertexIndicator> {
 	public static final ModelPart<AnimatedVertexIndicator> EMPTY = new ModelPart<>(null, null);
+	private static final CpuSkinningEngine SKINNING_ENGINE = new CpuSkinningEngine();
+	private static final float SKINNING_EPSILON = 1.0E-5F;
 	final float[] weights;
+	private PackedPart[] packedParts;
+	private boolean skinningVerified;
 	
 	public AnimatedMesh(Map<String, float[]> arrayMap, AnimatedMesh parent, RenderProperties properties, Map<String, ModelPart<AnimatedVertexIndicator>> parts) {
 		super(arrayMap, parent, properties, parts);
@@ -50,33 +60,26 @@ public class AnimatedMesh extends Mesh<AnimatedVertexIndicator> {
 	public void drawModelWithPose(PoseStack poseStack, VertexConsumer builder, int packedLightIn, float r, float g, float b, float a, int overlayCoord, Armature armature, OpenMatrix4f[] poses) {
 		Matrix4f matrix4f = poseStack.last().pose();
 		Matrix3f matrix3f = poseStack.last().normal();
-		OpenMatrix4f[] posesNoTranslation = new OpenMatrix4f[poses.length];
-		
-		for (int i = 0; i < poses.length; i++) {
-			posesNoTranslation[i] = OpenMatrix4f.mul(poses[i], armature.searchJointById(i).getToOrigin(), null).removeTranslation();
-		}
+		Vector4f posVec = new Vector4f();
+		Vector3f normVec = new Vector3f();
+		PackedPart[] packedParts = this.getPackedParts();
+		int partIndex = 0;
+		SKINNING_ENGINE.preparePalette(armature, poses);
 		
 		for (ModelPart<AnimatedVertexIndicator> part : this.parts.values()) {
+			PackedPart packedPart = packedParts[partIndex++];
+			
 			if (!part.hidden) {
-				for (AnimatedVertexIndicator vi : part.getVertices()) {
-					int pos = vi.position * 3;
-					int norm = vi.normal * 3;
-					int uv = vi.uv * 2;
-					Vec4f position = new Vec4f(this.positions[pos], this.positions[pos + 1], this.positions[pos + 2], 1.0F);
-					Vec4f normal = new Vec4f(this.normals[norm], this.normals[norm + 1], this.normals[norm + 2], 1.0F);
-					Vec4f totalPos = new Vec4f(0.0F, 0.0F, 0.0F, 0.0F);
-					Vec4f totalNorm = new Vec4f(0.0F, 0.0F, 0.0F, 0.0F);
-					
-					for (int i = 0; i < vi.joint.size(); i++) {
-						int jointIndex = vi.joint.get(i);
-						int weightIndex = vi.weight.get(i);
-						float weight = this.weights[weightIndex];
-						Vec4f.add(OpenMatrix4f.transform(OpenMatrix4f.mul(poses[jointIndex], armature.searchJointById(jointIndex).getToOrigin(), null), position, null).scale(weight), totalPos, totalPos);
-						Vec4f.add(OpenMatrix4f.transform(posesNoTranslation[jointIndex], normal, null).scale(weight), totalNorm, totalNorm);
-					}
+				SKINNING_ENGINE.skin(packedPart, this.positions, this.normals);
+				this.verifySkinning(packedPart, part, armature, poses);
+				float[] skinnedPositions = SKINNING_ENGINE.getSkinnedPositions();
+				float[] skinnedNormals = SKINNING_ENGINE.getSkinnedNormals();
 					
-					Vector4f posVec = new Vector4f(totalPos.x, totalPos.y, totalPos.z, 1.0F);
-					Vector3f normVec = totalNorm.toMojangVector();
+				for (int i = 0; i < packedPart.getVertexCount(); i++) {
+					int k = i * 3;
+					int uv = packedPart.getUvOffset(i);
+					posVec.set(skinnedPositions[k], skinnedPositions[k + 1], skinnedPositions[k + 2], 1.0F);
+					normVec.set(skinnedNormals[k], skinnedNormals[k + 1], skinnedNormals[k + 2]);
 					posVec.transform(matrix4f);
 					normVec.transform(matrix3f);
 					builder.vertex(posVec.x(), posVec.y(), posVec.z(), r, g, b, a, this.uvs[uv], this.uvs[uv + 1], overlayCoord, packedLightIn, normVec.x(), normVec.y(), normVec.z());
@@ -88,32 +91,24 @@ public class AnimatedMesh extends Mesh<AnimatedVertexIndicator> {
 	public void drawWithPoseNoTexture(PoseStack poseStack, VertexConsumer builder, int packedLightIn, float r, float g, float b, float a, int overlayCoord, OpenMatrix4f[] poses) {
 		Matrix4f matrix4f = poseStack.last().pose();
 		Matrix3f matrix3f = poseStack.last().normal();
-		OpenMatrix4f[] posesNoTranslation = new OpenMatrix4f[poses.length];
-		
-		for (int i = 0; i < poses.length; i++) {
-			posesNoTranslation[i] = poses[i].removeTranslation();
-		}
+		Vector4f posVec = new Vector4f();
+		Vector3f normVec = new Vector3f();
+		PackedPart[] packedParts = this.getPackedParts();
+		int partIndex = 0;
+		SKINNING_ENGINE.preparePalette(null, poses);
 		
 		for (ModelPart<AnimatedVertexIndicator> part : this.parts.values()) {
+			PackedPart packedPart = packedParts[partIndex++];
+			
 			if (!part.hidden) {
-				for (AnimatedVertexIndicator vi : part.getVertices()) {
-					int pos = vi.position * 3;
-					int norm = vi.normal * 3;
-					Vec4f position = new Vec4f(this.positions[pos], this.positions[pos + 1], this.positions[pos + 2], 1.0F);
-					Vec4f normal = new Vec4f(this.normals[norm], this.normals[norm + 1], this.normals[norm + 2], 1.0F);
-					Vec4f totalPos = new Vec4f(0.0F, 0.0F, 0.0F, 0.0F);
-					Vec4f totalNorm = new Vec4f(0.0F, 0.0F, 0.0F, 0.0F);
+				SKINNING_ENGINE.skin(packedPart, this.positions, this.normals);
+				float[] skinnedPositions = SKINNING_ENGINE.getSkinnedPositions();
+				float[] skinnedNormals = SKINNING_ENGINE.getSkinnedNormals();
 					
-					for (int i = 0; i < vi.joint.size(); i++) {
-						int jointIndex = vi.joint.get(i);
-						int weightIndex = vi.weight.get(i);
-						float weight = this.weights[weightIndex];
-						Vec4f.add(OpenMatrix4f.transform(poses[jointIndex], position, null).scale(weight), totalPos, totalPos);
-						Vec4f.add(OpenMatrix4f.transform(posesNoTranslation[jointIndex], normal, null).scale(weight), totalNorm, totalNorm);
-					}
-					
-					Vector4f posVec = new Vector4f(totalPos.x, totalPos.y, totalPos.z, 1.0F);
-					Vector3f normVec = new Vector3f(totalNorm.x, totalNorm.y, totalNorm.z);
+				for (int i = 0; i < packedPart.getVertexCount(); i++) {
+					int k = i * 3;
+					posVec.set(skinnedPositions[k], skinnedPositions[k + 1], skinnedPositions[k + 2], 1.0F);
+					normVec.set(skinnedNormals[k], skinnedNormals[k + 1], skinnedNormals[k + 2]);
 					posVec.transform(matrix4f);
 					normVec.transform(matrix3f);
 					builder.vertex(posVec.x(), posVec.y(), posVec.z());
@@ -125,6 +120,34 @@ public class AnimatedMesh extends Mesh<AnimatedVertexIndicator> {
 		}
 	}
 	
+	/** Joint indices and weights of every part flattened into primitive arrays, in the iteration order of the parts **/
+	private PackedPart[] getPackedParts() {
+		if (this.packedParts == null) {
+			PackedPart[] packedParts = new PackedPart[this.parts.size()];
+			int i = 0;
+			
+			for (ModelPart<AnimatedVertexIndicator> part : this.parts.values()) {
+				packedParts[i++] = new PackedPart(part.getVertices(), this.weights);
+			}
+			
+			this.packedParts = packedParts;
+		}
+		
+		return this.packedParts;
+	}
+	
+	private void verifySkinning(PackedPart packedPart, ModelPart<AnimatedVertexIndicator> part, Armature armature, OpenMatrix4f[] poses) {
+		if (!this.skinningVerified && this.shouldVerifySkinning()) {
+			this.skinningVerified = true;
+			float deviation = SKINNING_ENGINE.getMaxDeviation(packedPart, part.getVertices(), this.positions, this.normals, this.weights, armature, poses);
+			CpuSkinningEngine.logDeviation(this.toString(), deviation, SKINNING_EPSILON);
+		}
+	}
+	
+	protected boolean shouldVerifySkinning() {
+		return ConfigManager.INGAME_CONFIG.verifyCpuSkinning.get();
+	}
+	
 	public JsonObject toJsonObject() {
 		JsonObject root = new JsonObject();
 		JsonObject vertices = new JsonObject();
@@ -197,6 +220,98 @@ public class AnimatedMesh extends Mesh<AnimatedVertexIndicator> {
 		return root;
 	}
 	
+	/** Writes the vertex data as it is, without the coordinate conversion of {@link #toJsonObject()}, so reading it back gives the same floats **/
+	public void writeBakedData(DataOutput out) throws IOException {
+		writeArray(out, this.positions);
+		writeArray(out, this.uvs);
+		writeArray(out, this.normals);
+		writeArray(out, this.weights);
+		out.writeBoolean(this.renderProperties != null && this.renderProperties.getCustomTexturePath() != null);
+		
+		if (this.renderProperties != null && this.renderProperties.getCustomTexturePath() != null) {
+			out.writeUTF(this.renderProperties.getCustomTexturePath());
+		}
+		
+		out.writeBoolean(this.renderProperties != null && this.renderProperties.isTransparent());
+		out.writeInt(this.parts.size());
+		
+		for (Map.Entry<String, ModelPart<AnimatedVertexIndicator>> entry : this.parts.entrySet()) {
+			List<AnimatedVertexIndicator> vertices = entry.getValue().getVertices();
+			out.writeUTF(entry.getKey());
+			out.writeInt(vertices.size());
+			
+			for (AnimatedVertexIndicator vi : vertices) {
+				out.writeInt(vi.position);
+				out.writeInt(vi.uv);
+				out.writeInt(vi.normal);
+				out.writeByte(vi.joint.size());
+				
+				for (int i = 0; i < vi.joint.size(); i++) {
+					out.writeInt(vi.joint.get(i));
+					out.writeInt(vi.weight.get(i));
+				}
+			}
+		}
+	}
+	
+	public static <T extends AnimatedMesh> T readBakedData(DataInput in, MeshContructor<AnimatedVertexIndicator, T> constructor) throws IOException {
+		Map<String, float[]> arrayMap = Maps.newHashMap();
+		arrayMap.put("positions", readArray(in));
+		arrayMap.put("uvs", readArray(in));
+		arrayMap.put("normals", readArray(in));
+		arrayMap.put("weights", readArray(in));
+		
+		RenderProperties.Builder builder = RenderProperties.builder();
+		
+		if (in.readBoolean()) {
+			builder.customTexturePath(in.readUTF());
+		}
+		
+		builder.transparency(in.readBoolean());
+		
+		int partCount = in.readInt();
+		Map<String, ModelPart<AnimatedVertexIndicator>> parts = Maps.newHashMap();
+		
+		for (int i = 0; i < partCount; i++) {
+			String name = in.readUTF();
+			int vertexCount = in.readInt();
+			List<AnimatedVertexIndicator> vertices = Lists.newArrayListWithCapacity(vertexCount);
+			
+			for (int j = 0; j < vertexCount; j++) {
+				AnimatedVertexIndicator vi = new AnimatedVertexIndicator(in.readInt(), in.readInt(), in.readInt());
+				int jointCount = in.readByte();
+				
+				for (int k = 0; k < jointCount; k++) {
+					vi.addAnimationData(in.readInt(), in.readInt());
+				}
+				
+				vertices.add(vi);
+			}
+			
+			parts.put(name, new ModelPart<>(vertices));
+		}
+		
+		return constructor.invoke(arrayMap, null, builder.build(), parts);
+	}
+	
+	private static void writeArray(DataOutput out, float[] array) throws IOException {
+		out.writeInt(array.length);
+		
+		for (float f : array) {
+			out.writeFloat(f);
+		}
+	}
+	
+	private static float[] readArray(DataInput in) throws IOException {
+		float[] array = new float[in.readInt()];
+		
+		for (int i = 0; i < array.length; i++) {
+			array[i] = in.readFloat();
+		}
+		
+		return array;
+	}
+	
 	public static JsonObject arrayToJsonObject(float[] array, int stride) {
 		JsonObject jsonObject = new JsonObject();
 		jsonObject.addProperty("stride", stride);
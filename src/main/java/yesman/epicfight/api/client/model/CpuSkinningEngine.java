@@ -0,0 +1,199 @@
+package yesman.epicfight.api.client.model;
+
+import java.util.List;
+
+import net.minecraftforge.api.distmarker.Dist;
+import net.minecraftforge.api.distmarker.OnlyIn;
+import yesman.epicfight.api.client.model.VertexIndicator.AnimatedVertexIndicator;
+import yesman.epicfight.api.model.Armature;
+import yesman.epicfight.api.utils.math.OpenMatrix4f;
+import yesman.epicfight.api.utils.math.Vec4f;
+import yesman.epicfight.main.EpicFightMod;
+
+/**
+ * Skins mesh parts on the cpu with primitive arrays only. The skinning palette (pose * toOrigin) is computed once per draw
+ * and the skinned positions and normals are written into buffers reused between draws, so the renderer has to be single threaded.
+ *
+ * The arithmetic follows the order of the object based path so both give the same floats.
+ */
+@OnlyIn(Dist.CLIENT)
+public class CpuSkinningEngine {
+	private static final int PALETTE_STRIDE = 12;
+	
+	private final OpenMatrix4f scratchMatrix = new OpenMatrix4f();
+	private float[] palette = new float[0];
+	private float[] skinnedPositions = new float[0];
+	private float[] skinnedNormals = new float[0];
+	
+	/** Palette of (pose * toOrigin) matrices, the pose matrices are used as they are when the armature is null **/
+	public void preparePalette(Armature armature, OpenMatrix4f[] poses) {
+		if (this.palette.length < poses.length * PALETTE_STRIDE) {
+			this.palette = new float[poses.length * PALETTE_STRIDE];
+		}
+		
+		for (int i = 0; i < poses.length; i++) {
+			OpenMatrix4f matrix = armature == null ? poses[i] : OpenMatrix4f.mul(poses[i], armature.searchJointById(i).getToOrigin(), this.scratchMatrix);
+			int p = i * PALETTE_STRIDE;
+			this.palette[p] = matrix.m00;
+			this.palette[p + 1] = matrix.m10;
+			this.palette[p + 2] = matrix.m20;
+			this.palette[p + 3] = matrix.m30;
+			this.palette[p + 4] = matrix.m01;
+			this.palette[p + 5] = matrix.m11;
+			this.palette[p + 6] = matrix.m21;
+			this.palette[p + 7] = matrix.m31;
+			this.palette[p + 8] = matrix.m02;
+			this.palette[p + 9] = matrix.m12;
+			this.palette[p + 10] = matrix.m22;
+			this.palette[p + 11] = matrix.m32;
+		}
+	}
+	
+	/** Skins every vertex of the part into {@link #getSkinnedPositions()} and {@link #getSkinnedNormals()}, indexed by the vertex order of the part **/
+	public void skin(PackedPart part, float[] positions, float[] normals) {
+		int size = part.vertexCount * 3;
+		
+		if (this.skinnedPositions.length < size) {
+			this.skinnedPositions = new float[size];
+			this.skinnedNormals = new float[size];
+		}
+		
+		float[] palette = this.palette;
+		float[] outPositions = this.skinnedPositions;
+		float[] outNormals = this.skinnedNormals;
+		
+		for (int v = 0; v < part.vertexCount; v++) {
+			int pos = part.positions[v];
+			int norm = part.normals[v];
+			float px = positions[pos];
+			float py = positions[pos + 1];
+			float pz = positions[pos + 2];
+			float nx = normals[norm];
+			float ny = normals[norm + 1];
+			float nz = normals[norm + 2];
+			float tpx = 0.0F, tpy = 0.0F, tpz = 0.0F;
+			float tnx = 0.0F, tny = 0.0F, tnz = 0.0F;
+			
+			for (int i = part.influenceStart[v], end = part.influenceStart[v + 1]; i < end; i++) {
+				int p = part.influenceJoints[i] * PALETTE_STRIDE;
+				float weight = part.influenceWeights[i];
+				tpx += (palette[p] * px + palette[p + 1] * py + palette[p + 2] * pz + palette[p + 3]) * weight;
+				tpy += (palette[p + 4] * px + palette[p + 5] * py + palette[p + 6] * pz + palette[p + 7]) * weight;
+				tpz += (palette[p + 8] * px + palette[p + 9] * py + palette[p + 10] * pz + palette[p + 11]) * weight;
+				tnx += (palette[p] * nx + palette[p + 1] * ny + palette[p + 2] * nz) * weight;
+				tny += (palette[p + 4] * nx + palette[p + 5] * ny + palette[p + 6] * nz) * weight;
+				tnz += (palette[p + 8] * nx + palette[p + 9] * ny + palette[p + 10] * nz) * weight;
+			}
+			
+			int o = v * 3;
+			outPositions[o] = tpx;
+			outPositions[o + 1] = tpy;
+			outPositions[o + 2] = tpz;
+			outNormals[o] = tnx;
+			outNormals[o + 1] = tny;
+			outNormals[o + 2] = tnz;
+		}
+	}
+	
+	public float[] getSkinnedPositions() {
+		return this.skinnedPositions;
+	}
+	
+	public float[] getSkinnedNormals() {
+		return this.skinnedNormals;
+	}
+	
+	/** Compares the skinned buffers of the part with the object based computation, returns the largest difference **/
+	public float getMaxDeviation(PackedPart part, List<AnimatedVertexIndicator> vertices, float[] positions, float[] normals, float[] weights, Armature armature, OpenMatrix4f[] poses) {
+		float maxDeviation = 0.0F;
+		
+		for (int v = 0; v < vertices.size(); v++) {
+			AnimatedVertexIndicator vi = vertices.get(v);
+			int pos = vi.position * 3;
+			int norm = vi.normal * 3;
+			Vec4f position = new Vec4f(positions[pos], positions[pos + 1], positions[pos + 2], 1.0F);
+			Vec4f normal = new Vec4f(normals[norm], normals[norm + 1], normals[norm + 2], 1.0F);
+			Vec4f totalPos = new Vec4f(0.0F, 0.0F, 0.0F, 0.0F);
+			Vec4f totalNorm = new Vec4f(0.0F, 0.0F, 0.0F, 0.0F);
+			
+			for (int i = 0; i < vi.joint.size(); i++) {
+				int jointIndex = vi.joint.get(i);
+				float weight = weights[vi.weight.get(i)];
+				OpenMatrix4f skinning = armature == null ? poses[jointIndex] : OpenMatrix4f.mul(poses[jointIndex], armature.searchJointById(jointIndex).getToOrigin(), null);
+				Vec4f.add(OpenMatrix4f.transform(skinning, position, null).scale(weight), totalPos, totalPos);
+				Vec4f.add(OpenMatrix4f.transform(skinning.removeTranslation(), normal, null).scale(weight), totalNorm, totalNorm);
+			}
+			
+			int o = v * 3;
+			maxDeviation = Math.max(maxDeviation, Math.abs(totalPos.x - this.skinnedPositions[o]));
+			maxDeviation = Math.max(maxDeviation, Math.abs(totalPos.y - this.skinnedPositions[o + 1]));
+			maxDeviation = Math.max(maxDeviation, Math.abs(totalPos.z - this.skinnedPositions[o + 2]));
+			maxDeviation = Math.max(maxDeviation, Math.abs(totalNorm.x - this.skinnedNormals[o]));
+			maxDeviation = Math.max(maxDeviation, Math.abs(totalNorm.y - this.skinnedNormals[o + 1]));
+			maxDeviation = Math.max(maxDeviation, Math.abs(totalNorm.z - this.skinnedNormals[o + 2]));
+		}
+		
+		return maxDeviation;
+	}
+	
+	/** Vertex attributes of a model part flattened into primitive arrays, influences in compressed rows (influenceStart has vertexCount + 1 entries) **/
+	public static class PackedPart {
+		final int vertexCount;
+		final int[] positions;
+		final int[] normals;
+		final int[] uvs;
+		final int[] influenceStart;
+		final int[] influenceJoints;
+		final float[] influenceWeights;
+		
+		public PackedPart(List<AnimatedVertexIndicator> vertices, float[] weights) {
+			int influenceCount = 0;
+			
+			for (AnimatedVertexIndicator vi : vertices) {
+				influenceCount += vi.joint.size();
+			}
+			
+			this.vertexCount = vertices.size();
+			this.positions = new int[this.vertexCount];
+			this.normals = new int[this.vertexCount];
+			this.uvs = new int[this.vertexCount];
+			this.influenceStart = new int[this.vertexCount + 1];
+			this.influenceJoints = new int[influenceCount];
+			this.influenceWeights = new float[influenceCount];
+			
+			int influence = 0;
+			
+			for (int v = 0; v < this.vertexCount; v++) {
+				AnimatedVertexIndicator vi = vertices.get(v);
+				this.positions[v] = vi.position * 3;
+				this.normals[v] = vi.normal * 3;
+				this.uvs[v] = vi.uv * 2;
+				this.influenceStart[v] = influence;
+				
+				for (int i = 0; i < vi.joint.size(); i++) {
+					this.influenceJoints[influence] = vi.joint.get(i);
+					this.influenceWeights[influence] = weights[vi.weight.get(i)];
+					influence++;
+				}
+			}
+			
+			this.influenceStart[this.vertexCount] = influence;
+		}
+		
+		public int getVertexCount() {
+			return this.vertexCount;
+		}
+		
+		public int getUvOffset(int vertex) {
+			return this.uvs[vertex];
+		}
+	}
+	
+	static void logDeviation(String mesh, float deviation, float epsilon) {
+		if (deviation > epsilon) {
+			EpicFightMod.LOGGER.warn("Cpu skinning of " + mesh + " deviates from the reference by " + deviation);
+		} else {
+			EpicFightMod.LOGGER.info("Cpu skinning of " + mesh + " matches the reference, max deviation " + deviation);
+		}
+	}
+}
\ No newline at end of file
@@ -0,0 +1,209 @@
+package yesman.epicfight.api.client.model.armor;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import com.google.common.collect.Lists;
+import com.mojang.math.Vector3f;
+
+import net.minecraft.client.Minecraft;
+import net.minecraft.client.model.HumanoidModel;
+import net.minecraft.client.model.geom.ModelPart;
+import net.minecraft.resources.ResourceLocation;
+import net.minecraft.server.packs.resources.Resource;
+import net.minecraft.server.packs.resources.ResourceManager;
+import net.minecraft.server.packs.resources.SimplePreparableReloadListener;
+import net.minecraft.util.profiling.ProfilerFiller;
+import net.minecraft.world.entity.EquipmentSlot;
+import net.minecraftforge.api.distmarker.Dist;
+import net.minecraftforge.api.distmarker.OnlyIn;
+import net.minecraftforge.fml.ModList;
+import net.minecraftforge.forgespi.language.IModInfo;
+import yesman.epicfight.api.client.model.AnimatedMesh;
+import yesman.epicfight.main.EpicFightMod;
+
+/**
+ * Stores armor meshes baked by the {@link ArmorModelTransformer}s so the next sessions skip the clipping and weighting.
+ *
+ * A file holds magic(int) version(short) stamp(long) and the baked vertex data. The stamp hashes the geometry of the
+ * vanilla model parts together with the resource state (mod versions, enabled resource packs and the contents of the
+ * .geo.json models) since models built by other libraries (geckolib, azurelib) aren't visible through the vanilla parts.
+ * A file with a different stamp is rebaked.
+ */
+@OnlyIn(Dist.CLIENT)
+public class BakedArmorCache extends SimplePreparableReloadListener<Long> {
+	public static final int MAGIC = 0x45464141;
+	public static final short VERSION = 1;
+	public static final String EXTENSION = ".efam";
+	private static final String GEO_DIRECTORY = "geo";
+	private static final String GEO_EXTENSION = ".geo.json";
+	
+	private final Path cacheDirectory;
+	private long resourceStamp;
+	private boolean resourceStampValid;
+	private long geoModelHash;
+	
+	public BakedArmorCache(Path cacheDirectory) {
+		this.cacheDirectory = cacheDirectory;
+	}
+	
+	public Path getCacheFile(ResourceLocation itemName, EquipmentSlot slot) {
+		return this.cacheDirectory.resolve(itemName.getNamespace()).resolve(itemName.getPath() + "_" + slot.getName() + EXTENSION);
+	}
+	
+	public AnimatedMesh read(ResourceLocation itemName, EquipmentSlot slot, long stamp) {
+		Path file = this.getCacheFile(itemName, slot);
+		
+		if (!Files.isRegularFile(file)) {
+			return null;
+		}
+		
+		try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(Files.readAllBytes(file)))) {
+			if (in.readInt() != MAGIC || in.readShort() != VERSION || in.readLong() != stamp) {
+				return null;
+			}
+			
+			return AnimatedMesh.readBakedData(in, AnimatedMesh::new);
+		} catch (IOException | RuntimeException e) {
+			if (!(e instanceof EOFException)) {
+				EpicFightMod.LOGGER.debug("Failed to read baked armor " + file + ": " + e);
+			}
+			
+			return null;
+		}
+	}
+	
+	public boolean write(ResourceLocation itemName, EquipmentSlot slot, long stamp, AnimatedMesh mesh) {
+		Path file = this.getCacheFile(itemName, slot);
+		
+		try {
+			ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+			DataOutputStream out = new DataOutputStream(bytes);
+			out.writeInt(MAGIC);
+			out.writeShort(VERSION);
+			out.writeLong(stamp);
+			mesh.writeBakedData(out);
+			out.flush();
+			
+			Files.createDirectories(file.getParent());
+			Path temp = Files.createTempFile(file.getParent(), file.getFileName().toString(), ".tmp");
+			Files.write(temp, bytes.toByteArray());
+			Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+			return true;
+		} catch (IOException e) {
+			EpicFightMod.LOGGER.warn("Failed to write baked armor " + file + ": " + e);
+			return false;
+		}
+	}
+	
+	/** Must be called when resource packs are reloaded **/
+	public void invalidateResourceState() {
+		this.resourceStampValid = false;
+	}
+	
+	/** The .geo.json models are hashed once per reload on the background executor instead of at the first bake **/
+	@Override
+	protected Long prepare(ResourceManager resourceManager, ProfilerFiller profilerIn) {
+		return hashGeoModels(resourceManager);
+	}
+	
+	@Override
+	protected void apply(Long geoModelHash, ResourceManager resourceManager, ProfilerFiller profilerIn) {
+		this.geoModelHash = geoModelHash;
+		this.resourceStampValid = false;
+	}
+	
+	public long getStamp(HumanoidModel<?> model, ResourceLocation itemName, EquipmentSlot slot) {
+		long stamp = this.getResourceStamp();
+		stamp = stamp * 31L + itemName.hashCode();
+		stamp = stamp * 31L + slot.ordinal();
+		stamp = stamp * 31L + model.getClass().getName().hashCode();
+		stamp = stamp * 31L + hashPart(model.head);
+		stamp = stamp * 31L + hashPart(model.hat);
+		stamp = stamp * 31L + hashPart(model.body);
+		stamp = stamp * 31L + hashPart(model.rightArm);
+		stamp = stamp * 31L + hashPart(model.leftArm);
+		stamp = stamp * 31L + hashPart(model.rightLeg);
+		stamp = stamp * 31L + hashPart(model.leftLeg);
+		
+		return stamp;
+	}
+	
+	private long getResourceStamp() {
+		if (!this.resourceStampValid) {
+			long stamp = VERSION;
+			
+			for (IModInfo modInfo : ModList.get().getMods()) {
+				stamp = stamp * 31L + modInfo.getModId().hashCode();
+				stamp = stamp * 31L + modInfo.getVersion().toString().hashCode();
+			}
+			
+			List<String> packs = Lists.newArrayList(Minecraft.getInstance().getResourcePackRepository().getSelectedIds());
+			
+			for (String pack : packs) {
+				stamp = stamp * 31L + pack.hashCode();
+			}
+			
+			stamp = stamp * 31L + this.geoModelHash;
+			
+			this.resourceStamp = stamp;
+			this.resourceStampValid = true;
+		}
+		
+		return this.resourceStamp;
+	}
+	
+	/** Hashes the geckolib and azurelib models, an edited .geo.json inside an unchanged pack must rebake the armors as well **/
+	private static long hashGeoModels(ResourceManager resourceManager) {
+		List<ResourceLocation> models = Lists.newArrayList(resourceManager.listResources(GEO_DIRECTORY, (path) -> path.endsWith(GEO_EXTENSION)));
+		models.sort(ResourceLocation::compareTo);
+		long hash = 1L;
+		
+		for (ResourceLocation model : models) {
+			hash = hash * 31L + model.hashCode();
+			
+			try (Resource resource = resourceManager.getResource(model); InputStream in = resource.getInputStream()) {
+				hash = hash * 31L + Arrays.hashCode(in.readAllBytes());
+			} catch (IOException e) {
+				EpicFightMod.LOGGER.debug("Failed to read " + model + " for the baked armor stamp: " + e);
+			}
+		}
+		
+		return hash;
+	}
+	
+	/** Hashes the pose and the polygons of the part and its children, the inputs of the vanilla transformer **/
+	private static long hashPart(ModelPart part) {
+		long hash = 1L;
+		hash = hash * 31L + Float.floatToIntBits(part.x) + Float.floatToIntBits(part.y) * 7L + Float.floatToIntBits(part.z) * 13L;
+		hash = hash * 31L + Float.floatToIntBits(part.xRot) + Float.floatToIntBits(part.yRot) * 7L + Float.floatToIntBits(part.zRot) * 13L;
+		hash = hash * 31L + (part.visible ? 1L : 0L);
+		
+		for (ModelPart.Cube cube : part.cubes) {
+			for (ModelPart.Polygon polygon : cube.polygons) {
+				for (ModelPart.Vertex vertex : polygon.vertices) {
+					Vector3f pos = vertex.pos;
+					hash = hash * 31L + Float.floatToIntBits(pos.x()) + Float.floatToIntBits(pos.y()) * 7L + Float.floatToIntBits(pos.z()) * 13L;
+					hash = hash * 31L + Float.floatToIntBits(vertex.u) + Float.floatToIntBits(vertex.v) * 7L;
+				}
+			}
+		}
+		
+		for (Map.Entry<String, ModelPart> child : part.children.entrySet()) {
+			hash += child.getKey().hashCode() * 17L + hashPart(child.getValue());
+		}
+		
+		return hash;
+	}
+}
\ No newline at end of file
@@ -26,8 +26,10 @@ import net.minecraft.world.item.ArmorItem;
 import net.minecraftforge.api.distmarker.Dist;
 import net.minecraftforge.api.distmarker.OnlyIn;
 import net.minecraftforge.fml.ModList;
+import net.minecraftforge.fml.loading.FMLPaths;
 import net.minecraftforge.registries.ForgeRegistries;
 import yesman.epicfight.api.client.model.AnimatedMesh;
+import yesman.epicfight.config.ConfigManager;
 import yesman.epicfight.main.EpicFightMod;
 
 @OnlyIn(Dist.CLIENT)
@@ -36,6 +38,7 @@ public class CustomModelBakery {
 	static final List<ArmorModelTransformer> MODEL_TRANSFORMERS = Lists.newArrayList();
 	static final ArmorModelTransformer VANILLA_TRANSFORMER = new VanillaArmor();
 	static final Set<ArmorItem> EXCEPTIONAL_MODELS = Sets.newHashSet();
+	public static final BakedArmorCache BAKED_ARMOR_CACHE = new BakedArmorCache(FMLPaths.GAMEDIR.get().resolve("epicfight_cache").resolve("armors"));
 	
 	static {
 		if (ModList.get().isLoaded("geckolib3")) {
@@ -72,8 +75,26 @@ public class CustomModelBakery {
 		out.close();
 	}
 	
+	/** Must be called when resource packs are reloaded **/
+	public static void invalidateCache() {
+		BAKED_ARMOR_CACHE.invalidateResourceState();
+	}
+	
 	public static AnimatedMesh bake(HumanoidModel<?> armorModel, ArmorItem armorItem, EquipmentSlot slot, boolean debuggingMode) {
 		AnimatedMesh animatedArmorModel = null;
+		ResourceLocation registryName = ForgeRegistries.ITEMS.getKey(armorItem);
+		boolean useCache = !debuggingMode && ConfigManager.INGAME_CONFIG.armorMeshCache.get();
+		long stamp = 0L;
+		
+		if (useCache && !EXCEPTIONAL_MODELS.contains(armorItem)) {
+			stamp = BAKED_ARMOR_CACHE.getStamp(armorModel, registryName, slot);
+			animatedArmorModel = BAKED_ARMOR_CACHE.read(registryName, slot, stamp);
+			
+			if (animatedArmorModel != null) {
+				BAKED_MODELS.put(registryName, animatedArmorModel);
+				return animatedArmorModel;
+			}
+		}
 		
 		if (!EXCEPTIONAL_MODELS.contains(armorItem)) {
 			for (ArmorModelTransformer modelTransformer : MODEL_TRANSFORMERS) {
@@ -95,7 +116,11 @@ public class CustomModelBakery {
 			}
 		}
 		
-		BAKED_MODELS.put(ForgeRegistries.ITEMS.getKey(armorItem), animatedArmorModel);
+		if (useCache && animatedArmorModel != null && !EXCEPTIONAL_MODELS.contains(armorItem)) {
+			BAKED_ARMOR_CACHE.write(registryName, slot, stamp, animatedArmorModel);
+		}
+		
+		BAKED_MODELS.put(registryName, animatedArmorModel);
 		
 		return animatedArmorModel;
 	}
@@ -1,5 +1,6 @@
 package yesman.epicfight.api.collider;
 
+import java.util.Arrays;
 import java.util.List;
 
 import com.google.common.collect.Lists;
@@ -23,6 +24,8 @@ import yesman.epicfight.world.capabilities.entitypatch.LivingEntityPatch;
 public abstract class MultiCollider<T extends Collider> extends Collider {
 	protected final List<T> colliders = Lists.newArrayList();
 	protected final int numberOfColliders;
+	private Collider[] transformedColliders = new Collider[0];
+	private Collider[] transformedSources = new Collider[0];
 	
 	public static enum Usage {
 		INTERPOLATION, MULTI_BONES
@@ -48,33 +51,54 @@ public abstract class MultiCollider<T extends Collider> extends Collider {
 		return null;
 	}
 	
+	/** Copy of the source collider kept for the given interpolation slot, reused while the slot maps to the same source **/
+	protected Collider getTransformedCollider(int slot, T source) {
+		if (this.transformedColliders.length <= slot) {
+			this.transformedColliders = Arrays.copyOf(this.transformedColliders, slot + 1);
+			this.transformedSources = Arrays.copyOf(this.transformedSources, slot + 1);
+		}
+		
+		if (this.transformedSources[slot] != source) {
+			this.transformedColliders[slot] = source.deepCopy();
+			this.transformedSources[slot] = source;
+		}
+		
+		return this.transformedColliders[slot];
+	}
+	
 	@Override
 	public List<Entity> updateAndSelectCollideEntity(LivingEntityPatch<?> entitypatch, AttackAnimation attackAnimation, float prevElapsedTime, float elapsedTime, Joint joint, float attackSpeed) {
 		int numberOf = Math.max(Math.round((this.numberOfColliders + attackAnimation.getProperty(AttackAnimationProperty.EXTRA_COLLIDERS).orElse(0)) * attackSpeed), this.numberOfColliders);
 		float partialScale = 1.0F / (numberOf - 1);
 		float interpolation = 0.0F;
-		List<Collider> colliders = Lists.newArrayList();
+		Collider[] colliders = new Collider[numberOf];
 		LivingEntity original = entitypatch.getOriginal();
 		float index = 0.0F;
 		float interIndex = Math.min((float)(this.numberOfColliders - 1) / (numberOf - 1), 1.0F);
 		
 		for (int i = 0; i < numberOf; i++) {
-			colliders.add(this.colliders.get((int)index).deepCopy());
+			colliders[i] = this.getTransformedCollider(i, this.colliders.get((int)index));
 			index += interIndex;
 		}
 		
+		Armature armature = entitypatch.getArmature();
+		int pathIndex = armature.searchPathIndex(joint.getName());
+		OpenMatrix4f rootTransform = null;
+		
+		if (pathIndex == -1) {
+			Pose rootPose = new Pose();
+			rootPose.putJointData("Root", JointTransform.empty());
+			attackAnimation.modifyPose(attackAnimation, rootPose, entitypatch, elapsedTime, 1.0F);
+			rootTransform = rootPose.getOrDefaultTransform("Root").getAnimationBindedMatrix(armature.rootJoint, new OpenMatrix4f()).removeTranslation();
+		}
+		
 		AABB outerBox = null;
 		
 		for (Collider collider : colliders) {
 			OpenMatrix4f transformMatrix;
-			Armature armature = entitypatch.getArmature();
-			int pathIndex = armature.searchPathIndex(joint.getName());
 			
 			if (pathIndex == -1) {
-				Pose rootPose = new Pose();
-				rootPose.putJointData("Root", JointTransform.empty());
-				attackAnimation.modifyPose(attackAnimation, rootPose, entitypatch, elapsedTime, 1.0F);
-				transformMatrix = rootPose.getOrDefaultTransform("Root").getAnimationBindedMatrix(entitypatch.getArmature().rootJoint, new OpenMatrix4f()).removeTranslation();
+				transformMatrix = new OpenMatrix4f(rootTransform);
 			} else {
 				float interpolateTime = prevElapsedTime + (elapsedTime - prevElapsedTime) * interpolation;
 				transformMatrix = armature.getBindedTransformByJointIndex(attackAnimation.getPoseByTime(entitypatch, interpolateTime, 1.0F), pathIndex);
@@ -88,10 +112,11 @@ public abstract class MultiCollider<T extends Collider> extends Collider {
 			collider.transform(transformMatrix);
 			interpolation += partialScale;
 			
+			// Swept volume of the whole interval, the candidates are queried once
 			if (outerBox == null) {
 				outerBox = collider.getHitboxAABB();
 			} else {
-				outerBox.minmax(collider.getHitboxAABB());
+				outerBox = outerBox.minmax(collider.getHitboxAABB());
 			}
 		}
 		
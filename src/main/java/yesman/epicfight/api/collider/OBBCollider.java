@@ -16,6 +16,9 @@ import yesman.epicfight.api.utils.math.OpenMatrix4f;
 import yesman.epicfight.api.utils.math.Vec3f;
 
 public class OBBCollider extends Collider {
+	private static final double[] AABB_VERTEX_SIGN_X = {-1.0D, -1.0D, 1.0D, 1.0D};
+	private static final double[] AABB_VERTEX_SIGN_Z = {-1.0D, 1.0D, 1.0D, -1.0D};
+	
 	protected final Vec3[] modelVertex;
 	protected final Vec3[] modelNormal;
 	protected Vec3[] rotatedVertex;
@@ -174,10 +177,26 @@ public class OBBCollider extends Collider {
 		return true;
 	}
 	
+	/** Same result as testing against {@link #OBBCollider(AABB)} of the bounding box, computed without building the box **/
 	@Override
 	public boolean isCollide(Entity entity) {
-		OBBCollider obb = new OBBCollider(entity.getBoundingBox());
-		return isCollide(obb);
+		AABB aabb = entity.getBoundingBox();
+		double xSize = (aabb.maxX - aabb.minX) / 2;
+		double ySize = (aabb.maxY - aabb.minY) / 2;
+		double zSize = (aabb.maxZ - aabb.minZ) / 2;
+		double toOpponentX = -((float)aabb.minX + xSize) - this.worldCenter.x;
+		double toOpponentY = ((float)aabb.minY + ySize) - this.worldCenter.y;
+		double toOpponentZ = -((float)aabb.minZ + zSize) - this.worldCenter.z;
+		
+		for (Vec3 seperateAxis : this.rotatedNormal) {
+			if (!collisionDetection(seperateAxis.x, seperateAxis.y, seperateAxis.z, toOpponentX, toOpponentY, toOpponentZ, this.rotatedVertex, xSize, ySize, zSize)) {
+				return false;
+			}
+		}
+		
+		return collisionDetection(1.0D, 0.0D, 0.0D, toOpponentX, toOpponentY, toOpponentZ, this.rotatedVertex, xSize, ySize, zSize)
+			&& collisionDetection(0.0D, 1.0D, 0.0D, toOpponentX, toOpponentY, toOpponentZ, this.rotatedVertex, xSize, ySize, zSize)
+			&& collisionDetection(0.0D, 0.0D, 1.0D, toOpponentX, toOpponentY, toOpponentZ, this.rotatedVertex, xSize, ySize, zSize);
 	}
 	
 	@Override
@@ -218,6 +237,60 @@ public class OBBCollider extends Collider {
 		return true;
 	}
 	
+	/** Primitive variant of {@link #collisionDetection(Vec3, Vec3, OBBCollider, OBBCollider)} against an axis aligned box given by its half sizes **/
+	private static boolean collisionDetection(double axisX, double axisY, double axisZ, double toOpponentX, double toOpponentY, double toOpponentZ, Vec3[] vertices, double xSize, double ySize, double zSize) {
+		double maxProjX1 = 0.0D, maxProjY1 = 0.0D, maxProjZ1 = 0.0D;
+		double maxProjX2 = 0.0D, maxProjY2 = 0.0D, maxProjZ2 = 0.0D;
+		double maxDot1 = -1, maxDot2 = -1;
+		double sign = axisX * toOpponentX + axisY * toOpponentY + axisZ * toOpponentZ > 0.0F ? 1.0D : -1.0D;
+		
+		for (Vec3 vertexVector : vertices) {
+			double vertexSign = axisX * vertexVector.x + axisY * vertexVector.y + axisZ * vertexVector.z > 0.0F ? 1.0D : -1.0D;
+			double x = vertexVector.x * vertexSign;
+			double y = vertexVector.y * vertexSign;
+			double z = vertexVector.z * vertexSign;
+			double dot = axisX * x + axisY * y + axisZ * z;
+			
+			if (dot > maxDot1) {
+				maxDot1 = dot;
+				maxProjX1 = x;
+				maxProjY1 = y;
+				maxProjZ1 = z;
+			}
+		}
+		
+		for (int i = 0; i < 4; i++) {
+			double vx = AABB_VERTEX_SIGN_X[i] * xSize;
+			double vz = AABB_VERTEX_SIGN_Z[i] * zSize;
+			double vertexSign = axisX * vx + axisY * ySize + axisZ * vz > 0.0F ? 1.0D : -1.0D;
+			double x = vx * vertexSign;
+			double y = ySize * vertexSign;
+			double z = vz * vertexSign;
+			double dot = axisX * x + axisY * y + axisZ * z;
+			
+			if (dot > maxDot2) {
+				maxDot2 = dot;
+				maxProjX2 = x;
+				maxProjY2 = y;
+				maxProjZ2 = z;
+			}
+		}
+		
+		double distance = projectionLength(toOpponentX * sign, toOpponentY * sign, toOpponentZ * sign, axisX, axisY, axisZ);
+		
+		return !(distance > projectionLength(maxProjX1, maxProjY1, maxProjZ1, axisX, axisY, axisZ) + projectionLength(maxProjX2, maxProjY2, maxProjZ2, axisX, axisY, axisZ));
+	}
+	
+	/** Length of {@link MathUtils#projectVector(Vec3, Vec3)} **/
+	private static double projectionLength(double x, double y, double z, double axisX, double axisY, double axisZ) {
+		double dot = axisX * x + axisY * y + axisZ * z;
+		double normalScale = 1.0D / ((axisX * axisX) + (axisY * axisY) + (axisZ * axisZ));
+		double projX = dot * axisX * normalScale;
+		double projY = dot * axisY * normalScale;
+		double projZ = dot * axisZ * normalScale;
+		return Math.sqrt(projX * projX + projY * projY + projZ * projZ);
+	}
+	
 	@Override
 	public String toString() {
 		return super.toString() + " worldCenter : " + this.worldCenter + " direction : " + this.rotatedVertex[0];
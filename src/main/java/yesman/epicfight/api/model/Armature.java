@@ -2,36 +2,92 @@ package yesman.epicfight.api.model;
 
 import java.lang.reflect.Constructor;
 import java.lang.reflect.InvocationTargetException;
+import java.util.List;
 import java.util.Map;
 
+import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 
 import yesman.epicfight.api.animation.Joint;
 import yesman.epicfight.api.animation.JointTransform;
+import yesman.epicfight.api.animation.PackedPose;
 import yesman.epicfight.api.animation.Pose;
 import yesman.epicfight.api.animation.TransformSheet;
 import yesman.epicfight.api.utils.math.OpenMatrix4f;
 import yesman.epicfight.main.EpicFightMod;
 
 public class Armature {
+	/** Read only, parent of the root joint and pose transform of binded queries **/
+	private static final OpenMatrix4f IDENTITY = new OpenMatrix4f();
+	private static final JointTransform EMPTY_TRANSFORM = JointTransform.empty();
+	
 	private final Map<Integer, Joint> jointById;
 	private final Map<String, Joint> jointByName;
+	/** Filled lazily, concurrent since animations are loaded in parallel **/
 	private final Map<String, Integer> pathIndexMap;
 	private final int jointNumber;
 	public final Joint rootJoint;
 	private TransformSheet actionAnimationCoord = new TransformSheet();
+	private String[] jointNames;
 	private Pose prevPose = new Pose();
 	private Pose currentPose = new Pose();
+	/** Packed buffers are valid when the flag is set, a null pose is materialized from its packed buffer on demand **/
+	private PackedPose prevPackedPose;
+	private PackedPose currentPackedPose;
+	private boolean prevPackedPoseValid;
+	private boolean currentPackedPoseValid;
+	/** Set by server animators that skipped pose ticks, evaluated before the pose is read **/
+	private Runnable pendingPoseUpdate;
+	/** Joints ordered parents first and the parent id of each joint id, -1 for the root **/
+	private final Joint[] hierarchyOrder;
+	private final int[] parentIds;
+	/** Model space matrices of the last pose given to a binded transform query, valid for a joint when its stamp equals the solve generation **/
+	private final OpenMatrix4f[] bindedTransforms;
+	private final int[] solvedGenerations;
+	private final int[] solveStack;
+	private int solveGeneration;
+	private Pose solvedPose;
+	private int solvedPoseModCount;
 	
 	public Armature(int jointNumber, Joint rootJoint, Map<String, Joint> jointMap) {
 		this.jointNumber = jointNumber;
 		this.rootJoint = rootJoint;
 		this.jointByName = jointMap;
 		this.jointById = Maps.newHashMap();
-		this.pathIndexMap = Maps.newHashMap();
+		this.pathIndexMap = Maps.newConcurrentMap();
+		this.jointNames = new String[jointNumber];
 		this.jointByName.values().forEach((joint) -> {
 			this.jointById.put(joint.getId(), joint);
+			
+			if (joint.getId() >= 0 && joint.getId() < jointNumber) {
+				this.jointNames[joint.getId()] = joint.getName();
+			}
 		});
+		
+		List<Joint> hierarchyOrder = Lists.newArrayList();
+		this.parentIds = new int[jointNumber];
+		this.addToHierarchyOrder(rootJoint, -1, hierarchyOrder);
+		this.hierarchyOrder = hierarchyOrder.toArray(new Joint[0]);
+		this.bindedTransforms = new OpenMatrix4f[jointNumber];
+		this.solvedGenerations = new int[jointNumber];
+		this.solveStack = new int[jointNumber];
+		
+		for (int i = 0; i < jointNumber; i++) {
+			this.bindedTransforms[i] = new OpenMatrix4f();
+		}
+	}
+	
+	private void addToHierarchyOrder(Joint joint, int parentId, List<Joint> hierarchyOrder) {
+		if (joint == Joint.EMPTY || joint.getId() < 0 || joint.getId() >= this.jointNumber) {
+			return;
+		}
+		
+		hierarchyOrder.add(joint);
+		this.parentIds[joint.getId()] = parentId;
+		
+		for (Joint subJoint : joint.getSubJoints()) {
+			this.addToHierarchyOrder(subJoint, joint.getId(), hierarchyOrder);
+		}
 	}
 	
 	protected Joint getOrLogException(Map<String, Joint> jointMap, String name) {
@@ -47,20 +103,97 @@ public class Armature {
 	}
 	
 	public Pose getPose(float partialTicks) {
-		return Pose.interpolatePose(this.prevPose, this.currentPose, partialTicks);
+		return Pose.interpolatePose(this.getPrevPose(), this.getCurrentPose(), partialTicks);
+	}
+	
+	public void setPendingPoseUpdate(Runnable pendingPoseUpdate) {
+		this.pendingPoseUpdate = pendingPoseUpdate;
+	}
+	
+	public boolean hasPendingPoseUpdate() {
+		return this.pendingPoseUpdate != null;
+	}
+	
+	private void resolvePendingPose() {
+		if (this.pendingPoseUpdate != null) {
+			Runnable pendingPoseUpdate = this.pendingPoseUpdate;
+			this.pendingPoseUpdate = null;
+			pendingPoseUpdate.run();
+		}
 	}
 	
 	public Pose getPrevPose() {
+		this.resolvePendingPose();
+		
+		if (this.prevPose == null) {
+			this.prevPose = this.prevPackedPose.toPose(this);
+		}
+		
 		return this.prevPose;
 	}
 	
 	public Pose getCurrentPose() {
+		this.resolvePendingPose();
+		
+		if (this.currentPose == null) {
+			this.currentPose = this.currentPackedPose.toPose(this);
+		}
+		
 		return this.currentPose;
 	}
 	
 	public void setPose(Pose pose) {
-		this.prevPose = this.currentPose;
+		this.prevPose = this.getCurrentPose();
+		this.swapPackedPoses();
 		this.currentPose = pose;
+		this.currentPackedPoseValid = false;
+	}
+	
+	/** Stores the pose without string lookups, the {@link Pose} view is built only if someone asks for it **/
+	public void setPose(PackedPose pose) {
+		this.prevPose = this.currentPose;
+		this.swapPackedPoses();
+		
+		if (this.currentPackedPose == null) {
+			this.currentPackedPose = new PackedPose(this.jointNumber);
+		}
+		
+		this.currentPackedPose.copyFrom(pose);
+		this.currentPackedPoseValid = true;
+		this.currentPose = null;
+	}
+	
+	public PackedPose getCurrentPackedPose() {
+		this.resolvePendingPose();
+		
+		if (!this.currentPackedPoseValid) {
+			this.currentPackedPose = PackedPose.fromPose(this.currentPose, this, this.currentPackedPose);
+			this.currentPackedPoseValid = true;
+		}
+		
+		return this.currentPackedPose;
+	}
+	
+	public PackedPose getPrevPackedPose() {
+		this.resolvePendingPose();
+		
+		if (!this.prevPackedPoseValid) {
+			this.prevPackedPose = PackedPose.fromPose(this.prevPose, this, this.prevPackedPose);
+			this.prevPackedPoseValid = true;
+		}
+		
+		return this.prevPackedPose;
+	}
+	
+	public PackedPose getPackedPose(float partialTicks, PackedPose dest) {
+		return PackedPose.interpolatePose(this.getPrevPackedPose(), this.getCurrentPackedPose(), partialTicks, dest);
+	}
+	
+	private void swapPackedPoses() {
+		PackedPose temp = this.prevPackedPose;
+		this.prevPackedPose = this.currentPackedPose;
+		this.currentPackedPose = temp;
+		this.prevPackedPoseValid = this.currentPackedPoseValid;
 	}
 	
 	public void initializeTransform() {
@@ -72,39 +205,100 @@ public class Armature {
 	}
 	
 	public OpenMatrix4f[] getPoseAsTransformMatrix(Pose pose) {
-		OpenMatrix4f[] jointMatrices = new OpenMatrix4f[this.jointNumber];
-		this.getPoseTransform(this.rootJoint, new OpenMatrix4f(), pose, jointMatrices);
-		return jointMatrices;
+		return this.getPoseAsTransformMatrix(pose, null);
 	}
 	
-	private void getPoseTransform(Joint joint, OpenMatrix4f parentTransform, Pose pose, OpenMatrix4f[] jointMatrices) {
-		OpenMatrix4f result = pose.getOrDefaultTransform(joint.getName()).getAnimationBindedMatrix(joint, parentTransform);
-		jointMatrices[joint.getId()] = result;
+	/** Composes the joint matrices in one pass over the hierarchy, the matrices of dest are reused when it has the joint number as length **/
+	public OpenMatrix4f[] getPoseAsTransformMatrix(Pose pose, OpenMatrix4f[] dest) {
+		if (dest == null || dest.length != this.jointNumber) {
+			dest = new OpenMatrix4f[this.jointNumber];
+		}
 		
-		for (Joint joints : joint.getSubJoints()) {
-			this.getPoseTransform(joints, result, pose, jointMatrices);
+		for (Joint joint : this.hierarchyOrder) {
+			int jointId = joint.getId();
+			
+			if (dest[jointId] == null) {
+				dest[jointId] = new OpenMatrix4f();
+			}
+			
+			int parentId = this.parentIds[jointId];
+			getTransform(pose, joint).getAnimationBindedMatrix(joint, parentId < 0 ? IDENTITY : dest[parentId], dest[jointId]);
 		}
+		
+		return dest;
 	}
 	
 	public OpenMatrix4f getBindedTransformForCurrentPose(Joint joint) {
-		return this.getBindedTransformByJointIndex(this.getCurrentPose(), this.searchPathIndex(joint.getName()));
+		return this.getBindedTransformFor(this.getCurrentPose(), joint);
 	}
 	
 	public OpenMatrix4f getBindedTransformFor(Pose pose, Joint joint) {
-		return this.getBindedTransformByJointIndex(pose, this.searchPathIndex(joint.getName()));
+		Joint armatureJoint = this.jointByName.get(joint.getName());
+		
+		if (armatureJoint == null || armatureJoint == Joint.EMPTY) {
+			throw new IllegalArgumentException("failed to get joint path index for " + joint.getName());
+		}
+		
+		return new OpenMatrix4f(this.solveBindedTransform(pose, armatureJoint.getId()));
 	}
 	
 	/** Get binded position of joint **/
 	public OpenMatrix4f getBindedTransformByJointIndex(Pose pose, int pathIndex) {
-		this.initializeTransform();
-		return getBindedJointTransformByIndexInternal(pose, this.rootJoint, new OpenMatrix4f(), pathIndex);
+		Joint joint = this.rootJoint;
+		
+		while (pathIndex % 10 > 0) {
+			joint = joint.getSubJoints().get(pathIndex % 10 - 1);
+			pathIndex /= 10;
+		}
+		
+		return new OpenMatrix4f(this.solveBindedTransform(pose, joint.getId()));
+	}
+	
+	/**
+	 * Model space matrix of the joint without the pose transforms of the joints, the returned matrix belongs to the cache.
+	 * The joint and its unsolved ancestors are composed once per pose, later queries for the same pose read the cache
+	 * until the pose or one of its transforms is modified.
+	 */
+	private OpenMatrix4f solveBindedTransform(Pose pose, int jointId) {
+		this.validateSolvedPose(pose);
+		
+		if (this.solvedGenerations[jointId] == this.solveGeneration) {
+			return this.bindedTransforms[jointId];
+		}
+		
+		int stackSize = 0;
+		
+		for (int id = jointId; id >= 0 && this.solvedGenerations[id] != this.solveGeneration; id = this.parentIds[id]) {
+			this.solveStack[stackSize++] = id;
+		}
+		
+		while (stackSize > 0) {
+			int id = this.solveStack[--stackSize];
+			int parentId = this.parentIds[id];
+			Joint joint = this.jointById.get(id);
+			getTransform(pose, joint).getAnimationBindedMatrix(joint, parentId < 0 ? IDENTITY : this.bindedTransforms[parentId], IDENTITY, this.bindedTransforms[id]);
+			this.solvedGenerations[id] = this.solveGeneration;
+		}
+		
+		return this.bindedTransforms[jointId];
+	}
+	
+	private void validateSolvedPose(Pose pose) {
+		if (this.solvedPose != pose || this.solvedPoseModCount != pose.getModCount()) {
+			this.solvedPose = pose;
+			this.solvedPoseModCount = pose.getModCount();
+			this.solveGeneration++;
+		}
+	}
+	
+	private static JointTransform getTransform(Pose pose, Joint joint) {
+		JointTransform transform = pose.getJointTransformData().get(joint.getName());
+		return transform == null ? EMPTY_TRANSFORM : transform;
 	}
 	
-	private OpenMatrix4f getBindedJointTransformByIndexInternal(Pose pose, Joint joint, OpenMatrix4f parentTransform, int pathIndex) {
-		JointTransform jt = pose.getOrDefaultTransform(joint.getName());
-		OpenMatrix4f result = jt.getAnimationBindedMatrix(joint, parentTransform);
-		int nextIndex = pathIndex % 10;
-		return nextIndex > 0 ? this.getBindedJointTransformByIndexInternal(pose, joint.getSubJoints().get(nextIndex - 1), result, pathIndex / 10) : result;
+	/** Joint names indexed by joint id, shared between the copies of an armature **/
+	public String[] getJointNames() {
+		return this.jointNames;
 	}
 	
 	public Joint searchJointById(int id) {
@@ -157,6 +351,7 @@ public class Armature {
 		try {
 			Constructor<? extends Armature> constructor = this.getClass().getConstructor(int.class, Joint.class, Map.class);
 			newArmature = constructor.newInstance(this.jointNumber, newRoot, oldToNewJoint);
+			newArmature.jointNames = this.jointNames;
 		} catch (NoSuchMethodException | SecurityException | InstantiationException | IllegalAccessException | IllegalArgumentException | InvocationTargetException e) {
 			e.printStackTrace();
 		}
@@ -0,0 +1,340 @@
+package yesman.epicfight.api.model;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.CRC32;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.mojang.datafixers.util.Pair;
+import com.mojang.math.Quaternion;
+
+import net.minecraft.resources.ResourceLocation;
+import net.minecraft.server.packs.resources.ResourceManager;
+import net.minecraftforge.api.distmarker.Dist;
+import net.minecraftforge.fml.loading.FMLEnvironment;
+import yesman.epicfight.api.animation.AnimationClip;
+import yesman.epicfight.api.animation.Joint;
+import yesman.epicfight.api.animation.JointTransform;
+import yesman.epicfight.api.animation.Keyframe;
+import yesman.epicfight.api.animation.TransformSheet;
+import yesman.epicfight.api.animation.types.AttackAnimation;
+import yesman.epicfight.api.animation.types.AttackAnimation.Phase;
+import yesman.epicfight.api.animation.types.StaticAnimation;
+import yesman.epicfight.api.collider.Collider;
+import yesman.epicfight.api.utils.math.OpenMatrix4f;
+import yesman.epicfight.api.utils.math.Vec3f;
+import yesman.epicfight.main.EpicFightMod;
+
+/**
+ * Stores parsed animation keyframes in a compact binary container so the json files don't have to be parsed and decomposed again.
+ *
+ * Layout (big endian)
+ *   header   : magic(int) version(short) stamp(long) totalTime(float) trackCount(int)
+ *   joints   : trackCount * [type(byte) nameLength(short) name(utf-8) keyframeCount(int)]
+ *   times    : keyframeCount floats per track
+ *   tracks   : keyframeCount * [translation(3 floats) rotation(4 floats) scale(3 floats)] per track
+ *
+ * The variant hashes everything besides the source json that affects the parsed result (armature, animation type, side, colliders),
+ * it's part of the file name so animations sharing a json file don't overwrite each other's clip.
+ * The stamp is a checksum of the source json mixed with the variant, a file with a different stamp is considered stale and rebuilt from json.
+ */
+public class BinaryAnimationCache {
+	public static final int MAGIC = 0x45464142;
+	public static final short VERSION = 1;
+	public static final String EXTENSION = ".efab";
+	
+	private static final int HEADER_SIZE = 4 + 2 + 8 + 4 + 4;
+	private static final int FLOATS_PER_KEYFRAME = 10;
+	private static final byte JOINT_TRACK = 0;
+	private static final byte COORD_TRACK = 1;
+	private static final String ROOT_JOINT = "Root";
+	
+	private final Map<Armature, Integer> armatureFingerprints = Maps.newConcurrentMap();
+	private final AtomicInteger cacheHits = new AtomicInteger();
+	private final AtomicInteger cacheMisses = new AtomicInteger();
+	private final Path cacheDirectory;
+	
+	public BinaryAnimationCache(Path cacheDirectory) {
+		this.cacheDirectory = cacheDirectory;
+	}
+	
+	public void load(ResourceManager resourceManager, ResourceLocation rl, StaticAnimation animation, boolean bothSide, boolean verify) {
+		AnimationClip clip = this.loadClip(resourceManager, rl, animation, bothSide, verify, false);
+		
+		if (clip == null) {
+			JsonModelLoader jsonModelLoader = new JsonModelLoader(resourceManager, rl);
+			
+			if (bothSide) {
+				jsonModelLoader.loadStaticAnimationBothSide(animation);
+			} else {
+				jsonModelLoader.loadStaticAnimation(animation);
+			}
+			
+			return;
+		}
+		
+		clip.applyTo(animation);
+	}
+	
+	/**
+	 * Returns the clip from the binary file, or parsed from json and written when the file is stale. Null if the source can't be read.
+	 * With metadataOnly the joint sheets of a valid binary file are skipped, only the total time, the coord and the root sheet are read.
+	 */
+	public AnimationClip loadClip(ResourceManager resourceManager, ResourceLocation rl, StaticAnimation animation, boolean bothSide, boolean verify, boolean metadataOnly) {
+		byte[] source;
+		
+		try {
+			source = JsonModelLoader.readResourceBytes(resourceManager, rl);
+		} catch (Exception e) {
+			return null;
+		}
+		
+		int variant = this.getVariant(animation, bothSide, FMLEnvironment.dist);
+		long stamp = getStamp(source, variant);
+		Path cacheFile = this.getCacheFile(rl, variant);
+		AnimationClip clip = read(cacheFile, stamp, metadataOnly);
+		
+		if (clip == null) {
+			JsonModelLoader jsonModelLoader = new JsonModelLoader(resourceManager, rl, source);
+			clip = bothSide ? jsonModelLoader.loadStaticAnimationClipBothSide(animation) : jsonModelLoader.loadStaticAnimationClip(animation);
+			
+			if (write(cacheFile, stamp, clip) && verify) {
+				verifyRoundTrip(rl, clip, read(cacheFile, stamp));
+			}
+			
+			this.cacheMisses.incrementAndGet();
+		} else {
+			this.cacheHits.incrementAndGet();
+		}
+		
+		return clip;
+	}
+	
+	public Path getCacheFile(ResourceLocation rl, int variant) {
+		String path = rl.getPath();
+		
+		if (path.endsWith(".json")) {
+			path = path.substring(0, path.length() - 5);
+		}
+		
+		return this.cacheDirectory.resolve(rl.getNamespace()).resolve(path + "." + String.format("%08x", variant) + EXTENSION);
+	}
+	
+	public int getCacheHits() {
+		return this.cacheHits.get();
+	}
+	
+	public int getCacheMisses() {
+		return this.cacheMisses.get();
+	}
+	
+	public void resetStatistics() {
+		this.cacheHits.set(0);
+		this.cacheMisses.set(0);
+		this.armatureFingerprints.clear();
+	}
+	
+	/** Returns true when the clip read from the binary file is bit-identical to the clip parsed from json **/
+	public static boolean verifyRoundTrip(ResourceLocation rl, AnimationClip parsed, AnimationClip cached) {
+		boolean identical = parsed.isIdentical(cached);
+		
+		if (!identical) {
+			EpicFightMod.LOGGER.warn("Binary animation round trip mismatch: " + rl);
+		}
+		
+		return identical;
+	}
+	
+	public static AnimationClip read(Path file, long stamp) {
+		return read(file, stamp, false);
+	}
+	
+	public static AnimationClip read(Path file, long stamp, boolean metadataOnly) {
+		if (!Files.isRegularFile(file)) {
+			return null;
+		}
+		
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			if (channel.size() < HEADER_SIZE) {
+				return null;
+			}
+			
+			// Read into the heap, a mapped buffer keeps the file locked on windows until it's collected and the next write can't replace it
+			ByteBuffer buffer = ByteBuffer.allocate((int)channel.size());
+			
+			while (buffer.hasRemaining()) {
+				if (channel.read(buffer) < 0) {
+					return null;
+				}
+			}
+			
+			buffer.flip();
+			
+			if (buffer.getInt() != MAGIC || buffer.getShort() != VERSION || buffer.getLong() != stamp) {
+				return null;
+			}
+			
+			AnimationClip clip = new AnimationClip();
+			clip.setTotalTime(buffer.getFloat());
+			int trackCount = buffer.getInt();
+			byte[] types = new byte[trackCount];
+			String[] names = new String[trackCount];
+			float[][] times = new float[trackCount][];
+			
+			for (int i = 0; i < trackCount; i++) {
+				types[i] = buffer.get();
+				byte[] name = new byte[buffer.getShort()];
+				buffer.get(name);
+				names[i] = new String(name, StandardCharsets.UTF_8);
+				times[i] = new float[buffer.getInt()];
+			}
+			
+			for (int i = 0; i < trackCount; i++) {
+				buffer.asFloatBuffer().get(times[i]);
+				buffer.position(buffer.position() + times[i].length * 4);
+			}
+			
+			for (int i = 0; i < trackCount; i++) {
+				if (metadataOnly && types[i] == JOINT_TRACK && !ROOT_JOINT.equals(names[i])) {
+					buffer.position(buffer.position() + times[i].length * FLOATS_PER_KEYFRAME * 4);
+					continue;
+				}
+				
+				Keyframe[] keyframes = new Keyframe[times[i].length];
+				
+				for (int j = 0; j < keyframes.length; j++) {
+					Vec3f translation = new Vec3f(buffer.getFloat(), buffer.getFloat(), buffer.getFloat());
+					Quaternion rotation = new Quaternion(buffer.getFloat(), buffer.getFloat(), buffer.getFloat(), buffer.getFloat());
+					Vec3f scale = new Vec3f(buffer.getFloat(), buffer.getFloat(), buffer.getFloat());
+					keyframes[j] = new Keyframe(times[i][j], new JointTransform(translation, rotation, scale));
+				}
+				
+				if (types[i] == COORD_TRACK) {
+					clip.setCoord(new TransformSheet(keyframes));
+				} else {
+					clip.addSheet(names[i], new TransformSheet(keyframes));
+				}
+			}
+			
+			return clip;
+		} catch (IOException | BufferUnderflowException | IllegalArgumentException e) {
+			EpicFightMod.LOGGER.debug("Failed to read binary animation " + file + ": " + e);
+			return null;
+		}
+	}
+	
+	public static boolean write(Path file, long stamp, AnimationClip clip) {
+		List<Pair<String, TransformSheet>> tracks = Lists.newArrayList();
+		clip.getJointSheets().forEach((name, sheet) -> tracks.add(Pair.of(name, sheet)));
+		
+		if (clip.getCoord() != null) {
+			tracks.add(Pair.of("Coord", clip.getCoord()));
+		}
+		
+		byte[][] names = new byte[tracks.size()][];
+		int size = HEADER_SIZE;
+		
+		for (int i = 0; i < tracks.size(); i++) {
+			names[i] = tracks.get(i).getFirst().getBytes(StandardCharsets.UTF_8);
+			size += 1 + 2 + names[i].length + 4;
+			size += tracks.get(i).getSecond().getKeyframes().length * (1 + FLOATS_PER_KEYFRAME) * 4;
+		}
+		
+		ByteBuffer buffer = ByteBuffer.allocate(size);
+		buffer.putInt(MAGIC);
+		buffer.putShort(VERSION);
+		buffer.putLong(stamp);
+		buffer.putFloat(clip.getTotalTime());
+		buffer.putInt(tracks.size());
+		
+		for (int i = 0; i < tracks.size(); i++) {
+			buffer.put(i == clip.getJointSheets().size() ? COORD_TRACK : JOINT_TRACK);
+			buffer.putShort((short)names[i].length);
+			buffer.put(names[i]);
+			buffer.putInt(tracks.get(i).getSecond().getKeyframes().length);
+		}
+		
+		for (Pair<String, TransformSheet> track : tracks) {
+			for (Keyframe keyframe : track.getSecond().getKeyframes()) {
+				buffer.putFloat(keyframe.time());
+			}
+		}
+		
+		for (Pair<String, TransformSheet> track : tracks) {
+			for (Keyframe keyframe : track.getSecond().getKeyframes()) {
+				JointTransform transform = keyframe.transform();
+				buffer.putFloat(transform.translation().x).putFloat(transform.translation().y).putFloat(transform.translation().z);
+				buffer.putFloat(transform.rotation().i()).putFloat(transform.rotation().j()).putFloat(transform.rotation().k()).putFloat(transform.rotation().r());
+				buffer.putFloat(transform.scale().x).putFloat(transform.scale().y).putFloat(transform.scale().z);
+			}
+		}
+		
+		try {
+			Files.createDirectories(file.getParent());
+			Path temp = Files.createTempFile(file.getParent(), file.getFileName().toString(), ".tmp");
+			Files.write(temp, buffer.array());
+			Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+			return true;
+		} catch (IOException e) {
+			EpicFightMod.LOGGER.warn("Failed to write binary animation " + file + ": " + e);
+			return false;
+		}
+	}
+	
+	static long getStamp(byte[] source, int variant) {
+		CRC32 crc = new CRC32();
+		crc.update(source);
+		
+		return crc.getValue() * 31L + variant;
+	}
+	
+	/** The dist is passed in since the parsed clip depends on the side **/
+	int getVariant(StaticAnimation animation, boolean bothSide, Dist dist) {
+		int variant = this.getArmatureFingerprint(animation.getArmature());
+		variant = variant * 31 + animation.getClass().getName().hashCode();
+		variant = variant * 31 + dist.ordinal();
+		variant = variant * 31 + (bothSide ? 1 : 0);
+		
+		if (animation instanceof AttackAnimation attackAnimation) {
+			for (Phase phase : attackAnimation.phases) {
+				for (Pair<Joint, Collider> colliderInfo : phase.getColliders()) {
+					variant = variant * 31 + colliderInfo.getFirst().getName().hashCode();
+				}
+			}
+		}
+		
+		return variant;
+	}
+	
+	private int getArmatureFingerprint(Armature armature) {
+		if (armature == null) {
+			return 0;
+		}
+		
+		return this.armatureFingerprints.computeIfAbsent(armature, (key) -> {
+			int hash = 1;
+			
+			for (Joint joint : key.getRootJoint().getAllJoints()) {
+				OpenMatrix4f local = joint.getLocalTrasnform();
+				hash = hash * 31 + joint.getName().hashCode();
+				hash = hash * 31 + joint.getId();
+				hash = hash * 31 + Float.floatToIntBits(local.m00) + Float.floatToIntBits(local.m11) + Float.floatToIntBits(local.m22);
+				hash = hash * 31 + Float.floatToIntBits(local.m30) + Float.floatToIntBits(local.m31) + Float.floatToIntBits(local.m32);
+				hash = hash * 31 + Float.floatToIntBits(local.m01) + Float.floatToIntBits(local.m12) + Float.floatToIntBits(local.m20);
+			}
+			
+			return hash;
+		});
+	}
+}
\ No newline at end of file
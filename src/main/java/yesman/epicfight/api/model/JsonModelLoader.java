@@ -1,8 +1,10 @@
 package yesman.epicfight.api.model;
 
 import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
 import java.io.InputStreamReader;
-import java.io.Reader;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.List;
@@ -19,17 +21,16 @@ import com.google.gson.stream.JsonReader;
 import com.mojang.datafixers.util.Pair;
 
 import net.minecraft.resources.ResourceLocation;
-import net.minecraft.server.packs.resources.Resource;
 import net.minecraft.server.packs.resources.ResourceManager;
 import net.minecraftforge.api.distmarker.Dist;
 import net.minecraftforge.api.distmarker.OnlyIn;
 import net.minecraftforge.fml.ModList;
 import net.minecraftforge.fml.loading.FMLEnvironment;
+import yesman.epicfight.api.animation.AnimationClip;
 import yesman.epicfight.api.animation.Joint;
 import yesman.epicfight.api.animation.JointTransform;
 import yesman.epicfight.api.animation.Keyframe;
 import yesman.epicfight.api.animation.TransformSheet;
-import yesman.epicfight.api.animation.property.AnimationProperty.ActionAnimationProperty;
 import yesman.epicfight.api.animation.types.ActionAnimation;
 import yesman.epicfight.api.animation.types.AttackAnimation;
 import yesman.epicfight.api.animation.types.AttackAnimation.Phase;
@@ -57,26 +58,43 @@ public class JsonModelLoader {
 	
 	public JsonModelLoader(ResourceManager resourceManager, ResourceLocation resourceLocation) {
 		try {
-			if (resourceManager == null) {
-				Class<?> modClass = ModList.get().getModObjectById(resourceLocation.getNamespace()).get().getClass();
-				BufferedInputStream inputstream = new BufferedInputStream(modClass.getResourceAsStream("/assets/" + resourceLocation.getNamespace() + "/" + resourceLocation.getPath()));
-				Reader reader = new InputStreamReader(inputstream, StandardCharsets.UTF_8);
-				JsonReader in = new JsonReader(reader);
-				in.setLenient(true);
-				this.rootJson = Streams.parse(in).getAsJsonObject();	
-			} else {
-				this.resourceManager = resourceManager;
-				Resource resource = resourceManager.getResource(resourceLocation);
-				JsonReader in = new JsonReader(new InputStreamReader(resource.getInputStream(), StandardCharsets.UTF_8));
-				in.setLenient(true);
-				this.rootJson = Streams.parse(in).getAsJsonObject();
-			}
+			this.resourceManager = resourceManager;
+			JsonReader in = new JsonReader(new InputStreamReader(getResourceStream(resourceManager, resourceLocation), StandardCharsets.UTF_8));
+			in.setLenient(true);
+			this.rootJson = Streams.parse(in).getAsJsonObject();
 		} catch (Exception e) {
 			EpicFightMod.LOGGER.info("Can't read " + resourceLocation.toString() + " because of " + e);
 			e.printStackTrace();
 		}
 	}
 	
+	public JsonModelLoader(ResourceManager resourceManager, ResourceLocation resourceLocation, byte[] source) {
+		try {
+			this.resourceManager = resourceManager;
+			JsonReader in = new JsonReader(new InputStreamReader(new ByteArrayInputStream(source), StandardCharsets.UTF_8));
+			in.setLenient(true);
+			this.rootJson = Streams.parse(in).getAsJsonObject();
+		} catch (Exception e) {
+			EpicFightMod.LOGGER.info("Can't read " + resourceLocation.toString() + " because of " + e);
+			e.printStackTrace();
+		}
+	}
+	
+	public static InputStream getResourceStream(ResourceManager resourceManager, ResourceLocation resourceLocation) throws IOException {
+		if (resourceManager == null) {
+			Class<?> modClass = ModList.get().getModObjectById(resourceLocation.getNamespace()).get().getClass();
+			return new BufferedInputStream(modClass.getResourceAsStream("/assets/" + resourceLocation.getNamespace() + "/" + resourceLocation.getPath()));
+		} else {
+			return resourceManager.getResource(resourceLocation).getInputStream();
+		}
+	}
+	
+	public static byte[] readResourceBytes(ResourceManager resourceManager, ResourceLocation resourceLocation) throws IOException {
+		try (InputStream inputstream = getResourceStream(resourceManager, resourceLocation)) {
+			return inputstream.readAllBytes();
+		}
+	}
+	
 	@OnlyIn(Dist.CLIENT)
 	public AnimatedMesh.RenderProperties getRenderProperties() {
 		JsonObject properties = this.rootJson.getAsJsonObject("render_properties");
@@ -275,6 +293,10 @@ public class JsonModelLoader {
 	}
 	
 	public void loadStaticAnimation(StaticAnimation animation) {
+		this.loadStaticAnimationClip(animation).applyTo(animation);
+	}
+	
+	public AnimationClip loadStaticAnimationClip(StaticAnimation animation) {
 		if (this.rootJson == null) {
 			throw new IllegalStateException("[ModelParsingError]Can't find animation path: " + animation);
 		}
@@ -285,6 +307,7 @@ public class JsonModelLoader {
 		boolean noTransformData = !action && !attack && FMLEnvironment.dist == Dist.DEDICATED_SERVER;
 		boolean root = true;
 		Armature armature = animation.getArmature();
+		AnimationClip clip = new AnimationClip();
 		
 		Set<String> allowedJoints = Sets.<String>newLinkedHashSet();
 		
@@ -348,7 +371,7 @@ public class JsonModelLoader {
 					}
 					
 					TransformSheet sheet = getTransformSheet(times, transforms, new OpenMatrix4f(), true);
-					((ActionAnimation)animation).addProperty(ActionAnimationProperty.COORD, sheet);
+					clip.setCoord(sheet);
 					root = false;
 					continue;
 				} else {
@@ -379,18 +402,25 @@ public class JsonModelLoader {
 			TransformSheet sheet = getTransformSheet(times, transforms, OpenMatrix4f.invert(joint.getLocalTrasnform(), null), root);
 			
 			if (!noTransformData) {
-				animation.addSheet(name, sheet);
+				clip.addSheet(name, sheet);
 			}
 			
-			animation.setTotalTime(times[times.length - 1]);
+			clip.setTotalTime(times[times.length - 1]);
 			root = false;
 		}
+		
+		return clip;
 	}
 	
 	public void loadStaticAnimationBothSide(StaticAnimation animation) {
+		this.loadStaticAnimationClipBothSide(animation).applyTo(animation);
+	}
+	
+	public AnimationClip loadStaticAnimationClipBothSide(StaticAnimation animation) {
 		JsonArray array = this.rootJson.get("animation").getAsJsonArray();
 		boolean root = true;
 		Armature armature = animation.getArmature();
+		AnimationClip clip = new AnimationClip();
 		
 		for (JsonElement element : array) {
 			JsonObject keyObject = element.getAsJsonObject();
@@ -421,10 +451,12 @@ public class JsonModelLoader {
 			}
 			
 			TransformSheet sheet = getTransformSheet(times, transforms, OpenMatrix4f.invert(joint.getLocalTrasnform(), null), root);
-			animation.addSheet(name, sheet);
-			animation.setTotalTime(times[times.length - 1]);
+			clip.addSheet(name, sheet);
+			clip.setTotalTime(times[times.length - 1]);
 			root = false;
 		}
+		
+		return clip;
 	}
 	
 	private static TransformSheet getTransformSheet(float[] times, float[] trasnformMatrix, OpenMatrix4f invLocalTransform, boolean correct) {
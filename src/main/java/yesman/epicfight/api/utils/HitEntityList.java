@@ -1,10 +1,10 @@
 package yesman.epicfight.api.utils;
 
 import java.util.List;
-import java.util.function.BiFunction;
 
 import com.google.common.collect.Lists;
 
+import it.unimi.dsi.fastutil.longs.Long2BooleanOpenHashMap;
 import net.minecraft.world.entity.Entity;
 import net.minecraft.world.entity.Mob;
 import net.minecraft.world.entity.ai.goal.GoalSelector;
@@ -14,6 +14,8 @@ import yesman.epicfight.world.capabilities.EpicFightCapabilities;
 import yesman.epicfight.world.capabilities.entitypatch.LivingEntityPatch;
 
 public class HitEntityList {
+	private static final ThreadLocal<SortBuffer> BUFFER = ThreadLocal.withInitial(SortBuffer::new);
+	
 	private List<Entity> hitEntites;
 	private int index;
 	
@@ -32,100 +34,169 @@ public class HitEntityList {
 	}
 	
 	public static enum Priority {
-		DISTANCE((attacker, list) -> {
-			List<Double> distanceToAttacker = Lists.<Double>newArrayList();
-			List<Entity> hitEntites = Lists.<Entity>newArrayList();
-			
-			Outer:
-			for (Entity entity : list) {
-				double distance = attacker.getOriginal().distanceToSqr(entity);
-				int index = 0;
-				
-				for (; index < hitEntites.size(); index++) {
-					if (distance < distanceToAttacker.get(index)) {
-						hitEntites.add(index, entity);
-						distanceToAttacker.add(index, distance);
-						continue Outer;
-					}
-				}
-				
-				hitEntites.add(index, entity);
-				distanceToAttacker.add(index, distance);
+		DISTANCE {
+			@Override
+			double getSortKey(LivingEntityPatch<?> attacker, Entity entity, SortBuffer buffer) {
+				return attacker.getOriginal().distanceToSqr(entity);
 			}
-			return hitEntites;
-		}),
-		
-		TARGET((attacker, list) -> {
-			List<Entity> hitEntites = Lists.<Entity>newArrayList();
-			
-			for (Entity entity : list) {
-				if (entity.is(attacker.getTarget())) {
-					hitEntites.add(entity);
-				}
+		},
+		TARGET {
+			@Override
+			double getSortKey(LivingEntityPatch<?> attacker, Entity entity, SortBuffer buffer) {
+				return entity.is(attacker.getTarget()) ? 0.0D : EXCLUDED;
 			}
-			
-			return hitEntites;
-		}),
-		HOSTILITY((attacker, list) -> {
-			List<Entity> firstTargets = Lists.newArrayList();
-			List<Entity> secondTargets = Lists.newArrayList();
-			List<Entity> lastTargets = Lists.newArrayList();
-			
-			Outer:
-			for (Entity e : list) {
+		},
+		HOSTILITY {
+			@Override
+			double getSortKey(LivingEntityPatch<?> attacker, Entity e, SortBuffer buffer) {
 				if (attacker.isTeammate(e)) {
-					continue;
+					return EXCLUDED;
 				}
 				
 				if (attacker.getOriginal().getLastHurtByMob() == e || attacker.getTarget() == e) {
-					firstTargets.add(e);
-					continue;
+					return 0.0D;
 				}
 				
 				LivingEntityPatch<?> entitypatch = EpicFightCapabilities.getEntityPatch(e, LivingEntityPatch.class);
 				
 				if (entitypatch != null) {
 					if (attacker.getOriginal().is(entitypatch.getTarget())) {
-						firstTargets.add(e);
-						continue;
+						return 0.0D;
 					}
 				}
 				
 				if (e instanceof Mob mob) {
 					if (attacker.getOriginal().is(mob.getTarget())) {
-						firstTargets.add(mob);
-						continue;
-					} else {
-						GoalSelector targetingAi = mob.targetSelector;
-						
-						for (WrappedGoal goal : targetingAi.getAvailableGoals()) {
-							if (goal.getGoal() instanceof NearestAttackableTargetGoal<?> targetGoal) {
-								if (targetGoal.targetConditions.test(mob, attacker.getOriginal())) {
-									secondTargets.add(mob);
-									continue Outer;
-								}
-							}
-						}
+						return 0.0D;
+					} else if (buffer.canBeTargetedBy(attacker, mob)) {
+						return 1.0D;
 					}
 				}
 				
-				lastTargets.add(e);
+				return 2.0D;
 			}
+		};
+		
+		static final double EXCLUDED = Double.NaN;
+		
+		abstract double getSortKey(LivingEntityPatch<?> attacker, Entity entity, SortBuffer buffer);
+		
+		/** Stable sort by ascending key, entities with equal keys keep the order of the given list **/
+		public List<Entity> sort(LivingEntityPatch<?> attacker, List<Entity> entities) {
+			SortBuffer buffer = BUFFER.get();
+			buffer.ensureCapacity(entities.size());
+			int size = 0;
 			
-			secondTargets.addAll(lastTargets);
-			firstTargets.addAll(secondTargets);
+			for (int i = 0; i < entities.size(); i++) {
+				double key = this.getSortKey(attacker, entities.get(i), buffer);
+				
+				if (!Double.isNaN(key)) {
+					buffer.keys[i] = key;
+					buffer.indices[size++] = i;
+				}
+			}
+			
+			buffer.sortIndices(size);
+			List<Entity> sorted = Lists.newArrayListWithCapacity(size);
+			
+			for (int i = 0; i < size; i++) {
+				sorted.add(entities.get(buffer.indices[i]));
+			}
 			
-			return firstTargets;
-		});
+			return sorted;
+		}
+	}
+	
+	/** Sort keys and index arrays reused between sorts, and the goal based hostility of mobs cached for the current tick **/
+	static class SortBuffer {
+		private static final int INSERTION_SORT_THRESHOLD = 16;
 		
-		BiFunction<LivingEntityPatch<?>, List<Entity>, List<Entity>> sortingFunction;
+		private double[] keys = new double[16];
+		private int[] indices = new int[16];
+		private int[] mergeBuffer = new int[16];
+		private final Long2BooleanOpenHashMap hostilityCache = new Long2BooleanOpenHashMap();
+		private long cachedTick = Long.MIN_VALUE;
 		
-		Priority(BiFunction<LivingEntityPatch<?>, List<Entity>, List<Entity>> sortingFunction) {
-			this.sortingFunction = sortingFunction;
+		void ensureCapacity(int size) {
+			if (this.keys.length < size) {
+				this.keys = new double[size];
+				this.indices = new int[size];
+				this.mergeBuffer = new int[size];
+			}
 		}
 		
-		public List<Entity> sort(LivingEntityPatch<?> attacker, List<Entity> entities) {
-			return this.sortingFunction.apply(attacker, entities);
+		boolean canBeTargetedBy(LivingEntityPatch<?> attacker, Mob mob) {
+			long tick = attacker.getOriginal().level.getGameTime();
+			
+			if (this.cachedTick != tick) {
+				this.hostilityCache.clear();
+				this.cachedTick = tick;
+			}
+			
+			long pair = ((long)mob.getId() << 32) | (attacker.getOriginal().getId() & 0xFFFFFFFFL);
+			
+			if (this.hostilityCache.containsKey(pair)) {
+				return this.hostilityCache.get(pair);
+			}
+			
+			boolean hostile = false;
+			GoalSelector targetingAi = mob.targetSelector;
+			
+			for (WrappedGoal goal : targetingAi.getAvailableGoals()) {
+				if (goal.getGoal() instanceof NearestAttackableTargetGoal<?> targetGoal) {
+					if (targetGoal.targetConditions.test(mob, attacker.getOriginal())) {
+						hostile = true;
+						break;
+					}
+				}
+			}
+			
+			this.hostilityCache.put(pair, hostile);
+			
+			return hostile;
+		}
+		
+		void sortIndices(int size) {
+			this.mergeSort(0, size);
+		}
+		
+		private void mergeSort(int from, int to) {
+			if (to - from <= INSERTION_SORT_THRESHOLD) {
+				for (int i = from + 1; i < to; i++) {
+					int index = this.indices[i];
+					double key = this.keys[index];
+					int j = i - 1;
+					
+					while (j >= from && key < this.keys[this.indices[j]]) {
+						this.indices[j + 1] = this.indices[j];
+						j--;
+					}
+					
+					this.indices[j + 1] = index;
+				}
+				
+				return;
+			}
+			
+			int mid = (from + to) >>> 1;
+			this.mergeSort(from, mid);
+			this.mergeSort(mid, to);
+			
+			if (this.keys[this.indices[mid - 1]] <= this.keys[this.indices[mid]]) {
+				return;
+			}
+			
+			System.arraycopy(this.indices, from, this.mergeBuffer, from, to - from);
+			int left = from;
+			int right = mid;
+			
+			for (int i = from; i < to; i++) {
+				if (right >= to || (left < mid && this.keys[this.mergeBuffer[left]] <= this.keys[this.mergeBuffer[right]])) {
+					this.indices[i] = this.mergeBuffer[left++];
+				} else {
+					this.indices[i] = this.mergeBuffer[right++];
+				}
+			}
 		}
 	}
 }
\ No newline at end of file
@@ -6,8 +6,6 @@ import java.util.Random;
 import javax.annotation.Nullable;
 
 import com.google.common.collect.Lists;
-import com.mojang.math.Quaternion;
-import com.mojang.math.Vector3f;
 
 import net.minecraft.client.Minecraft;
 import net.minecraft.client.multiplayer.ClientLevel;
@@ -17,7 +15,6 @@ import net.minecraft.core.Direction;
 import net.minecraft.sounds.SoundSource;
 import net.minecraft.world.entity.Entity;
 import net.minecraft.world.entity.LivingEntity;
-import net.minecraft.world.level.GameRules;
 import net.minecraft.world.level.Level;
 import net.minecraft.world.level.block.Block;
 import net.minecraft.world.level.block.state.BlockState;
@@ -26,7 +23,6 @@ import net.minecraft.world.phys.Vec3;
 import net.minecraft.world.phys.shapes.CollisionContext;
 import net.minecraftforge.api.distmarker.Dist;
 import net.minecraftforge.api.distmarker.OnlyIn;
-import yesman.epicfight.api.utils.math.Vec2i;
 import yesman.epicfight.gameasset.Animations;
 import yesman.epicfight.gameasset.EpicFightSounds;
 import yesman.epicfight.network.EpicFightNetworkManager;
@@ -35,126 +31,11 @@ import yesman.epicfight.particle.EpicFightParticles;
 import yesman.epicfight.world.damagesource.EpicFightDamageSource;
 import yesman.epicfight.world.damagesource.SourceTags;
 import yesman.epicfight.world.damagesource.StunType;
-import yesman.epicfight.world.level.block.FractureBlock;
 import yesman.epicfight.world.level.block.FractureBlockState;
 
 public class LevelUtil {
-	private static final Vec3 IMPACT_DIRECTION = new Vec3(0.0D, -1.0D, 0.0D);
-	
 	public static void spreadShockwave(Level level, Vec3 center, Vec3 direction, double length, int edgeX, int edgeZ, List<Entity> entityBeingHit) {
-		Vec3 edgeOfShockwave = center.add(direction.normalize().scale((float)length));
-		int xFrom = (int)Math.min(Math.floor(center.x), edgeX);
-		int xTo = (int)Math.max(Math.floor(center.x), edgeX);
-		int zFrom = (int)Math.min(Math.floor(center.z), edgeZ);
-		int zTo = (int)Math.max(Math.floor(center.z), edgeZ);
-		List<Vec2i> affectedBlocks = Lists.newArrayList();
-		List<Entity> entitiesInArea = level.isClientSide ? null : level.getEntities(null, new AABB(xFrom, center.y - length, zFrom, xTo, center.y + length, zTo));
-		
-		double bounceExponentCoef = Math.min(1.0D / (length * length), 0.1D);
-		
-		for (int k = zFrom; k <= zTo; k++) {
-			for (int l = xFrom; l <= xTo; l++) {
-				Vec2i blockCoord = new Vec2i(l, k);
-				
-				if (isBlockOverlapLine(blockCoord, center, edgeOfShockwave)) {
-					affectedBlocks.add(blockCoord);
-				}
-			}
-		}
-		
-		affectedBlocks.sort((v1, v2) -> {
-			double v1DistSqr = Math.pow(v1.x - center.x, 2) + Math.pow(v1.y - center.z, 2);
-			double v2DistSqr = Math.pow(v2.x - center.x, 2) + Math.pow(v2.y - center.z, 2); 
-			
-			if (v1DistSqr > v2DistSqr) {
-				return 1;
-			} else if (v1DistSqr == v2DistSqr) {
-				return 0;
-			} else {
-				return -1;
-			}
-		});
-		
-		double y = center.y;
-		
-		for (Vec2i block : affectedBlocks) {
-			BlockPos bp = new BlockPos(block.x, y, block.y);
-			BlockState bs = level.getBlockState(bp);
-			BlockPos aboveBp = bp.above();
-			BlockState aboveState = level.getBlockState(aboveBp);
-			
-			if (canTransferShockWave(level, aboveBp, aboveState)) {
-				BlockPos aboveTwoBp = aboveBp.above();
-				BlockState aboveTwoState = level.getBlockState(aboveTwoBp);
-				
-				if (!canTransferShockWave(level, aboveTwoBp, aboveTwoState)) {
-					y++;
-					bp = aboveBp;
-					bs = aboveState;
-				} else {
-					break;
-				}
-			} else {
-				if (!level.isClientSide && aboveState.getCollisionShape(level, aboveBp, CollisionContext.empty()).isEmpty() && level.getGameRules().getBoolean(GameRules.RULE_MOBGRIEFING)) {
-					level.destroyBlock(aboveBp, level.getGameRules().getBoolean(GameRules.RULE_DOBLOCKDROPS));
-				}
-			}
-			
-			if (!canTransferShockWave(level, bp, bs)) {
-				BlockPos belowBp = bp.below();
-				BlockState belowState = level.getBlockState(belowBp);
-				
-				if (canTransferShockWave(level, belowBp, belowState)) {
-					y--;
-					bp = belowBp;
-					bs = belowState;
-				} else {
-					break;
-				}
-			}
-			
-			Vec3 blockCenter = new Vec3(bp.getX() + 0.5D, bp.getY(), bp.getZ() + 0.5D);
-			Vec3 centerToBlock = blockCenter.subtract(center);
-			double distance = centerToBlock.horizontalDistance();
-			
-			if (length < distance) {
-				continue;
-			}
-			
-			if (level.isClientSide) {
-				if (!canTransferShockWave(level, bp, bs) || bs instanceof FractureBlockState) {
-					continue;
-				}
-				
-				Vec3 rotAxis = IMPACT_DIRECTION.cross(centerToBlock).normalize();
-				Vector3f axis = new Vector3f((float)rotAxis.x, (float)rotAxis.y, (float)rotAxis.z);
-				Vector3f translator = new Vector3f(0, Math.max(0.0F, (float)(distance / length) - 0.5F) * 0.5F, 0);
-				Quaternion rotator = axis.rotationDegrees((float)(distance / length) * 15.0F + level.random.nextFloat() * 10.0F - 5.0F);
-				
-				rotator.mul(Vector3f.XP.rotationDegrees(level.random.nextFloat() * 15.0F - 7.5F));
-				rotator.mul(Vector3f.YP.rotationDegrees(level.random.nextFloat() * 40.0F - 20.0F));
-				rotator.mul(Vector3f.ZP.rotationDegrees(level.random.nextFloat() * 15.0F - 7.5F));
-				int lifeTime = 30 + level.random.nextInt((int)length * 80);
-				double bouncing = Math.pow(distance, 2) * bounceExponentCoef;
-				
-				FractureBlockState fractureBlockState = FractureBlock.getDefaultFractureBlockState(null);
-				fractureBlockState.setFractureInfo(bp, bs, translator, rotator, bouncing, lifeTime);
-				
-				level.setBlock(bp, fractureBlockState, 0);
-				
-				createParticle(level, bp, bs);
-			} else {
-				for (Entity entity : entitiesInArea) { 
-					boolean inSameY = bp.getY() + 1 >= entity.getY() && bp.getY() <= entity.getY();
-					
-					if (bp.getX() == entity.getBlockX() && inSameY && bp.getZ() == entity.getBlockZ()) {
-						if (!entityBeingHit.contains(entity)) {
-							entityBeingHit.add(entity);
-						}
-					}
-				}
-			}
-		}
+		new ShockwaveResolver(level, center, length, ShockwaveResolver.getRayBox(center, length, edgeX, edgeZ), entityBeingHit).spread(direction, edgeX, edgeZ);
 	}
 	
 	@OnlyIn(Dist.CLIENT)
@@ -217,11 +98,12 @@ public class LevelUtil {
 		int zFrom = (int)Math.floor(center.z - radius);
 		int zTo = (int)Math.ceil(center.z + radius);
 		List<Entity> entityBeingHit = Lists.newArrayList();
+		ShockwaveResolver resolver = new ShockwaveResolver(level, center, radius, new AABB(xFrom, center.y - radius, zFrom, xTo, center.y + radius, zTo), entityBeingHit);
 		
 		for (int i = zFrom; i <= zTo; i++) {
 			for (int j = xFrom; j <= xTo; j += (i == zFrom || i == zTo) ? 1 : xTo - xFrom) {
 				Vec3 direction = new Vec3(j - center.x + 0.1D, 0.0D, i - center.z);
-				spreadShockwave(level, center, direction, radius, j, i, entityBeingHit);
+				resolver.spread(direction, j, i);
 			}
 		}
 		
@@ -258,18 +140,4 @@ public class LevelUtil {
 	public static boolean canTransferShockWave(Level level, BlockPos blockPos, BlockState blockState) {
 		return Block.isFaceFull(blockState.getCollisionShape(level, blockPos, CollisionContext.empty()), Direction.DOWN) || (blockState instanceof FractureBlockState);
 	}
-	
-	private static boolean isBlockOverlapLine(Vec2i vec2, Vec3 from, Vec3 to) {
-		return isLinesCross(vec2.x, vec2.y, vec2.x + 1, vec2.y, from.x, from.z, to.x, to.z)
-			|| isLinesCross(vec2.x, vec2.y, vec2.x, vec2.y + 1, from.x, from.z, to.x, to.z)
-			|| isLinesCross(vec2.x + 1, vec2.y, vec2.x + 1, vec2.y + 1, from.x, from.z, to.x, to.z)
-			|| isLinesCross(vec2.x, vec2.y + 1, vec2.x + 1, vec2.y + 1, from.x, from.z, to.x, to.z);
-	}
-	
-	private static boolean isLinesCross(double x1, double y1, double x2, double y2, double x3, double y3, double x4, double y4) {
-		double u = ((x4 - x3) * (y1 - y3) - (y4 - y3) * (x1 - x3)) / ((x2 - x1) * (y4 - y3) - (x4 - x3) * (y2 - y1));
-		double v = ((x2 - x1) * (y1 - y3) - (y2 - y1) * (x1 - x3)) / ((x2 - x1) * (y4 - y3) - (x4 - x3) * (y2 - y1));
-		
-		return 0 < u && u < 1 && 0 < v && v < 1;
-	}
 }
\ No newline at end of file
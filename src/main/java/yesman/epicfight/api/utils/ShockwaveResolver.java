@@ -0,0 +1,320 @@
+package yesman.epicfight.api.utils;
+
+import java.util.List;
+import java.util.Set;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+import com.mojang.math.Quaternion;
+import com.mojang.math.Vector3f;
+
+import it.unimi.dsi.fastutil.ints.IntArrays;
+import it.unimi.dsi.fastutil.longs.Long2ObjectMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import net.minecraft.core.BlockPos;
+import net.minecraft.core.SectionPos;
+import net.minecraft.world.entity.Entity;
+import net.minecraft.world.level.ChunkPos;
+import net.minecraft.world.level.GameRules;
+import net.minecraft.world.level.Level;
+import net.minecraft.world.level.block.Blocks;
+import net.minecraft.world.level.block.state.BlockState;
+import net.minecraft.world.level.chunk.LevelChunk;
+import net.minecraft.world.level.chunk.LevelChunkSection;
+import net.minecraft.world.phys.AABB;
+import net.minecraft.world.phys.Vec3;
+import net.minecraft.world.phys.shapes.CollisionContext;
+import net.minecraftforge.entity.PartEntity;
+import yesman.epicfight.world.level.block.FractureBlock;
+import yesman.epicfight.world.level.block.FractureBlockState;
+
+/**
+ * Resolves the shockwaves spreading from a single center. The entities around the center are queried once and bucketed by
+ * block column, the blocks of each ray are sorted by squared distance with a primitive sort and block states are read from
+ * the chunk sections of the last visited chunk. Affected blocks and entities are the same as querying them ray by ray.
+ */
+public class ShockwaveResolver {
+	private static final Vec3 IMPACT_DIRECTION = new Vec3(0.0D, -1.0D, 0.0D);
+	
+	private final Level level;
+	private final Vec3 center;
+	private final double length;
+	private final List<Entity> entityBeingHit;
+	private final Set<Entity> hitEntities;
+	private final ColumnHash<Entity> entityColumns;
+	private final BlockRay ray = new BlockRay();
+	private final double bounceExponentCoef;
+	private LevelChunk cachedChunk;
+	
+	/** The query box has to contain the boxes of every ray spread by this resolver **/
+	public ShockwaveResolver(Level level, Vec3 center, double length, AABB entityQueryBox, List<Entity> entityBeingHit) {
+		this.level = level;
+		this.center = center;
+		this.length = length;
+		this.entityBeingHit = entityBeingHit;
+		this.hitEntities = Sets.newHashSet(entityBeingHit);
+		this.bounceExponentCoef = Math.min(1.0D / (length * length), 0.1D);
+		
+		if (level.isClientSide) {
+			this.entityColumns = null;
+		} else {
+			this.entityColumns = new ColumnHash<Entity>();
+			
+			for (Entity entity : level.getEntities(null, entityQueryBox)) {
+				this.entityColumns.put(entity.getBlockX(), entity.getBlockZ(), entity);
+			}
+		}
+	}
+	
+	public static AABB getRayBox(Vec3 center, double length, int edgeX, int edgeZ) {
+		int xFrom = (int)Math.min(Math.floor(center.x), edgeX);
+		int xTo = (int)Math.max(Math.floor(center.x), edgeX);
+		int zFrom = (int)Math.min(Math.floor(center.z), edgeZ);
+		int zTo = (int)Math.max(Math.floor(center.z), edgeZ);
+		
+		return new AABB(xFrom, center.y - length, zFrom, xTo, center.y + length, zTo);
+	}
+	
+	public void spread(Vec3 direction, int edgeX, int edgeZ) {
+		this.ray.rasterize(this.center, direction, this.length, edgeX, edgeZ);
+		this.ray.sort(this.center);
+		
+		AABB rayBox = this.entityColumns == null ? null : getRayBox(this.center, this.length, edgeX, edgeZ);
+		BlockPos.MutableBlockPos mpos = new BlockPos.MutableBlockPos();
+		int y = (int)Math.floor(this.center.y);
+		
+		for (int i = 0; i < this.ray.size(); i++) {
+			int blockX = this.ray.getX(i);
+			int blockZ = this.ray.getZ(i);
+			BlockPos bp = new BlockPos(blockX, y, blockZ);
+			BlockState bs = this.getBlockState(bp);
+			BlockPos aboveBp = bp.above();
+			BlockState aboveState = this.getBlockState(aboveBp);
+			
+			if (LevelUtil.canTransferShockWave(this.level, aboveBp, aboveState)) {
+				BlockState aboveTwoState = this.getBlockState(mpos.set(blockX, y + 2, blockZ));
+				
+				if (!LevelUtil.canTransferShockWave(this.level, mpos, aboveTwoState)) {
+					y++;
+					bp = aboveBp;
+					bs = aboveState;
+				} else {
+					break;
+				}
+			} else {
+				if (!this.level.isClientSide && aboveState.getCollisionShape(this.level, aboveBp, CollisionContext.empty()).isEmpty() && this.level.getGameRules().getBoolean(GameRules.RULE_MOBGRIEFING)) {
+					this.level.destroyBlock(aboveBp, this.level.getGameRules().getBoolean(GameRules.RULE_DOBLOCKDROPS));
+				}
+			}
+			
+			if (!LevelUtil.canTransferShockWave(this.level, bp, bs)) {
+				BlockPos belowBp = bp.below();
+				BlockState belowState = this.getBlockState(belowBp);
+				
+				if (LevelUtil.canTransferShockWave(this.level, belowBp, belowState)) {
+					y--;
+					bp = belowBp;
+					bs = belowState;
+				} else {
+					break;
+				}
+			}
+			
+			double dx = bp.getX() + 0.5D - this.center.x;
+			double dz = bp.getZ() + 0.5D - this.center.z;
+			double distance = Math.sqrt(dx * dx + dz * dz);
+			
+			if (this.length < distance) {
+				continue;
+			}
+			
+			if (this.level.isClientSide) {
+				if (!LevelUtil.canTransferShockWave(this.level, bp, bs) || bs instanceof FractureBlockState) {
+					continue;
+				}
+				
+				this.fracture(bp, bs, new Vec3(dx, bp.getY() - this.center.y, dz), distance);
+			} else {
+				this.collectEntities(bp, rayBox);
+			}
+		}
+	}
+	
+	private void fracture(BlockPos bp, BlockState bs, Vec3 centerToBlock, double distance) {
+		Vec3 rotAxis = IMPACT_DIRECTION.cross(centerToBlock).normalize();
+		Vector3f axis = new Vector3f((float)rotAxis.x, (float)rotAxis.y, (float)rotAxis.z);
+		Vector3f translator = new Vector3f(0, Math.max(0.0F, (float)(distance / this.length) - 0.5F) * 0.5F, 0);
+		Quaternion rotator = axis.rotationDegrees((float)(distance / this.length) * 15.0F + this.level.random.nextFloat() * 10.0F - 5.0F);
+		
+		rotator.mul(Vector3f.XP.rotationDegrees(this.level.random.nextFloat() * 15.0F - 7.5F));
+		rotator.mul(Vector3f.YP.rotationDegrees(this.level.random.nextFloat() * 40.0F - 20.0F));
+		rotator.mul(Vector3f.ZP.rotationDegrees(this.level.random.nextFloat() * 15.0F - 7.5F));
+		int lifeTime = 30 + this.level.random.nextInt((int)this.length * 80);
+		double bouncing = Math.pow(distance, 2) * this.bounceExponentCoef;
+		
+		FractureBlockState fractureBlockState = FractureBlock.getDefaultFractureBlockState(null);
+		fractureBlockState.setFractureInfo(this.level, bp, bs, translator, rotator, bouncing, lifeTime);
+		
+		this.level.setBlock(bp, fractureBlockState, 0);
+		
+		LevelUtil.createParticle(this.level, bp, bs);
+	}
+	
+	private void collectEntities(BlockPos bp, AABB rayBox) {
+		List<Entity> column = this.entityColumns.get(bp.getX(), bp.getZ());
+		
+		if (column == null) {
+			return;
+		}
+		
+		for (Entity entity : column) {
+			boolean inSameY = bp.getY() + 1 >= entity.getY() && bp.getY() <= entity.getY();
+			
+			if (inSameY && isInBox(entity, rayBox) && this.hitEntities.add(entity)) {
+				this.entityBeingHit.add(entity);
+			}
+		}
+	}
+	
+	/** Level#getEntities lists the parts of a multipart entity with the entity itself, so parts are also kept when their parent is in the box **/
+	private static boolean isInBox(Entity entity, AABB box) {
+		if (entity.getBoundingBox().intersects(box)) {
+			return true;
+		}
+		
+		return entity instanceof PartEntity<?> part && part.getParent().getBoundingBox().intersects(box);
+	}
+	
+	/** Same result as Level#getBlockState, the chunk is kept while the ray stays in it **/
+	private BlockState getBlockState(BlockPos pos) {
+		if (this.level.isOutsideBuildHeight(pos)) {
+			return Blocks.VOID_AIR.defaultBlockState();
+		}
+		
+		if (this.level.isDebug()) {
+			return this.level.getBlockState(pos);
+		}
+		
+		int chunkX = SectionPos.blockToSectionCoord(pos.getX());
+		int chunkZ = SectionPos.blockToSectionCoord(pos.getZ());
+		
+		if (this.cachedChunk == null || this.cachedChunk.getPos().x != chunkX || this.cachedChunk.getPos().z != chunkZ) {
+			this.cachedChunk = this.level.getChunk(chunkX, chunkZ);
+		}
+		
+		int sectionIndex = this.cachedChunk.getSectionIndex(pos.getY());
+		LevelChunkSection[] sections = this.cachedChunk.getSections();
+		
+		if (sectionIndex >= 0 && sectionIndex < sections.length && !sections[sectionIndex].hasOnlyAir()) {
+			return sections[sectionIndex].getBlockState(pos.getX() & 15, pos.getY() & 15, pos.getZ() & 15);
+		}
+		
+		return Blocks.AIR.defaultBlockState();
+	}
+	
+	/** Blocks crossed by a ray in the horizontal plane, kept in primitive arrays reused between rays **/
+	public static class BlockRay {
+		private int[] xs = new int[64];
+		private int[] zs = new int[64];
+		private long[] keys = new long[64];
+		private int[] order = new int[64];
+		private int size;
+		
+		public void rasterize(Vec3 center, Vec3 direction, double length, int edgeX, int edgeZ) {
+			Vec3 edgeOfShockwave = center.add(direction.normalize().scale((float)length));
+			int xFrom = (int)Math.min(Math.floor(center.x), edgeX);
+			int xTo = (int)Math.max(Math.floor(center.x), edgeX);
+			int zFrom = (int)Math.min(Math.floor(center.z), edgeZ);
+			int zTo = (int)Math.max(Math.floor(center.z), edgeZ);
+			this.size = 0;
+			
+			for (int k = zFrom; k <= zTo; k++) {
+				for (int l = xFrom; l <= xTo; l++) {
+					if (isBlockOverlapLine(l, k, center, edgeOfShockwave)) {
+						this.add(l, k);
+					}
+				}
+			}
+		}
+		
+		private void add(int x, int z) {
+			if (this.size == this.xs.length) {
+				int capacity = this.size * 2;
+				this.xs = IntArrays.forceCapacity(this.xs, capacity, this.size);
+				this.zs = IntArrays.forceCapacity(this.zs, capacity, this.size);
+				this.keys = new long[capacity];
+				this.order = new int[capacity];
+			}
+			
+			this.xs[this.size] = x;
+			this.zs[this.size] = z;
+			this.size++;
+		}
+		
+		/**
+		 * Stable sort by the squared distance from the block corner to the center. Slam centers lie on half blocks so the doubled
+		 * coordinates give exact integer distances, other centers compare the raw bits of the double distance which keep the order of non negative values.
+		 */
+		public void sort(Vec3 center) {
+			double doubledX = center.x * 2.0D;
+			double doubledZ = center.z * 2.0D;
+			boolean halfBlockCenter = doubledX == Math.rint(doubledX) && doubledZ == Math.rint(doubledZ) && Math.abs(doubledX) < Integer.MAX_VALUE && Math.abs(doubledZ) < Integer.MAX_VALUE;
+			
+			for (int i = 0; i < this.size; i++) {
+				this.order[i] = i;
+				
+				if (halfBlockCenter) {
+					long dx = this.xs[i] * 2L - (long)doubledX;
+					long dz = this.zs[i] * 2L - (long)doubledZ;
+					this.keys[i] = dx * dx + dz * dz;
+				} else {
+					double dx = this.xs[i] - center.x;
+					double dz = this.zs[i] - center.z;
+					this.keys[i] = Double.doubleToLongBits(dx * dx + dz * dz);
+				}
+			}
+			
+			long[] keys = this.keys;
+			IntArrays.mergeSort(this.order, 0, this.size, (i1, i2) -> Long.compare(keys[i1], keys[i2]));
+		}
+		
+		public int size() {
+			return this.size;
+		}
+		
+		public int getX(int index) {
+			return this.xs[this.order[index]];
+		}
+		
+		public int getZ(int index) {
+			return this.zs[this.order[index]];
+		}
+	}
+	
+	/** Values bucketed by block column, each bucket keeps the insertion order **/
+	public static class ColumnHash<E> {
+		private final Long2ObjectMap<List<E>> columns = new Long2ObjectOpenHashMap<>();
+		
+		public void put(int x, int z, E value) {
+			this.columns.computeIfAbsent(ChunkPos.asLong(x, z), (key) -> Lists.newArrayList()).add(value);
+		}
+		
+		public List<E> get(int x, int z) {
+			return this.columns.get(ChunkPos.asLong(x, z));
+		}
+	}
+	
+	public static boolean isBlockOverlapLine(int x, int z, Vec3 from, Vec3 to) {
+		return isLinesCross(x, z, x + 1, z, from.x, from.z, to.x, to.z)
+			|| isLinesCross(x, z, x, z + 1, from.x, from.z, to.x, to.z)
+			|| isLinesCross(x + 1, z, x + 1, z + 1, from.x, from.z, to.x, to.z)
+			|| isLinesCross(x, z + 1, x + 1, z + 1, from.x, from.z, to.x, to.z);
+	}
+	
+	private static boolean isLinesCross(double x1, double y1, double x2, double y2, double x3, double y3, double x4, double y4) {
+		double u = ((x4 - x3) * (y1 - y3) - (y4 - y3) * (x1 - x3)) / ((x2 - x1) * (y4 - y3) - (x4 - x3) * (y2 - y1));
+		double v = ((x2 - x1) * (y1 - y3) - (y2 - y1) * (x1 - x3)) / ((x2 - x1) * (y4 - y3) - (x4 - x3) * (y2 - y1));
+		
+		return 0 < u && u < 1 && 0 < v && v < 1;
+	}
+}
\ No newline at end of file
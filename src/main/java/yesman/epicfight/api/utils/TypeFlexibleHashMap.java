@@ -14,6 +14,10 @@ public class TypeFlexibleHashMap<A extends TypeKey<?>> extends HashMap<A, Object
         this.immutable = immutable;
     }
 	
+	public boolean isImmutable() {
+		return this.immutable;
+	}
+	
 	@SuppressWarnings("unchecked")
 	public <T> T put(TypeKey<T> typeKey, T val) {
 		if (this.immutable) {
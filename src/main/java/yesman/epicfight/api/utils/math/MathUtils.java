@@ -156,10 +156,15 @@ public class MathUtils {
 	}
 	
 	public static Vec3f lerpVector(Vec3f start, Vec3f end, float weight) {
+		return lerpVector(start, end, weight, new Vec3f());
+	}
+	
+	public static Vec3f lerpVector(Vec3f start, Vec3f end, float weight, Vec3f dest) {
 		float x = start.x + (end.x - start.x) * weight;
 		float y = start.y + (end.y - start.y) * weight;
 		float z = start.z + (end.z - start.z) * weight;
-		return new Vec3f(x, y, z);
+		dest.set(x, y, z);
+		return dest;
 	}
 	
 	public static Vector3f lerpMojangVector(Vector3f start, Vector3f end, float weight) {
@@ -206,6 +211,10 @@ public class MathUtils {
 	}
 	
 	public static Quaternion lerpQuaternion(Quaternion from, Quaternion to, float lerpAmount) {
+		return lerpQuaternion(from, to, lerpAmount, new Quaternion(0.0F, 0.0F, 0.0F, 1.0F));
+	}
+	
+	public static Quaternion lerpQuaternion(Quaternion from, Quaternion to, float lerpAmount, Quaternion dest) {
 		float fromX = from.i();
 		float fromY = from.j();
 		float fromZ = from.k();
@@ -233,9 +242,49 @@ public class MathUtils {
 			resultZ = blendI * fromZ + lerpAmount * toZ;
 		}
 		
-		Quaternion result = new Quaternion(resultX, resultY, resultZ, resultW);
-		normalizeQuaternion(result);
-		return result;
+		setQuaternion(dest, resultX, resultY, resultZ, resultW);
+		normalizeQuaternion(dest);
+		return dest;
+	}
+	
+	/** Primitive variant of {@link #lerpQuaternion(Quaternion, Quaternion, float)} reading and writing (i, j, k, r) at the given offsets **/
+	public static void lerpQuaternion(float[] from, int fromOffset, float[] to, int toOffset, float lerpAmount, float[] dest, int destOffset) {
+		float fromX = from[fromOffset];
+		float fromY = from[fromOffset + 1];
+		float fromZ = from[fromOffset + 2];
+		float fromW = from[fromOffset + 3];
+		float toX = to[toOffset];
+		float toY = to[toOffset + 1];
+		float toZ = to[toOffset + 2];
+		float toW = to[toOffset + 3];
+		float dot = fromW * toW + fromX * toX + fromY * toY + fromZ * toZ;
+		float blendI = 1.0F - lerpAmount;
+		
+		if (dot < 0.0F) {
+			toX = -toX;
+			toY = -toY;
+			toZ = -toZ;
+			toW = -toW;
+		}
+		
+		float resultX = blendI * fromX + lerpAmount * toX;
+		float resultY = blendI * fromY + lerpAmount * toY;
+		float resultZ = blendI * fromZ + lerpAmount * toZ;
+		float resultW = blendI * fromW + lerpAmount * toW;
+		float f = resultX * resultX + resultY * resultY + resultZ * resultZ + resultW * resultW;
+		
+		if (f > 1.0E-6F) {
+			float f1 = fastInvSqrt(f);
+			dest[destOffset] = resultX * f1;
+			dest[destOffset + 1] = resultY * f1;
+			dest[destOffset + 2] = resultZ * f1;
+			dest[destOffset + 3] = resultW * f1;
+		} else {
+			dest[destOffset] = 0.0F;
+			dest[destOffset + 1] = 0.0F;
+			dest[destOffset + 2] = 0.0F;
+			dest[destOffset + 3] = 0.0F;
+		}
 	}
 	
 	private static void normalizeQuaternion(Quaternion quaternion) {
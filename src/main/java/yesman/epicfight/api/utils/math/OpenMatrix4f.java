@@ -3,49 +3,13 @@ package yesman.epicfight.api.utils.math;
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
 import java.nio.FloatBuffer;
-import java.util.Map;
 
-import com.google.common.collect.Maps;
-import com.mojang.datafixers.util.Pair;
 import com.mojang.math.Matrix4f;
 import com.mojang.math.Quaternion;
 
 import net.minecraft.world.phys.Vec3;
-import yesman.epicfight.api.animation.JointTransform;
 
 public class OpenMatrix4f {
-	public static class AnimationTransformEntry {
-		private static final String[] BINDING_PRIORITY = {JointTransform.PARENT, JointTransform.JOINT_LOCAL_TRANSFORM, JointTransform.ANIMATION_TRANSFROM, JointTransform.RESULT1, JointTransform.RESULT2};
-		private Map<String, Pair<OpenMatrix4f, MatrixOperation>> matrices = Maps.newHashMap();
-		
-		public void put(String entryPosition, OpenMatrix4f matrix) {
-			this.put(entryPosition, matrix, OpenMatrix4f::mul);
-		}
-		
-		public void put(String entryPosition, OpenMatrix4f matrix, MatrixOperation operation) {
-			if (this.matrices.containsKey(entryPosition)) {
-				Pair<OpenMatrix4f, MatrixOperation> entryValue = this.matrices.get(entryPosition);
-				OpenMatrix4f result = entryValue.getSecond().mul(entryValue.getFirst(), matrix, null);
-				this.matrices.put(entryPosition, Pair.of(result, operation));
-			} else {
-				this.matrices.put(entryPosition, Pair.of(new OpenMatrix4f(matrix), operation));
-			}
-		}
-		
-		public OpenMatrix4f getResult() {
-			OpenMatrix4f result = new OpenMatrix4f();
-			
-			for (String entryName : BINDING_PRIORITY) {
-				if (this.matrices.containsKey(entryName)) {
-					Pair<OpenMatrix4f, MatrixOperation> pair = this.matrices.get(entryName);
-					pair.getSecond().mul(result, pair.getFirst(), result);
-				}
-			}
-			
-			return result;
-		}
-	}
-	
 	private static final FloatBuffer MATRIX_TRANSFORMER = ByteBuffer.allocateDirect(16 * 4).order(ByteOrder.nativeOrder()).asFloatBuffer();
 	
 	/*
@@ -592,7 +556,11 @@ public class OpenMatrix4f {
 	}
 	
 	public static OpenMatrix4f fromQuaternion(Quaternion quaternion) {
-		OpenMatrix4f matrix = new OpenMatrix4f();
+		return fromQuaternion(quaternion, new OpenMatrix4f());
+	}
+	
+	/** Overwrites every element of matrix, the translation and projection parts are reset to identity **/
+	public static OpenMatrix4f fromQuaternion(Quaternion quaternion, OpenMatrix4f matrix) {
 		float x = quaternion.i();
 		float y = quaternion.j();
 		float z = quaternion.k();
@@ -615,6 +583,13 @@ public class OpenMatrix4f {
 		matrix.m20 = 2.0F * (xz - yw);
 		matrix.m21 = 2.0F * (yz + xw);
 		matrix.m22 = 1.0F - xSquared - ySquared;
+		matrix.m03 = 0.0F;
+		matrix.m13 = 0.0F;
+		matrix.m23 = 0.0F;
+		matrix.m30 = 0.0F;
+		matrix.m31 = 0.0F;
+		matrix.m32 = 0.0F;
+		matrix.m33 = 1.0F;
 		return matrix;
 	}
 	
@@ -8,13 +8,16 @@ import net.minecraft.resources.ResourceLocation;
 import net.minecraft.world.inventory.InventoryMenu;
 import net.minecraft.world.inventory.Slot;
 import net.minecraft.world.item.UseAnim;
+import net.minecraft.world.level.Level;
 import net.minecraftforge.api.distmarker.Dist;
 import net.minecraftforge.api.distmarker.OnlyIn;
 import net.minecraftforge.client.event.ClientPlayerNetworkEvent;
+import net.minecraftforge.client.event.RenderGameOverlayEvent;
 import net.minecraftforge.client.event.ScreenEvent.KeyboardKeyPressedEvent;
 import net.minecraftforge.client.event.ScreenEvent.MouseClickedEvent;
 import net.minecraftforge.client.event.ScreenEvent.MouseReleasedEvent;
 import net.minecraftforge.event.entity.player.PlayerInteractEvent.RightClickItem;
+import net.minecraftforge.event.world.WorldEvent;
 import net.minecraftforge.eventbus.api.SubscribeEvent;
 import net.minecraftforge.fml.LogicalSide;
 import net.minecraftforge.fml.common.Mod;
@@ -22,13 +25,14 @@ import yesman.epicfight.api.data.reloader.ItemCapabilityReloadListener;
 import yesman.epicfight.client.ClientEngine;
 import yesman.epicfight.client.world.capabilites.entitypatch.player.LocalPlayerPatch;
 import yesman.epicfight.main.EpicFightMod;
+import yesman.epicfight.network.server.SPSpawnData;
 import yesman.epicfight.world.capabilities.EpicFightCapabilities;
 import yesman.epicfight.world.capabilities.item.CapabilityItem;
 import yesman.epicfight.world.capabilities.provider.EntityPatchProvider;
 import yesman.epicfight.world.capabilities.provider.ItemCapabilityProvider;
 import yesman.epicfight.world.entity.eventlistener.PlayerEventListener.EventType;
 import yesman.epicfight.world.entity.eventlistener.RightClickItemEvent;
-import yesman.epicfight.world.level.block.FractureBlockState;
+import yesman.epicfight.world.level.block.FractureRegistry;
 
 @OnlyIn(Dist.CLIENT)
 @Mod.EventBusSubscriber(modid = EpicFightMod.MODID, value = Dist.CLIENT)
@@ -142,6 +146,21 @@ public class ClientEvents {
 			ClientEngine.getInstance().renderEngine.clearCustomEntityRenerer();
 		}
 		
-		FractureBlockState.reset();
+		FractureRegistry.reset();
+		SPSpawnData.releasePending();
+	}
+	
+	@SubscribeEvent
+	public static void levelUnloadEvent(WorldEvent.Unload event) {
+		if (event.getWorld() instanceof Level level && level.isClientSide()) {
+			FractureRegistry.unload(level);
+		}
+	}
+	
+	@SubscribeEvent
+	public static void debugOverlayEvent(RenderGameOverlayEvent.Text event) {
+		if (minecraft.options.renderDebug) {
+			event.getRight().add(String.format("Epic Fight fractures: %d live, %d placed, %d restored, %d expired", FractureRegistry.getLiveFractures(), FractureRegistry.getRegisteredCount(), FractureRegistry.getRestoredCount(), FractureRegistry.getExpiredCount()));
+		}
 	}
 }
\ No newline at end of file
@@ -12,6 +12,7 @@ import net.minecraftforge.eventbus.api.EventPriority;
 import net.minecraftforge.eventbus.api.SubscribeEvent;
 import net.minecraftforge.fml.common.Mod;
 import net.minecraftforge.fml.common.Mod.EventBusSubscriber;
+import yesman.epicfight.api.client.model.armor.CustomModelBakery;
 import yesman.epicfight.client.ClientEngine;
 import yesman.epicfight.client.particle.AirBurstParticle;
 import yesman.epicfight.client.particle.BladeRushParticle;
@@ -87,5 +88,6 @@ public class ClientModBusEvent {
 	public static void reloadEvent(EntityRenderersEvent.AddLayers event) {
 		ClientEngine.getInstance().renderEngine.registerRenderer();
 		WearableItemLayer.clear();
+		CustomModelBakery.invalidateCache();
 	}
 }
\ No newline at end of file
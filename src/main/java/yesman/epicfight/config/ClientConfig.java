@@ -22,6 +22,8 @@ public class ClientConfig {
 	public final BooleanValue autoPreparation;
 	public final BooleanValue offBloodEffects;
 	public final BooleanValue noMiningInCombat;
+	public final BooleanValue verifyCpuSkinning;
+	public final BooleanValue armorMeshCache;
 	
 	public final ConfigValue<List<? extends String>> battleAutoSwitchItems;
 	public final ConfigValue<List<? extends String>> miningAutoSwitchItems;
@@ -61,6 +63,8 @@ public class ClientConfig {
 		this.autoPreparation = config.define("ingame.auto_preparation", () -> false);
 		this.offBloodEffects = config.define("ingame.off_gore", () -> true);
 		this.noMiningInCombat = config.define("ingame.no_mining_in_combat", () -> false);
+		this.verifyCpuSkinning = config.define("performance.verify_cpu_skinning", () -> false);
+		this.armorMeshCache = config.define("performance.armor_mesh_cache", () -> true);
 		
 		this.battleAutoSwitchItems = config.defineList("ingame.battle_autoswitch_items", Lists.newArrayList(), (element) -> {
 			if (element instanceof String str) {
@@ -20,10 +20,31 @@ public class ConfigManager {
 	public static final ForgeConfigSpec.BooleanValue DISABLE_ENTITY_UI;
 	public static final ForgeConfigSpec.BooleanValue CAN_SWITCH_COMBAT;
 	public static final ForgeConfigSpec.BooleanValue STIFF_COMBO_ATTACKS;
+	public static final ForgeConfigSpec.BooleanValue ANIMATION_BINARY_CACHE;
+	public static final ForgeConfigSpec.BooleanValue VERIFY_ANIMATION_CACHE;
+	public static final ForgeConfigSpec.BooleanValue BATCH_ANIMATION_PACKETS;
+	public static final ForgeConfigSpec.BooleanValue SERVER_ANIMATION_LOD;
+	public static final ForgeConfigSpec.BooleanValue PARALLEL_ANIMATION_LOADING;
+	public static final ForgeConfigSpec.BooleanValue LAZY_ANIMATION_LOADING;
+	public static final ForgeConfigSpec.BooleanValue COMPRESS_ANIMATION_KEYFRAMES;
+	public static final ForgeConfigSpec.BooleanValue LINK_POSE_SNAPSHOT;
+	public static final ForgeConfigSpec.BooleanValue DIFF_DATAPACK_SYNC;
+	public static final ForgeConfigSpec.BooleanValue COALESCE_SKILL_DATA;
+	public static final ForgeConfigSpec.BooleanValue COMPILED_EVENT_DISPATCH;
+	public static final ForgeConfigSpec.BooleanValue EVENT_DISPATCH_STATISTICS;
 	
 	public static final ForgeConfigSpec.IntValue WEIGHT_PENALTY;
 	public static final ForgeConfigSpec.IntValue SKILL_BOOK_MOB_DROP_CHANCE_MODIFIER;
 	public static final ForgeConfigSpec.IntValue SKILL_BOOK_CHEST_LOOT_MODIFYER;
+	public static final ForgeConfigSpec.IntValue ANIMATION_LOD_FULL_DISTANCE;
+	public static final ForgeConfigSpec.IntValue ANIMATION_LOD_REDUCED_DISTANCE;
+	public static final ForgeConfigSpec.IntValue ANIMATION_LOD_REDUCED_INTERVAL;
+	public static final ForgeConfigSpec.IntValue ANIMATION_LOADING_THREADS;
+	public static final ForgeConfigSpec.IntValue LAZY_ANIMATION_BUDGET;
+	public static final ForgeConfigSpec.IntValue COMBAT_DECISION_BUDGET;
+	
+	public static final ForgeConfigSpec.DoubleValue KEYFRAME_POSITION_TOLERANCE;
+	public static final ForgeConfigSpec.DoubleValue KEYFRAME_ANGLE_TOLERANCE;
 	
 	static {
 		CommentedFileConfig file = CommentedFileConfig.builder(new File(FMLPaths.CONFIGDIR.get().resolve(EpicFightMod.CONFIG_FILE_PATH).toString())).sync().autosave().writingMode(WritingMode.REPLACE).build();
@@ -41,6 +62,28 @@ public class ConfigManager {
 		SKILL_BOOK_MOB_DROP_CHANCE_MODIFIER = server.defineInRange("loot.skill_book_mob_drop_chance_modifier", 0, -100, 100);
 		SKILL_BOOK_CHEST_LOOT_MODIFYER = server.defineInRange("loot.skill_book_chest_drop_chance_modifier", 0, -100, 100);
 		CAN_SWITCH_COMBAT = server.define("default_gamerule.canSwitchCombat", true);
+		ANIMATION_BINARY_CACHE = server.define("performance.animation_binary_cache", true);
+		VERIFY_ANIMATION_CACHE = server.define("performance.verify_animation_cache", false);
+		BATCH_ANIMATION_PACKETS = server.define("performance.batch_animation_packets", true);
+		SERVER_ANIMATION_LOD = server.define("performance.server_animation_lod", true);
+		ANIMATION_LOD_FULL_DISTANCE = server.defineInRange("performance.animation_lod_full_distance", 32, 0, 512);
+		ANIMATION_LOD_REDUCED_DISTANCE = server.defineInRange("performance.animation_lod_reduced_distance", 64, 0, 512);
+		ANIMATION_LOD_REDUCED_INTERVAL = server.defineInRange("performance.animation_lod_reduced_interval", 4, 1, 20);
+		// Addon animations overriding loadAnimation or onLoaded load serially unless they opt in through StaticAnimation.isParallelLoadable
+		PARALLEL_ANIMATION_LOADING = server.define("performance.parallel_animation_loading", true);
+		ANIMATION_LOADING_THREADS = server.defineInRange("performance.animation_loading_threads", 0, 0, 256);
+		LAZY_ANIMATION_LOADING = server.define("performance.lazy_animation_loading", false);
+		LAZY_ANIMATION_BUDGET = server.defineInRange("performance.lazy_animation_budget_kb", 16384, 0, 1048576);
+		COMPRESS_ANIMATION_KEYFRAMES = server.define("performance.compress_animation_keyframes", false);
+		KEYFRAME_POSITION_TOLERANCE = server.defineInRange("performance.keyframe_position_tolerance", 0.001D, 0.0D, 1.0D);
+		KEYFRAME_ANGLE_TOLERANCE = server.defineInRange("performance.keyframe_angle_tolerance", 0.1D, 0.0D, 10.0D);
+		LINK_POSE_SNAPSHOT = server.define("performance.link_pose_snapshot", false);
+		// Clients with missing cache entries receive the item and mob data a round trip after login, entities spawned before use the defaults
+		DIFF_DATAPACK_SYNC = server.define("performance.diff_datapack_sync", false);
+		COALESCE_SKILL_DATA = server.define("performance.coalesce_skill_data", true);
+		COMPILED_EVENT_DISPATCH = server.define("performance.compiled_event_dispatch", true);
+		EVENT_DISPATCH_STATISTICS = server.define("performance.event_dispatch_statistics", false);
+		COMBAT_DECISION_BUDGET = server.defineInRange("performance.combat_decision_budget", 0, 0, 4096);
 		
 		INGAME_CONFIG = new ClientConfig(client);
 		CLIENT_CONFIG = client.build();
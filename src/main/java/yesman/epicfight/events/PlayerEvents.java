@@ -13,7 +13,9 @@ import net.minecraftforge.event.entity.living.LivingEntityUseItemEvent;
 import net.minecraftforge.event.entity.player.ArrowLooseEvent;
 import net.minecraftforge.event.entity.player.AttackEntityEvent;
 import net.minecraftforge.event.entity.player.PlayerEvent;
+import net.minecraftforge.event.entity.player.PlayerEvent.PlayerLoggedOutEvent;
 import net.minecraftforge.event.entity.player.PlayerEvent.StartTracking;
+import net.minecraftforge.event.entity.player.PlayerEvent.StopTracking;
 import net.minecraftforge.event.entity.player.PlayerInteractEvent.RightClickItem;
 import net.minecraftforge.eventbus.api.SubscribeEvent;
 import net.minecraftforge.fml.LogicalSide;
@@ -21,7 +23,10 @@ import net.minecraftforge.fml.common.Mod;
 import yesman.epicfight.client.ClientEngine;
 import yesman.epicfight.gameasset.ColliderPreset;
 import yesman.epicfight.main.EpicFightMod;
+import yesman.epicfight.network.AnimationPacketBatcher;
+import yesman.epicfight.network.DatapackDiffSync;
 import yesman.epicfight.network.EpicFightNetworkManager;
+import yesman.epicfight.network.SkillDataSynchronizer;
 import yesman.epicfight.network.server.SPChangeGamerule;
 import yesman.epicfight.world.capabilities.EpicFightCapabilities;
 import yesman.epicfight.world.capabilities.entitypatch.EntityPatch;
@@ -48,6 +53,22 @@ public class PlayerEvents {
 		if (entitypatch != null) {
 			entitypatch.onStartTracking((ServerPlayer)event.getPlayer());
 		}
+		
+		AnimationPacketBatcher.startTracking(trackingTarget, (ServerPlayer)event.getPlayer());
+	}
+	
+	@SubscribeEvent
+	public static void stopTrackingEvent(StopTracking event) {
+		AnimationPacketBatcher.stopTracking(event.getTarget(), (ServerPlayer)event.getPlayer());
+	}
+	
+	@SubscribeEvent
+	public static void logOutEvent(PlayerLoggedOutEvent event) {
+		if (event.getPlayer() instanceof ServerPlayer serverPlayer) {
+			AnimationPacketBatcher.removePlayer(serverPlayer);
+			SkillDataSynchronizer.removePlayer(serverPlayer);
+			DatapackDiffSync.removePlayer(serverPlayer);
+		}
 	}
 	
 	@SubscribeEvent
@@ -108,6 +129,12 @@ public class PlayerEvents {
 		}
 		
 		event.getOriginal().invalidateCaps();
+		
+		if (event.getOriginal() instanceof ServerPlayer original) {
+			SkillDataSynchronizer.flush();
+			AnimationPacketBatcher.flush(original);
+			AnimationPacketBatcher.removePlayer(original);
+		}
 	}
 	
 	@SubscribeEvent
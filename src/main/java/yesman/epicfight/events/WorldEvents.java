@@ -6,6 +6,8 @@ import net.minecraft.server.level.ServerPlayer;
 import net.minecraftforge.event.LootTableLoadEvent;
 import net.minecraftforge.event.OnDatapackSyncEvent;
 import net.minecraftforge.event.RegisterCommandsEvent;
+import net.minecraftforge.event.TickEvent;
+import net.minecraftforge.event.server.ServerStoppedEvent;
 import net.minecraftforge.eventbus.api.SubscribeEvent;
 import net.minecraftforge.fml.common.Mod;
 import yesman.epicfight.api.data.reloader.ItemCapabilityReloadListener;
@@ -13,10 +15,15 @@ import yesman.epicfight.api.data.reloader.MobPatchReloadListener;
 import yesman.epicfight.api.data.reloader.SkillManager;
 import yesman.epicfight.data.loot.EpicFightLootTables;
 import yesman.epicfight.main.EpicFightMod;
+import yesman.epicfight.network.AnimationPacketBatcher;
+import yesman.epicfight.network.DatapackDiffSync;
 import yesman.epicfight.network.EpicFightNetworkManager;
+import yesman.epicfight.network.SkillDataSynchronizer;
 import yesman.epicfight.network.server.SPChangeGamerule;
 import yesman.epicfight.network.server.SPDatapackSync;
 import yesman.epicfight.network.server.SPDatapackSyncSkill;
+import yesman.epicfight.server.commands.AnimationReportCommand;
+import yesman.epicfight.server.commands.EventDispatchReportCommand;
 import yesman.epicfight.server.commands.PlayerModeCommand;
 import yesman.epicfight.server.commands.PlayerSkillCommand;
 import yesman.epicfight.skill.SkillCategory;
@@ -37,8 +44,33 @@ public class WorldEvents {
 	public static void onCommandRegistry(final RegisterCommandsEvent event) {
 		PlayerModeCommand.register(event.getDispatcher());
 		PlayerSkillCommand.register(event.getDispatcher());
+		AnimationReportCommand.register(event.getDispatcher());
+		EventDispatchReportCommand.register(event.getDispatcher());
     }
 	
+	@SubscribeEvent
+	public static void onServerTick(final TickEvent.ServerTickEvent event) {
+		if (event.phase == TickEvent.Phase.END) {
+			SkillDataSynchronizer.flush();
+			AnimationPacketBatcher.flush();
+			
+			if (EpicFightMod.getInstance().animationManager.getLazyLoader() != null) {
+				EpicFightMod.getInstance().animationManager.getLazyLoader().evictColdAnimations();
+			}
+		}
+	}
+	
+	@SubscribeEvent
+	public static void onServerStopped(final ServerStoppedEvent event) {
+		AnimationPacketBatcher.clear();
+		DatapackDiffSync.clear();
+		SkillDataSynchronizer.clear();
+		
+		if (EpicFightMod.getInstance().animationManager.getLazyLoader() != null) {
+			EpicFightMod.LOGGER.info("Lazy animation loading: " + EpicFightMod.getInstance().animationManager.getLazyLoader().getStatistics());
+		}
+	}
+	
 	@SubscribeEvent
 	public static void onDatapackSync(final OnDatapackSyncEvent event) {
 		if (event.getPlayer() != null) {
@@ -61,6 +93,8 @@ public class WorldEvents {
 				}
 			}
 		} else {
+			// Datapacks were reloaded, the snapshots of this tick hold the previous entries
+			DatapackDiffSync.clearSnapshots();
 			event.getPlayerList().getPlayers().forEach(WorldEvents::synchronizeWorldData);
 		}
     }
@@ -86,6 +120,13 @@ public class WorldEvents {
 		SkillManager.getDataStream().forEach(skillParamsPacket::write);
 		EpicFightNetworkManager.sendToPlayer(skillParamsPacket, player);
 		
+		if (DatapackDiffSync.isEnabled()) {
+			DatapackDiffSync.sendManifest(SPDatapackSync.Type.ARMOR, player);
+			DatapackDiffSync.sendManifest(SPDatapackSync.Type.WEAPON, player);
+			DatapackDiffSync.sendManifest(SPDatapackSync.Type.MOB, player);
+			return;
+		}
+		
 		SPDatapackSync armorPacket = new SPDatapackSync(ItemCapabilityReloadListener.armorCount(), SPDatapackSync.Type.ARMOR);
 		SPDatapackSync weaponPacket = new SPDatapackSync(ItemCapabilityReloadListener.weaponCount(), SPDatapackSync.Type.WEAPON);
 		SPDatapackSync mobPatchPacket = new SPDatapackSync(MobPatchReloadListener.getTagCount(), SPDatapackSync.Type.MOB);
@@ -34,6 +34,7 @@ import yesman.epicfight.api.animation.ServerAnimator;
 import yesman.epicfight.api.client.animation.ClientAnimator;
 import yesman.epicfight.api.client.model.ItemSkins;
 import yesman.epicfight.api.client.model.Meshes;
+import yesman.epicfight.api.client.model.armor.CustomModelBakery;
 import yesman.epicfight.api.data.reloader.ItemCapabilityReloadListener;
 import yesman.epicfight.api.data.reloader.MobPatchReloadListener;
 import yesman.epicfight.api.data.reloader.SkillManager;
@@ -178,6 +179,7 @@ public class EpicFightMod {
 		event.registerReloadListener(Armatures.INSTANCE);
 		event.registerReloadListener(this.animationManager);
 		event.registerReloadListener(ItemSkins.INSTANCE);
+		event.registerReloadListener(CustomModelBakery.BAKED_ARMOR_CACHE);
 	}
 	
 	private void reloadListnerEvent(final AddReloadListenerEvent event) {
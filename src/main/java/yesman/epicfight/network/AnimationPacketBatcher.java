@@ -0,0 +1,180 @@
+package yesman.epicfight.network;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+
+import net.minecraft.server.MinecraftServer;
+import net.minecraft.server.level.ServerPlayer;
+import net.minecraft.world.entity.Entity;
+import net.minecraftforge.network.PacketDistributor;
+import net.minecraftforge.server.ServerLifecycleHooks;
+import yesman.epicfight.config.ConfigManager;
+import yesman.epicfight.network.server.SPAnimationBatch;
+
+/**
+ * Collects the animation packets sent during a server tick and sends them as one {@link SPAnimationBatch} per player.
+ * Players tracking an entity are recorded from the forge tracking events since the vanilla tracker doesn't expose them.
+ * The pending skill data reaching a player is sent before its batch, so the animations never arrive ahead of their data.
+ */
+public class AnimationPacketBatcher {
+	private static final int MAX_DICTIONARY_SIZE = 4096;
+	private static final Map<Integer, Set<ServerPlayer>> TRACKING_PLAYERS = Maps.newHashMap();
+	private static final Map<ServerPlayer, PlayerBatch> BATCHES = Maps.newLinkedHashMap();
+	
+	/** Returns false if the message has to be sent directly **/
+	public static boolean queueToPlayer(Object message, ServerPlayer player) {
+		if (!canQueue(message)) {
+			return false;
+		}
+		
+		queue(message, player);
+		return true;
+	}
+	
+	public static boolean queueToAllPlayerTrackingThisEntity(Object message, Entity entity, boolean withSelf) {
+		if (!canQueue(message)) {
+			return false;
+		}
+		
+		Set<ServerPlayer> trackingPlayers = TRACKING_PLAYERS.get(entity.getId());
+		
+		if (trackingPlayers != null) {
+			for (ServerPlayer player : trackingPlayers) {
+				queue(message, player);
+			}
+		}
+		
+		if (withSelf && entity instanceof ServerPlayer self) {
+			queue(message, self);
+		}
+		
+		return true;
+	}
+	
+	private static boolean canQueue(Object message) {
+		return ConfigManager.BATCH_ANIMATION_PACKETS.get() && SPAnimationBatch.isBatchable(message) && isServerThread();
+	}
+	
+	/** Batches are only touched by the server thread **/
+	private static boolean isServerThread() {
+		MinecraftServer server = ServerLifecycleHooks.getCurrentServer();
+		return server != null && server.isSameThread();
+	}
+	
+	private static void queue(Object message, ServerPlayer player) {
+		BATCHES.computeIfAbsent(player, (key) -> new PlayerBatch()).messages.add(message);
+	}
+	
+	public static void flush() {
+		if (BATCHES.isEmpty() || !isServerThread()) {
+			return;
+		}
+		
+		SkillDataSynchronizer.flush();
+		
+		for (Map.Entry<ServerPlayer, PlayerBatch> entry : BATCHES.entrySet()) {
+			send(entry.getKey(), entry.getValue());
+		}
+	}
+	
+	public static void flush(ServerPlayer player) {
+		if (BATCHES.isEmpty() || !isServerThread()) {
+			return;
+		}
+		
+		PlayerBatch batch = BATCHES.get(player);
+		
+		if (batch != null && !batch.messages.isEmpty()) {
+			// The animations may depend on skill data set earlier in this tick
+			SkillDataSynchronizer.flush(player);
+			send(player, batch);
+		}
+	}
+	
+	/** Flushes the players a packet sent to the trackers of the entity reaches **/
+	public static void flushTracking(Entity entity, boolean withSelf) {
+		if (BATCHES.isEmpty() || !isServerThread()) {
+			return;
+		}
+		
+		Set<ServerPlayer> trackingPlayers = TRACKING_PLAYERS.get(entity.getId());
+		
+		if (trackingPlayers != null) {
+			for (ServerPlayer player : trackingPlayers) {
+				flush(player);
+			}
+		}
+		
+		if (withSelf && entity instanceof ServerPlayer self) {
+			flush(self);
+		}
+	}
+	
+	private static void send(ServerPlayer player, PlayerBatch batch) {
+		if (batch.messages.isEmpty()) {
+			return;
+		}
+		
+		if (player.hasDisconnected()) {
+			batch.messages.clear();
+			return;
+		}
+		
+		if (batch.dictionary.size() > MAX_DICTIONARY_SIZE) {
+			batch.dictionary.clear();
+			batch.resetDictionary = true;
+		}
+		
+		SPAnimationBatch packet = new SPAnimationBatch(batch.messages, batch.dictionary, batch.resetDictionary);
+		batch.messages.clear();
+		batch.resetDictionary = false;
+		EpicFightNetworkManager.INSTANCE.send(PacketDistributor.PLAYER.with(() -> player), packet);
+	}
+	
+	static boolean isTracking(Entity entity, ServerPlayer player) {
+		Set<ServerPlayer> trackingPlayers = TRACKING_PLAYERS.get(entity.getId());
+		return trackingPlayers != null && trackingPlayers.contains(player);
+	}
+	
+	public static void startTracking(Entity entity, ServerPlayer player) {
+		TRACKING_PLAYERS.computeIfAbsent(entity.getId(), (key) -> Sets.newHashSet()).add(player);
+	}
+	
+	public static void stopTracking(Entity entity, ServerPlayer player) {
+		Set<ServerPlayer> trackingPlayers = TRACKING_PLAYERS.get(entity.getId());
+		
+		if (trackingPlayers != null && trackingPlayers.remove(player) && trackingPlayers.isEmpty()) {
+			TRACKING_PLAYERS.remove(entity.getId());
+		}
+	}
+	
+	public static void removePlayer(ServerPlayer player) {
+		BATCHES.remove(player);
+		Iterator<Set<ServerPlayer>> iterator = TRACKING_PLAYERS.values().iterator();
+		
+		while (iterator.hasNext()) {
+			Set<ServerPlayer> trackingPlayers = iterator.next();
+			
+			if (trackingPlayers.remove(player) && trackingPlayers.isEmpty()) {
+				iterator.remove();
+			}
+		}
+	}
+	
+	public static void clear() {
+		TRACKING_PLAYERS.clear();
+		BATCHES.clear();
+	}
+	
+	private static class PlayerBatch {
+		private final List<Object> messages = Lists.newArrayList();
+		private final Map<Long, Integer> dictionary = Maps.newHashMap();
+		private boolean resetDictionary = true;
+	}
+}
\ No newline at end of file
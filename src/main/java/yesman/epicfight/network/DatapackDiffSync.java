@@ -0,0 +1,331 @@
+package yesman.epicfight.network;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+import com.google.common.collect.Maps;
+import com.google.common.hash.Hashing;
+
+import it.unimi.dsi.fastutil.longs.Long2ObjectMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.longs.LongArrayList;
+import it.unimi.dsi.fastutil.longs.LongList;
+import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
+import net.minecraft.nbt.CompoundTag;
+import net.minecraft.nbt.ListTag;
+import net.minecraft.nbt.NbtIo;
+import net.minecraft.nbt.Tag;
+import net.minecraft.server.MinecraftServer;
+import net.minecraft.server.level.ServerPlayer;
+import net.minecraftforge.api.distmarker.Dist;
+import net.minecraftforge.api.distmarker.OnlyIn;
+import net.minecraftforge.fml.loading.FMLPaths;
+import yesman.epicfight.api.data.reloader.ItemCapabilityReloadListener;
+import yesman.epicfight.api.data.reloader.MobPatchReloadListener;
+import yesman.epicfight.config.ConfigManager;
+import yesman.epicfight.main.EpicFightMod;
+import yesman.epicfight.network.client.CPRequestDatapackEntries;
+import yesman.epicfight.network.server.SPDatapackSync;
+import yesman.epicfight.network.server.SPDatapackSyncDiff;
+import yesman.epicfight.network.server.SPDatapackSyncManifest;
+
+/**
+ * Datapack sync sending a content hash per entry first. The client answers with the hashes missing in its cache, which persists
+ * between sessions, and only those entries are sent. A type falls back to a complete transfer when the server doesn't have
+ * a requested entry anymore, too many entries are missing or the client can't assemble the manifest from its cache.
+ *
+ * Each manifest has an id the client echoes in its requests, so requests for a manifest replaced by a reload are ignored.
+ * The server answers one diff and one complete transfer per manifest.
+ */
+public class DatapackDiffSync {
+	private static final Path CACHE_DIRECTORY = FMLPaths.GAMEDIR.get().resolve("epicfight_cache").resolve("datapack");
+	private static final Map<SPDatapackSync.Type, Snapshot> SNAPSHOTS = Maps.newEnumMap(SPDatapackSync.Type.class);
+	private static final Map<UUID, Map<SPDatapackSync.Type, PendingRequest>> PENDING_REQUESTS = Maps.newHashMap();
+	private static final Map<SPDatapackSync.Type, PendingManifest> PENDING_MANIFESTS = Maps.newEnumMap(SPDatapackSync.Type.class);
+	private static final Map<SPDatapackSync.Type, Long2ObjectMap<CompoundTag>> CLIENT_CACHES = Maps.newEnumMap(SPDatapackSync.Type.class);
+	private static int nextManifestId;
+	
+	public static boolean isEnabled() {
+		return ConfigManager.DIFF_DATAPACK_SYNC.get();
+	}
+	
+	public static boolean supports(SPDatapackSync.Type type) {
+		return type == SPDatapackSync.Type.ARMOR || type == SPDatapackSync.Type.WEAPON || type == SPDatapackSync.Type.MOB;
+	}
+	
+	public static Stream<CompoundTag> getDataStream(SPDatapackSync.Type type) {
+		if (type == SPDatapackSync.Type.ARMOR) {
+			return ItemCapabilityReloadListener.getArmorDataStream();
+		} else if (type == SPDatapackSync.Type.WEAPON) {
+			return ItemCapabilityReloadListener.getWeaponDataStream();
+		} else if (type == SPDatapackSync.Type.MOB) {
+			return MobPatchReloadListener.getDataStream();
+		}
+		
+		throw new IllegalArgumentException("No diff sync for " + type);
+	}
+	
+	public static long hash(CompoundTag tag) {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		
+		try (DataOutputStream out = new DataOutputStream(bytes)) {
+			NbtIo.write(tag, out);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		
+		return Hashing.sipHash24().hashBytes(bytes.toByteArray()).asLong();
+	}
+	
+	/** Players synchronized in the same tick share the snapshot **/
+	private static Snapshot getSnapshot(SPDatapackSync.Type type, MinecraftServer server) {
+		Snapshot snapshot = SNAPSHOTS.get(type);
+		
+		if (snapshot == null || snapshot.server != server || snapshot.tick != server.getTickCount()) {
+			snapshot = new Snapshot(server, getDataStream(type).toArray(CompoundTag[]::new));
+			SNAPSHOTS.put(type, snapshot);
+		}
+		
+		return snapshot;
+	}
+	
+	public static void sendManifest(SPDatapackSync.Type type, ServerPlayer player) {
+		int manifestId = nextManifestId++;
+		PENDING_REQUESTS.computeIfAbsent(player.getUUID(), (key) -> Maps.newEnumMap(SPDatapackSync.Type.class)).put(type, new PendingRequest(manifestId));
+		EpicFightNetworkManager.sendToPlayer(new SPDatapackSyncManifest(type, manifestId, getSnapshot(type, player.server).hashes), player);
+	}
+	
+	/**
+	 * Answers the latest manifest sent to the player, keyed by uuid to survive respawns. A diff is answered once, and a complete
+	 * transfer once for the client to recover when its cache disagrees. Other requests are ignored instead of rebuilding the entries
+	 */
+	public static void sendEntries(SPDatapackSync.Type type, int manifestId, boolean fullSync, long[] hashes, ServerPlayer player) {
+		if (!supports(type) || !isEnabled()) {
+			return;
+		}
+		
+		Map<SPDatapackSync.Type, PendingRequest> pendingRequests = PENDING_REQUESTS.get(player.getUUID());
+		PendingRequest pendingRequest = pendingRequests == null ? null : pendingRequests.get(type);
+		
+		if (pendingRequest == null || pendingRequest.manifestId != manifestId || (!fullSync && pendingRequest.diffAnswered)) {
+			return;
+		}
+		
+		Snapshot snapshot = SNAPSHOTS.get(type);
+		
+		if (!fullSync && snapshot != null && snapshot.server == player.server) {
+			pendingRequest.diffAnswered = true;
+			CompoundTag[] tags = new CompoundTag[hashes.length];
+			
+			for (int i = 0; i < hashes.length; i++) {
+				tags[i] = snapshot.entries.get(hashes[i]);
+				
+				if (tags[i] == null) {
+					fullSync = true;
+					break;
+				}
+			}
+			
+			if (!fullSync) {
+				EpicFightNetworkManager.sendToPlayer(new SPDatapackSyncDiff(type, false, hashes, tags), player);
+				return;
+			}
+		}
+		
+		// A complete transfer replaces the manifest on the client, nothing is left to request for it
+		pendingRequests.remove(type);
+		
+		if (pendingRequests.isEmpty()) {
+			PENDING_REQUESTS.remove(player.getUUID());
+		}
+		
+		snapshot = getSnapshot(type, player.server);
+		EpicFightNetworkManager.sendToPlayer(new SPDatapackSyncDiff(type, true, snapshot.hashes, snapshot.tags), player);
+	}
+	
+	public static void clearSnapshots() {
+		SNAPSHOTS.clear();
+	}
+	
+	public static void removePlayer(ServerPlayer player) {
+		PENDING_REQUESTS.remove(player.getUUID());
+	}
+	
+	public static void clear() {
+		SNAPSHOTS.clear();
+		PENDING_REQUESTS.clear();
+	}
+	
+	@OnlyIn(Dist.CLIENT)
+	public static void receiveManifest(SPDatapackSyncManifest msg) {
+		Long2ObjectMap<CompoundTag> cache = getClientCache(msg.getType());
+		LongList missing = new LongArrayList();
+		
+		for (long hash : msg.getHashes()) {
+			if (!cache.containsKey(hash)) {
+				missing.add(hash);
+			}
+		}
+		
+		PENDING_MANIFESTS.put(msg.getType(), new PendingManifest(msg.getManifestId(), msg.getHashes()));
+		
+		if (missing.isEmpty()) {
+			assemble(msg.getType());
+		} else if (missing.size() > CPRequestDatapackEntries.MAX_REQUESTED_ENTRIES) {
+			EpicFightNetworkManager.sendToServer(new CPRequestDatapackEntries(msg.getType(), msg.getManifestId(), true, new long[0]));
+		} else {
+			EpicFightNetworkManager.sendToServer(new CPRequestDatapackEntries(msg.getType(), msg.getManifestId(), false, missing.toLongArray()));
+		}
+	}
+	
+	@OnlyIn(Dist.CLIENT)
+	public static void receiveEntries(SPDatapackSyncDiff msg) {
+		Long2ObjectMap<CompoundTag> cache = getClientCache(msg.getType());
+		
+		for (int i = 0; i < msg.getHashes().length; i++) {
+			cache.put(msg.getHashes()[i], msg.getTags()[i]);
+		}
+		
+		if (msg.isComplete()) {
+			PendingManifest manifest = PENDING_MANIFESTS.get(msg.getType());
+			PENDING_MANIFESTS.put(msg.getType(), new PendingManifest(manifest == null ? -1 : manifest.manifestId, msg.getHashes()));
+		}
+		
+		assemble(msg.getType());
+	}
+	
+	@OnlyIn(Dist.CLIENT)
+	private static void assemble(SPDatapackSync.Type type) {
+		PendingManifest manifest = PENDING_MANIFESTS.remove(type);
+		
+		if (manifest == null) {
+			return;
+		}
+		
+		long[] hashes = manifest.hashes;
+		Long2ObjectMap<CompoundTag> cache = getClientCache(type);
+		SPDatapackSync packet = new SPDatapackSync(hashes.length, type);
+		
+		for (long hash : hashes) {
+			CompoundTag tag = cache.get(hash);
+			
+			if (tag == null) {
+				EpicFightMod.LOGGER.warn("Datapack cache of " + type + " disagrees with the server, requesting a full sync");
+				EpicFightNetworkManager.sendToServer(new CPRequestDatapackEntries(type, manifest.manifestId, true, new long[0]));
+				return;
+			}
+			
+			// Listeners keep the tags they receive, the cached ones must stay untouched
+			packet.write(tag.copy());
+		}
+		
+		cache.keySet().retainAll(new LongOpenHashSet(hashes));
+		saveClientCache(type, cache);
+		SPDatapackSync.process(packet);
+	}
+	
+	@OnlyIn(Dist.CLIENT)
+	private static Long2ObjectMap<CompoundTag> getClientCache(SPDatapackSync.Type type) {
+		return CLIENT_CACHES.computeIfAbsent(type, DatapackDiffSync::loadClientCache);
+	}
+	
+	private static Path getCacheFile(SPDatapackSync.Type type) {
+		return CACHE_DIRECTORY.resolve(type.name().toLowerCase(Locale.ROOT) + ".dat");
+	}
+	
+	@OnlyIn(Dist.CLIENT)
+	private static Long2ObjectMap<CompoundTag> loadClientCache(SPDatapackSync.Type type) {
+		Long2ObjectMap<CompoundTag> cache = new Long2ObjectOpenHashMap<>();
+		Path file = getCacheFile(type);
+		
+		if (!Files.isRegularFile(file)) {
+			return cache;
+		}
+		
+		try {
+			ListTag entries = NbtIo.readCompressed(file.toFile()).getList("entries", Tag.TAG_COMPOUND);
+			
+			for (int i = 0; i < entries.size(); i++) {
+				CompoundTag entry = entries.getCompound(i);
+				cache.put(entry.getLong("hash"), entry.getCompound("data"));
+			}
+		} catch (IOException e) {
+			EpicFightMod.LOGGER.warn("Failed to read datapack cache " + file + ": " + e);
+		}
+		
+		return cache;
+	}
+	
+	@OnlyIn(Dist.CLIENT)
+	private static void saveClientCache(SPDatapackSync.Type type, Long2ObjectMap<CompoundTag> cache) {
+		Path file = getCacheFile(type);
+		ListTag entries = new ListTag();
+		
+		for (Long2ObjectMap.Entry<CompoundTag> cacheEntry : cache.long2ObjectEntrySet()) {
+			CompoundTag entry = new CompoundTag();
+			entry.putLong("hash", cacheEntry.getLongKey());
+			entry.put("data", cacheEntry.getValue());
+			entries.add(entry);
+		}
+		
+		CompoundTag root = new CompoundTag();
+		root.put("entries", entries);
+		
+		try {
+			Files.createDirectories(CACHE_DIRECTORY);
+			Path temp = Files.createTempFile(CACHE_DIRECTORY, file.getFileName().toString(), ".tmp");
+			NbtIo.writeCompressed(root, temp.toFile());
+			Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+		} catch (IOException e) {
+			EpicFightMod.LOGGER.warn("Failed to write datapack cache " + file + ": " + e);
+		}
+	}
+	
+	private static class PendingRequest {
+		final int manifestId;
+		boolean diffAnswered;
+		
+		PendingRequest(int manifestId) {
+			this.manifestId = manifestId;
+		}
+	}
+	
+	private static class PendingManifest {
+		final int manifestId;
+		final long[] hashes;
+		
+		PendingManifest(int manifestId, long[] hashes) {
+			this.manifestId = manifestId;
+			this.hashes = hashes;
+		}
+	}
+	
+	private static class Snapshot {
+		final MinecraftServer server;
+		final int tick;
+		final long[] hashes;
+		final CompoundTag[] tags;
+		final Long2ObjectMap<CompoundTag> entries = new Long2ObjectOpenHashMap<>();
+		
+		Snapshot(MinecraftServer server, CompoundTag[] tags) {
+			this.server = server;
+			this.tick = server.getTickCount();
+			this.tags = tags;
+			this.hashes = new long[tags.length];
+			
+			for (int i = 0; i < tags.length; i++) {
+				this.hashes[i] = hash(tags[i]);
+				this.entries.put(this.hashes[i], tags[i]);
+			}
+		}
+	}
+}
\ No newline at end of file
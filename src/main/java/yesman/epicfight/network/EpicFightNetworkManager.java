@@ -14,20 +14,25 @@ import yesman.epicfight.network.client.CPChangeSkill;
 import yesman.epicfight.network.client.CPExecuteSkill;
 import yesman.epicfight.network.client.CPModifySkillData;
 import yesman.epicfight.network.client.CPPlayAnimation;
+import yesman.epicfight.network.client.CPRequestDatapackEntries;
 import yesman.epicfight.network.client.CPRotateEntityModelYRot;
 import yesman.epicfight.network.client.CPSetPlayerTarget;
 import yesman.epicfight.network.server.SPAddLearnedSkill;
 import yesman.epicfight.network.server.SPAddOrRemoveSkillData;
+import yesman.epicfight.network.server.SPAnimationBatch;
 import yesman.epicfight.network.server.SPChangeGamerule;
 import yesman.epicfight.network.server.SPChangeLivingMotion;
 import yesman.epicfight.network.server.SPChangePlayerMode;
 import yesman.epicfight.network.server.SPChangeSkill;
 import yesman.epicfight.network.server.SPClearSkills;
 import yesman.epicfight.network.server.SPDatapackSync;
+import yesman.epicfight.network.server.SPDatapackSyncDiff;
+import yesman.epicfight.network.server.SPDatapackSyncManifest;
 import yesman.epicfight.network.server.SPDatapackSyncSkill;
 import yesman.epicfight.network.server.SPFracture;
 import yesman.epicfight.network.server.SPModifyPlayerData;
 import yesman.epicfight.network.server.SPModifySkillData;
+import yesman.epicfight.network.server.SPModifySkillDataBatch;
 import yesman.epicfight.network.server.SPMoveAndPlayAnimation;
 import yesman.epicfight.network.server.SPPlayAnimation;
 import yesman.epicfight.network.server.SPPlayAnimationAndSetTarget;
@@ -41,7 +46,7 @@ import yesman.epicfight.network.server.SPSpawnData;
 import yesman.epicfight.network.server.SPUpdatePlayerInput;
 
 public class EpicFightNetworkManager {
-	private static final String PROTOCOL_VERSION = "1";
+	private static final String PROTOCOL_VERSION = "2";
 	public static final SimpleChannel INSTANCE = NetworkRegistry.newSimpleChannel(new ResourceLocation(EpicFightMod.MODID, "network_manager"),
 			() -> PROTOCOL_VERSION, PROTOCOL_VERSION::equals, PROTOCOL_VERSION::equals);
 
@@ -49,23 +54,40 @@ public class EpicFightNetworkManager {
 		INSTANCE.sendToServer(message);
 	}
 	
+	/** The batched animations of the receivers aren't known here and stay queued, use the specific methods to keep the order **/
 	public static <MSG> void sendToClient(MSG message, PacketTarget packetTarget) {
 		INSTANCE.send(packetTarget, message);
 	}
 	
 	public static <MSG> void sendToAll(MSG message) {
+		AnimationPacketBatcher.flush();
 		sendToClient(message, PacketDistributor.ALL.noArg());
 	}
 
 	public static <MSG> void sendToAllPlayerTrackingThisEntity(MSG message, Entity entity) {
+		if (AnimationPacketBatcher.queueToAllPlayerTrackingThisEntity(message, entity, false)) {
+			return;
+		}
+		
+		AnimationPacketBatcher.flushTracking(entity, false);
 		sendToClient(message, PacketDistributor.TRACKING_ENTITY.with(() -> entity));
 	}
 	
 	public static <MSG> void sendToPlayer(MSG message, ServerPlayer player) {
-		sendToClient(message, PacketDistributor.PLAYER.with(() -> player));
+		if (AnimationPacketBatcher.queueToPlayer(message, player)) {
+			return;
+		}
+		
+		AnimationPacketBatcher.flush(player);
+		INSTANCE.send(PacketDistributor.PLAYER.with(() -> player), message);
 	}
 	
 	public static <MSG> void sendToAllPlayerTrackingThisEntityWithSelf(MSG message, ServerPlayer entity) {
+		if (AnimationPacketBatcher.queueToAllPlayerTrackingThisEntity(message, entity, true)) {
+			return;
+		}
+		
+		AnimationPacketBatcher.flushTracking(entity, true);
 		sendToClient(message, PacketDistributor.TRACKING_ENTITY_AND_SELF.with(() -> entity));
 	}
 	
@@ -106,5 +128,10 @@ public class EpicFightNetworkManager {
 		INSTANCE.registerMessage(id++, SPFracture.class, SPFracture::toBytes, SPFracture::fromBytes, SPFracture::handle);
 		INSTANCE.registerMessage(id++, SPUpdatePlayerInput.class, SPUpdatePlayerInput::toBytes, SPUpdatePlayerInput::fromBytes, SPUpdatePlayerInput::handle);
 		INSTANCE.registerMessage(id++, SPAddOrRemoveSkillData.class, SPAddOrRemoveSkillData::toBytes, SPAddOrRemoveSkillData::fromBytes, SPAddOrRemoveSkillData::handle);
+		INSTANCE.registerMessage(id++, SPAnimationBatch.class, SPAnimationBatch::toBytes, SPAnimationBatch::fromBytes, SPAnimationBatch::handle);
+		INSTANCE.registerMessage(id++, SPDatapackSyncManifest.class, SPDatapackSyncManifest::toBytes, SPDatapackSyncManifest::fromBytes, SPDatapackSyncManifest::handle);
+		INSTANCE.registerMessage(id++, SPDatapackSyncDiff.class, SPDatapackSyncDiff::toBytes, SPDatapackSyncDiff::fromBytes, SPDatapackSyncDiff::handle);
+		INSTANCE.registerMessage(id++, CPRequestDatapackEntries.class, CPRequestDatapackEntries::toBytes, CPRequestDatapackEntries::fromBytes, CPRequestDatapackEntries::handle);
+		INSTANCE.registerMessage(id++, SPModifySkillDataBatch.class, SPModifySkillDataBatch::toBytes, SPModifySkillDataBatch::fromBytes, SPModifySkillDataBatch::handle);
 	}
 }
\ No newline at end of file
@@ -0,0 +1,139 @@
+package yesman.epicfight.network;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Predicate;
+import java.util.function.ToIntFunction;
+
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+
+import net.minecraft.server.MinecraftServer;
+import net.minecraft.server.level.ServerPlayer;
+import net.minecraftforge.network.PacketDistributor;
+import net.minecraftforge.server.ServerLifecycleHooks;
+import yesman.epicfight.config.ConfigManager;
+import yesman.epicfight.network.server.SPModifySkillDataBatch;
+import yesman.epicfight.skill.SkillDataManager;
+
+/**
+ * Collects the skill data keys synchronized by the server and sends them as one {@link SPModifySkillDataBatch} per player,
+ * plus one for the players tracking it when shared keys changed. Pending data is flushed at the end of the server tick, and
+ * whenever {@link AnimationPacketBatcher} sends the batch of a player in the middle of a tick, so the values of a tick reach
+ * the client ahead of its batched animations.
+ */
+public class SkillDataSynchronizer {
+	private static final Coalescer<ServerPlayer> DIRTY_MANAGERS = new Coalescer<>();
+	
+	/** Returns false if the data has to be sent directly **/
+	public static boolean markDirty(ServerPlayer player, SkillDataManager dataManager) {
+		if (!ConfigManager.COALESCE_SKILL_DATA.get() || !isServerThread()) {
+			return false;
+		}
+		
+		DIRTY_MANAGERS.markDirty(player, dataManager);
+		return true;
+	}
+	
+	/** Dirty managers are only touched by the server thread **/
+	private static boolean isServerThread() {
+		MinecraftServer server = ServerLifecycleHooks.getCurrentServer();
+		return server != null && server.isSameThread();
+	}
+	
+	public static void flush() {
+		if (DIRTY_MANAGERS.isEmpty() || !isServerThread()) {
+			return;
+		}
+		
+		DIRTY_MANAGERS.flush(ServerPlayer::getId, SkillDataSynchronizer::send);
+	}
+	
+	/** Sends the pending data that reaches the receiver, which is its own data and the shared data of the players it tracks **/
+	public static void flush(ServerPlayer receiver) {
+		if (DIRTY_MANAGERS.isEmpty() || !isServerThread()) {
+			return;
+		}
+		
+		DIRTY_MANAGERS.flush(ServerPlayer::getId, SkillDataSynchronizer::send, (player) -> player == receiver || AnimationPacketBatcher.isTracking(player, receiver));
+	}
+	
+	private static void send(ServerPlayer player, SPModifySkillDataBatch ownerPacket, SPModifySkillDataBatch trackerPacket) {
+		if (player.hasDisconnected()) {
+			return;
+		}
+		
+		// Sent directly, going through the batcher would flush the animations of this tick before the data
+		if (!ownerPacket.isEmpty()) {
+			EpicFightNetworkManager.INSTANCE.send(PacketDistributor.PLAYER.with(() -> player), ownerPacket);
+		}
+		
+		if (!trackerPacket.isEmpty()) {
+			EpicFightNetworkManager.INSTANCE.send(PacketDistributor.TRACKING_ENTITY.with(() -> player), trackerPacket);
+		}
+	}
+	
+	public static void removePlayer(ServerPlayer player) {
+		DIRTY_MANAGERS.remove(player);
+	}
+	
+	public static void clear() {
+		DIRTY_MANAGERS.clear();
+	}
+	
+	/** Dirty data managers of each player in the order they were marked, independent of the server so it can be replayed **/
+	static class Coalescer<P> {
+		private final Map<P, Set<SkillDataManager>> dirtyManagers = Maps.newLinkedHashMap();
+		
+		void markDirty(P player, SkillDataManager dataManager) {
+			this.dirtyManagers.computeIfAbsent(player, (key) -> Sets.newLinkedHashSet()).add(dataManager);
+		}
+		
+		boolean isEmpty() {
+			return this.dirtyManagers.isEmpty();
+		}
+		
+		/** Writes the dirty keys of each player into one owner and one tracker packet, the sink decides which of them are sent **/
+		void flush(ToIntFunction<P> entityId, BatchSink<P> sink) {
+			this.flush(entityId, sink, (player) -> true);
+		}
+		
+		/** Flushes the players matching the filter, the others stay pending **/
+		void flush(ToIntFunction<P> entityId, BatchSink<P> sink, Predicate<P> filter) {
+			Iterator<Map.Entry<P, Set<SkillDataManager>>> iterator = this.dirtyManagers.entrySet().iterator();
+			
+			while (iterator.hasNext()) {
+				Map.Entry<P, Set<SkillDataManager>> entry = iterator.next();
+				
+				if (!filter.test(entry.getKey())) {
+					continue;
+				}
+				
+				iterator.remove();
+				int id = entityId.applyAsInt(entry.getKey());
+				SPModifySkillDataBatch ownerPacket = new SPModifySkillDataBatch(id);
+				SPModifySkillDataBatch trackerPacket = new SPModifySkillDataBatch(id);
+				
+				for (SkillDataManager dataManager : entry.getValue()) {
+					dataManager.writeDirtyData(ownerPacket, trackerPacket);
+				}
+				
+				sink.send(entry.getKey(), ownerPacket, trackerPacket);
+			}
+		}
+		
+		void remove(P player) {
+			this.dirtyManagers.remove(player);
+		}
+		
+		void clear() {
+			this.dirtyManagers.clear();
+		}
+	}
+	
+	@FunctionalInterface
+	interface BatchSink<P> {
+		void send(P player, SPModifySkillDataBatch ownerPacket, SPModifySkillDataBatch trackerPacket);
+	}
+}
@@ -0,0 +1,69 @@
+package yesman.epicfight.network.client;
+
+import java.util.function.Supplier;
+
+import net.minecraft.network.FriendlyByteBuf;
+import net.minecraft.server.level.ServerPlayer;
+import net.minecraftforge.network.NetworkEvent;
+import yesman.epicfight.network.DatapackDiffSync;
+import yesman.epicfight.network.server.SPDatapackSync;
+
+/** Requests the datapack entries of the hashes, or every entry of the type when fullSync is set, for the manifest of the id **/
+public class CPRequestDatapackEntries {
+	/** Keeps the packet under the size limit of serverbound custom payloads **/
+	public static final int MAX_REQUESTED_ENTRIES = 3072;
+	
+	private final SPDatapackSync.Type type;
+	private final int manifestId;
+	private final boolean fullSync;
+	private final long[] hashes;
+	
+	public CPRequestDatapackEntries(SPDatapackSync.Type type, int manifestId, boolean fullSync, long[] hashes) {
+		this.type = type;
+		this.manifestId = manifestId;
+		this.fullSync = fullSync;
+		this.hashes = hashes;
+	}
+	
+	public static CPRequestDatapackEntries fromBytes(FriendlyByteBuf buf) {
+		SPDatapackSync.Type type = SPDatapackSync.Type.values()[buf.readVarInt()];
+		int manifestId = buf.readVarInt();
+		boolean fullSync = buf.readBoolean();
+		int count = buf.readVarInt();
+		
+		if (count > MAX_REQUESTED_ENTRIES) {
+			throw new IllegalArgumentException("Too many datapack entries requested: " + count);
+		}
+		
+		long[] hashes = new long[count];
+		
+		for (int i = 0; i < count; i++) {
+			hashes[i] = buf.readLong();
+		}
+		
+		return new CPRequestDatapackEntries(type, manifestId, fullSync, hashes);
+	}
+	
+	public static void toBytes(CPRequestDatapackEntries msg, FriendlyByteBuf buf) {
+		buf.writeVarInt(msg.type.ordinal());
+		buf.writeVarInt(msg.manifestId);
+		buf.writeBoolean(msg.fullSync);
+		buf.writeVarInt(msg.hashes.length);
+		
+		for (long hash : msg.hashes) {
+			buf.writeLong(hash);
+		}
+	}
+	
+	public static void handle(CPRequestDatapackEntries msg, Supplier<NetworkEvent.Context> ctx) {
+		ctx.get().enqueueWork(() -> {
+			ServerPlayer player = ctx.get().getSender();
+			
+			if (player != null) {
+				DatapackDiffSync.sendEntries(msg.type, msg.manifestId, msg.fullSync, msg.hashes, player);
+			}
+		});
+		
+		ctx.get().setPacketHandled(true);
+	}
+}
\ No newline at end of file
@@ -0,0 +1,167 @@
+package yesman.epicfight.network.server;
+
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+import com.google.common.collect.Lists;
+
+import io.netty.buffer.Unpooled;
+import net.minecraft.network.FriendlyByteBuf;
+import net.minecraftforge.network.NetworkEvent;
+import yesman.epicfight.api.animation.LivingMotion;
+import yesman.epicfight.api.animation.types.StaticAnimation;
+import yesman.epicfight.main.EpicFightMod;
+
+/**
+ * Animation packets of a server tick for a single connection. Ids are written as varints and animations are referenced
+ * through a dictionary that lives as long as the connection: the first use of an animation defines it, the next ones send its index only.
+ */
+public class SPAnimationBatch {
+	private static final int PLAY = 0;
+	private static final int PLAY_INSTANT = 1;
+	private static final int PLAY_AND_SET_TARGET = 2;
+	private static final int CHANGE_LIVING_MOTION = 3;
+	private static final int DEFINE_ANIMATION = 1;
+	
+	/** Client side copy of the dictionary, only touched by the network thread that decodes the batches in order **/
+	private static final List<Long> CLIENT_DICTIONARY = Lists.newArrayList();
+	
+	private final FriendlyByteBuf payload;
+	private final List<Object> messages;
+	
+	public static boolean isBatchable(Object message) {
+		Class<?> type = message.getClass();
+		return type == SPPlayAnimation.class || type == SPPlayAnimationInstant.class || type == SPPlayAnimationAndSetTarget.class || type == SPChangeLivingMotion.class;
+	}
+	
+	/** Encodes the messages right away so the dictionary of the connection is updated in sending order **/
+	public SPAnimationBatch(List<Object> messages, Map<Long, Integer> dictionary, boolean resetDictionary) {
+		this.payload = new FriendlyByteBuf(Unpooled.buffer());
+		this.messages = null;
+		this.payload.writeBoolean(resetDictionary);
+		this.payload.writeVarInt(messages.size());
+		
+		for (Object message : messages) {
+			if (message instanceof SPChangeLivingMotion livingMotionMsg) {
+				this.payload.writeByte(CHANGE_LIVING_MOTION);
+				this.payload.writeVarInt(livingMotionMsg.entityId);
+				this.payload.writeBoolean(livingMotionMsg.setChangesAsDefault);
+				this.payload.writeVarInt(livingMotionMsg.count);
+				
+				for (int i = 0; i < livingMotionMsg.count; i++) {
+					this.payload.writeVarInt(livingMotionMsg.motionList.get(i).universalOrdinal());
+					StaticAnimation animation = livingMotionMsg.animationList.get(i);
+					writeAnimation(this.payload, animation.getNamespaceId(), animation.getId(), dictionary);
+				}
+			} else if (message instanceof SPPlayAnimation playAnimationMsg) {
+				int type = message instanceof SPPlayAnimationAndSetTarget ? PLAY_AND_SET_TARGET : message instanceof SPPlayAnimationInstant ? PLAY_INSTANT : PLAY;
+				this.payload.writeByte(type);
+				this.payload.writeVarInt(playAnimationMsg.entityId);
+				writeAnimation(this.payload, playAnimationMsg.namespaceId, playAnimationMsg.animationId, dictionary);
+				this.payload.writeFloat(playAnimationMsg.convertTimeModifier);
+				
+				if (type == PLAY_AND_SET_TARGET) {
+					this.payload.writeVarInt(((SPPlayAnimationAndSetTarget)message).targetId);
+				}
+			} else {
+				throw new IllegalArgumentException("Can't batch " + message.getClass());
+			}
+		}
+	}
+	
+	private SPAnimationBatch(List<Object> messages) {
+		this.payload = null;
+		this.messages = messages;
+	}
+	
+	private static void writeAnimation(FriendlyByteBuf buf, int namespaceId, int animationId, Map<Long, Integer> dictionary) {
+		long key = toKey(namespaceId, animationId);
+		Integer index = dictionary.get(key);
+		
+		if (index == null) {
+			dictionary.put(key, dictionary.size());
+			buf.writeVarInt(DEFINE_ANIMATION);
+			buf.writeVarInt(namespaceId);
+			buf.writeVarInt(animationId);
+		} else {
+			buf.writeVarInt(index << 1);
+		}
+	}
+	
+	private static long readAnimation(FriendlyByteBuf buf) {
+		int reference = buf.readVarInt();
+		
+		if (reference == DEFINE_ANIMATION) {
+			long key = toKey(buf.readVarInt(), buf.readVarInt());
+			CLIENT_DICTIONARY.add(key);
+			return key;
+		}
+		
+		return CLIENT_DICTIONARY.get(reference >>> 1);
+	}
+	
+	private static long toKey(int namespaceId, int animationId) {
+		return ((long)namespaceId << 32) | (animationId & 0xFFFFFFFFL);
+	}
+	
+	public static SPAnimationBatch fromBytes(FriendlyByteBuf buf) {
+		if (buf.readBoolean()) {
+			CLIENT_DICTIONARY.clear();
+		}
+		
+		int count = buf.readVarInt();
+		List<Object> messages = Lists.newArrayListWithCapacity(count);
+		
+		for (int i = 0; i < count; i++) {
+			int type = buf.readByte();
+			int entityId = buf.readVarInt();
+			
+			if (type == CHANGE_LIVING_MOTION) {
+				SPChangeLivingMotion msg = new SPChangeLivingMotion(entityId, buf.readBoolean());
+				int motionCount = buf.readVarInt();
+				
+				for (int j = 0; j < motionCount; j++) {
+					LivingMotion motion = LivingMotion.ENUM_MANAGER.get(buf.readVarInt());
+					long animation = readAnimation(buf);
+					msg.putPair(motion, EpicFightMod.getInstance().animationManager.findAnimationById((int)(animation >> 32), (int)animation));
+				}
+				
+				messages.add(msg);
+			} else {
+				long animation = readAnimation(buf);
+				int namespaceId = (int)(animation >> 32);
+				int animationId = (int)animation;
+				float convertTimeModifier = buf.readFloat();
+				
+				if (type == PLAY_INSTANT) {
+					messages.add(new SPPlayAnimationInstant(namespaceId, animationId, entityId, convertTimeModifier));
+				} else if (type == PLAY_AND_SET_TARGET) {
+					messages.add(new SPPlayAnimationAndSetTarget(namespaceId, animationId, entityId, convertTimeModifier, buf.readVarInt()));
+				} else {
+					messages.add(new SPPlayAnimation(namespaceId, animationId, entityId, convertTimeModifier));
+				}
+			}
+		}
+		
+		return new SPAnimationBatch(messages);
+	}
+	
+	public static void toBytes(SPAnimationBatch msg, FriendlyByteBuf buf) {
+		buf.writeBytes(msg.payload, msg.payload.readerIndex(), msg.payload.readableBytes());
+	}
+	
+	public static void handle(SPAnimationBatch msg, Supplier<NetworkEvent.Context> ctx) {
+		ctx.get().enqueueWork(() -> {
+			for (Object message : msg.messages) {
+				if (message instanceof SPChangeLivingMotion livingMotionMsg) {
+					livingMotionMsg.onArrive();
+				} else {
+					((SPPlayAnimation)message).onArrive();
+				}
+			}
+		});
+		
+		ctx.get().setPacketHandled(true);
+	}
+}
\ No newline at end of file
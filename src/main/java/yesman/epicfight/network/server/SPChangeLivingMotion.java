@@ -19,11 +19,11 @@ import yesman.epicfight.world.capabilities.EpicFightCapabilities;
 import yesman.epicfight.world.capabilities.entitypatch.LivingEntityPatch;
 
 public class SPChangeLivingMotion {
-	private int entityId;
-	private int count;
-	private boolean setChangesAsDefault;
-	private List<LivingMotion> motionList = Lists.newArrayList();
-	private List<StaticAnimation> animationList = Lists.newArrayList();
+	protected int entityId;
+	protected int count;
+	protected boolean setChangesAsDefault;
+	protected List<LivingMotion> motionList = Lists.newArrayList();
+	protected List<StaticAnimation> animationList = Lists.newArrayList();
 	
 	public SPChangeLivingMotion() {
 		this(-1);
@@ -97,28 +97,32 @@ public class SPChangeLivingMotion {
 		}
 	}
 	
-	public static void handle(SPChangeLivingMotion msg, Supplier<NetworkEvent.Context> ctx) {
-		ctx.get().enqueueWork(() -> {
-			Minecraft mc = Minecraft.getInstance();
-			Entity entity = mc.player.level.getEntity(msg.entityId);
-			
-			if (entity != null) {
-				if (entity.getCapability(EpicFightCapabilities.CAPABILITY_ENTITY).orElse(null) instanceof LivingEntityPatch<?> entitypatch) {
-					ClientAnimator animator = entitypatch.getClientAnimator();
-					animator.resetLivingAnimations();
-					animator.offAllLayers();
-					animator.resetMotion();
-					animator.resetCompositeMotion();
-					
-					for (int i = 0; i < msg.count; i++) {
-						entitypatch.getClientAnimator().addLivingAnimation(msg.motionList.get(i), msg.animationList.get(i));
-					}
-					
-					if (msg.setChangesAsDefault) {
-						animator.setCurrentMotionsAsDefault();
-					}
+	public void onArrive() {
+		Minecraft mc = Minecraft.getInstance();
+		Entity entity = mc.player.level.getEntity(this.entityId);
+		
+		if (entity != null) {
+			if (entity.getCapability(EpicFightCapabilities.CAPABILITY_ENTITY).orElse(null) instanceof LivingEntityPatch<?> entitypatch) {
+				ClientAnimator animator = entitypatch.getClientAnimator();
+				animator.resetLivingAnimations();
+				animator.offAllLayers();
+				animator.resetMotion();
+				animator.resetCompositeMotion();
+				
+				for (int i = 0; i < this.count; i++) {
+					entitypatch.getClientAnimator().addLivingAnimation(this.motionList.get(i), this.animationList.get(i));
+				}
+				
+				if (this.setChangesAsDefault) {
+					animator.setCurrentMotionsAsDefault();
 				}
 			}
+		}
+	}
+	
+	public static void handle(SPChangeLivingMotion msg, Supplier<NetworkEvent.Context> ctx) {
+		ctx.get().enqueueWork(() -> {
+			msg.onArrive();
 		});
 		
 		ctx.get().setPacketHandled(true);
@@ -60,18 +60,22 @@ public class SPDatapackSync {
 	
 	public static void handle(SPDatapackSync msg, Supplier<NetworkEvent.Context> ctx) {
 		ctx.get().enqueueWork(() -> {
-			if (msg.getType() == Type.MOB) {
-				MobPatchReloadListener.processServerPacket(msg);
-			} else if (msg.getType() == Type.SKILL_PARAMS) {
-				SkillManager.processServerPacket((SPDatapackSyncSkill)msg);
-			} else {
-				ItemCapabilityReloadListener.processServerPacket(msg);
-			}
+			process(msg);
 		});
 		
 		ctx.get().setPacketHandled(true);
 	}
 	
+	public static void process(SPDatapackSync msg) {
+		if (msg.getType() == Type.MOB) {
+			MobPatchReloadListener.processServerPacket(msg);
+		} else if (msg.getType() == Type.SKILL_PARAMS) {
+			SkillManager.processServerPacket((SPDatapackSyncSkill)msg);
+		} else {
+			ItemCapabilityReloadListener.processServerPacket(msg);
+		}
+	}
+	
 	public static enum Type {
 		ARMOR, WEAPON, MOB, SKILL_PARAMS
 	}
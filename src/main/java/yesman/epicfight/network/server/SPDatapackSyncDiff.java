@@ -0,0 +1,98 @@
+package yesman.epicfight.network.server;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.function.Supplier;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+import io.netty.handler.codec.DecoderException;
+import io.netty.handler.codec.EncoderException;
+import net.minecraft.nbt.CompoundTag;
+import net.minecraft.nbt.NbtAccounter;
+import net.minecraft.nbt.NbtIo;
+import net.minecraft.network.FriendlyByteBuf;
+import net.minecraftforge.network.NetworkEvent;
+import yesman.epicfight.network.DatapackDiffSync;
+
+/**
+ * Datapack entries missing in the client cache with their hashes, written as one deflate stream.
+ * A complete diff holds every entry of the type in order and replaces the manifest the client received before.
+ */
+public class SPDatapackSyncDiff {
+	private final SPDatapackSync.Type type;
+	private final boolean complete;
+	private final long[] hashes;
+	private final CompoundTag[] tags;
+	
+	public SPDatapackSyncDiff(SPDatapackSync.Type type, boolean complete, long[] hashes, CompoundTag[] tags) {
+		this.type = type;
+		this.complete = complete;
+		this.hashes = hashes;
+		this.tags = tags;
+	}
+	
+	public SPDatapackSync.Type getType() {
+		return this.type;
+	}
+	
+	public boolean isComplete() {
+		return this.complete;
+	}
+	
+	public long[] getHashes() {
+		return this.hashes;
+	}
+	
+	public CompoundTag[] getTags() {
+		return this.tags;
+	}
+	
+	public static SPDatapackSyncDiff fromBytes(FriendlyByteBuf buf) {
+		SPDatapackSync.Type type = SPDatapackSync.Type.values()[buf.readVarInt()];
+		boolean complete = buf.readBoolean();
+		int count = buf.readVarInt();
+		long[] hashes = new long[count];
+		CompoundTag[] tags = new CompoundTag[count];
+		
+		try (DataInputStream in = new DataInputStream(new InflaterInputStream(new ByteArrayInputStream(buf.readByteArray())))) {
+			for (int i = 0; i < count; i++) {
+				hashes[i] = in.readLong();
+				tags[i] = NbtIo.read(in, new NbtAccounter(2097152L));
+			}
+		} catch (IOException e) {
+			throw new DecoderException("Failed to read datapack entries", e);
+		}
+		
+		return new SPDatapackSyncDiff(type, complete, hashes, tags);
+	}
+	
+	public static void toBytes(SPDatapackSyncDiff msg, FriendlyByteBuf buf) {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		
+		try (DataOutputStream out = new DataOutputStream(new DeflaterOutputStream(bytes))) {
+			for (int i = 0; i < msg.tags.length; i++) {
+				out.writeLong(msg.hashes[i]);
+				NbtIo.write(msg.tags[i], out);
+			}
+		} catch (IOException e) {
+			throw new EncoderException("Failed to write datapack entries", e);
+		}
+		
+		buf.writeVarInt(msg.type.ordinal());
+		buf.writeBoolean(msg.complete);
+		buf.writeVarInt(msg.tags.length);
+		buf.writeByteArray(bytes.toByteArray());
+	}
+	
+	public static void handle(SPDatapackSyncDiff msg, Supplier<NetworkEvent.Context> ctx) {
+		ctx.get().enqueueWork(() -> {
+			DatapackDiffSync.receiveEntries(msg);
+		});
+		
+		ctx.get().setPacketHandled(true);
+	}
+}
\ No newline at end of file
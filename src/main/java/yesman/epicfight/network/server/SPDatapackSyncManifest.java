@@ -0,0 +1,62 @@
+package yesman.epicfight.network.server;
+
+import java.util.function.Supplier;
+
+import net.minecraft.network.FriendlyByteBuf;
+import net.minecraftforge.network.NetworkEvent;
+import yesman.epicfight.network.DatapackDiffSync;
+
+/** Content hashes of the datapack entries of a type in sending order, the client requests the entries it doesn't have cached **/
+public class SPDatapackSyncManifest {
+	private final SPDatapackSync.Type type;
+	private final int manifestId;
+	private final long[] hashes;
+	
+	public SPDatapackSyncManifest(SPDatapackSync.Type type, int manifestId, long[] hashes) {
+		this.type = type;
+		this.manifestId = manifestId;
+		this.hashes = hashes;
+	}
+	
+	public SPDatapackSync.Type getType() {
+		return this.type;
+	}
+	
+	public int getManifestId() {
+		return this.manifestId;
+	}
+	
+	public long[] getHashes() {
+		return this.hashes;
+	}
+	
+	public static SPDatapackSyncManifest fromBytes(FriendlyByteBuf buf) {
+		SPDatapackSync.Type type = SPDatapackSync.Type.values()[buf.readVarInt()];
+		int manifestId = buf.readVarInt();
+		long[] hashes = new long[buf.readVarInt()];
+		
+		for (int i = 0; i < hashes.length; i++) {
+			hashes[i] = buf.readLong();
+		}
+		
+		return new SPDatapackSyncManifest(type, manifestId, hashes);
+	}
+	
+	public static void toBytes(SPDatapackSyncManifest msg, FriendlyByteBuf buf) {
+		buf.writeVarInt(msg.type.ordinal());
+		buf.writeVarInt(msg.manifestId);
+		buf.writeVarInt(msg.hashes.length);
+		
+		for (long hash : msg.hashes) {
+			buf.writeLong(hash);
+		}
+	}
+	
+	public static void handle(SPDatapackSyncManifest msg, Supplier<NetworkEvent.Context> ctx) {
+		ctx.get().enqueueWork(() -> {
+			DatapackDiffSync.receiveManifest(msg);
+		});
+		
+		ctx.get().setPacketHandled(true);
+	}
+}
\ No newline at end of file
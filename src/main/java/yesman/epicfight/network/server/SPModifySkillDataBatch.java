@@ -0,0 +1,94 @@
+package yesman.epicfight.network.server;
+
+import java.util.List;
+import java.util.function.Supplier;
+
+import com.google.common.collect.Lists;
+
+import io.netty.buffer.Unpooled;
+import net.minecraft.client.Minecraft;
+import net.minecraft.network.FriendlyByteBuf;
+import net.minecraft.world.entity.Entity;
+import net.minecraftforge.network.NetworkEvent;
+import yesman.epicfight.skill.SkillDataManager.SkillDataKey;
+import yesman.epicfight.world.capabilities.EpicFightCapabilities;
+import yesman.epicfight.world.capabilities.entitypatch.player.PlayerPatch;
+
+/** Skill data of a player changed during a tick, entries are encoded when they are added **/
+public class SPModifySkillDataBatch {
+	private final int entityId;
+	private final FriendlyByteBuf payload;
+	private int count;
+	private final List<Entry> entries;
+	
+	public SPModifySkillDataBatch(int entityId) {
+		this.entityId = entityId;
+		this.payload = new FriendlyByteBuf(Unpooled.buffer());
+		this.entries = null;
+	}
+	
+	private SPModifySkillDataBatch(int entityId, List<Entry> entries) {
+		this.entityId = entityId;
+		this.payload = null;
+		this.count = entries.size();
+		this.entries = entries;
+	}
+	
+	public void add(int slot, SkillDataKey<?> key, Object value) {
+		this.payload.writeVarInt(slot);
+		this.payload.writeVarInt(key.getId());
+		key.getValueType().writeToBuffer(this.payload, value);
+		this.count++;
+	}
+	
+	public boolean isEmpty() {
+		return this.count == 0;
+	}
+	
+	public static SPModifySkillDataBatch fromBytes(FriendlyByteBuf buf) {
+		int entityId = buf.readVarInt();
+		int count = buf.readVarInt();
+		List<Entry> entries = Lists.newArrayListWithCapacity(count);
+		
+		for (int i = 0; i < count; i++) {
+			int slot = buf.readVarInt();
+			SkillDataKey<?> key = SkillDataKey.findById(buf.readVarInt());
+			entries.add(new Entry(slot, key, key.getValueType().readFromBuffer(buf)));
+		}
+		
+		return new SPModifySkillDataBatch(entityId, entries);
+	}
+	
+	public static void toBytes(SPModifySkillDataBatch msg, FriendlyByteBuf buf) {
+		buf.writeVarInt(msg.entityId);
+		buf.writeVarInt(msg.count);
+		buf.writeBytes(msg.payload, msg.payload.readerIndex(), msg.payload.readableBytes());
+	}
+	
+	@SuppressWarnings("deprecation")
+	public static void handle(SPModifySkillDataBatch msg, Supplier<NetworkEvent.Context> ctx) {
+		ctx.get().enqueueWork(() -> {
+			Minecraft mc = Minecraft.getInstance();
+			Entity entity = mc.level.getEntity(msg.entityId);
+			
+			if (entity != null && entity.getCapability(EpicFightCapabilities.CAPABILITY_ENTITY).orElse(null) instanceof PlayerPatch<?> playerpatch) {
+				for (Entry entry : msg.entries) {
+					playerpatch.getSkill(entry.slot).getDataManager().setDataRawtype(entry.key, entry.value);
+				}
+			}
+		});
+		ctx.get().setPacketHandled(true);
+	}
+	
+	private static class Entry {
+		final int slot;
+		final SkillDataKey<?> key;
+		final Object value;
+		
+		Entry(int slot, SkillDataKey<?> key, Object value) {
+			this.slot = slot;
+			this.key = key;
+			this.value = value;
+		}
+	}
+}
\ No newline at end of file
@@ -1,7 +1,12 @@
 package yesman.epicfight.network.server;
 
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Function;
 import java.util.function.Supplier;
 
+import com.google.common.collect.Sets;
+
 import io.netty.buffer.Unpooled;
 import net.minecraft.client.Minecraft;
 import net.minecraft.network.FriendlyByteBuf;
@@ -10,7 +15,14 @@ import net.minecraftforge.network.NetworkEvent;
 import yesman.epicfight.world.capabilities.EpicFightCapabilities;
 import yesman.epicfight.world.capabilities.entitypatch.EntityPatch;
 
+/**
+ * The payload is copied in bulk when encoding, without moving the reader index so the message can be sent more than once.
+ * On the client it is a retained slice of the packet buffer, released after the handler ran on the main thread. Work that never
+ * runs because the connection closed first is released by {@link #releasePending()}.
+ */
 public class SPSpawnData {
+	private static final Set<SPSpawnData> PENDING = Sets.newConcurrentHashSet();
+	
 	private int entityId;
 	private FriendlyByteBuf buffer;
 	
@@ -24,42 +36,78 @@ public class SPSpawnData {
 		this.buffer = new FriendlyByteBuf(Unpooled.buffer());
 	}
 	
+	private SPSpawnData(int entityId, FriendlyByteBuf buffer) {
+		this.entityId = entityId;
+		this.buffer = buffer;
+	}
+	
 	public FriendlyByteBuf getBuffer() {
 		return this.buffer;
 	}
 	
+	public boolean release() {
+		return this.buffer.release();
+	}
+	
 	public static SPSpawnData fromBytes(FriendlyByteBuf buf) {
-		SPSpawnData msg = new SPSpawnData(buf.readInt());
-
-		while (buf.isReadable()) {
-			msg.buffer.writeByte(buf.readByte());
-		}
-
-		return msg;
+		int entityId = buf.readInt();
+		return new SPSpawnData(entityId, new FriendlyByteBuf(buf.readRetainedSlice(buf.readableBytes())));
 	}
 	
 	public static void toBytes(SPSpawnData msg, FriendlyByteBuf buf) {
 		buf.writeInt(msg.entityId);
-
-		while (msg.buffer.isReadable()) {
-			buf.writeByte(msg.buffer.readByte());
-		}
+		buf.writeBytes(msg.buffer, msg.buffer.readerIndex(), msg.buffer.readableBytes());
 	}
 	
 	public static void handle(SPSpawnData msg, Supplier<NetworkEvent.Context> ctx) {
-		ctx.get().enqueueWork(() -> {
-			Minecraft mc = Minecraft.getInstance();
-			Entity entity = mc.player.level.getEntity(msg.entityId);
-			
-			if (entity != null) {
-				EntityPatch<?> entitypatch = entity.getCapability(EpicFightCapabilities.CAPABILITY_ENTITY).orElse(null);
+		handle(msg, ctx.get()::enqueueWork, SPSpawnData::processSpawnData);
+		ctx.get().setPacketHandled(true);
+	}
+	
+	/** The payload is claimed by removing it from the pending set, either by the work or by the disconnect fallback **/
+	static void handle(SPSpawnData msg, Function<Runnable, ?> enqueueWork, Consumer<SPSpawnData> processor) {
+		PENDING.add(msg);
+		
+		try {
+			enqueueWork.apply(() -> {
+				if (!PENDING.remove(msg)) {
+					return;
+				}
 				
-				if (entitypatch != null) {
-					entitypatch.processSpawnData(msg.getBuffer());
+				try {
+					processor.accept(msg);
+				} finally {
+					msg.release();
 				}
+			});
+		} catch (RuntimeException e) {
+			if (PENDING.remove(msg)) {
+				msg.release();
+			}
+			
+			throw e;
+		}
+	}
+	
+	/** Releases the payloads of the spawn packets whose work didn't run, must be called when the client disconnects **/
+	public static void releasePending() {
+		for (SPSpawnData msg : PENDING) {
+			if (PENDING.remove(msg)) {
+				msg.release();
 			}
-		});
+		}
+	}
+	
+	private static void processSpawnData(SPSpawnData msg) {
+		Minecraft mc = Minecraft.getInstance();
+		Entity entity = mc.player.level.getEntity(msg.entityId);
 		
-		ctx.get().setPacketHandled(true);
+		if (entity != null) {
+			EntityPatch<?> entitypatch = entity.getCapability(EpicFightCapabilities.CAPABILITY_ENTITY).orElse(null);
+			
+			if (entitypatch != null) {
+				entitypatch.processSpawnData(msg.getBuffer());
+			}
+		}
 	}
 }
\ No newline at end of file
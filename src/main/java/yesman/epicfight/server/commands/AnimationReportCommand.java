@@ -0,0 +1,83 @@
+package yesman.epicfight.server.commands;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import com.google.common.collect.Lists;
+import com.mojang.brigadier.CommandDispatcher;
+import com.mojang.brigadier.context.CommandContext;
+
+import net.minecraft.commands.CommandSourceStack;
+import net.minecraft.commands.Commands;
+import net.minecraft.resources.ResourceLocation;
+import yesman.epicfight.api.animation.CompressedTransformSheet;
+import yesman.epicfight.api.animation.TransformSheet;
+import yesman.epicfight.api.animation.types.StaticAnimation;
+import yesman.epicfight.config.ConfigManager;
+import yesman.epicfight.main.EpicFightMod;
+
+/**
+ * Writes the size of every animation and the error of its compressed keyframes against the raw ones to epicfight_cache/keyframe_compression.csv.
+ * Loaded sheets are compressed with the configured tolerances when the compression is disabled. Animations the lazy loader keeps
+ * on the disk are listed without statistics instead of being materialized for the report.
+ */
+public class AnimationReportCommand {
+	public static void register(CommandDispatcher<CommandSourceStack> dispatcher) {
+		dispatcher.register(Commands.literal("epicfight").then(Commands.literal("animation_report").requires((commandSourceStack) -> commandSourceStack.hasPermission(2)).executes(AnimationReportCommand::writeReport)));
+	}
+	
+	private static int writeReport(CommandContext<CommandSourceStack> command) {
+		float positionTolerance = ConfigManager.KEYFRAME_POSITION_TOLERANCE.get().floatValue();
+		float angleTolerance = ConfigManager.KEYFRAME_ANGLE_TOLERANCE.get().floatValue();
+		List<String> lines = Lists.newArrayList("animation,resident,sheets,raw_keyframes,kept_keyframes,raw_bytes,compressed_bytes,max_angle_error_deg,max_position_error");
+		int reported = 0;
+		int skipped = 0;
+		long totalRawBytes = 0L;
+		long totalCompressedBytes = 0L;
+		float maxAngleError = 0.0F;
+		float maxPositionError = 0.0F;
+		
+		for (Map.Entry<ResourceLocation, StaticAnimation> entry : EpicFightMod.getInstance().animationManager.getNameMap().entrySet()) {
+			if (!entry.getValue().isResident()) {
+				lines.add(entry.getKey() + ",false,,,,,,,");
+				skipped++;
+				continue;
+			}
+			
+			int rawKeyframes = 0;
+			int keptKeyframes = 0;
+			long rawBytes = 0L;
+			long compressedBytes = 0L;
+			float animationAngleError = 0.0F;
+			float animationPositionError = 0.0F;
+			Map<String, TransformSheet> sheets = entry.getValue().getTransfroms();
+			
+			for (TransformSheet sheet : sheets.values()) {
+				TransformSheet compressed = CompressedTransformSheet.compress(sheet, positionTolerance, angleTolerance);
+				keptKeyframes += compressed.getKeyframes().length;
+				compressedBytes += compressed.getEstimatedBytes();
+				
+				if (compressed instanceof CompressedTransformSheet compressedSheet) {
+					rawKeyframes += compressedSheet.getRawKeyframeCount();
+					rawBytes += compressedSheet.getRawEstimatedBytes();
+					animationAngleError = Math.max(animationAngleError, compressedSheet.getMaxAngleError());
+					animationPositionError = Math.max(animationPositionError, compressedSheet.getMaxPositionError());
+				} else {
+					rawKeyframes += sheet.getKeyframes().length;
+					rawBytes += sheet.getEstimatedBytes();
+				}
+			}
+			
+			lines.add(String.format(Locale.ROOT, "%s,true,%d,%d,%d,%d,%d,%.5f,%.6f", entry.getKey(), sheets.size(), rawKeyframes, keptKeyframes, rawBytes, compressedBytes, animationAngleError, animationPositionError));
+			totalRawBytes += rawBytes;
+			totalCompressedBytes += compressedBytes;
+			maxAngleError = Math.max(maxAngleError, animationAngleError);
+			maxPositionError = Math.max(maxPositionError, animationPositionError);
+			reported++;
+		}
+		
+		return CommandReports.write(command.getSource(), "keyframe_compression.csv", lines, reported, "commands.epicfight.animation_report.success", reported, skipped, totalRawBytes >> 10,
+									totalCompressedBytes >> 10, String.format(Locale.ROOT, "%.4f", maxAngleError), String.format(Locale.ROOT, "%.5f", maxPositionError));
+	}
+}
\ No newline at end of file
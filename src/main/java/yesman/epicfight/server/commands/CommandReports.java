@@ -0,0 +1,40 @@
+package yesman.epicfight.server.commands;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+
+import net.minecraft.commands.CommandSourceStack;
+import net.minecraft.network.chat.TranslatableComponent;
+import net.minecraftforge.fml.loading.FMLPaths;
+import yesman.epicfight.main.EpicFightMod;
+
+/** Writes the csv files of the report commands to epicfight_cache **/
+class CommandReports {
+	/**
+	 * Sends the success message only when the lines were written, the path of the file is appended to its arguments.
+	 * A failed write is reported to the source instead.
+	 * @return the result of the command, 0 if the file couldn't be written
+	 */
+	static int write(CommandSourceStack source, String fileName, List<String> lines, int result, String successKey, Object... successArgs) {
+		Path reportFile = FMLPaths.GAMEDIR.get().resolve("epicfight_cache").resolve(fileName);
+		
+		try {
+			Files.createDirectories(reportFile.getParent());
+			Files.write(reportFile, lines);
+		} catch (IOException e) {
+			EpicFightMod.LOGGER.warn("Failed to write report " + reportFile + ": " + e);
+			source.sendFailure(new TranslatableComponent("commands.epicfight.report.failed", reportFile.toString()));
+			
+			return 0;
+		}
+		
+		Object[] args = Arrays.copyOf(successArgs, successArgs.length + 1);
+		args[successArgs.length] = reportFile.toString();
+		source.sendSuccess(new TranslatableComponent(successKey, args), true);
+		
+		return result;
+	}
+}
\ No newline at end of file
@@ -0,0 +1,42 @@
+package yesman.epicfight.server.commands;
+
+import java.util.List;
+import java.util.Locale;
+
+import com.google.common.collect.Lists;
+import com.mojang.brigadier.CommandDispatcher;
+import com.mojang.brigadier.context.CommandContext;
+
+import net.minecraft.commands.CommandSourceStack;
+import net.minecraft.commands.Commands;
+import yesman.epicfight.world.entity.eventlistener.PlayerEventListener.EventType;
+
+/**
+ * Writes the dispatch count and time of every player event type to epicfight_cache/event_dispatch.csv and resets them once written.
+ * The statistics are only collected while performance.event_dispatch_statistics is enabled.
+ */
+public class EventDispatchReportCommand {
+	public static void register(CommandDispatcher<CommandSourceStack> dispatcher) {
+		dispatcher.register(Commands.literal("epicfight").then(Commands.literal("event_dispatch_report").requires((commandSourceStack) -> commandSourceStack.hasPermission(2)).executes(EventDispatchReportCommand::writeReport)));
+	}
+	
+	private static int writeReport(CommandContext<CommandSourceStack> command) {
+		List<String> lines = Lists.newArrayList("event,dispatches,total_us,average_ns");
+		long totalDispatches = 0L;
+		
+		for (EventType<?> eventType : EventType.values()) {
+			long dispatches = eventType.getDispatchCount();
+			long nanos = eventType.getDispatchNanos();
+			lines.add(String.format(Locale.ROOT, "%s,%d,%d,%d", eventType, dispatches, nanos / 1000L, dispatches == 0L ? 0L : nanos / dispatches));
+			totalDispatches += dispatches;
+		}
+		
+		int result = CommandReports.write(command.getSource(), "event_dispatch.csv", lines, lines.size() - 1, "commands.epicfight.event_dispatch_report.success", lines.size() - 1, totalDispatches);
+		
+		if (result > 0) {
+			EventType.values().forEach(EventType::resetStatistics);
+		}
+		
+		return result;
+	}
+}
\ No newline at end of file
@@ -1,10 +1,13 @@
 package yesman.epicfight.skill;
 
+import java.util.Arrays;
+import java.util.BitSet;
 import java.util.Map;
 import java.util.Set;
 import java.util.function.Function;
 
 import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
 
 import net.minecraft.client.player.LocalPlayer;
 import net.minecraft.network.FriendlyByteBuf;
@@ -13,15 +16,21 @@ import net.minecraft.world.entity.player.Player;
 import net.minecraftforge.api.distmarker.Dist;
 import net.minecraftforge.api.distmarker.OnlyIn;
 import yesman.epicfight.network.EpicFightNetworkManager;
+import yesman.epicfight.network.SkillDataSynchronizer;
 import yesman.epicfight.network.client.CPModifySkillData;
 import yesman.epicfight.network.server.SPAddOrRemoveSkillData;
 import yesman.epicfight.network.server.SPModifySkillData;
-import yesman.epicfight.skill.SkillDataManager.Data.BooleanData;
-import yesman.epicfight.skill.SkillDataManager.Data.FloatData;
-import yesman.epicfight.skill.SkillDataManager.Data.IntegerData;
+import yesman.epicfight.network.server.SPModifySkillDataBatch;
 
+/**
+ * Values are packed by their {@link ValueType} into an int array indexed by the key id. Keys synchronized by the server
+ * are marked dirty and sent once per tick by {@link SkillDataSynchronizer}.
+ */
 public class SkillDataManager {
-	private final Map<SkillDataKey<?>, Data> data = Maps.newHashMap();
+	private final Set<SkillDataKey<?>> keys = Sets.newHashSet();
+	private final BitSet registeredKeys = new BitSet();
+	private final BitSet dirtyKeys = new BitSet();
+	private int[] values = new int[0];
 	private final int slotIndex;
 	private final SkillContainer container;
 	
@@ -31,11 +40,17 @@ public class SkillDataManager {
 	}
 	
 	public <T> void registerData(SkillDataKey<T> key) {
-		this.data.put(key, key.valueType.create());
+		if (this.values.length <= key.id) {
+			this.values = Arrays.copyOf(this.values, key.id + 1);
+		}
+		
+		this.keys.add(key);
+		this.registeredKeys.set(key.id);
+		this.values[key.id] = 0;
 		
 		if (key.shouldSyncAllClients() && !this.container.getExecuter().isLogicalClient()) {
 			Player owner = this.container.getExecuter().getOriginal();
-			Object initialValue =  key.valueType.get(this.data.get(key));
+			Object initialValue =  key.valueType.unpack(this.values[key.id]);
 			
 			EpicFightNetworkManager.sendToAllPlayerTrackingThisEntity(
 					new SPAddOrRemoveSkillData(key, container.getSlot().universalOrdinal(), initialValue, SPAddOrRemoveSkillData.AddRemove.ADD, owner.getId()),
@@ -44,7 +59,9 @@ public class SkillDataManager {
 	}
 	
 	public <T> void removeData(SkillDataKey<T> key) {
-		this.data.remove(key);
+		this.keys.remove(key);
+		this.registeredKeys.clear(key.id);
+		this.dirtyKeys.clear(key.id);
 		
 		if (key.shouldSyncAllClients() && !this.container.getExecuter().isLogicalClient()) {
 			Player owner = this.container.getExecuter().getOriginal();
@@ -56,7 +73,7 @@ public class SkillDataManager {
 	}
 	
 	public Set<SkillDataKey<?>> keySet() {
-		return this.data.keySet();
+		return this.keys;
 	}
 	
 	/**
@@ -65,7 +82,7 @@ public class SkillDataManager {
 	@Deprecated
 	public void setDataRawtype(SkillDataKey<?> key, Object data) {
 		if (this.hasData(key)) {
-			key.valueType.set(this.data.get(key), data);
+			this.values[key.id] = key.valueType.pack(data);
 		}
 	}
 	
@@ -84,15 +101,15 @@ public class SkillDataManager {
 	
 	public <T> void setDataSyncF(SkillDataKey<T> key, Function<T, T> dataManipulator, ServerPlayer player) {
 		this.setDataF(key, dataManipulator);
-		SPModifySkillData msg = new SPModifySkillData(key, this.slotIndex, this.getDataValue(key), player.getId());
-		EpicFightNetworkManager.sendToPlayer(msg, player);
-		
-		if (key.shouldSyncAllClients()) {
-			EpicFightNetworkManager.sendToAllPlayerTrackingThisEntity(msg, player);
-		}
+		this.syncData(key, player);
 	}
 	
 	public <T> void syncData(SkillDataKey<T> key, ServerPlayer player) {
+		if (this.hasData(key) && SkillDataSynchronizer.markDirty(player, this)) {
+			this.markDirty(key);
+			return;
+		}
+		
 		SPModifySkillData msg = new SPModifySkillData(key, this.slotIndex, this.getDataValue(key), player.getId());
 		EpicFightNetworkManager.sendToPlayer(msg, player);
 		
@@ -115,32 +132,42 @@ public class SkillDataManager {
 	
 	public <T> T getDataValue(SkillDataKey<T> key) {
 		if (this.hasData(key)) {
-			return key.valueType.get(this.data.get(key));
+			return key.valueType.unpack(this.values[key.id]);
 		}
 		
 		return null;
 	}
 	
 	public boolean hasData(SkillDataKey<?> key) {
-		return this.data.containsKey(key);
+		return this.registeredKeys.get(key.id);
 	}
 	
-	public void reset() {
-		this.data.clear();
+	/** Queues a registered key for the next {@link #writeDirtyData} **/
+	public void markDirty(SkillDataKey<?> key) {
+		if (this.hasData(key)) {
+			this.dirtyKeys.set(key.id);
+		}
 	}
 	
-	static abstract class Data {
-		static class IntegerData extends Data {
-			int data;
-		}
-		
-		static class BooleanData extends Data {
-			boolean data;
+	/** Writes the dirty keys that are still registered, the shared ones also go to the tracker packet **/
+	public void writeDirtyData(SPModifySkillDataBatch ownerPacket, SPModifySkillDataBatch trackerPacket) {
+		for (int id = this.dirtyKeys.nextSetBit(0); id >= 0; id = this.dirtyKeys.nextSetBit(id + 1)) {
+			SkillDataKey<?> key = SkillDataKey.findById(id);
+			Object value = key.valueType.unpack(this.values[id]);
+			ownerPacket.add(this.slotIndex, key, value);
+			
+			if (key.shouldSyncAllClients()) {
+				trackerPacket.add(this.slotIndex, key, value);
+			}
 		}
 		
-		static class FloatData extends Data {
-			float data;
-		}
+		this.dirtyKeys.clear();
+	}
+	
+	public void reset() {
+		this.keys.clear();
+		this.registeredKeys.clear();
+		this.dirtyKeys.clear();
 	}
 	
 	public static abstract class ValueType<T> {
@@ -148,26 +175,20 @@ public class SkillDataManager {
 		public static final FloatType FLOAT = new FloatType();
 		public static final BooleanType BOOLEAN = new BooleanType();
 		
-		public abstract Data create();
-		public abstract void set(Data data, Object value);
-		public abstract T get(Data data);
+		public abstract int pack(Object value);
+		public abstract T unpack(int bits);
 		public abstract void writeToBuffer(FriendlyByteBuf buf, Object data);
 		public abstract T readFromBuffer(FriendlyByteBuf buf);
 		
 		private static class IntegerType extends ValueType<Integer> {
 			@Override
-			public IntegerData create() {
-				return new IntegerData();
+			public int pack(Object value) {
+				return (int)value;
 			}
 			
 			@Override
-			public void set(Data data, Object value) {
-				((IntegerData)data).data = (int)value;
-			}
-			
-			@Override
-			public Integer get(Data data) {
-				return data != null ? ((IntegerData)data).data : 0;
+			public Integer unpack(int bits) {
+				return bits;
 			}
 			
 			@Override
@@ -183,18 +204,13 @@ public class SkillDataManager {
 		
 		private static class BooleanType extends ValueType<Boolean> {
 			@Override
-			public BooleanData create() {
-				return new BooleanData();
-			}
-			
-			@Override
-			public void set(Data data, Object value) {
-				((BooleanData)data).data = (boolean)value;
+			public int pack(Object value) {
+				return (boolean)value ? 1 : 0;
 			}
 			
 			@Override
-			public Boolean get(Data data) {
-				return data != null ? ((BooleanData)data).data : false;
+			public Boolean unpack(int bits) {
+				return bits != 0;
 			}
 			
 			@Override
@@ -210,18 +226,13 @@ public class SkillDataManager {
 		
 		private static class FloatType extends ValueType<Float> {
 			@Override
-			public FloatData create() {
-				return new FloatData();
-			}
-			
-			@Override
-			public void set(Data data, Object value) {
-				((FloatData)data).data = (float)value;
+			public int pack(Object value) {
+				return Float.floatToRawIntBits((float)value);
 			}
 			
 			@Override
-			public Float get(Data data) {
-				return data != null ? ((FloatData)data).data : 0.0F;
+			public Float unpack(int bits) {
+				return Float.intBitsToFloat(bits);
 			}
 			
 			@Override
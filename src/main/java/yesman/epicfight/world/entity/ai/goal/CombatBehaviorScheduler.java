@@ -0,0 +1,37 @@
+package yesman.epicfight.world.entity.ai.goal;
+
+import net.minecraft.server.MinecraftServer;
+import net.minecraft.world.entity.Mob;
+import yesman.epicfight.config.ConfigManager;
+
+/**
+ * Spreads the behavior decisions of idle mobs across server ticks. At most {@link ConfigManager#COMBAT_DECISION_BUDGET} series are
+ * selected per tick (0 is unlimited), a mob deferred for {@link #MAX_DEFERRED_DECISIONS} ticks decides regardless so none of them starves.
+ * Ongoing series aren't scheduled since their follow up motions are timed by the animations.
+ */
+public class CombatBehaviorScheduler {
+	private static final int MAX_DEFERRED_DECISIONS = 10;
+	private static int currentTick = -1;
+	private static int decisions;
+	
+	public static boolean tryAcquire(Mob mob, int deferredDecisions) {
+		int budget = ConfigManager.COMBAT_DECISION_BUDGET.get();
+		MinecraftServer server = mob.getServer();
+		
+		if (budget <= 0 || server == null || !server.isSameThread()) {
+			return true;
+		}
+		
+		if (currentTick != server.getTickCount()) {
+			currentTick = server.getTickCount();
+			decisions = 0;
+		}
+		
+		if (decisions < budget || deferredDecisions >= MAX_DEFERRED_DECISIONS) {
+			decisions++;
+			return true;
+		}
+		
+		return false;
+	}
+}
\ No newline at end of file
@@ -1,57 +1,159 @@
 package yesman.epicfight.world.entity.ai.goal;
 
+import java.util.BitSet;
 import java.util.List;
+import java.util.Random;
 import java.util.function.Consumer;
 import java.util.function.Function;
 
 import com.google.common.collect.Lists;
 
 import net.minecraft.world.entity.Entity;
+import net.minecraft.world.entity.LivingEntity;
 import yesman.epicfight.api.animation.types.StaticAnimation;
 import yesman.epicfight.network.server.SPPlayAnimation;
 import yesman.epicfight.world.capabilities.entitypatch.LivingEntityPatch.AnimationPacketProvider;
 import yesman.epicfight.world.capabilities.entitypatch.MobPatch;
 
+/**
+ * Weighted behavior series of a mob. The weights are compiled into an alias table at construction, a selection samples a series
+ * and only tests the predicates of the sampled one, rejecting it and sampling again if they fail. This picks every passing series
+ * with the same probability as a weighted choice over all of them while most selections test one or two series.
+ */
 public class CombatBehaviors<T extends MobPatch<?>> {
 	private final List<BehaviorSeries<T>> behaviorSeriesList = Lists.newArrayList();
 	private final T mobpatch;
+	private final float[] weights;
+	private final float[] aliasProbabilities;
+	private final int[] aliases;
+	private final float totalWeight;
+	private final BitSet testedSeries = new BitSet();
+	private final PredicateCache predicateCache = new PredicateCache();
 	private int currentBehaviorPointer;
+	private int deferredDecisions;
 	
 	protected CombatBehaviors(CombatBehaviors.Builder<T> builder, T mobpatch) {
 		builder.behaviorSeriesList.stream().map((behaviorSeriesBuilder) -> behaviorSeriesBuilder.build()).forEach(this.behaviorSeriesList::add);
 		this.mobpatch = mobpatch;
 		this.currentBehaviorPointer = -1;
+		
+		int size = this.behaviorSeriesList.size();
+		float totalWeight = 0.0F;
+		this.weights = new float[size];
+		this.aliasProbabilities = new float[size];
+		this.aliases = new int[size];
+		
+		for (int i = 0; i < size; i++) {
+			this.weights[i] = Math.max(this.behaviorSeriesList.get(i).weight, 0.0F);
+			totalWeight += this.weights[i];
+		}
+		
+		this.totalWeight = totalWeight;
+		
+		if (totalWeight > 0.0F) {
+			this.buildAliasTable();
+		}
+	}
+	
+	/** Vose's alias method, columns are scaled so the average is 1 and the overflow of large columns fills the small ones **/
+	private void buildAliasTable() {
+		int size = this.weights.length;
+		float[] scaled = new float[size];
+		int[] small = new int[size];
+		int[] large = new int[size];
+		int smallCount = 0;
+		int largeCount = 0;
+		
+		for (int i = 0; i < size; i++) {
+			scaled[i] = this.weights[i] * size / this.totalWeight;
+			
+			if (scaled[i] < 1.0F) {
+				small[smallCount++] = i;
+			} else {
+				large[largeCount++] = i;
+			}
+		}
+		
+		while (smallCount > 0 && largeCount > 0) {
+			int less = small[--smallCount];
+			int more = large[--largeCount];
+			this.aliasProbabilities[less] = scaled[less];
+			this.aliases[less] = more;
+			scaled[more] = (scaled[more] + scaled[less]) - 1.0F;
+			
+			if (scaled[more] < 1.0F) {
+				small[smallCount++] = more;
+			} else {
+				large[largeCount++] = more;
+			}
+		}
+		
+		while (largeCount > 0) {
+			int i = large[--largeCount];
+			this.aliasProbabilities[i] = 1.0F;
+			this.aliases[i] = i;
+		}
+		
+		// Leftovers of the rounding error
+		while (smallCount > 0) {
+			int i = small[--smallCount];
+			this.aliasProbabilities[i] = 1.0F;
+			this.aliases[i] = i;
+		}
+	}
+	
+	private int sampleAlias(Random random) {
+		int column = random.nextInt(this.weights.length);
+		return random.nextFloat() < this.aliasProbabilities[column] ? column : this.aliases[column];
 	}
 	
 	private int getRandomCombatBehaviorSeries() {
-		List<Integer> candidates = Lists.newArrayList();
-		List<Float> rescaledWeight = Lists.newArrayList();
-		float weightSum = 0.0F;
+		int size = this.behaviorSeriesList.size();
 		
-		for (int i = 0; i < this.behaviorSeriesList.size(); i++) {
-			if (this.currentBehaviorPointer != i) {
-				BehaviorSeries<T> move = this.behaviorSeriesList.get(i);
-				boolean result = move.test(this.mobpatch);
-				
-				if (result) {
-					weightSum += move.weight;
-					candidates.add(i);
-				}
+		if (this.totalWeight <= 0.0F) {
+			return -1;
+		}
+		
+		Random random = this.mobpatch.getOriginal().getRandom();
+		this.testedSeries.clear();
+		
+		if (this.currentBehaviorPointer >= 0) {
+			this.testedSeries.set(this.currentBehaviorPointer);
+		}
+		
+		for (int rejections = 0; rejections < size && this.testedSeries.cardinality() < size; rejections++) {
+			int index = this.sampleAlias(random);
+			
+			if (this.testedSeries.get(index)) {
+				continue;
+			}
+			
+			this.testedSeries.set(index);
+			
+			if (this.behaviorSeriesList.get(index).test(this.mobpatch, this.predicateCache)) {
+				this.behaviorSeriesList.get(index).resetCooldown(this, true);
+				return index;
 			}
 		}
 		
-		for (int i : candidates) {
-			rescaledWeight.add(this.behaviorSeriesList.get(i).weight / weightSum);
+		// Most of the weight failed, finish with a weighted choice over the series that weren't sampled yet
+		List<Integer> candidates = Lists.newArrayList();
+		float weightSum = 0.0F;
+		
+		for (int i = this.testedSeries.nextClearBit(0); i < size; i = this.testedSeries.nextClearBit(i + 1)) {
+			if (this.behaviorSeriesList.get(i).test(this.mobpatch, this.predicateCache)) {
+				weightSum += this.weights[i];
+				candidates.add(i);
+			}
 		}
 		
-		float random = this.mobpatch.getOriginal().getRandom().nextFloat();
 		float delta = 0.0F;
+		float randomValue = random.nextFloat() * weightSum;
 		
-		for (int i = 0; i < candidates.size(); i++) {
-			int index = candidates.get(i);
-			delta += rescaledWeight.get(i);
+		for (int index : candidates) {
+			delta += this.weights[index];
 			
-			if (random < delta) {
+			if (randomValue < delta) {
 				this.behaviorSeriesList.get(index).resetCooldown(this, true);
 				return index;
 			}
@@ -73,6 +175,12 @@ public class CombatBehaviors<T extends MobPatch<?>> {
 	}
 	
 	public Behavior<T> selectRandomBehaviorSeries() {
+		if (!CombatBehaviorScheduler.tryAcquire(this.mobpatch.getOriginal(), this.deferredDecisions)) {
+			this.deferredDecisions++;
+			return null;
+		}
+		
+		this.deferredDecisions = 0;
 		int seriesPointer = this.getRandomCombatBehaviorSeries();
 		
 		if (seriesPointer >= 0) {
@@ -113,7 +221,7 @@ public class CombatBehaviors<T extends MobPatch<?>> {
 		
 		Behavior<T> nextBehavior = currentBehaviorSeries.behaviors.get(currentBehaviorSeries.nextBehaviorPointer);
 		
-		if (nextBehavior.checkPredicates(this.mobpatch)) {
+		if (nextBehavior.checkPredicates(this.mobpatch, this.predicateCache)) {
 			currentBehaviorSeries.upCounter();
 			return nextBehavior;
 		} else {
@@ -175,11 +283,15 @@ public class CombatBehaviors<T extends MobPatch<?>> {
 		}
 		
 		public boolean test(T mobpatch) {
+			return this.test(mobpatch, new PredicateCache());
+		}
+		
+		public boolean test(T mobpatch, PredicateCache predicateCache) {
 			if (this.cooldown > 0) {
 				return false;
 			}
 			
-			return this.behaviors.get(this.nextBehaviorPointer).checkPredicates(mobpatch);
+			return this.behaviors.get(this.nextBehaviorPointer).checkPredicates(mobpatch, predicateCache);
 		}
 		
 		public void upCounter() {
@@ -265,12 +377,13 @@ public class CombatBehaviors<T extends MobPatch<?>> {
 		
 		private Behavior(Behavior.Builder<T> builder) {
 			this.behavior = builder.behavior;
-			this.predicates = builder.predicate;
+			this.predicates = Lists.newArrayList(builder.predicate);
+			this.predicates.sort((predicate1, predicate2) -> Integer.compare(predicate1.getCost(), predicate2.getCost()));
 		}
 		
-		private boolean checkPredicates(T mobpatch) {
+		private boolean checkPredicates(T mobpatch, PredicateCache predicateCache) {
 			for (BehaviorPredicate<T> predicate : this.predicates) {
-				if (!predicate.test(mobpatch)) {
+				if (!predicate.test(mobpatch, predicateCache)) {
 					return false;
 				}
 			}
@@ -362,7 +475,125 @@ public class CombatBehaviors<T extends MobPatch<?>> {
 	}
 	
 	public static abstract class BehaviorPredicate<T extends MobPatch<?>> {
+		private static final ClassValue<Class<?>> TEST_OWNER = new ClassValue<> () {
+			@Override
+			protected Class<?> computeValue(Class<?> type) {
+				try {
+					return type.getMethod("test", MobPatch.class).getDeclaringClass();
+				} catch (NoSuchMethodException e) {
+					return type;
+				}
+			}
+		};
+		
 		public abstract boolean test(T mobpatch);
+		
+		public boolean test(T mobpatch, PredicateCache predicateCache) {
+			return this.test(mobpatch);
+		}
+		
+		/** The cached test of a class only stands in for its own test(T), it must call test(T) when a subclass overrides it **/
+		protected final boolean isTestDeclaredBy(Class<?> type) {
+			return TEST_OWNER.get(this.getClass()) == type;
+		}
+		
+		/** Predicates of a behavior are tested in ascending cost order, the ones with the same cost keep the order they were added in **/
+		public int getCost() {
+			return 100;
+		}
+	}
+	
+	/** Values shared by the predicates, computed once per tick and target **/
+	public static class PredicateCache {
+		private static final int DISTANCE = 1;
+		private static final int VERTICAL_DISTANCE = 2;
+		private static final int ANGLE = 4;
+		private static final int HORIZONTAL_ANGLE = 8;
+		private static final int HEALTH = 16;
+		
+		private int tickCount = -1;
+		private LivingEntity target;
+		private int computed;
+		private double distanceSqr;
+		private double verticalDistance;
+		private double angle;
+		private double horizontalAngle;
+		private float health;
+		private float maxHealth;
+		
+		private void validate(MobPatch<?> mobpatch) {
+			LivingEntity target = mobpatch.getTarget();
+			
+			if (this.tickCount != mobpatch.getOriginal().tickCount || this.target != target) {
+				this.tickCount = mobpatch.getOriginal().tickCount;
+				this.target = target;
+				this.computed = 0;
+			}
+		}
+		
+		public double getDistanceSqr(MobPatch<?> mobpatch) {
+			this.validate(mobpatch);
+			
+			if ((this.computed & DISTANCE) == 0) {
+				this.distanceSqr = mobpatch.getOriginal().distanceToSqr(this.target);
+				this.computed |= DISTANCE;
+			}
+			
+			return this.distanceSqr;
+		}
+		
+		public double getVerticalDistance(MobPatch<?> mobpatch) {
+			this.validate(mobpatch);
+			
+			if ((this.computed & VERTICAL_DISTANCE) == 0) {
+				this.verticalDistance = Math.abs(mobpatch.getOriginal().getY() - this.target.getY());
+				this.computed |= VERTICAL_DISTANCE;
+			}
+			
+			return this.verticalDistance;
+		}
+		
+		public double getAngle(MobPatch<?> mobpatch) {
+			this.validate(mobpatch);
+			
+			if ((this.computed & ANGLE) == 0) {
+				this.angle = mobpatch.getAngleTo(this.target);
+				this.computed |= ANGLE;
+			}
+			
+			return this.angle;
+		}
+		
+		public double getHorizontalAngle(MobPatch<?> mobpatch) {
+			this.validate(mobpatch);
+			
+			if ((this.computed & HORIZONTAL_ANGLE) == 0) {
+				this.horizontalAngle = mobpatch.getAngleToHorizontal(this.target);
+				this.computed |= HORIZONTAL_ANGLE;
+			}
+			
+			return this.horizontalAngle;
+		}
+		
+		public float getHealth(MobPatch<?> mobpatch) {
+			this.validateHealth(mobpatch);
+			return this.health;
+		}
+		
+		public float getMaxHealth(MobPatch<?> mobpatch) {
+			this.validateHealth(mobpatch);
+			return this.maxHealth;
+		}
+		
+		private void validateHealth(MobPatch<?> mobpatch) {
+			this.validate(mobpatch);
+			
+			if ((this.computed & HEALTH) == 0) {
+				this.health = mobpatch.getOriginal().getHealth();
+				this.maxHealth = mobpatch.getOriginal().getMaxHealth();
+				this.computed |= HEALTH;
+			}
+		}
 	}
 	
 	public static class CustomPredicate<T extends MobPatch<?>> extends BehaviorPredicate<T> {
@@ -387,6 +618,11 @@ public class CombatBehaviors<T extends MobPatch<?>> {
 		public boolean test(T mobpatch) {
 			return mobpatch.getOriginal().getRandom().nextFloat() < this.chance;
 		}
+		
+		@Override
+		public int getCost() {
+			return 0;
+		}
 	}
 	
 	public static class TargetWithinEyeHeight<T extends MobPatch<?>> extends BehaviorPredicate<T> {
@@ -394,6 +630,20 @@ public class CombatBehaviors<T extends MobPatch<?>> {
 			double veticalDistance = Math.abs(mobpatch.getOriginal().getY() - mobpatch.getTarget().getY());
 			return veticalDistance < mobpatch.getOriginal().getEyeHeight();
 		}
+		
+		@Override
+		public boolean test(T mobpatch, PredicateCache predicateCache) {
+			if (!this.isTestDeclaredBy(TargetWithinEyeHeight.class)) {
+				return this.test(mobpatch);
+			}
+			
+			return predicateCache.getVerticalDistance(mobpatch) < mobpatch.getOriginal().getEyeHeight();
+		}
+		
+		@Override
+		public int getCost() {
+			return 2;
+		}
 	}
 	
 	public static class TargetWithinDistance<T extends MobPatch<?>> extends BehaviorPredicate<T> {
@@ -410,6 +660,22 @@ public class CombatBehaviors<T extends MobPatch<?>> {
 			
 			return this.minDistance < distanceSqr && distanceSqr < this.maxDistance;
 		}
+		
+		@Override
+		public boolean test(T mobpatch, PredicateCache predicateCache) {
+			if (!this.isTestDeclaredBy(TargetWithinDistance.class)) {
+				return this.test(mobpatch);
+			}
+			
+			double distanceSqr = predicateCache.getDistanceSqr(mobpatch);
+			
+			return this.minDistance < distanceSqr && distanceSqr < this.maxDistance;
+		}
+		
+		@Override
+		public int getCost() {
+			return 2;
+		}
 	}
 	
 	public static class TargetWithinAngle<T extends MobPatch<?>> extends BehaviorPredicate<T> {
@@ -427,6 +693,21 @@ public class CombatBehaviors<T extends MobPatch<?>> {
 			return this.minDegree < degree && degree < this.maxDegree;
 		}
 		
+		@Override
+		public boolean test(T mobpatch, PredicateCache predicateCache) {
+			if (!this.isTestDeclaredBy(TargetWithinAngle.class)) {
+				return this.test(mobpatch);
+			}
+			
+			double degree = predicateCache.getAngle(mobpatch);
+			return this.minDegree < degree && degree < this.maxDegree;
+		}
+		
+		@Override
+		public int getCost() {
+			return 3;
+		}
+		
 		public static class Horizontal<T extends MobPatch<?>> extends TargetWithinAngle<T> {
 			public Horizontal(double minDegree, double maxDegree) {
 				super(minDegree, maxDegree);
@@ -438,6 +719,16 @@ public class CombatBehaviors<T extends MobPatch<?>> {
 				double degree = mobpatch.getAngleToHorizontal(target);
 				return this.minDegree < degree && degree < this.maxDegree;
 			}
+			
+			@Override
+			public boolean test(T mobpatch, PredicateCache predicateCache) {
+				if (!this.isTestDeclaredBy(Horizontal.class)) {
+					return this.test(mobpatch);
+				}
+				
+				double degree = predicateCache.getHorizontalAngle(mobpatch);
+				return this.minDegree < degree && degree < this.maxDegree;
+			}
 		}
 	}
 	
@@ -451,20 +742,38 @@ public class CombatBehaviors<T extends MobPatch<?>> {
 		}
 		
 		public boolean test(T mobpatch) {
+			return this.compare(mobpatch.getOriginal().getHealth(), mobpatch.getOriginal().getMaxHealth());
+		}
+		
+		@Override
+		public boolean test(T mobpatch, PredicateCache predicateCache) {
+			if (!this.isTestDeclaredBy(Health.class)) {
+				return this.test(mobpatch);
+			}
+			
+			return this.compare(predicateCache.getHealth(mobpatch), predicateCache.getMaxHealth(mobpatch));
+		}
+		
+		private boolean compare(float health, float maxHealth) {
 			switch (this.comparator) {
 			case LESS_ABSOLUTE:
-				return this.value > mobpatch.getOriginal().getHealth();
+				return this.value > health;
 			case GREATER_ABSOLUTE:
-				return this.value < mobpatch.getOriginal().getHealth();
+				return this.value < health;
 			case LESS_RATIO:
-				return this.value > mobpatch.getOriginal().getHealth() / mobpatch.getOriginal().getMaxHealth();
+				return this.value > health / maxHealth;
 			case GREATER_RATIO:
-				return this.value < mobpatch.getOriginal().getHealth() / mobpatch.getOriginal().getMaxHealth();
+				return this.value < health / maxHealth;
 			}
 			
 			return true;
 		}
 		
+		@Override
+		public int getCost() {
+			return 1;
+		}
+		
 		public static enum Comparator {
 			GREATER_ABSOLUTE, LESS_ABSOLUTE, GREATER_RATIO, LESS_RATIO
 		}
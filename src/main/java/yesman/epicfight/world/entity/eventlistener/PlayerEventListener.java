@@ -1,25 +1,56 @@
 package yesman.epicfight.world.entity.eventlistener;
 
+import java.util.Collections;
+import java.util.List;
 import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.function.Consumer;
 
+import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import com.google.common.collect.Multimap;
 import com.google.common.collect.TreeMultimap;
 
 import net.minecraftforge.fml.LogicalSide;
 import yesman.epicfight.client.world.capabilites.entitypatch.player.LocalPlayerPatch;
+import yesman.epicfight.config.ConfigManager;
 import yesman.epicfight.world.capabilities.entitypatch.player.PlayerPatch;
 import yesman.epicfight.world.capabilities.entitypatch.player.ServerPlayerPatch;
 
+/**
+ * Listeners of an event type are compiled into a flat array in dispatch order (descending priority, then the order of the multimap)
+ * every time they change, so triggering an event doesn't go through the multimap iterators.
+ */
 public class PlayerEventListener {
 	private Map<EventType<? extends PlayerEvent<?>>, TreeMultimap<Integer, EventTrigger<? extends PlayerEvent<?>>>> events;
 	private PlayerPatch<?> playerpatch;
+	private final EventTrigger<?>[][] compiledTriggers;
 	
 	public PlayerEventListener(PlayerPatch<?> playerpatch) {
 		this.playerpatch = playerpatch;
 		this.events = Maps.newHashMap();
+		this.compiledTriggers = new EventTrigger<?>[EventType.getCount()][];
+	}
+	
+	private void compile(EventType<?> eventType) {
+		TreeMultimap<Integer, EventTrigger<? extends PlayerEvent<?>>> map = this.events.get(eventType);
+		
+		if (map == null || map.isEmpty()) {
+			this.compiledTriggers[eventType.id] = null;
+			return;
+		}
+		
+		EventTrigger<?>[] triggers = new EventTrigger<?>[map.size()];
+		int index = 0;
+		
+		for (int priority : map.keySet().descendingSet()) {
+			for (EventTrigger<?> eventTrigger : map.get(priority)) {
+				triggers[index++] = eventTrigger;
+			}
+		}
+		
+		this.compiledTriggers[eventType.id] = triggers;
 	}
 	
 	public <T extends PlayerEvent<?>> void addEventListener(EventType<T> eventType, UUID uuid, Consumer<T> function) {
@@ -36,6 +67,7 @@ public class PlayerEventListener {
 			this.removeListener(eventType, uuid, priority);
 			TreeMultimap<Integer, EventTrigger<? extends PlayerEvent<?>>> map = this.events.get(eventType);
 			map.put(priority, EventTrigger.makeEvent(uuid, function, priority));
+			this.compile(eventType);
 		}
 	}
 	
@@ -55,12 +87,62 @@ public class PlayerEventListener {
 		
 		if (map != null) {
 			priority = Math.max(priority, -1);
-			map.get(priority).removeIf((trigger) -> trigger.is(uuid));
+			
+			if (map.get(priority).removeIf((trigger) -> trigger.is(uuid))) {
+				this.compile(eventType);
+			}
 		}
 	}
 	
-	@SuppressWarnings("unchecked")
 	public <T extends PlayerEvent<?>> boolean triggerEvents(EventType<T> eventType, T event) {
+		if (!ConfigManager.COMPILED_EVENT_DISPATCH.get()) {
+			return this.triggerEventsUncompiled(eventType, event);
+		}
+		
+		EventTrigger<?>[] triggers = this.compiledTriggers[eventType.id];
+		
+		if (triggers == null) {
+			return false;
+		}
+		
+		if (!ConfigManager.EVENT_DISPATCH_STATISTICS.get()) {
+			return this.dispatch(triggers, event);
+		}
+		
+		long startTime = System.nanoTime();
+		boolean cancel = this.dispatch(triggers, event);
+		eventType.dispatchCount.increment();
+		eventType.dispatchNanos.add(System.nanoTime() - startTime);
+		
+		return cancel;
+	}
+	
+	/** Once an event is canceled, the next priorities except -1 are skipped. Triggers of the priority that canceled it still run. **/
+	@SuppressWarnings("unchecked")
+	private <T extends PlayerEvent<?>> boolean dispatch(EventTrigger<?>[] triggers, T event) {
+		boolean cancel = false;
+		boolean fire = true;
+		int groupPriority = Integer.MIN_VALUE;
+		
+		for (int i = 0; i < triggers.length; i++) {
+			EventTrigger<T> eventTrigger = (EventTrigger<T>)triggers[i];
+			
+			if (eventTrigger.getPriority() != groupPriority) {
+				groupPriority = eventTrigger.getPriority();
+				fire = !cancel || groupPriority == -1;
+			}
+			
+			if (fire) {
+				eventTrigger.trigger(event);
+				cancel |= event.isCanceled();
+			}
+		}
+		
+		return cancel;
+	}
+	
+	@SuppressWarnings("unchecked")
+	private <T extends PlayerEvent<?>> boolean triggerEventsUncompiled(EventType<T> eventType, T event) {
 		boolean cancel = false;
 		TreeMultimap<Integer, EventTrigger<? extends PlayerEvent<?>>> map = this.events.get(eventType);
 		
@@ -82,38 +164,75 @@ public class PlayerEventListener {
 	}
 	
 	public static class EventType<T extends PlayerEvent<?>> {
-		public static final EventType<ActionEvent<LocalPlayerPatch>> ACTION_EVENT_CLIENT = new EventType<>(null);
-		public static final EventType<ActionEvent<ServerPlayerPatch>> ACTION_EVENT_SERVER = new EventType<>(null);
-		public static final EventType<AttackSpeedModifyEvent> MODIFY_ATTACK_SPEED_EVENT = new EventType<>(null);
-		public static final EventType<ModifyBaseDamageEvent<PlayerPatch<?>>> MODIFY_DAMAGE_EVENT = new EventType<>(null);
-		public static final EventType<DealtDamageEvent> DEALT_DAMAGE_EVENT_PRE = new EventType<>(LogicalSide.SERVER);
-		public static final EventType<DealtDamageEvent> DEALT_DAMAGE_EVENT_POST = new EventType<>(LogicalSide.SERVER);
-		public static final EventType<HurtEvent.Pre> HURT_EVENT_PRE = new EventType<>(LogicalSide.SERVER);
-		public static final EventType<HurtEvent.Post> HURT_EVENT_POST = new EventType<>(LogicalSide.SERVER);
-		public static final EventType<AttackEndEvent> ATTACK_ANIMATION_END_EVENT = new EventType<>(LogicalSide.SERVER);
-		public static final EventType<BasicAttackEvent> BASIC_ATTACK_EVENT = new EventType<>(LogicalSide.SERVER);
-		public static final EventType<MovementInputEvent> MOVEMENT_INPUT_EVENT = new EventType<>(LogicalSide.CLIENT);
-		public static final EventType<RightClickItemEvent<LocalPlayerPatch>> CLIENT_ITEM_USE_EVENT = new EventType<>(LogicalSide.CLIENT);
-		public static final EventType<RightClickItemEvent<ServerPlayerPatch>> SERVER_ITEM_USE_EVENT = new EventType<>(LogicalSide.SERVER);
-		public static final EventType<ItemUseEndEvent> SERVER_ITEM_STOP_EVENT = new EventType<>(LogicalSide.SERVER);
-		public static final EventType<ProjectileHitEvent> PROJECTILE_HIT_EVENT = new EventType<>(LogicalSide.SERVER);
-		public static final EventType<SkillExecuteEvent> SKILL_EXECUTE_EVENT = new EventType<>(null);
-		public static final EventType<SkillCancelEvent> SKILL_CANCEL_EVENT = new EventType<>(null);
-		public static final EventType<SkillConsumeEvent> SKILL_CONSUME_EVENT = new EventType<>(null);
-		public static final EventType<ComboCounterHandleEvent> COMBO_COUNTER_HANDLE_EVENT = new EventType<>(LogicalSide.SERVER);
-		public static final EventType<TargetIndicatorCheckEvent> TARGET_INDICATOR_ALERT_CHECK_EVENT = new EventType<>(LogicalSide.CLIENT);
-		public static final EventType<FallEvent> FALL_EVENT = new EventType<>(null);
-		public static final EventType<SetTargetEvent> SET_TARGET_EVENT = new EventType<>(LogicalSide.SERVER);
-		public static final EventType<DodgeSuccessEvent> DODGE_SUCCESS_EVENT = new EventType<>(LogicalSide.SERVER);
+		private static final List<EventType<?>> VALUES = Lists.newArrayList();
+		private static int count;
+		
+		public static final EventType<ActionEvent<LocalPlayerPatch>> ACTION_EVENT_CLIENT = new EventType<>("ACTION_EVENT_CLIENT", null);
+		public static final EventType<ActionEvent<ServerPlayerPatch>> ACTION_EVENT_SERVER = new EventType<>("ACTION_EVENT_SERVER", null);
+		public static final EventType<AttackSpeedModifyEvent> MODIFY_ATTACK_SPEED_EVENT = new EventType<>("MODIFY_ATTACK_SPEED_EVENT", null);
+		public static final EventType<ModifyBaseDamageEvent<PlayerPatch<?>>> MODIFY_DAMAGE_EVENT = new EventType<>("MODIFY_DAMAGE_EVENT", null);
+		public static final EventType<DealtDamageEvent> DEALT_DAMAGE_EVENT_PRE = new EventType<>("DEALT_DAMAGE_EVENT_PRE", LogicalSide.SERVER);
+		public static final EventType<DealtDamageEvent> DEALT_DAMAGE_EVENT_POST = new EventType<>("DEALT_DAMAGE_EVENT_POST", LogicalSide.SERVER);
+		public static final EventType<HurtEvent.Pre> HURT_EVENT_PRE = new EventType<>("HURT_EVENT_PRE", LogicalSide.SERVER);
+		public static final EventType<HurtEvent.Post> HURT_EVENT_POST = new EventType<>("HURT_EVENT_POST", LogicalSide.SERVER);
+		public static final EventType<AttackEndEvent> ATTACK_ANIMATION_END_EVENT = new EventType<>("ATTACK_ANIMATION_END_EVENT", LogicalSide.SERVER);
+		public static final EventType<BasicAttackEvent> BASIC_ATTACK_EVENT = new EventType<>("BASIC_ATTACK_EVENT", LogicalSide.SERVER);
+		public static final EventType<MovementInputEvent> MOVEMENT_INPUT_EVENT = new EventType<>("MOVEMENT_INPUT_EVENT", LogicalSide.CLIENT);
+		public static final EventType<RightClickItemEvent<LocalPlayerPatch>> CLIENT_ITEM_USE_EVENT = new EventType<>("CLIENT_ITEM_USE_EVENT", LogicalSide.CLIENT);
+		public static final EventType<RightClickItemEvent<ServerPlayerPatch>> SERVER_ITEM_USE_EVENT = new EventType<>("SERVER_ITEM_USE_EVENT", LogicalSide.SERVER);
+		public static final EventType<ItemUseEndEvent> SERVER_ITEM_STOP_EVENT = new EventType<>("SERVER_ITEM_STOP_EVENT", LogicalSide.SERVER);
+		public static final EventType<ProjectileHitEvent> PROJECTILE_HIT_EVENT = new EventType<>("PROJECTILE_HIT_EVENT", LogicalSide.SERVER);
+		public static final EventType<SkillExecuteEvent> SKILL_EXECUTE_EVENT = new EventType<>("SKILL_EXECUTE_EVENT", null);
+		public static final EventType<SkillCancelEvent> SKILL_CANCEL_EVENT = new EventType<>("SKILL_CANCEL_EVENT", null);
+		public static final EventType<SkillConsumeEvent> SKILL_CONSUME_EVENT = new EventType<>("SKILL_CONSUME_EVENT", null);
+		public static final EventType<ComboCounterHandleEvent> COMBO_COUNTER_HANDLE_EVENT = new EventType<>("COMBO_COUNTER_HANDLE_EVENT", LogicalSide.SERVER);
+		public static final EventType<TargetIndicatorCheckEvent> TARGET_INDICATOR_ALERT_CHECK_EVENT = new EventType<>("TARGET_INDICATOR_ALERT_CHECK_EVENT", LogicalSide.CLIENT);
+		public static final EventType<FallEvent> FALL_EVENT = new EventType<>("FALL_EVENT", null);
+		public static final EventType<SetTargetEvent> SET_TARGET_EVENT = new EventType<>("SET_TARGET_EVENT", LogicalSide.SERVER);
+		public static final EventType<DodgeSuccessEvent> DODGE_SUCCESS_EVENT = new EventType<>("DODGE_SUCCESS_EVENT", LogicalSide.SERVER);
+		
+		public static int getCount() {
+			return count;
+		}
+		
+		public static List<EventType<?>> values() {
+			return Collections.unmodifiableList(VALUES);
+		}
 		
 		LogicalSide side;
+		final int id;
+		private final String name;
+		final LongAdder dispatchCount = new LongAdder();
+		final LongAdder dispatchNanos = new LongAdder();
 		
-		EventType(LogicalSide side) {
+		EventType(String name, LogicalSide side) {
+			this.name = name;
 			this.side = side;
+			this.id = count++;
+			VALUES.add(this);
+		}
+		
+		@Override
+		public String toString() {
+			return this.name;
 		}
 		
 		public boolean shouldActive(boolean isRemote) {
 			return this.side == null ? true : this.side.isClient() == isRemote;
 		}
+		
+		/** Dispatches with at least one listener through the compiled tables on both logical sides, counted while the statistics are enabled **/
+		public long getDispatchCount() {
+			return this.dispatchCount.sum();
+		}
+		
+		public long getDispatchNanos() {
+			return this.dispatchNanos.sum();
+		}
+		
+		public void resetStatistics() {
+			this.dispatchCount.reset();
+			this.dispatchNanos.reset();
+		}
 	}
 }
\ No newline at end of file
@@ -1,9 +1,6 @@
 package yesman.epicfight.world.level.block;
 
-import java.util.Map;
-
 import com.google.common.collect.ImmutableMap;
-import com.google.common.collect.Maps;
 import com.mojang.math.Quaternion;
 import com.mojang.math.Vector3f;
 import com.mojang.serialization.MapCodec;
@@ -11,6 +8,7 @@ import com.mojang.serialization.MapCodec;
 import net.minecraft.core.BlockPos;
 import net.minecraft.core.Direction;
 import net.minecraft.world.level.BlockGetter;
+import net.minecraft.world.level.Level;
 import net.minecraft.world.level.block.Block;
 import net.minecraft.world.level.block.RenderShape;
 import net.minecraft.world.level.block.state.BlockState;
@@ -24,22 +22,16 @@ public class FractureBlockState extends BlockState {
 	private Quaternion rotation;
 	private double bouncing;
 	private int maxLifeTime;
-	private static final Map<Integer, BlockState> ORIGINAL_BLOCK_STATE_CACHE = Maps.newHashMap();
-	
-	public static void remove(BlockPos blockPos) {
-		ORIGINAL_BLOCK_STATE_CACHE.remove(blockPos.hashCode());
-	}
-	
-	public static void reset() {
-		ORIGINAL_BLOCK_STATE_CACHE.clear();
-	}
+	private BlockState originalBlockState;
 	
 	public FractureBlockState(Block block, ImmutableMap<Property<?>, Comparable<?>> propertyMap, MapCodec<BlockState> mapCodec) {
 		super(block, propertyMap, mapCodec);
 	}
 	
-	public void setFractureInfo(BlockPos bp, BlockState originalState, Vector3f translate, Quaternion rotation, double bouncing, int maxLifeTime) {
-		ORIGINAL_BLOCK_STATE_CACHE.put(bp.hashCode(), originalState);
+	/** The state is shared by every fracture, the block entity created by the following setBlock copies the info **/
+	public void setFractureInfo(Level level, BlockPos bp, BlockState originalState, Vector3f translate, Quaternion rotation, double bouncing, int maxLifeTime) {
+		FractureRegistry.register(level, bp, originalState, maxLifeTime);
+		this.originalBlockState = originalState;
 		this.translate = translate;
 		this.rotation = rotation;
 		this.bouncing = bouncing;
@@ -54,8 +46,8 @@ public class FractureBlockState extends BlockState {
 		return this.rotation;
 	}
 	
-	public BlockState getOriginalBlockState(BlockPos blockPos) {
-		return ORIGINAL_BLOCK_STATE_CACHE.get(blockPos.hashCode());
+	public BlockState getOriginalBlockState() {
+		return this.originalBlockState;
 	}
 	
 	public double getBouncing() {
@@ -98,7 +90,7 @@ public class FractureBlockState extends BlockState {
 	
 	@Override
 	public VoxelShape getCollisionShape(BlockGetter level, BlockPos blockPos) {
-		BlockState blockState = this.getOriginalBlockState(blockPos);
+		BlockState blockState = FractureRegistry.getOriginalBlockState(level, blockPos);
 		
 		if (blockState == null) {
 			return Shapes.empty();
@@ -109,7 +101,7 @@ public class FractureBlockState extends BlockState {
 	
 	@Override
 	public VoxelShape getCollisionShape(BlockGetter level, BlockPos blockPos, CollisionContext collisionContext) {
-		BlockState blockState = this.getOriginalBlockState(blockPos);
+		BlockState blockState = FractureRegistry.getOriginalBlockState(level, blockPos);
 		
 		if (blockState == null) {
 			return Shapes.empty();
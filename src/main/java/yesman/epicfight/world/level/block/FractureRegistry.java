@@ -0,0 +1,146 @@
+package yesman.epicfight.world.level.block;
+
+import java.util.Map;
+
+import javax.annotation.Nullable;
+
+import com.google.common.collect.Maps;
+
+import it.unimi.dsi.fastutil.longs.Long2ObjectMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectMaps;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.objects.ObjectIterator;
+import net.minecraft.core.BlockPos;
+import net.minecraft.resources.ResourceKey;
+import net.minecraft.world.level.BlockGetter;
+import net.minecraft.world.level.Level;
+import net.minecraft.world.level.block.state.BlockState;
+import net.minecraft.world.level.chunk.LevelChunk;
+
+/**
+ * Original block states of the fracture blocks, keyed by dimension and {@link BlockPos#asLong()}. An entry is removed when its fracture
+ * restores the block, entries of fractures that never restore (unloaded chunks, replaced blocks) expire a while after their lifetime.
+ * Fractures are only placed on the client so the registry is touched by the client thread.
+ */
+public class FractureRegistry {
+	private static final int EXPIRY_GRACE_TICKS = 100;
+	private static final int SWEEP_INTERVAL = 200;
+	private static final Map<ResourceKey<Level>, LevelFractures> LEVELS = Maps.newHashMap();
+	private static long registeredCount;
+	private static long restoredCount;
+	private static long expiredCount;
+	
+	public static void register(Level level, BlockPos blockPos, BlockState originalState, int lifeTime) {
+		LevelFractures fractures = LEVELS.computeIfAbsent(level.dimension(), (key) -> new LevelFractures());
+		long gameTime = level.getGameTime();
+		fractures.sweep(gameTime);
+		fractures.entries.put(blockPos.asLong(), new Entry(originalState, gameTime + lifeTime + EXPIRY_GRACE_TICKS));
+		registeredCount++;
+	}
+	
+	@Nullable
+	public static BlockState getOriginalBlockState(BlockGetter blockGetter, BlockPos blockPos) {
+		long key = blockPos.asLong();
+		Level level = null;
+		
+		if (blockGetter instanceof Level) {
+			level = (Level)blockGetter;
+		} else if (blockGetter instanceof LevelChunk chunk) {
+			level = chunk.getLevel();
+		}
+		
+		if (level != null) {
+			LevelFractures fractures = LEVELS.get(level.dimension());
+			return fractures == null ? null : fractures.get(key);
+		}
+		
+		// Render and path finding regions don't expose their level
+		for (LevelFractures fractures : LEVELS.values()) {
+			BlockState originalState = fractures.get(key);
+			
+			if (originalState != null) {
+				return originalState;
+			}
+		}
+		
+		return null;
+	}
+	
+	public static void remove(Level level, BlockPos blockPos) {
+		LevelFractures fractures = LEVELS.get(level.dimension());
+		
+		if (fractures != null) {
+			if (fractures.entries.remove(blockPos.asLong()) != null) {
+				restoredCount++;
+			}
+			
+			fractures.sweep(level.getGameTime());
+		}
+	}
+	
+	public static void unload(Level level) {
+		LEVELS.remove(level.dimension());
+	}
+	
+	public static void reset() {
+		LEVELS.clear();
+	}
+	
+	public static int getLiveFractures() {
+		int count = 0;
+		
+		for (LevelFractures fractures : LEVELS.values()) {
+			count += fractures.entries.size();
+		}
+		
+		return count;
+	}
+	
+	public static long getRegisteredCount() {
+		return registeredCount;
+	}
+	
+	public static long getRestoredCount() {
+		return restoredCount;
+	}
+	
+	public static long getExpiredCount() {
+		return expiredCount;
+	}
+	
+	private static class LevelFractures {
+		private final Long2ObjectMap<Entry> entries = new Long2ObjectOpenHashMap<>();
+		private long nextSweep;
+		
+		private BlockState get(long key) {
+			Entry entry = this.entries.get(key);
+			return entry == null ? null : entry.originalState;
+		}
+		
+		private void sweep(long gameTime) {
+			if (gameTime < this.nextSweep) {
+				return;
+			}
+			
+			this.nextSweep = gameTime + SWEEP_INTERVAL;
+			ObjectIterator<Long2ObjectMap.Entry<Entry>> iterator = Long2ObjectMaps.fastIterator(this.entries);
+			
+			while (iterator.hasNext()) {
+				if (iterator.next().getValue().expireTime <= gameTime) {
+					iterator.remove();
+					expiredCount++;
+				}
+			}
+		}
+	}
+	
+	private static class Entry {
+		private final BlockState originalState;
+		private final long expireTime;
+		
+		private Entry(BlockState originalState, long expireTime) {
+			this.originalState = originalState;
+			this.expireTime = expireTime;
+		}
+	}
+}
\ No newline at end of file
@@ -16,6 +16,7 @@ import net.minecraft.world.level.block.state.BlockState;
 import net.minecraftforge.api.distmarker.Dist;
 import net.minecraftforge.api.distmarker.OnlyIn;
 import yesman.epicfight.world.level.block.FractureBlockState;
+import yesman.epicfight.world.level.block.FractureRegistry;
 
 public class FractureBlockEntity extends BlockEntity {
 	private Vector3f translate;
@@ -32,7 +33,7 @@ public class FractureBlockEntity extends BlockEntity {
 	public FractureBlockEntity(BlockPos blockPos, BlockState blockState, FractureBlockState fractureBlockState) {
 		super(EpicFightBlockEntities.FRACTURE.get(), blockPos, blockState);
 		
-		this.originalBlockState = fractureBlockState.getOriginalBlockState(blockPos);
+		this.originalBlockState = fractureBlockState.getOriginalBlockState();
 		this.bouncing = fractureBlockState.getBouncing();
 		this.translate = fractureBlockState.getTranslate();
 		this.rotation = fractureBlockState.getRotation();
@@ -88,7 +89,7 @@ public class FractureBlockEntity extends BlockEntity {
 			level.setBlock(blockPos, blockEntity.getOriginalBlockState(), 0);
 			level.removeBlockEntity(blockPos);
 			
-			FractureBlockState.remove(blockPos);
+			FractureRegistry.remove(level, blockPos);
 		}
 	}
 }
\ No newline at end of file
@@ -0,0 +1,82 @@
+package yesman.epicfight.api.animation;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import org.junit.jupiter.api.Test;
+
+import com.mojang.math.Vector3f;
+
+import yesman.epicfight.api.utils.math.Vec3f;
+
+/** Modifying a compressed sheet decodes it into a plain sheet, the modified keyframes are sampled from then on **/
+public class CompressedTransformSheetTest {
+	private static final float EPSILON = 1.0E-3F;
+	
+	@Test
+	public void transformAppliesToTheDecodedKeyframes() {
+		TransformSheet raw = walkSheet(12);
+		CompressedTransformSheet compressed = compress(raw);
+		
+		compressed.transform((jt) -> jt.translation().add(0.0F, 1.0F, 0.0F));
+		
+		for (float time = 0.0F; time <= 1.0F; time += 0.05F) {
+			Vec3f expected = raw.getInterpolatedTransform(time).translation();
+			Vec3f actual = compressed.getInterpolatedTransform(time).translation();
+			assertEquals(expected.x, actual.x, EPSILON);
+			assertEquals(expected.y + 1.0F, actual.y, EPSILON);
+			assertEquals(expected.z, actual.z, EPSILON);
+		}
+		
+		assertSame(compressed.getKeyframes(), compressed.getKeyframes());
+	}
+	
+	@Test
+	public void rangedTransformKeepsTheOtherKeyframes() {
+		CompressedTransformSheet compressed = compress(walkSheet(12));
+		Keyframe[] before = compressed.getKeyframes();
+		
+		compressed.transform((jt) -> jt.translation().set(0.0F, 0.0F, 0.0F), 0, 1);
+		Keyframe[] after = compressed.getKeyframes();
+		
+		assertEquals(before.length, after.length);
+		assertEquals(0.0F, after[0].transform().translation().x);
+		
+		for (int i = 1; i < after.length; i++) {
+			assertEquals(before[i].time(), after[i].time());
+			assertEquals(before[i].transform().translation().x, after[i].transform().translation().x);
+		}
+	}
+	
+	@Test
+	public void readFromReplacesTheKeyframes() {
+		CompressedTransformSheet compressed = compress(walkSheet(12));
+		TransformSheet opponent = walkSheet(3);
+		
+		assertSame(compressed, compressed.readFrom(opponent));
+		assertEquals(3, compressed.getKeyframes().length);
+		assertEquals(3, compressed.copyAll().getKeyframes().length);
+		
+		for (float time = 0.0F; time <= 1.0F; time += 0.1F) {
+			assertEquals(opponent.getInterpolatedTransform(time).translation().x, compressed.getInterpolatedTransform(time).translation().x, EPSILON);
+		}
+	}
+	
+	private static CompressedTransformSheet compress(TransformSheet raw) {
+		return assertInstanceOf(CompressedTransformSheet.class, CompressedTransformSheet.compress(raw, 1.0E-4F, 0.1F));
+	}
+	
+	/** Moves along x and turns around y, with a bump on z so every keyframe is kept **/
+	private static TransformSheet walkSheet(int keyframeCount) {
+		Keyframe[] keyframes = new Keyframe[keyframeCount];
+		
+		for (int i = 0; i < keyframeCount; i++) {
+			float progression = i / (float)(keyframeCount - 1);
+			Vec3f translation = new Vec3f(progression * 2.0F, 0.5F, (i & 1) * 0.25F);
+			keyframes[i] = new Keyframe(progression, new JointTransform(translation, Vector3f.YP.rotationDegrees(progression * 90.0F), new Vec3f(1.0F, 1.0F, 1.0F)));
+		}
+		
+		return new TransformSheet(keyframes);
+	}
+}
\ No newline at end of file
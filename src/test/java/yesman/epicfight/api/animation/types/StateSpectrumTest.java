@@ -0,0 +1,164 @@
+package yesman.epicfight.api.animation.types;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+
+import yesman.epicfight.api.animation.types.EntityState.StateFactor;
+
+/** Compares the compiled intervals with building the states per call and checks the states handed out are mutable **/
+public class StateSpectrumTest {
+	private static final List<StateFactor<?>> FACTORS = List.of(EntityState.MOVEMENT_LOCKED, EntityState.ATTACKING, EntityState.CAN_BASIC_ATTACK,
+			EntityState.INACTION, EntityState.HURT_LEVEL, EntityState.PHASE_LEVEL);
+	
+	@Test
+	public void snapshotStateCanBeModified() {
+		StateSpectrum spectrum = spectrum(new StateSpectrum.Blueprint()
+			.newTimePair(0.0F, 1.0F).addState(EntityState.MOVEMENT_LOCKED, true));
+		
+		assertModifiable(spectrum.getState(null, 0.5F));
+	}
+	
+	@Test
+	public void conditionalStateCanBeModified() {
+		StateSpectrum spectrum = spectrum(new StateSpectrum.Blueprint()
+			.newConditionalTimePair((entitypatch) -> 1, 0.0F, 1.0F).addConditionalState(1, EntityState.MOVEMENT_LOCKED, true));
+		
+		assertModifiable(spectrum.getState(null, 0.5F));
+	}
+	
+	@Test
+	public void variableStateCanBeModified() {
+		StateSpectrum spectrum = spectrum(new StateSpectrum.Blueprint()
+			.newVariableTimePair((entitypatch) -> 0.0F, (entitypatch) -> 1.0F).addState(EntityState.MOVEMENT_LOCKED, true));
+		
+		assertModifiable(spectrum.getState(null, 0.5F));
+	}
+	
+	@Test
+	public void modifyingAStateLeavesTheSpectrumUnchanged() {
+		StateSpectrum spectrum = spectrum(new StateSpectrum.Blueprint()
+			.newVariableTimePair((entitypatch) -> 0.0F, (entitypatch) -> 1.0F).addState(EntityState.HURT_LEVEL, 1));
+		
+		spectrum.getState(null, 0.5F).setState(EntityState.HURT_LEVEL, 2);
+		
+		assertEquals(1, spectrum.getState(null, 0.5F).hurtLevel());
+	}
+	
+	@Test
+	public void overlappingPairsMatchThePerCallBuild() {
+		StateSpectrum.Blueprint blueprint = new StateSpectrum.Blueprint()
+			.newTimePair(0.0F, 0.5F).addState(EntityState.MOVEMENT_LOCKED, true).addState(EntityState.HURT_LEVEL, 1)
+			.newTimePair(0.3F, 0.8F).addState(EntityState.MOVEMENT_LOCKED, false).addState(EntityState.ATTACKING, true)
+			.newTimePair(0.5F, 1.0F).addState(EntityState.HURT_LEVEL, 2)
+			.newTimePair(0.3F, 0.5F).addState(EntityState.HURT_LEVEL, 3);
+		
+		assertMatchesPerCallBuild(blueprint, 0.0F, 0.3F, 0.5F, 0.8F, 1.0F);
+	}
+	
+	@Test
+	public void laterPairsOverrideEarlierOnes() {
+		StateSpectrum spectrum = spectrum(new StateSpectrum.Blueprint()
+			.newTimePair(0.0F, 1.0F).addState(EntityState.PHASE_LEVEL, 1)
+			.newTimePair(0.2F, 0.6F).addState(EntityState.PHASE_LEVEL, 2)
+			.newTimePair(0.4F, 0.8F).addState(EntityState.PHASE_LEVEL, 3));
+		
+		assertEquals(1, spectrum.getState(null, 0.1F).getLevel());
+		assertEquals(2, spectrum.getState(null, 0.3F).getLevel());
+		assertEquals(3, spectrum.getState(null, 0.5F).getLevel());
+		assertEquals(3, spectrum.getState(null, 0.7F).getLevel());
+		assertEquals(1, spectrum.getState(null, 0.9F).getLevel());
+		assertEquals(3, spectrum.getSingleState(EntityState.PHASE_LEVEL, null, 0.5F));
+	}
+	
+	@Test
+	public void conditionalAndVariablePairsMatchThePerCallBuild() {
+		int[] metadata = { 0 };
+		float[] variableRange = { 0.25F, 0.75F };
+		StateSpectrum.Blueprint blueprint = new StateSpectrum.Blueprint()
+			.newTimePair(0.0F, 0.6F).addState(EntityState.MOVEMENT_LOCKED, true).addState(EntityState.PHASE_LEVEL, 1)
+			.newConditionalTimePair((entitypatch) -> metadata[0], 0.2F, 0.9F)
+				.addConditionalState(0, EntityState.PHASE_LEVEL, 2)
+				.addConditionalState(1, EntityState.PHASE_LEVEL, 3).addConditionalState(1, EntityState.CAN_BASIC_ATTACK, false)
+			.newVariableTimePair((entitypatch) -> variableRange[0], (entitypatch) -> variableRange[1]).addState(EntityState.MOVEMENT_LOCKED, false)
+			.newTimePair(0.6F, 1.0F).addState(EntityState.INACTION, true);
+		
+		for (int condition = 0; condition < 2; condition++) {
+			metadata[0] = condition;
+			variableRange[0] = 0.25F;
+			variableRange[1] = 0.75F;
+			assertMatchesPerCallBuild(blueprint, 0.0F, 0.2F, 0.25F, 0.6F, 0.75F, 0.9F, 1.0F);
+			
+			// Variable bounds falling on and outside the fixed boundaries
+			variableRange[0] = 0.6F;
+			variableRange[1] = 1.2F;
+			assertMatchesPerCallBuild(blueprint, 0.0F, 0.2F, 0.6F, 0.9F, 1.0F, 1.2F);
+		}
+	}
+	
+	/** Compares the compiled lookups with building the state from every pair in declaration order, at, around and between the boundaries **/
+	private static void assertMatchesPerCallBuild(StateSpectrum.Blueprint blueprint, float... boundaries) {
+		StateSpectrum spectrum = spectrum(blueprint);
+		List<Float> times = Lists.newArrayList(-1.0F, boundaries[boundaries.length - 1] + 1.0F);
+		
+		for (int i = 0; i < boundaries.length; i++) {
+			times.add(boundaries[i]);
+			times.add(Math.nextDown(boundaries[i]));
+			times.add(Math.nextUp(boundaries[i]));
+			
+			if (i > 0) {
+				times.add((boundaries[i - 1] + boundaries[i]) * 0.5F);
+			}
+		}
+		
+		for (float time : times) {
+			Map<StateFactor<?>, Object> expected = buildPerCall(blueprint, time);
+			
+			assertEquals(expected, spectrum.getStateMap(null, time), "state map at " + time);
+			assertEquals(new EntityState.Builder().putAll(expected).build(), spectrum.getState(null, time), "state at " + time);
+			
+			for (StateFactor<?> factor : FACTORS) {
+				assertEquals(expected.get(factor), spectrum.getSingleState(factor, null, time), factor + " at " + time);
+			}
+		}
+	}
+	
+	private static Map<StateFactor<?>, Object> buildPerCall(StateSpectrum.Blueprint blueprint, float time) {
+		Map<StateFactor<?>, Object> states = Maps.newHashMap();
+		
+		for (StateSpectrum.StatesInTime timePair : blueprint.timePairs) {
+			if (timePair.isIn(null, time)) {
+				for (Map.Entry<StateFactor<?>, Object> entry : timePair.getStates(null)) {
+					states.put(entry.getKey(), entry.getValue());
+				}
+			}
+		}
+		
+		return states;
+	}
+	
+	private static void assertModifiable(EntityState state) {
+		assertTrue(state.movementLocked());
+		
+		state.setState(EntityState.MOVEMENT_LOCKED, false);
+		state.setState(EntityState.HURT_LEVEL, 2);
+		
+		assertFalse(state.movementLocked());
+		assertEquals(2, state.hurtLevel());
+	}
+	
+	private static StateSpectrum spectrum(StateSpectrum.Blueprint blueprint) {
+		StateSpectrum spectrum = new StateSpectrum();
+		spectrum.readFrom(blueprint);
+		
+		return spectrum;
+	}
+}
@@ -0,0 +1,180 @@
+package yesman.epicfight.api.client.model;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+
+import yesman.epicfight.api.animation.Joint;
+import yesman.epicfight.api.client.model.CpuSkinningEngine.PackedPart;
+import yesman.epicfight.api.client.model.VertexIndicator.AnimatedVertexIndicator;
+import yesman.epicfight.api.model.Armature;
+import yesman.epicfight.api.utils.math.OpenMatrix4f;
+import yesman.epicfight.api.utils.math.Vec3f;
+import yesman.epicfight.api.utils.math.Vec4f;
+
+/** Skins a seeded fixture mesh with the palette and with the object based path the meshes were drawn with before, the outputs have to match **/
+public class CpuSkinningEngineTest {
+	private static final float EPSILON = 1.0E-4F;
+	private static final int JOINTS = 6;
+	private static final int POSITIONS = 64;
+	private static final int VERTICES = 192;
+	
+	@Test
+	public void paletteMatchesObjectPathWithArmature() {
+		Random random = new Random(2022L);
+		Armature armature = armature(random);
+		assertSkinnedOutputsMatch(random, armature);
+	}
+	
+	@Test
+	public void paletteMatchesObjectPathWithoutArmature() {
+		assertSkinnedOutputsMatch(new Random(1182L), null);
+	}
+	
+	@Test
+	public void reusedBuffersDoNotLeakBetweenParts() {
+		Random random = new Random(7L);
+		Armature armature = armature(random);
+		float[] positions = randomArray(random, POSITIONS * 3, 2.0F);
+		float[] normals = randomArray(random, POSITIONS * 3, 1.0F);
+		float[] weights = randomArray(random, VERTICES * 3, 1.0F);
+		OpenMatrix4f[] poses = randomPoses(random);
+		List<AnimatedVertexIndicator> large = randomVertices(random, VERTICES, weights.length);
+		List<AnimatedVertexIndicator> small = randomVertices(random, VERTICES / 4, weights.length);
+		CpuSkinningEngine engine = new CpuSkinningEngine();
+		
+		engine.preparePalette(armature, poses);
+		engine.skin(new PackedPart(large, weights), positions, normals);
+		engine.skin(new PackedPart(small, weights), positions, normals);
+		assertOutputs(engine, small, positions, normals, weights, armature, poses);
+	}
+	
+	private static void assertSkinnedOutputsMatch(Random random, Armature armature) {
+		float[] positions = randomArray(random, POSITIONS * 3, 2.0F);
+		float[] normals = randomArray(random, POSITIONS * 3, 1.0F);
+		float[] weights = randomArray(random, VERTICES * 3, 1.0F);
+		List<AnimatedVertexIndicator> vertices = randomVertices(random, VERTICES, weights.length);
+		PackedPart part = new PackedPart(vertices, weights);
+		CpuSkinningEngine engine = new CpuSkinningEngine();
+		
+		// Several draws with different poses, the palette is rebuilt in place every time
+		for (int draw = 0; draw < 4; draw++) {
+			OpenMatrix4f[] poses = randomPoses(random);
+			engine.preparePalette(armature, poses);
+			engine.skin(part, positions, normals);
+			assertOutputs(engine, vertices, positions, normals, weights, armature, poses);
+			assertTrue(engine.getMaxDeviation(part, vertices, positions, normals, weights, armature, poses) <= EPSILON);
+		}
+	}
+	
+	private static void assertOutputs(CpuSkinningEngine engine, List<AnimatedVertexIndicator> vertices, float[] positions, float[] normals, float[] weights, Armature armature, OpenMatrix4f[] poses) {
+		float[] skinnedPositions = engine.getSkinnedPositions();
+		float[] skinnedNormals = engine.getSkinnedNormals();
+		
+		for (int v = 0; v < vertices.size(); v++) {
+			Vec4f[] expected = skinObjectPath(vertices.get(v), positions, normals, weights, armature, poses);
+			int o = v * 3;
+			assertEquals(expected[0].x, skinnedPositions[o], EPSILON);
+			assertEquals(expected[0].y, skinnedPositions[o + 1], EPSILON);
+			assertEquals(expected[0].z, skinnedPositions[o + 2], EPSILON);
+			assertEquals(expected[1].x, skinnedNormals[o], EPSILON);
+			assertEquals(expected[1].y, skinnedNormals[o + 1], EPSILON);
+			assertEquals(expected[1].z, skinnedNormals[o + 2], EPSILON);
+		}
+	}
+	
+	/** The per vertex computation of drawModelWithPose and drawWithPoseNoTexture before the palette **/
+	private static Vec4f[] skinObjectPath(AnimatedVertexIndicator vi, float[] positions, float[] normals, float[] weights, Armature armature, OpenMatrix4f[] poses) {
+		int pos = vi.position * 3;
+		int norm = vi.normal * 3;
+		Vec4f position = new Vec4f(positions[pos], positions[pos + 1], positions[pos + 2], 1.0F);
+		Vec4f normal = new Vec4f(normals[norm], normals[norm + 1], normals[norm + 2], 1.0F);
+		Vec4f totalPos = new Vec4f(0.0F, 0.0F, 0.0F, 0.0F);
+		Vec4f totalNorm = new Vec4f(0.0F, 0.0F, 0.0F, 0.0F);
+		
+		for (int i = 0; i < vi.joint.size(); i++) {
+			int jointIndex = vi.joint.get(i);
+			float weight = weights[vi.weight.get(i)];
+			OpenMatrix4f pose = armature == null ? poses[jointIndex] : OpenMatrix4f.mul(poses[jointIndex], armature.searchJointById(jointIndex).getToOrigin(), null);
+			Vec4f.add(OpenMatrix4f.transform(pose, position, null).scale(weight), totalPos, totalPos);
+			Vec4f.add(OpenMatrix4f.transform(pose.removeTranslation(), normal, null).scale(weight), totalNorm, totalNorm);
+		}
+		
+		return new Vec4f[] { totalPos, totalNorm };
+	}
+	
+	/** A chain of joints with seeded local transforms **/
+	private static Armature armature(Random random) {
+		Map<String, Joint> jointMap = Maps.newHashMap();
+		Joint root = null;
+		Joint parent = null;
+		
+		for (int i = 0; i < JOINTS; i++) {
+			Joint joint = new Joint("Joint" + i, i, randomMatrix(random));
+			jointMap.put(joint.getName(), joint);
+			
+			if (parent == null) {
+				root = joint;
+			} else {
+				parent.addSubJoint(joint);
+			}
+			
+			parent = joint;
+		}
+		
+		root.initOriginTransform(new OpenMatrix4f());
+		
+		return new Armature(JOINTS, root, jointMap);
+	}
+	
+	private static List<AnimatedVertexIndicator> randomVertices(Random random, int count, int weightCount) {
+		List<AnimatedVertexIndicator> vertices = Lists.newArrayList();
+		
+		for (int v = 0; v < count; v++) {
+			AnimatedVertexIndicator vi = new AnimatedVertexIndicator(random.nextInt(POSITIONS), random.nextInt(POSITIONS), random.nextInt(POSITIONS));
+			int influences = 1 + random.nextInt(3);
+			
+			for (int i = 0; i < influences; i++) {
+				vi.addAnimationData(random.nextInt(JOINTS), random.nextInt(weightCount));
+			}
+			
+			vertices.add(vi);
+		}
+		
+		return vertices;
+	}
+	
+	private static OpenMatrix4f[] randomPoses(Random random) {
+		OpenMatrix4f[] poses = new OpenMatrix4f[JOINTS];
+		
+		for (int i = 0; i < JOINTS; i++) {
+			poses[i] = randomMatrix(random);
+		}
+		
+		return poses;
+	}
+	
+	private static OpenMatrix4f randomMatrix(Random random) {
+		OpenMatrix4f matrix = OpenMatrix4f.createTranslation(random.nextFloat() * 2.0F - 1.0F, random.nextFloat() * 2.0F - 1.0F, random.nextFloat() * 2.0F - 1.0F);
+		
+		return matrix.rotateDeg(random.nextFloat() * 360.0F, new Vec3f(random.nextFloat(), random.nextFloat(), random.nextFloat() + 0.1F).normalise());
+	}
+	
+	private static float[] randomArray(Random random, int size, float range) {
+		float[] array = new float[size];
+		
+		for (int i = 0; i < size; i++) {
+			array[i] = (random.nextFloat() * 2.0F - 1.0F) * range;
+		}
+		
+		return array;
+	}
+}
\ No newline at end of file
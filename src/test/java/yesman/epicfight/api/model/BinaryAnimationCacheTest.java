@@ -0,0 +1,114 @@
+package yesman.epicfight.api.model;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import net.minecraft.resources.ResourceLocation;
+import net.minecraftforge.api.distmarker.Dist;
+import yesman.epicfight.api.animation.AnimationClip;
+import yesman.epicfight.api.animation.types.StaticAnimation;
+
+/** Writes clips parsed from the bundled animations into the binary cache and reads them back, the animation manager and the side are left out **/
+public class BinaryAnimationCacheTest {
+	private static final ResourceLocation BIPED = new ResourceLocation("epicfight", "animmodels/entity/biped.json");
+	private static final ResourceLocation IDLE = new ResourceLocation("epicfight", "animmodels/animations/biped/living/idle.json");
+	
+	@TempDir
+	Path cacheDirectory;
+	
+	@Test
+	public void cachedClipMatchesJson() {
+		BinaryAnimationCache cache = new BinaryAnimationCache(this.cacheDirectory);
+		StaticAnimation animation = animation(bundledArmature());
+		byte[] source = bundledBytes(IDLE);
+		AnimationClip parsed = new JsonModelLoader(null, IDLE, source).loadStaticAnimationClip(animation);
+		int variant = cache.getVariant(animation, false, Dist.CLIENT);
+		long stamp = BinaryAnimationCache.getStamp(source, variant);
+		Path file = cache.getCacheFile(IDLE, variant);
+		
+		assertTrue(BinaryAnimationCache.write(file, stamp, parsed));
+		assertTrue(parsed.isIdentical(BinaryAnimationCache.read(file, stamp)));
+		assertNull(BinaryAnimationCache.read(file, stamp + 1));
+	}
+	
+	@Test
+	public void cachedBothSideClipMatchesJson() {
+		BinaryAnimationCache cache = new BinaryAnimationCache(this.cacheDirectory);
+		StaticAnimation animation = animation(bundledArmature());
+		byte[] source = bundledBytes(IDLE);
+		AnimationClip parsed = new JsonModelLoader(null, IDLE, source).loadStaticAnimationClipBothSide(animation);
+		parsed.setCoord(parsed.getJointSheets().get("Root"));
+		int variant = cache.getVariant(animation, true, Dist.CLIENT);
+		long stamp = BinaryAnimationCache.getStamp(source, variant);
+		Path file = cache.getCacheFile(IDLE, variant);
+		
+		assertTrue(BinaryAnimationCache.write(file, stamp, parsed));
+		assertTrue(parsed.isIdentical(BinaryAnimationCache.read(file, stamp)));
+	}
+	
+	@Test
+	public void metadataReadKeepsRootAndCoord() {
+		BinaryAnimationCache cache = new BinaryAnimationCache(this.cacheDirectory);
+		StaticAnimation animation = animation(bundledArmature());
+		byte[] source = bundledBytes(IDLE);
+		AnimationClip parsed = new JsonModelLoader(null, IDLE, source).loadStaticAnimationClip(animation);
+		parsed.setCoord(parsed.getJointSheets().get("Root"));
+		int variant = cache.getVariant(animation, false, Dist.CLIENT);
+		long stamp = BinaryAnimationCache.getStamp(source, variant);
+		Path file = cache.getCacheFile(IDLE, variant);
+		
+		assertTrue(BinaryAnimationCache.write(file, stamp, parsed));
+		AnimationClip metadata = BinaryAnimationCache.read(file, stamp, true);
+		
+		assertNotNull(metadata);
+		assertEquals(1, metadata.getJointSheets().size());
+		assertTrue(AnimationClip.isIdentical(parsed.getJointSheets().get("Root"), metadata.getJointSheets().get("Root")));
+		assertTrue(AnimationClip.isIdentical(parsed.getCoord(), metadata.getCoord()));
+		assertEquals(parsed.getTotalTime(), metadata.getTotalTime());
+	}
+	
+	@Test
+	public void variantsOfTheSameJsonUseSeparateFiles() {
+		BinaryAnimationCache cache = new BinaryAnimationCache(this.cacheDirectory);
+		Armature armature = bundledArmature();
+		StaticAnimation animation = animation(armature);
+		StaticAnimation subclassed = new StaticAnimation(IDLE, 0.15F, true, "biped/living/idle", armature, true) {};
+		Path file = cache.getCacheFile(IDLE, cache.getVariant(animation, false, Dist.CLIENT));
+		
+		assertEquals(file, cache.getCacheFile(IDLE, cache.getVariant(animation(armature), false, Dist.CLIENT)));
+		assertNotEquals(file, cache.getCacheFile(IDLE, cache.getVariant(animation, true, Dist.CLIENT)));
+		assertNotEquals(file, cache.getCacheFile(IDLE, cache.getVariant(animation, false, Dist.DEDICATED_SERVER)));
+		assertNotEquals(file, cache.getCacheFile(IDLE, cache.getVariant(subclassed, false, Dist.CLIENT)));
+		assertNotEquals(file, cache.getCacheFile(IDLE, cache.getVariant(animation(null), false, Dist.CLIENT)));
+	}
+	
+	private static StaticAnimation animation(Armature armature) {
+		return new StaticAnimation(IDLE, 0.15F, true, "biped/living/idle", armature, true);
+	}
+	
+	private static Armature bundledArmature() {
+		return new JsonModelLoader(null, BIPED, bundledBytes(BIPED)).loadArmature(Armature::new);
+	}
+	
+	private static byte[] bundledBytes(ResourceLocation rl) {
+		try (InputStream inputstream = BinaryAnimationCacheTest.class.getResourceAsStream("/assets/" + rl.getNamespace() + "/" + rl.getPath())) {
+			if (inputstream == null) {
+				throw new IllegalStateException("Missing bundled asset " + rl);
+			}
+			
+			return inputstream.readAllBytes();
+		} catch (IOException e) {
+			throw new IllegalStateException("Can't read " + rl, e);
+		}
+	}
+}
\ No newline at end of file
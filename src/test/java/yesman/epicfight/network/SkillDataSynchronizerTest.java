@@ -0,0 +1,198 @@
+package yesman.epicfight.network;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+
+import io.netty.buffer.Unpooled;
+import net.minecraft.network.FriendlyByteBuf;
+import yesman.epicfight.network.server.SPModifySkillDataBatch;
+import yesman.epicfight.skill.SkillDataManager;
+import yesman.epicfight.skill.SkillDataManager.SkillDataKey;
+import yesman.epicfight.skill.SkillDataManager.ValueType;
+
+/** Replays skill data updates recorded from two players and compares the packets sent with and without coalescing **/
+public class SkillDataSynchronizerTest {
+	private static final SkillDataKey<Integer> COMBO = SkillDataKey.createDataKey(ValueType.INTEGER);
+	private static final SkillDataKey<Float> STAMINA = SkillDataKey.createDataKey(ValueType.FLOAT);
+	private static final SkillDataKey<Boolean> CHARGING = SkillDataKey.createDataKey(ValueType.BOOLEAN);
+	private static final int PLAYERS = 2;
+	private static final int SLOTS = 2;
+	private static final int TICKS = 4;
+	
+	private static final Update[] RECORDED = {
+		new Update(0, 0, 0, COMBO, 1),
+		new Update(0, 0, 0, STAMINA, 9.5F),
+		new Update(0, 0, 0, STAMINA, 9.0F),
+		new Update(0, 1, 1, CHARGING, true),
+		new Update(1, 0, 0, STAMINA, 8.5F),
+		new Update(1, 0, 1, CHARGING, true),
+		new Update(1, 0, 1, CHARGING, false),
+		new Update(3, 1, 1, CHARGING, false),
+		new Update(3, 0, 0, COMBO, 2),
+		new Update(3, 0, 0, COMBO, 3),
+		new Update(3, 1, 0, STAMINA, 5.0F)
+	};
+	
+	@Test
+	public void coalescingSendsOnePacketPerPlayerAndTick() {
+		SkillDataManager[][] managers = createManagers();
+		SkillDataSynchronizer.Coalescer<Integer> coalescer = new SkillDataSynchronizer.Coalescer<>();
+		List<SPModifySkillDataBatch> sent = Lists.newArrayList();
+		
+		replay(managers, coalescer, sent);
+		
+		// Without coalescing each update is sent directly, to the trackers as well for shared keys
+		int direct = Arrays.stream(RECORDED).mapToInt((update) -> update.key.shouldSyncAllClients() ? 2 : 1).sum();
+		assertEquals(11, direct);
+		assertEquals(5, sent.size());
+		assertEquals(8, sent.stream().mapToInt((packet) -> decode(packet).size()).sum());
+	}
+	
+	@Test
+	public void latestValueOfATickIsSent() {
+		SkillDataManager[][] managers = createManagers();
+		SkillDataSynchronizer.Coalescer<Integer> coalescer = new SkillDataSynchronizer.Coalescer<>();
+		List<SPModifySkillDataBatch> sent = Lists.newArrayList();
+		
+		replay(managers, coalescer, sent);
+		
+		Map<String, Object> firstTick = decode(sent.get(0));
+		assertEquals(1, firstTick.get(entryName(0, COMBO)));
+		assertEquals(9.0F, firstTick.get(entryName(0, STAMINA)));
+		
+		Map<String, Object> secondTick = decode(sent.get(2));
+		assertEquals(8.5F, secondTick.get(entryName(0, STAMINA)));
+		assertEquals(false, secondTick.get(entryName(1, CHARGING)));
+		
+		Map<String, Object> lastTick = decode(sent.get(4));
+		assertEquals(1, lastTick.size());
+		assertEquals(3, lastTick.get(entryName(0, COMBO)));
+	}
+	
+	@Test
+	public void removedPlayerSendsNothing() {
+		SkillDataManager[][] managers = createManagers();
+		SkillDataSynchronizer.Coalescer<Integer> coalescer = new SkillDataSynchronizer.Coalescer<>();
+		List<SPModifySkillDataBatch> sent = Lists.newArrayList();
+		
+		mark(managers, coalescer, RECORDED[0]);
+		coalescer.remove(RECORDED[0].player);
+		coalescer.flush((player) -> player, (player, ownerPacket, trackerPacket) -> sent.add(ownerPacket));
+		
+		assertTrue(coalescer.isEmpty());
+		assertTrue(sent.isEmpty());
+	}
+	
+	@Test
+	public void flushingOnePlayerKeepsTheOthersPending() {
+		SkillDataManager[][] managers = createManagers();
+		SkillDataSynchronizer.Coalescer<Integer> coalescer = new SkillDataSynchronizer.Coalescer<>();
+		List<Integer> flushed = Lists.newArrayList();
+		
+		// Updates of the first tick, the batch of the second player is flushed in the middle of it
+		for (int i = 0; i < 4; i++) {
+			mark(managers, coalescer, RECORDED[i]);
+		}
+		
+		coalescer.flush((player) -> player, (player, ownerPacket, trackerPacket) -> flushed.add(player), (player) -> player == 1);
+		assertEquals(List.of(1), flushed);
+		assertFalse(coalescer.isEmpty());
+		
+		coalescer.flush((player) -> player, (player, ownerPacket, trackerPacket) -> {
+			flushed.add(player);
+			assertEquals(9.0F, decode(ownerPacket).get(entryName(0, STAMINA)));
+		});
+		assertEquals(List.of(1, 0), flushed);
+		assertTrue(coalescer.isEmpty());
+	}
+	
+	private static void replay(SkillDataManager[][] managers, SkillDataSynchronizer.Coalescer<Integer> coalescer, List<SPModifySkillDataBatch> sent) {
+		int next = 0;
+		
+		for (int tick = 0; tick < TICKS; tick++) {
+			while (next < RECORDED.length && RECORDED[next].tick == tick) {
+				mark(managers, coalescer, RECORDED[next++]);
+			}
+			
+			coalescer.flush((player) -> player, (player, ownerPacket, trackerPacket) -> {
+				if (!ownerPacket.isEmpty()) {
+					sent.add(ownerPacket);
+				}
+				
+				if (!trackerPacket.isEmpty()) {
+					sent.add(trackerPacket);
+				}
+			});
+		}
+	}
+	
+	private static void mark(SkillDataManager[][] managers, SkillDataSynchronizer.Coalescer<Integer> coalescer, Update update) {
+		SkillDataManager dataManager = managers[update.player][update.slot];
+		dataManager.setDataRawtype(update.key, update.value);
+		dataManager.markDirty(update.key);
+		coalescer.markDirty(update.player, dataManager);
+	}
+	
+	private static SkillDataManager[][] createManagers() {
+		SkillDataManager[][] managers = new SkillDataManager[PLAYERS][SLOTS];
+		
+		for (int player = 0; player < PLAYERS; player++) {
+			for (int slot = 0; slot < SLOTS; slot++) {
+				// Owner-only keys never touch the container
+				managers[player][slot] = new SkillDataManager(slot, null);
+				managers[player][slot].registerData(COMBO);
+				managers[player][slot].registerData(STAMINA);
+				managers[player][slot].registerData(CHARGING);
+			}
+		}
+		
+		return managers;
+	}
+	
+	/** Reads the entries back the way the client does **/
+	private static Map<String, Object> decode(SPModifySkillDataBatch packet) {
+		FriendlyByteBuf buf = new FriendlyByteBuf(Unpooled.buffer());
+		SPModifySkillDataBatch.toBytes(packet, buf);
+		buf.readVarInt();
+		int count = buf.readVarInt();
+		Map<String, Object> entries = Maps.newLinkedHashMap();
+		
+		for (int i = 0; i < count; i++) {
+			int slot = buf.readVarInt();
+			SkillDataKey<?> key = SkillDataKey.findById(buf.readVarInt());
+			entries.put(entryName(slot, key), key.getValueType().readFromBuffer(buf));
+		}
+		
+		return entries;
+	}
+	
+	private static String entryName(int slot, SkillDataKey<?> key) {
+		return slot + ":" + key.getId();
+	}
+	
+	private static class Update {
+		final int tick;
+		final int player;
+		final int slot;
+		final SkillDataKey<?> key;
+		final Object value;
+		
+		Update(int tick, int player, int slot, SkillDataKey<?> key, Object value) {
+			this.tick = tick;
+			this.player = player;
+			this.slot = slot;
+			this.key = key;
+			this.value = value;
+		}
+	}
+}
\ No newline at end of file
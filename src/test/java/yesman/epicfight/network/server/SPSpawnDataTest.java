@@ -0,0 +1,145 @@
+package yesman.epicfight.network.server;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Consumer;
+
+import org.junit.jupiter.api.Test;
+
+import com.google.common.collect.Lists;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.PooledByteBufAllocator;
+import net.minecraft.network.FriendlyByteBuf;
+
+/** Decodes spawn packets from pooled buffers the way the network pipeline does and checks every packet buffer is freed **/
+public class SPSpawnDataTest {
+	private static final byte[] PAYLOAD = { 3, 1, 4, 1, 5, 9, 2, 6, 5, 3, 5, 8, 9, 7, 9 };
+	
+	@Test
+	public void payloadRoundTripsAndReleasesThePacket() {
+		ByteBuf packet = PooledByteBufAllocator.DEFAULT.directBuffer();
+		SPSpawnData decoded = decode(packet);
+		byte[][] received = new byte[1][];
+		
+		SPSpawnData.handle(decoded, (work) -> {
+			work.run();
+			return CompletableFuture.completedFuture(null);
+		}, (msg) -> {
+			received[0] = new byte[msg.getBuffer().readableBytes()];
+			msg.getBuffer().readBytes(received[0]);
+		});
+		
+		assertArrayEquals(PAYLOAD, received[0]);
+		assertEquals(0, packet.refCnt());
+	}
+	
+	@Test
+	public void droppedWorkIsReleasedOnDisconnect() {
+		ByteBuf packet = PooledByteBufAllocator.DEFAULT.directBuffer();
+		SPSpawnData decoded = decode(packet);
+		Runnable[] dropped = new Runnable[1];
+		byte[][] received = new byte[1][];
+		
+		SPSpawnData.handle(decoded, (work) -> {
+			dropped[0] = work;
+			return new CompletableFuture<Void>();
+		}, (msg) -> received[0] = new byte[0]);
+		
+		assertEquals(1, packet.refCnt());
+		SPSpawnData.releasePending();
+		assertEquals(0, packet.refCnt());
+		
+		// Work running after the disconnect must not read or release the payload again
+		dropped[0].run();
+		assertNull(received[0]);
+		assertEquals(0, packet.refCnt());
+	}
+	
+	@Test
+	public void rejectedWorkReleasesThePayload() {
+		ByteBuf packet = PooledByteBufAllocator.DEFAULT.directBuffer();
+		SPSpawnData decoded = decode(packet);
+		
+		assertThrows(RejectedExecutionException.class, () -> SPSpawnData.handle(decoded, (work) -> {
+			throw new RejectedExecutionException();
+		}, (msg) -> {}));
+		
+		assertEquals(0, packet.refCnt());
+	}
+	
+	@Test
+	public void manyPayloadsLeakNoBuffers() {
+		Random random = new Random(42L);
+		List<ByteBuf> buffers = Lists.newArrayList();
+		List<Runnable> dropped = Lists.newArrayList();
+		int[] processed = new int[1];
+		
+		for (int i = 0; i < 512; i++) {
+			// Sizes from empty to past a page of the pooled allocator
+			byte[] payload = new byte[i % 4 == 3 ? 8192 + random.nextInt(8192) : random.nextInt(256)];
+			random.nextBytes(payload);
+			
+			SPSpawnData message = new SPSpawnData(i);
+			message.getBuffer().writeBytes(payload);
+			ByteBuf packet = PooledByteBufAllocator.DEFAULT.directBuffer();
+			SPSpawnData decoded = decode(message, packet);
+			message.release();
+			buffers.add(message.getBuffer());
+			buffers.add(packet);
+			
+			Consumer<SPSpawnData> processor = (msg) -> {
+				byte[] received = new byte[msg.getBuffer().readableBytes()];
+				msg.getBuffer().readBytes(received);
+				assertArrayEquals(payload, received);
+				processed[0]++;
+			};
+			
+			// Cycles through the processed, dropped on disconnect and rejected paths
+			switch (i % 3) {
+			case 0 -> SPSpawnData.handle(decoded, (work) -> {
+				work.run();
+				return CompletableFuture.completedFuture(null);
+			}, processor);
+			case 1 -> SPSpawnData.handle(decoded, (work) -> {
+				dropped.add(work);
+				return new CompletableFuture<Void>();
+			}, processor);
+			default -> assertThrows(RejectedExecutionException.class, () -> SPSpawnData.handle(decoded, (work) -> {
+				throw new RejectedExecutionException();
+			}, processor));
+			}
+		}
+		
+		SPSpawnData.releasePending();
+		dropped.forEach(Runnable::run);
+		
+		assertEquals(171, processed[0]);
+		
+		for (ByteBuf buffer : buffers) {
+			assertEquals(0, buffer.refCnt());
+		}
+	}
+	
+	private static SPSpawnData decode(ByteBuf packet) {
+		SPSpawnData message = new SPSpawnData(42);
+		message.getBuffer().writeBytes(PAYLOAD);
+		
+		return decode(message, packet);
+	}
+	
+	private static SPSpawnData decode(SPSpawnData message, ByteBuf packet) {
+		SPSpawnData.toBytes(message, new FriendlyByteBuf(packet));
+		SPSpawnData decoded = SPSpawnData.fromBytes(new FriendlyByteBuf(packet));
+		packet.release();
+		
+		return decoded;
+	}
+}
\ No newline at end of file